@@ -170,12 +170,34 @@ CREATE TABLE IF NOT EXISTS requisition_items (
 -- PHASE 2: CREATE NEW TABLES
 -- ============================================
 
+-- 2.0 Move an AUDIT_LOGS table from before partitioning aside
+-- Partitioning can't be added in place: the partition column (timestamp) must be part of
+-- the primary key. The old table is renamed here, 2.1 creates the partitioned table and
+-- 2.1.2 copies the rows over. Run during a quiet period; drop audit_logs_unpartitioned
+-- once the copy is checked.
+SET @audit_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES
+    WHERE table_schema = @db_name AND table_name = 'audit_logs');
+SET @audit_partitions = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.PARTITIONS
+    WHERE table_schema = @db_name AND table_name = 'audit_logs' AND partition_name IS NOT NULL);
+SET @sql = IF(@audit_exists = 1 AND @audit_partitions = 0,
+    'RENAME TABLE audit_logs TO audit_logs_unpartitioned',
+    'SELECT "audit_logs is already partitioned" AS msg');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
 -- 2.1 Create AUDIT_LOGS table
 -- For AdminAuditLogs page - tracks all system activities
+-- Partitioned by month (on timestamp) so archiving can drop a whole old month at once
+-- (see AuditLogArchiver). Rows after the last monthly partition go to p_future; 2.1.1 and
+-- the application (at startup and when it archives) split it into months ahead of time,
+-- while it is still empty.
+-- Partitioned tables can't have foreign keys or unique keys without the partition column:
+-- user_id is no longer a foreign key (username is stored with every log anyway), and
+-- log_code is unique together with timestamp (uk_log_code). The application hands out
+-- codes once (CodeSequence) and rejects a batch whose code matches more than one row.
 CREATE TABLE IF NOT EXISTS audit_logs (
-    log_id INT PRIMARY KEY AUTO_INCREMENT,
-    log_code VARCHAR(20) UNIQUE,  -- LOG0001247, LOG0001248, etc.
-    timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    log_id INT NOT NULL AUTO_INCREMENT,
+    log_code VARCHAR(20),  -- LOG0001247, LOG0001248, etc.
+    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     user_id INT,
     username VARCHAR(50),
     action_type ENUM('CREATE', 'UPDATE', 'DELETE', 'LOGIN', 'LOGOUT', 'BACKUP', 'READ') NOT NULL,
@@ -183,13 +205,71 @@ CREATE TABLE IF NOT EXISTS audit_logs (
     description TEXT,
     ip_address VARCHAR(45),  -- IPv6 support
     result ENUM('SUCCESS', 'FAILED', 'WARNING') DEFAULT 'SUCCESS',
-    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE SET NULL,
+    PRIMARY KEY (log_id, timestamp),
+    UNIQUE KEY uk_log_code (log_code, timestamp),
     INDEX idx_timestamp (timestamp),
     INDEX idx_user (user_id),
     INDEX idx_action_type (action_type),
     INDEX idx_module (module),
     INDEX idx_result (result)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4
+PARTITION BY RANGE (UNIX_TIMESTAMP(timestamp)) (
+    PARTITION p_start VALUES LESS THAN (UNIX_TIMESTAMP('2026-01-01 00:00:00')),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- 2.1.1 Give every month from 2026-01 up to 3 months from now its own partition
+-- (3 = audit.partitions.monthsAhead). Only done while the table has no monthly partitions:
+-- on a new table p_future is empty and this is a metadata change. A table from before this
+-- step has its rows since 2026-01 in p_future and they are copied - run during a quiet period.
+SET @audit_monthly = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.PARTITIONS
+    WHERE table_schema = @db_name AND table_name = 'audit_logs'
+      AND partition_name NOT IN ('p_start', 'p_future'));
+SET @audit_future = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.PARTITIONS
+    WHERE table_schema = @db_name AND table_name = 'audit_logs' AND partition_name = 'p_future');
+SET SESSION group_concat_max_len = 65536;
+SET @audit_months = (
+    WITH RECURSIVE months (month_start) AS (
+        SELECT DATE('2026-01-01')
+        UNION ALL
+        SELECT month_start + INTERVAL 1 MONTH FROM months
+        WHERE month_start < DATE_FORMAT(CURRENT_DATE, '%Y-%m-01') + INTERVAL 3 MONTH
+    )
+    SELECT GROUP_CONCAT(CONCAT('PARTITION p', DATE_FORMAT(month_start, '%Y%m'),
+        ' VALUES LESS THAN (UNIX_TIMESTAMP(''', month_start + INTERVAL 1 MONTH, ' 00:00:00''))')
+        ORDER BY month_start SEPARATOR ', ')
+    FROM months);
+SET @sql = IF(@audit_monthly = 0 AND @audit_future = 1,
+    CONCAT('ALTER TABLE audit_logs REORGANIZE PARTITION p_future INTO (', @audit_months,
+           ', PARTITION p_future VALUES LESS THAN (MAXVALUE))'),
+    'SELECT "audit_logs already has monthly partitions" AS msg');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 2.1.2 Copy the rows of an audit_logs table moved aside by 2.0
+-- INSERT IGNORE: safe to re-run while audit_logs_unpartitioned still exists
+SET @old_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES
+    WHERE table_schema = @db_name AND table_name = 'audit_logs_unpartitioned');
+SET @sql = IF(@old_exists = 1,
+    'INSERT IGNORE INTO audit_logs (log_id, log_code, timestamp, user_id, username, action_type, module, description, ip_address, result)
+     SELECT log_id, log_code, COALESCE(timestamp, CURRENT_TIMESTAMP), user_id, username, action_type, module, description, ip_address, result
+     FROM audit_logs_unpartitioned',
+    'SELECT "No unpartitioned audit_logs to copy" AS msg');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 2.1.3 Make log_code unique on an audit_logs table partitioned before uk_log_code existed
+SET @uk_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+    WHERE table_schema = @db_name AND table_name = 'audit_logs' AND index_name = 'uk_log_code');
+SET @sql = IF(@uk_exists = 0,
+    'ALTER TABLE audit_logs ADD UNIQUE KEY uk_log_code (log_code, timestamp)',
+    'SELECT "uk_log_code already exists" AS msg');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+SET @old_index = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+    WHERE table_schema = @db_name AND table_name = 'audit_logs' AND index_name = 'idx_log_code');
+SET @sql = IF(@old_index > 0,
+    'ALTER TABLE audit_logs DROP INDEX idx_log_code',
+    'SELECT "idx_log_code already replaced" AS msg');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
 
 -- 2.2 Create SECURITY_INCIDENTS table
 -- For AdminSecurity page - tracks security events and threats
@@ -273,6 +353,121 @@ CREATE TABLE IF NOT EXISTS purchase_order_items (
     INDEX idx_item_id (item_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- 2.6 Create DASHBOARD_COUNTERS table
+-- Dashboard numbers maintained by the write paths themselves (see CountersDAO), so the
+-- dashboards read a few primary-key rows instead of scanning inventory/requisitions/audit logs.
+-- Each counter is spread over several slots to avoid one hot row; readers SUM the slots.
+-- Names: inventory.items, inventory.low_stock, inventory.out_of_stock, inventory.value,
+--        requisitions.pending, audit_logs.day:YYYY-MM-DD
+CREATE TABLE IF NOT EXISTS dashboard_counters (
+    counter_name VARCHAR(64) NOT NULL,
+    slot TINYINT UNSIGNED NOT NULL DEFAULT 0,
+    counter_value DECIMAL(20,2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (counter_name, slot)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 2.7 Create AUDIT_LOG_TERMS table
+-- Inverted index for the audit log search box (see AuditLogSearch): one row per word
+-- occurrence per log, taken from username, description and log_code. Searches read the posting
+-- ranges of the typed words (term prefix range on the primary key) instead of scanning
+-- audit_logs with LIKE '%x%'. Written in the same transaction as the log row.
+-- pos = the word's position in the log (used for "quoted phrases"; fields are one apart)
+-- An index from before positions (a tf column instead of pos) is dropped here; the
+-- application rebuilds it in the background on its next start.
+SET @terms_without_pos = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES t
+    WHERE t.table_schema = @db_name AND t.table_name = 'audit_log_terms'
+    AND NOT EXISTS (SELECT 1 FROM INFORMATION_SCHEMA.COLUMNS c
+        WHERE c.table_schema = @db_name AND c.table_name = 'audit_log_terms' AND c.column_name = 'pos'));
+SET @sql = IF(@terms_without_pos = 1,
+    'DROP TABLE audit_log_terms',
+    'SELECT "audit_log_terms already has positions" AS msg');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+CREATE TABLE IF NOT EXISTS audit_log_terms (
+    term VARCHAR(64) NOT NULL,
+    log_id INT NOT NULL,
+    pos SMALLINT UNSIGNED NOT NULL,
+    PRIMARY KEY (term, log_id, pos),
+    INDEX idx_terms_log (log_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin;
+
+-- 2.8 Create CODE_SEQUENCES table
+-- Next free number of each human-readable code (see CodeSequence): audit_log → LOG0001247,
+-- requisition → REQ-00042. Applications reserve blocks of numbers by moving next_value on,
+-- then hand them out from memory.
+-- audit_log_index is not a code: it is the first log_id the search indexer has not looked at
+-- yet (see AuditLogSearch.indexMissingLogs).
+CREATE TABLE IF NOT EXISTS code_sequences (
+    sequence_name VARCHAR(32) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 2.9 Create AUDIT_ARCHIVE_RUNS table
+-- One row per audit log archive run (see AuditLogArchiver). Old SUCCESS logs are deleted in
+-- small primary-key ranges; each range commits together with last_log_id / deleted_count,
+-- so a stopped or interrupted run (status RUNNING) resumes where it left off.
+-- Only one run at a time, across all clients: the RUNNING run has active = 1 (unique), and
+-- the client working on it holds a lease (owner, lease_until) that every step renews.
+CREATE TABLE IF NOT EXISTS audit_archive_runs (
+    run_id INT PRIMARY KEY AUTO_INCREMENT,
+    cutoff TIMESTAMP NOT NULL,         -- SUCCESS logs older than this are deleted
+    first_log_id INT NOT NULL,         -- Ids (first_log_id, end_log_id] are walked
+    last_log_id INT NOT NULL,          -- Ids up to here are done
+    end_log_id INT NOT NULL,
+    deleted_count BIGINT NOT NULL DEFAULT 0,
+    status ENUM('RUNNING', 'DONE') NOT NULL DEFAULT 'RUNNING',
+    active TINYINT NULL,               -- 1 while RUNNING, NULL once DONE
+    owner VARCHAR(36) NULL,            -- Client working on the run, until lease_until
+    lease_until TIMESTAMP NULL,
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_archive_active (active),
+    INDEX idx_archive_status (status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 2.9.1 Add the run lock to an audit_archive_runs table from before it existed
+-- Two runs started at the same moment could both be RUNNING: the newest one is kept
+SET @col_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS
+    WHERE table_schema = @db_name AND table_name = 'audit_archive_runs' AND column_name = 'active');
+SET @sql = IF(@col_exists = 0,
+    'ALTER TABLE audit_archive_runs ADD COLUMN active TINYINT NULL AFTER status,
+     ADD COLUMN owner VARCHAR(36) NULL AFTER active, ADD COLUMN lease_until TIMESTAMP NULL AFTER owner',
+    'SELECT "Column active already exists" AS msg');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+SET @uk_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+    WHERE table_schema = @db_name AND table_name = 'audit_archive_runs' AND index_name = 'uk_archive_active');
+SET @newest_run = (SELECT MAX(run_id) FROM audit_archive_runs WHERE status = 'RUNNING');
+SET @sql = IF(@uk_exists = 0,
+    'UPDATE audit_archive_runs SET status = IF(run_id = @newest_run, ''RUNNING'', ''DONE''),
+     active = IF(run_id = @newest_run, 1, NULL) WHERE status = ''RUNNING''',
+    'SELECT "Archive runs already locked" AS msg');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+SET @sql = IF(@uk_exists = 0,
+    'ALTER TABLE audit_archive_runs ADD UNIQUE KEY uk_archive_active (active)',
+    'SELECT "uk_archive_active already exists" AS msg');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 2.10 Create DASHBOARD_SNAPSHOT table
+-- The admin dashboard numbers, shared by every client (see DashboardMetricsDAO). One row.
+-- The client holding the lease (lease_until in the future) runs the counting query and
+-- writes the result back; the others read this row until it is older than the TTL.
+CREATE TABLE IF NOT EXISTS dashboard_snapshot (
+    snapshot_id TINYINT PRIMARY KEY,
+    active_users INT NOT NULL DEFAULT 0,
+    total_items INT NOT NULL DEFAULT 0,
+    low_stock INT NOT NULL DEFAULT 0,
+    out_of_stock INT NOT NULL DEFAULT 0,
+    pending_requisitions INT NOT NULL DEFAULT 0,
+    recent_audit_logs INT NOT NULL DEFAULT 0,
+    refreshed_at TIMESTAMP(3) NULL,   -- NULL until the first refresh
+    lease_until TIMESTAMP(3) NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT IGNORE INTO dashboard_snapshot (snapshot_id) VALUES (1);
+
 -- ============================================
 -- PHASE 3: ADD PERFORMANCE INDEXES
 -- ============================================
@@ -293,6 +488,29 @@ CREATE INDEX IF NOT EXISTS idx_attendance_employee_date ON attendance_records(em
 CREATE INDEX IF NOT EXISTS idx_user_role ON users(role);
 CREATE INDEX IF NOT EXISTS idx_user_is_active ON users(is_active);
 
+-- 3.5 Audit log browsing (AuditLogDAO.getAuditLogPage)
+-- Pages seek on (timestamp, log_id); with a filter, these let the seek start inside the
+-- filtered rows instead of walking idx_timestamp and skipping non-matching ones.
+-- (Secondary indexes already end in the primary key, so log_id is included.)
+CREATE INDEX IF NOT EXISTS idx_audit_action_time ON audit_logs(action_type, timestamp);
+CREATE INDEX IF NOT EXISTS idx_audit_module_time ON audit_logs(module, timestamp);
+CREATE INDEX IF NOT EXISTS idx_audit_result_time ON audit_logs(result, timestamp);
+
+-- 3.6 One attendance record per employee per day
+-- The scan API (AttendanceDAO.recordScan) relies on this key to make
+-- check-in atomic: INSERT IGNORE loses cleanly if another gate got there first.
+-- Remove duplicate rows left by the old read-then-insert flow (keeps the earliest record)
+DELETE a FROM attendance_records a
+JOIN attendance_records b
+    ON a.employee_id = b.employee_id AND a.date = b.date AND a.record_id > b.record_id;
+
+SET @idx_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+    WHERE table_schema = @db_name AND table_name = 'attendance_records' AND index_name = 'unique_employee_date');
+SET @sql = IF(@idx_exists = 0,
+    'ALTER TABLE attendance_records ADD UNIQUE KEY unique_employee_date (employee_id, date)',
+    'SELECT "Index unique_employee_date already exists" AS msg');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
 -- ============================================
 -- PHASE 4: INSERT INITIAL DATA
 -- ============================================
@@ -320,6 +538,36 @@ INSERT IGNORE INTO system_settings (category, setting_name, setting_key, current
 ('APPLICATION', 'Date Format', 'app.date_format', 'YYYY-MM-DD', 'MM/DD/YYYY', 'STRING', 'Date display format'),
 ('APPLICATION', 'Timezone', 'app.timezone', 'Asia/Riyadh', 'UTC', 'STRING', 'Application timezone');
 
+-- 4.2 Seed DASHBOARD_COUNTERS from the current data (slot 0 holds the total, other slots are reset)
+-- Safe to re-run; the application's reconciliation job does the same thing every few minutes.
+DELETE FROM dashboard_counters;
+
+INSERT INTO dashboard_counters (counter_name, slot, counter_value)
+SELECT 'inventory.items', 0, COUNT(*) FROM inventory_items
+UNION ALL
+SELECT 'inventory.low_stock', 0, COALESCE(SUM(quantity <= reorder_level), 0) FROM inventory_items
+UNION ALL
+SELECT 'inventory.out_of_stock', 0, COALESCE(SUM(quantity = 0), 0) FROM inventory_items
+UNION ALL
+SELECT 'inventory.value', 0, COALESCE(SUM(quantity * unit_price), 0) FROM inventory_items
+UNION ALL
+SELECT 'requisitions.pending', 0, COUNT(*) FROM requisitions WHERE status = 'Pending'
+UNION ALL
+SELECT CONCAT('audit_logs.day:', CURRENT_DATE), 0, COUNT(*) FROM audit_logs
+WHERE timestamp >= CURRENT_DATE AND timestamp < CURRENT_DATE + INTERVAL 1 DAY;
+
+-- 4.3 Start CODE_SEQUENCES after the existing rows (the old codes were MAX(id) + 1)
+-- audit_log also starts after the highest number in an existing LOG code (codes and ids can
+-- differ, e.g. after rows were copied). GREATEST: never move a sequence in use backwards
+INSERT INTO code_sequences (sequence_name, next_value)
+SELECT 'audit_log', GREATEST(
+    (SELECT COALESCE(MAX(log_id), 0) FROM audit_logs),
+    (SELECT COALESCE(MAX(CAST(SUBSTRING(log_code, 4) AS UNSIGNED)), 0) FROM audit_logs
+     WHERE log_code REGEXP '^LOG[0-9]{1,9}$')) + 1
+UNION ALL
+SELECT 'requisition', COALESCE(MAX(requisition_id), 0) + 1 FROM requisitions
+ON DUPLICATE KEY UPDATE next_value = GREATEST(next_value, VALUES(next_value));
+
 -- ============================================
 -- PHASE 5: DATA INTEGRITY CHECKS
 -- ============================================
@@ -365,6 +613,16 @@ UNION ALL
 SELECT 'system_settings', COUNT(*) FROM system_settings
 UNION ALL
 SELECT 'generated_reports', COUNT(*) FROM generated_reports
+UNION ALL
+SELECT 'dashboard_counters', COUNT(*) FROM dashboard_counters
+UNION ALL
+SELECT 'audit_log_terms', COUNT(*) FROM audit_log_terms
+UNION ALL
+SELECT 'code_sequences', COUNT(*) FROM code_sequences
+UNION ALL
+SELECT 'audit_archive_runs', COUNT(*) FROM audit_archive_runs
+UNION ALL
+SELECT 'dashboard_snapshot', COUNT(*) FROM dashboard_snapshot
 ORDER BY table_name;
 
 -- Show all tables
@@ -1,5 +1,9 @@
 package com.team.supplychain;
 
+import com.team.supplychain.dao.AuditLogArchiver;
+import com.team.supplychain.dao.AuditLogSearch;
+import com.team.supplychain.dao.CountersDAO;
+
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -30,6 +34,15 @@ public class Main extends Application {
             
             System.out.println("✓ Application started successfully!");
             
+            // Correct dashboard counter drift in the background (see CountersDAO)
+            CountersDAO.startReconciliation();
+
+            // Index audit logs the search box can't find yet (see AuditLogSearch)
+            AuditLogSearch.startIndexing();
+
+            // Add audit log partitions while p_future is still empty (see AuditLogArchiver)
+            AuditLogArchiver.startPartitionMaintenance();
+            
         } catch (Exception e) {
             System.err.println("✗ Error loading application:");
             e.printStackTrace();
@@ -0,0 +1,158 @@
+package com.team.supplychain.api;
+
+import com.google.gson.JsonObject;
+import com.team.supplychain.dao.AttendanceDAO.ScanOutcome;
+import com.team.supplychain.models.Attendance;
+import com.team.supplychain.models.Employee;
+import com.team.supplychain.utils.AppConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory feed of accepted check-ins/check-outs, streamed to manager dashboards
+ * by AttendanceEventServlet (Server-Sent Events).
+ *
+ * WHY?
+ * ManagerAttendanceController used to reload every attendance record (and re-query the day's
+ * stats) to see new scans. Now it loads once, subscribes, and applies each event as a delta.
+ *
+ * EVENT IDS: "<server start millis>:<sequence>"
+ * The last events.bufferSize events are kept in a ring buffer, so a client that reconnects
+ * with Last-Event-ID gets exactly what it missed. If its id is from an earlier server run
+ * or has already been overwritten, it is told to reload instead (see eventsAfter).
+ *
+ * Only scans that go through the scan server are published - the desktop check-in button
+ * writes straight to the database and still needs a manual refresh to show up.
+ */
+public class AttendanceEventBus {
+
+    private static final int CAPACITY = Math.max(16, AppConfig.getInt("events.bufferSize", 1000));
+    private static final String EPOCH = Long.toString(System.currentTimeMillis());
+
+    private static final String[] ring = new String[CAPACITY];  // event n is at ring[n % CAPACITY]
+    private static long lastSequence = 0;
+    private static final Object lock = new Object();
+
+    private AttendanceEventBus() {
+        // Static utility class
+    }
+
+    /**
+     * Publish an accepted scan (CHECKED_IN or CHECKED_OUT; other outcomes are ignored)
+     *
+     * @param employee Badge owner - may be null if unknown, the record is still published
+     * @param attendance The record after the scan
+     */
+    public static void publish(ScanOutcome outcome, Employee employee, Attendance attendance) {
+        if (attendance == null || (outcome != ScanOutcome.CHECKED_IN && outcome != ScanOutcome.CHECKED_OUT)) {
+            return;
+        }
+
+        JsonObject data = new JsonObject();
+        data.addProperty("outcome", outcome.name());
+        data.addProperty("employeeId", attendance.getEmployeeId());
+        if (employee != null) {
+            data.addProperty("firstName", employee.getFirstName());
+            data.addProperty("lastName", employee.getLastName());
+            data.addProperty("department", employee.getDepartment());
+            data.addProperty("position", employee.getPosition());
+        }
+        data.addProperty("date", attendance.getDate().toString());
+        if (attendance.getCheckInTime() != null) {
+            data.addProperty("checkInTime", attendance.getCheckInTime().toString());
+        }
+        if (attendance.getCheckOutTime() != null) {
+            data.addProperty("checkOutTime", attendance.getCheckOutTime().toString());
+        }
+        if (attendance.getStatus() != null) {
+            data.addProperty("status", attendance.getStatus().name());
+        }
+        data.addProperty("location", attendance.getLocation());
+        append("attendance\n" + data);
+    }
+
+    /**
+     * Tell every subscriber to reload from the database
+     * (used when more changed at once than is worth streaming, e.g. a large bulk upload)
+     */
+    public static void publishReload(String reason) {
+        JsonObject data = new JsonObject();
+        data.addProperty("reason", reason);
+        append("reload\n" + data);
+    }
+
+    /**
+     * @return Id of the newest event (subscribers without a Last-Event-ID start here)
+     */
+    public static String getLastEventId() {
+        synchronized (lock) {
+            return EPOCH + ":" + lastSequence;
+        }
+    }
+
+    /**
+     * Wait until there are events after the given id.
+     *
+     * @param lastEventId Id of the last event the client has seen
+     * @param timeoutMs How long to wait if there is nothing new
+     * @return Events as {id, type, data} - empty after the timeout, or null if the client
+     *         missed events that are no longer buffered and must reload
+     */
+    static List<String[]> eventsAfter(String lastEventId, long timeoutMs) throws InterruptedException {
+        long after = parseSequence(lastEventId);
+        synchronized (lock) {
+            if (after < 0 || after > lastSequence || after < lastSequence - CAPACITY) {
+                return null;
+            }
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (lastSequence == after) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return List.of();
+                }
+                lock.wait(remaining);
+            }
+            if (after < lastSequence - CAPACITY) {
+                return null;  // fell behind while waiting
+            }
+
+            List<String[]> events = new ArrayList<>((int) (lastSequence - after));
+            for (long sequence = after + 1; sequence <= lastSequence; sequence++) {
+                String[] typeAndData = ring[(int) (sequence % CAPACITY)].split("\n", 2);
+                events.add(new String[]{EPOCH + ":" + sequence, typeAndData[0], typeAndData[1]});
+            }
+            return events;
+        }
+    }
+
+    static int getCapacity() {
+        return CAPACITY;
+    }
+
+    private static void append(String typeAndData) {
+        synchronized (lock) {
+            lastSequence++;
+            ring[(int) (lastSequence % CAPACITY)] = typeAndData;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * @return The sequence part of an id from this server run, or -1 (unknown/earlier run)
+     */
+    private static long parseSequence(String eventId) {
+        if (eventId == null) {
+            return -1;
+        }
+        int colon = eventId.indexOf(':');
+        if (colon < 0 || !EPOCH.equals(eventId.substring(0, colon))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.team.supplychain.api;
+
+import com.team.supplychain.utils.AppConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events stream of check-ins/check-outs for manager dashboards
+ *
+ * Endpoint: GET /api/attendance/events
+ * Resume: send the Last-Event-ID header (or ?lastEventId=...) to get the events missed while
+ * disconnected. Without one, the stream starts at the current position.
+ *
+ * Events:
+ *   ready      - first event of every connection, its id is the position the stream resumes from
+ *   attendance - a record was created or checked out: {"outcome": "CHECKED_IN", "employeeId": 5, ...}
+ *   reload     - events were missed that are no longer buffered; reload from the database
+ *
+ * Each subscriber holds one server thread while connected. Subscribers are manager desktops,
+ * not scanners, so there are few of them - events.maxSubscribers (default 20) caps it anyway.
+ */
+public class AttendanceEventServlet extends HttpServlet {
+
+    private static final long KEEP_ALIVE_MS = 15000;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private int maxSubscribers;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        maxSubscribers = AppConfig.getInt("events.maxSubscribers", 20);
+        System.out.println("AttendanceEventServlet initialized");
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            resp.setHeader("Retry-After", "30");
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many event subscribers");
+            return;
+        }
+
+        try {
+            resp.setStatus(HttpServletResponse.SC_OK);
+            resp.setContentType("text/event-stream");
+            resp.setCharacterEncoding("UTF-8");
+            resp.setHeader("Cache-Control", "no-cache");
+            PrintWriter out = resp.getWriter();
+
+            String lastEventId = req.getHeader("Last-Event-ID");
+            if (lastEventId == null) {
+                lastEventId = req.getParameter("lastEventId");
+            }
+
+            if (lastEventId == null) {
+                lastEventId = AttendanceEventBus.getLastEventId();
+            }
+            // "ready" repeats the resume point, so reconnecting right after it loses nothing
+            out.print("retry: 5000\n");
+            writeEvent(out, lastEventId, "ready", "{}");
+            out.flush();
+
+            while (!out.checkError()) {
+                List<String[]> events = AttendanceEventBus.eventsAfter(lastEventId, KEEP_ALIVE_MS);
+                if (events == null) {
+                    // Too far behind (or from before a restart) - resync from the current position
+                    lastEventId = AttendanceEventBus.getLastEventId();
+                    writeEvent(out, lastEventId, "reload", "{\"reason\":\"missed events\"}");
+                    out.flush();
+                } else if (events.isEmpty()) {
+                    out.print(": keep-alive\n\n");
+                    out.flush();
+                } else {
+                    for (String[] event : events) {
+                        writeEvent(out, event[0], event[1], event[2]);
+                    }
+                    out.flush();
+                    lastEventId = events.get(events.size() - 1)[0];
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscribers.decrementAndGet();
+        }
+    }
+
+    private void writeEvent(PrintWriter out, String id, String type, String data) {
+        out.print("id: " + id + "\nevent: " + type + "\ndata: " + data + "\n\n");
+    }
+}
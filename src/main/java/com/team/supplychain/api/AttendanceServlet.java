@@ -3,9 +3,12 @@ package com.team.supplychain.api;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.team.supplychain.dao.AttendanceDAO;
-import com.team.supplychain.dao.EmployeeDAO;
+import com.team.supplychain.dao.EmployeeQRCodeCache;
 import com.team.supplychain.models.Attendance;
 import com.team.supplychain.models.Employee;
+import com.team.supplychain.services.QRCodeService;
+import com.team.supplychain.utils.AppConfig;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,6 +17,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.sql.SQLException;
 
 /**
  * REST API Servlet for QR Code Attendance Scanning
@@ -21,21 +25,77 @@ import java.io.PrintWriter;
  *
  * Endpoint: POST /api/attendance/scan
  * Request Body: {"qrCode": "EMP-00001-ABC123", "action": "checkin" or "checkout", "location": "Main Entrance"}
+ *   (signed badges - EMP1.<id>.<key version>.<mac> - are verified before any lookup, see QRCodeService)
  * Response: JSON with employee details and attendance status
+ *
+ * Async mode (scan.async.enabled=true): the request is parked with AsyncContext and the scan
+ * runs on ScanAdmissionControl's executor. When too many scans are waiting the answer is
+ * 429 with a Retry-After header instead of a blocked thread.
  */
 public class AttendanceServlet extends HttpServlet {
 
     private AttendanceDAO attendanceDAO;
-    private EmployeeDAO employeeDAO;
+    private AttendanceWriteBehind writeBehind;  // null unless scan.writeBehind.enabled=true
+    private OfflineScanBuffer offlineBuffer;    // null if scan.offline.enabled=false or in write-behind mode
+    private ScanAdmissionControl admission;     // null unless scan.async.enabled=true
+    private ScanDeduplicator deduplicator;      // null if scan.dedup.windowSeconds=0
     private Gson gson;
 
     @Override
     public void init() throws ServletException {
         super.init();
         attendanceDAO = new AttendanceDAO();
-        employeeDAO = new EmployeeDAO();
         gson = new Gson();
-        System.out.println("AttendanceServlet initialized");
+
+        if (AppConfig.getBoolean("scan.writeBehind.enabled", false)) {
+            try {
+                writeBehind = new AttendanceWriteBehind(attendanceDAO);
+                writeBehind.start();
+            } catch (IOException e) {
+                throw new ServletException("Could not open scan journal", e);
+            }
+        } else if (AppConfig.getBoolean("scan.offline.enabled", true)) {
+            // Write-behind never waits on the database, so offline buffering only applies to direct mode
+            try {
+                offlineBuffer = new OfflineScanBuffer(attendanceDAO);
+                offlineBuffer.start();
+            } catch (IOException e) {
+                throw new ServletException("Could not open offline scan log", e);
+            }
+        }
+
+        int dedupWindowSeconds = AppConfig.getInt("scan.dedup.windowSeconds", 10);
+        if (dedupWindowSeconds > 0) {
+            deduplicator = new ScanDeduplicator(dedupWindowSeconds, AppConfig.getInt("scan.dedup.maxEntries", 10000));
+            if (writeBehind != null) {
+                // A journaled scan the database later refuses must not be answered as a repeat
+                ScanDeduplicator dedup = deduplicator;
+                writeBehind.setOnRejected(scan -> dedup.forget(scan.getQrCode()));
+            }
+        }
+
+        if (AppConfig.getBoolean("scan.async.enabled", false)) {
+            admission = new ScanAdmissionControl(
+                    AppConfig.getInt("scan.async.threads", AppConfig.getInt("db.pool.scan.maxConnections", 10)),
+                    AppConfig.getInt("scan.async.maxQueue", 200),
+                    AppConfig.getLong("scan.async.maxWaitMs", 3000));
+        }
+        System.out.println("AttendanceServlet initialized" + (writeBehind != null ? " (write-behind mode)" : "")
+                + (admission != null ? " (async mode)" : ""));
+    }
+
+    @Override
+    public void destroy() {
+        if (admission != null) {
+            admission.shutdown();
+        }
+        if (writeBehind != null) {
+            writeBehind.stop();
+        }
+        if (offlineBuffer != null) {
+            offlineBuffer.stop();
+        }
+        super.destroy();
     }
 
     /**
@@ -56,13 +116,78 @@ public class AttendanceServlet extends HttpServlet {
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
 
+        // The body is tiny - read it here so the worker thread never blocks on the network
+        String body = readBody(req);
+
+        if (admission == null) {
+            processScan(body, resp);
+            return;
+        }
+
+        // Async mode: release this thread, process on the scan executor (or shed with 429)
+        AsyncContext async = req.startAsync();
+        async.setTimeout(0);  // Waiting is bounded by scan.async.maxWaitMs and the DB budgets instead
+        boolean queued = admission.submit(() -> {
+            try {
+                processScan(body, resp);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                async.complete();
+            }
+        }, () -> {
+            rejectBusy(resp);
+            async.complete();
+        });
+
+        if (!queued) {
+            rejectBusy(resp);
+            async.complete();
+        }
+    }
+
+    /**
+     * Answer 429 Too Many Requests with a Retry-After estimate
+     */
+    private void rejectBusy(HttpServletResponse resp) {
+        int retryAfter = admission.getRetryAfterSeconds();
+        resp.setStatus(429);
+        resp.setHeader("Retry-After", String.valueOf(retryAfter));
+
+        JsonObject response = new JsonObject();
+        response.addProperty("success", false);
+        response.addProperty("message", "Scanner is busy. Please scan again in " + retryAfter + " seconds.");
+        response.addProperty("retryAfter", retryAfter);
+        try {
+            PrintWriter out = resp.getWriter();
+            out.print(gson.toJson(response));
+            out.flush();
+        } catch (IOException e) {
+            // Client already gone
+        }
+    }
+
+    private String readBody(HttpServletRequest req) throws IOException {
+        StringBuilder body = new StringBuilder();
+        BufferedReader reader = req.getReader();
+        char[] buffer = new char[1024];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            body.append(buffer, 0, read);
+        }
+        return body.toString();
+    }
+
+    /**
+     * Validate the request, resolve the badge and record the scan
+     */
+    private void processScan(String body, HttpServletResponse resp) throws IOException {
         PrintWriter out = resp.getWriter();
         JsonObject response = new JsonObject();
 
         try {
             // Parse request body
-            BufferedReader reader = req.getReader();
-            JsonObject requestData = gson.fromJson(reader, JsonObject.class);
+            JsonObject requestData = gson.fromJson(body, JsonObject.class);
 
             if (requestData == null || !requestData.has("qrCode")) {
                 response.addProperty("success", false);
@@ -74,6 +199,7 @@ public class AttendanceServlet extends HttpServlet {
 
             String qrCode = requestData.get("qrCode").getAsString();
             String action = requestData.has("action") ? requestData.get("action").getAsString() : "checkin";
+            boolean checkOut = "checkout".equalsIgnoreCase(action);
             String location = requestData.has("location") ? requestData.get("location").getAsString() : "Main Entrance";
 
             // Validate inputs
@@ -85,8 +211,34 @@ public class AttendanceServlet extends HttpServlet {
                 return;
             }
 
-            // Lookup employee by QR code
-            Employee employee = employeeDAO.getEmployeeByQRCode(qrCode.trim());
+            // Signed badges are checked in memory - forged or garbled codes never reach the database
+            QRCodeService.Verification signature = QRCodeService.verifySignedCode(qrCode.trim());
+            if (signature == QRCodeService.Verification.INVALID
+                    || (signature == QRCodeService.Verification.PLAIN && !QRCodeService.isPlainCodeAccepted())) {
+                response.addProperty("success", false);
+                response.addProperty("message", "Employee not found. Invalid QR code.");
+                resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                out.print(gson.toJson(response));
+                return;
+            }
+
+            // Same badge, same gate, same action a moment ago? Repeat that answer from memory
+            String dedupAction = checkOut ? "checkout" : "checkin";
+            if (deduplicator != null) {
+                String previous = deduplicator.lookup(qrCode.trim(), location, dedupAction);
+                if (previous != null) {
+                    resp.setStatus(HttpServletResponse.SC_OK);
+                    resp.setHeader("X-Scan-Repeat", "true");
+                    out.print(previous);
+                    return;
+                }
+            }
+
+            // Lookup employee by QR code (served from memory for known and known-bad codes)
+            // While offline, only badges already in memory are accepted
+            boolean offline = offlineBuffer != null && offlineBuffer.isOffline();
+            Employee employee = offline ?
+                    EmployeeQRCodeCache.peek(qrCode.trim()) : EmployeeQRCodeCache.lookup(qrCode.trim());
 
             if (employee == null) {
                 response.addProperty("success", false);
@@ -97,14 +249,18 @@ public class AttendanceServlet extends HttpServlet {
             }
 
             // Perform check-in or check-out
-            if ("checkout".equalsIgnoreCase(action)) {
-                handleCheckOut(employee, response);
-            } else {
-                handleCheckIn(employee, qrCode, location, response);
+            AttendanceDAO.ScanOutcome outcome = checkOut ?
+                    handleCheckOut(employee, qrCode.trim(), location, response) :
+                    handleCheckIn(employee, qrCode.trim(), location, response);
+
+            String json = gson.toJson(response);
+            // recordScan only returns once the scan is committed or durably journaled
+            if (deduplicator != null && outcome != AttendanceDAO.ScanOutcome.FAILED) {
+                deduplicator.remember(qrCode.trim(), location, dedupAction, json);
             }
 
             resp.setStatus(HttpServletResponse.SC_OK);
-            out.print(gson.toJson(response));
+            out.print(json);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -119,97 +275,124 @@ public class AttendanceServlet extends HttpServlet {
 
     /**
      * Handle employee check-in
+     * The duplicate check and the insert happen in one atomic DAO call (see AttendanceDAO.recordScan)
      */
-    private void handleCheckIn(Employee employee, String qrCode, String location, JsonObject response) {
-        // Check if already checked in today
-        Attendance todayAttendance = attendanceDAO.getTodayAttendance(employee.getEmployeeId());
-
-        if (todayAttendance != null && todayAttendance.isCheckedIn()) {
-            response.addProperty("success", false);
-            response.addProperty("message", "Already checked in today at " + todayAttendance.getFormattedCheckInTime());
-            response.addProperty("employeeName", employee.getFullName());
-            response.addProperty("employeeId", employee.getEmployeeId());
-            response.addProperty("department", employee.getDepartment());
-            response.addProperty("checkInTime", todayAttendance.getFormattedCheckInTime());
-            return;
-        }
+    private AttendanceDAO.ScanOutcome handleCheckIn(Employee employee, String qrCode, String location, JsonObject response) {
+        AttendanceDAO.ScanResult result = recordScan(employee, qrCode, location, false, response);
+        Attendance attendance = result.attendance;
+
+        switch (result.outcome) {
+            case CHECKED_IN:
+                response.addProperty("success", true);
+                response.addProperty("message", "Check-in successful!");
+                response.addProperty("employeeName", employee.getFullName());
+                response.addProperty("employeeId", employee.getEmployeeId());
+                response.addProperty("department", employee.getDepartment());
+                response.addProperty("position", employee.getPosition());
+                response.addProperty("checkInTime", attendance.getFormattedCheckInTime());
+                response.addProperty("status", attendance.getStatus().toString());
+                response.addProperty("location", location);
+
+                System.out.println("Check-in: " + employee.getFullName() + " at " + attendance.getFormattedCheckInTime());
+                AttendanceEventBus.publish(result.outcome, employee, attendance);
+                break;
+
+            case ALREADY_CHECKED_IN:
+                response.addProperty("success", false);
+                response.addProperty("message", "Already checked in today at " + attendance.getFormattedCheckInTime());
+                response.addProperty("employeeName", employee.getFullName());
+                response.addProperty("employeeId", employee.getEmployeeId());
+                response.addProperty("department", employee.getDepartment());
+                response.addProperty("checkInTime", attendance.getFormattedCheckInTime());
+                break;
+
+            case ALREADY_COMPLETED:
+                response.addProperty("success", false);
+                response.addProperty("message", "Already completed attendance for today. Checked out at " +
+                    attendance.getFormattedCheckOutTime());
+                response.addProperty("employeeName", employee.getFullName());
+                response.addProperty("employeeId", employee.getEmployeeId());
+                break;
 
-        if (todayAttendance != null && !todayAttendance.isCheckedIn()) {
-            response.addProperty("success", false);
-            response.addProperty("message", "Already completed attendance for today. Checked out at " +
-                todayAttendance.getFormattedCheckOutTime());
-            response.addProperty("employeeName", employee.getFullName());
-            response.addProperty("employeeId", employee.getEmployeeId());
-            return;
+            default:
+                response.addProperty("success", false);
+                response.addProperty("message", "Failed to record check-in. Please try again.");
+                break;
         }
+        return result.outcome;
+    }
 
-        // Perform check-in
-        Attendance attendance = attendanceDAO.checkIn(employee.getEmployeeId(), qrCode, location);
+    /**
+     * Handle employee check-out
+     * The state check and the update happen in one atomic DAO call (see AttendanceDAO.recordScan)
+     */
+    private AttendanceDAO.ScanOutcome handleCheckOut(Employee employee, String qrCode, String location, JsonObject response) {
+        AttendanceDAO.ScanResult result = recordScan(employee, qrCode, location, true, response);
+        Attendance attendance = result.attendance;
+
+        switch (result.outcome) {
+            case CHECKED_OUT:
+                response.addProperty("success", true);
+                response.addProperty("message", "Check-out successful!");
+                response.addProperty("employeeName", employee.getFullName());
+                response.addProperty("employeeId", employee.getEmployeeId());
+                response.addProperty("department", employee.getDepartment());
+                response.addProperty("position", employee.getPosition());
+                response.addProperty("checkInTime", attendance.getFormattedCheckInTime());
+                response.addProperty("checkOutTime", attendance.getFormattedCheckOutTime());
+                response.addProperty("hoursWorked", attendance.getFormattedHours());
+
+                System.out.println("Check-out: " + employee.getFullName() + " - " + attendance.getFormattedHours());
+                AttendanceEventBus.publish(result.outcome, employee, attendance);
+                break;
+
+            case NOT_CHECKED_IN:
+                response.addProperty("success", false);
+                response.addProperty("message", "Not checked in today. Please check in first.");
+                response.addProperty("employeeName", employee.getFullName());
+                response.addProperty("employeeId", employee.getEmployeeId());
+                break;
 
-        if (attendance != null) {
-            response.addProperty("success", true);
-            response.addProperty("message", "Check-in successful!");
-            response.addProperty("employeeName", employee.getFullName());
-            response.addProperty("employeeId", employee.getEmployeeId());
-            response.addProperty("department", employee.getDepartment());
-            response.addProperty("position", employee.getPosition());
-            response.addProperty("checkInTime", attendance.getFormattedCheckInTime());
-            response.addProperty("status", attendance.getStatus().toString());
-            response.addProperty("location", location);
+            case ALREADY_CHECKED_OUT:
+                response.addProperty("success", false);
+                response.addProperty("message", "Already checked out at " + attendance.getFormattedCheckOutTime());
+                response.addProperty("employeeName", employee.getFullName());
+                response.addProperty("employeeId", employee.getEmployeeId());
+                response.addProperty("hoursWorked", attendance.getFormattedHours());
+                break;
 
-            System.out.println("Check-in: " + employee.getFullName() + " at " + attendance.getFormattedCheckInTime());
-        } else {
-            response.addProperty("success", false);
-            response.addProperty("message", "Failed to record check-in. Please try again.");
+            default:
+                response.addProperty("success", false);
+                response.addProperty("message", "Failed to record check-out. Please try again.");
+                break;
         }
+        return result.outcome;
     }
 
     /**
-     * Handle employee check-out
+     * Record a scan directly in the database, through the local journal in write-behind mode,
+     * or in the offline log while the database is unreachable (response gets "offline": true)
      */
-    private void handleCheckOut(Employee employee, JsonObject response) {
-        // Check if employee is checked in today
-        Attendance todayAttendance = attendanceDAO.getTodayAttendance(employee.getEmployeeId());
-
-        if (todayAttendance == null) {
-            response.addProperty("success", false);
-            response.addProperty("message", "Not checked in today. Please check in first.");
-            response.addProperty("employeeName", employee.getFullName());
-            response.addProperty("employeeId", employee.getEmployeeId());
-            return;
+    private AttendanceDAO.ScanResult recordScan(Employee employee, String qrCode, String location,
+                                                boolean checkOut, JsonObject response) {
+        int employeeId = employee.getEmployeeId();
+        if (writeBehind != null) {
+            return writeBehind.recordScan(employeeId, qrCode, location, checkOut);
         }
-
-        if (!todayAttendance.isCheckedIn()) {
-            response.addProperty("success", false);
-            response.addProperty("message", "Already checked out at " + todayAttendance.getFormattedCheckOutTime());
-            response.addProperty("employeeName", employee.getFullName());
-            response.addProperty("employeeId", employee.getEmployeeId());
-            response.addProperty("hoursWorked", todayAttendance.getFormattedHours());
-            return;
+        if (offlineBuffer == null) {
+            return attendanceDAO.recordScan(employeeId, qrCode, location, checkOut);
         }
 
-        // Perform check-out
-        boolean success = attendanceDAO.checkOut(employee.getEmployeeId());
-
-        if (success) {
-            // Reload to get updated data
-            Attendance updatedAttendance = attendanceDAO.getTodayAttendance(employee.getEmployeeId());
-
-            response.addProperty("success", true);
-            response.addProperty("message", "Check-out successful!");
-            response.addProperty("employeeName", employee.getFullName());
-            response.addProperty("employeeId", employee.getEmployeeId());
-            response.addProperty("department", employee.getDepartment());
-            response.addProperty("position", employee.getPosition());
-            response.addProperty("checkInTime", updatedAttendance.getFormattedCheckInTime());
-            response.addProperty("checkOutTime", updatedAttendance.getFormattedCheckOutTime());
-            response.addProperty("hoursWorked", updatedAttendance.getFormattedHours());
-
-            System.out.println("Check-out: " + employee.getFullName() + " - " + updatedAttendance.getFormattedHours());
-        } else {
-            response.addProperty("success", false);
-            response.addProperty("message", "Failed to record check-out. Please try again.");
+        if (!offlineBuffer.isOffline()) {
+            try {
+                return attendanceDAO.recordScan(employeeId, qrCode, location, checkOut,
+                        offlineBuffer.getConnectionBudgetMs());
+            } catch (SQLException e) {
+                offlineBuffer.goOffline(e);
+            }
         }
+        response.addProperty("offline", true);
+        return offlineBuffer.recordScan(employeeId, qrCode, location, checkOut);
     }
 
     /**
@@ -236,6 +419,20 @@ public class AttendanceServlet extends HttpServlet {
         response.addProperty("message", "Attendance Scanner API is running");
         response.addProperty("endpoint", "POST /api/attendance/scan");
         response.addProperty("version", "1.0");
+        response.addProperty("qrCache", EmployeeQRCodeCache.getStats());
+        response.addProperty("qrSignatures", QRCodeService.getSignatureStats());
+        if (deduplicator != null) {
+            response.addProperty("scanDedup", deduplicator.getStats());
+        }
+        if (writeBehind != null) {
+            response.add("writeBehind", writeBehind.getStats());
+        }
+        if (offlineBuffer != null) {
+            response.add("offline", offlineBuffer.getStats());
+        }
+        if (admission != null) {
+            response.add("async", admission.getStats());
+        }
 
         PrintWriter out = resp.getWriter();
         out.print(gson.toJson(response));
@@ -0,0 +1,458 @@
+package com.team.supplychain.api;
+
+import com.google.gson.JsonObject;
+import com.team.supplychain.dao.AttendanceDAO;
+import com.team.supplychain.dao.AttendanceDAO.ScanOutcome;
+import com.team.supplychain.dao.AttendanceDAO.ScanResult;
+import com.team.supplychain.models.Attendance;
+import com.team.supplychain.models.AttendanceScan;
+import com.team.supplychain.utils.AppConfig;
+import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.Metrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind mode for the scan API (enabled with scan.writeBehind.enabled=true).
+ *
+ * NORMAL MODE: every scan = its own INSERT/UPDATE + commit over the WAN to TiDB.
+ * WRITE-BEHIND MODE:
+ * 1. The scan is decided in memory against today's attendance state
+ *    (already checked in? already checked out?)
+ * 2. It is appended to the local ScanJournal and fsync'd together with other
+ *    scans arriving at the same moment (group commit)
+ * 3. The scanner gets its answer as soon as the journal write is durable. If that takes longer
+ *    than scan.writeBehind.ackTimeoutMs the scan is withdrawn from the journal and FAILED -
+ *    unless the journal writer already has it, then the answer waits for its fsync
+ * 4. A background flusher drains durable scans to attendance_records in batches
+ *    (AttendanceDAO.writeScanBatch - one multi-row INSERT per batch)
+ *
+ * FAILED FLUSHES:
+ * - Connection problems (timeouts, database down): the batch is kept and retried with backoff
+ * - Anything else (constraint violation, deleted employee, a bug): retrying the same batch would
+ *   fail forever and every later scan would pile up behind it. The batch is written one scan
+ *   at a time instead; a scan that fails twice on its own goes to the journal's dead-letter
+ *   file (scan_write_behind_dead_letters_total) and the flusher moves on. Its change to
+ *   today's in-memory state is undone and the onRejected listener is told (the servlet
+ *   drops the badge's remembered answers, see ScanDeduplicator.forget)
+ *
+ * RESTART:
+ * start() loads today's records from the database, then replays the journal entries the
+ * flusher never confirmed. Replay is idempotent, so a crash between "written to TiDB" and
+ * "checkpoint saved" only causes a harmless re-write.
+ *
+ * ASSUMPTION:
+ * The in-memory state is authoritative for today, so this mode expects the scan server to be
+ * the only place that records check-ins/check-outs (the desktop check-in button and bulk uploads
+ * from gate devices write straight to the database and aren't seen here until the next restart).
+ */
+public class AttendanceWriteBehind {
+
+    private final AttendanceDAO attendanceDAO;
+    private final ScanJournal journal;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long ackTimeoutMs;
+
+    // Today's attendance by employee_id - the source of truth for scan decisions
+    private final Map<Integer, Attendance> today = new ConcurrentHashMap<>();
+    private volatile LocalDate todayDate;
+
+    // Durable scans waiting to be written to the database (in journal order)
+    private final BlockingQueue<AttendanceScan> pending = new LinkedBlockingQueue<>();
+
+    private volatile boolean running;
+    private Thread flusher;
+    private volatile Consumer<AttendanceScan> onRejected = scan -> { };
+
+    // Statistics
+    private final AtomicLong batchesFlushed = new AtomicLong();
+    private final AtomicLong scansFlushed = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLong totalFlushMillis = new AtomicLong();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    public AttendanceWriteBehind(AttendanceDAO attendanceDAO) throws IOException {
+        this.attendanceDAO = attendanceDAO;
+        this.batchSize = AppConfig.getInt("scan.writeBehind.batchSize", 200);
+        this.flushIntervalMs = AppConfig.getLong("scan.writeBehind.flushIntervalMs", 250);
+        this.ackTimeoutMs = AppConfig.getLong("scan.writeBehind.ackTimeoutMs", 2000);
+
+        Path journalDir = Paths.get(AppConfig.getString("scan.writeBehind.journalDir", "data/journal"));
+        int groupSize = AppConfig.getInt("scan.writeBehind.maxGroupSize", 64);
+        this.journal = new ScanJournal(journalDir, groupSize, pending::addAll);
+
+        Metrics.counter("scan_write_behind_dead_letters_total",
+                "Write-behind scans the database refused for good, set aside in the dead-letter file", deadLettered::get);
+    }
+
+    /**
+     * Load today's state, replay the journal and start the background threads
+     */
+    public void start() throws IOException {
+        todayDate = LocalDate.now();
+        for (Attendance attendance : attendanceDAO.getAttendanceForDate(todayDate)) {
+            today.put(attendance.getEmployeeId(), attendance);
+        }
+
+        List<AttendanceScan> unflushed = journal.recover();
+        for (AttendanceScan scan : unflushed) {
+            if (todayDate.equals(scan.getDate())) {
+                applyToState(scan);
+            }
+        }
+        pending.addAll(unflushed);
+
+        journal.start();
+        running = true;
+        flusher = new Thread(this::flushLoop, "scan-write-behind-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        System.out.println("✓ Attendance write-behind started (" + today.size() + " records today, "
+                + unflushed.size() + " scans replayed)");
+    }
+
+    /**
+     * Called on the flusher thread for each scan moved to the dead-letter file
+     */
+    public void setOnRejected(Consumer<AttendanceScan> listener) {
+        this.onRejected = listener;
+    }
+
+    /**
+     * Stop accepting scans, flush what is left and close the journal.
+     * Anything that still can't be written stays in the journal for the next start.
+     */
+    public void stop() {
+        journal.close();
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            try {
+                flusher.join(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.out.println("Attendance write-behind stopped");
+    }
+
+    /**
+     * Record a scan. Same contract as AttendanceDAO.recordScan, but the answer comes from
+     * memory + local journal instead of a database round-trip.
+     *
+     * @return Outcome and the employee's (in-memory) record for today
+     */
+    public ScanResult recordScan(int employeeId, String qrCode, String location, boolean checkOut) {
+        LocalDateTime now = LocalDateTime.now();
+        rollOverIfNewDay(now.toLocalDate());
+
+        ScanOutcome[] outcome = new ScanOutcome[1];
+        Attendance[] previous = new Attendance[1];
+
+        // compute() runs atomically per employee - two scans of the same badge can't both win
+        Attendance current = today.compute(employeeId, (id, existing) -> {
+            previous[0] = existing;
+            if (!checkOut) {
+                if (existing != null) {
+                    outcome[0] = existing.getCheckOutTime() == null ?
+                            ScanOutcome.ALREADY_CHECKED_IN : ScanOutcome.ALREADY_COMPLETED;
+                    return existing;
+                }
+                Attendance created = new Attendance(id, now, now.toLocalDate(), AttendanceDAO.determineStatus(now));
+                created.setLocation(location);
+                created.setQrScanData(qrCode);
+                outcome[0] = ScanOutcome.CHECKED_IN;
+                return created;
+            }
+
+            if (existing == null) {
+                outcome[0] = ScanOutcome.NOT_CHECKED_IN;
+                return null;
+            }
+            if (existing.getCheckOutTime() != null) {
+                outcome[0] = ScanOutcome.ALREADY_CHECKED_OUT;
+                return existing;
+            }
+            Attendance updated = copyOf(existing);
+            updated.setCheckOutTime(now);
+            outcome[0] = ScanOutcome.CHECKED_OUT;
+            return updated;
+        });
+
+        if (outcome[0] != ScanOutcome.CHECKED_IN && outcome[0] != ScanOutcome.CHECKED_OUT) {
+            return new ScanResult(outcome[0], current);
+        }
+
+        // Accepted - make it durable before acknowledging
+        CompletableFuture<Void> durable = journal.append(new AttendanceScan(employeeId, qrCode, location, checkOut, now));
+        try {
+            awaitDurable(durable);
+            return new ScanResult(outcome[0], current);
+        } catch (Exception e) {
+            System.err.println("✗ Could not journal scan for employee " + employeeId + ": " + e.getMessage());
+            // Undo the in-memory change (only if nobody changed it since)
+            today.compute(employeeId, (id, value) -> value == current ? previous[0] : value);
+            return new ScanResult(ScanOutcome.FAILED, null);
+        }
+    }
+
+    /**
+     * Wait up to ackTimeoutMs for the scan to be on disk. Giving up withdraws the scan from the
+     * journal - unless the writer already has it: then it will be written, flushed and recorded,
+     * so we wait for its fsync rather than tell the device it failed.
+     *
+     * @throws Exception if the scan was not (and will not be) journaled
+     */
+    private void awaitDurable(CompletableFuture<Void> durable) throws Exception {
+        try {
+            durable.get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            if (durable.cancel(false)) {
+                throw e;  // Withdrawn - it never reaches the journal or the database
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                durable.join();
+            } catch (CompletionException failed) {
+                throw new ExecutionException(failed.getCause());
+            }
+        }
+    }
+
+    /**
+     * Batch and latency metrics for the status endpoint
+     */
+    public JsonObject getStats() {
+        long batches = batchesFlushed.get();
+        JsonObject stats = new JsonObject();
+        stats.addProperty("pending", pending.size());
+        stats.addProperty("batchesFlushed", batches);
+        stats.addProperty("scansFlushed", scansFlushed.get());
+        stats.addProperty("avgBatchSize", batches == 0 ? 0 : round((double) scansFlushed.get() / batches));
+        stats.addProperty("maxBatchSize", maxBatchSize.get());
+        stats.addProperty("lastFlushMs", lastFlushMillis.get());
+        stats.addProperty("avgFlushMs", batches == 0 ? 0 : round((double) totalFlushMillis.get() / batches));
+        stats.addProperty("flushFailures", flushFailures.get());
+        stats.addProperty("deadLettered", deadLettered.get());
+        stats.addProperty("journalFsyncs", journal.getFsyncCount());
+        stats.addProperty("avgScansPerFsync", round(journal.getAverageGroupSize()));
+        stats.addProperty("avgFsyncMs", round(journal.getAverageFsyncMillis()));
+        stats.addProperty("checkpoint", journal.getCheckpointSequence());
+        return stats;
+    }
+
+    // ========== FLUSHER ==========
+
+    private void flushLoop() {
+        List<AttendanceScan> batch = new ArrayList<>(batchSize);
+        long backoffMs = 1000;
+
+        while (running || !pending.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    AttendanceScan first = pending.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    pending.drainTo(batch, batchSize - 1);
+                }
+
+                long start = System.currentTimeMillis();
+                attendanceDAO.writeScanBatch(batch);
+                recordFlush(batch.size(), System.currentTimeMillis() - start);
+                journal.checkpoint(batch.get(batch.size() - 1).getSequence());
+                batch.clear();
+                backoffMs = 1000;
+
+            } catch (SQLException | RuntimeException e) {
+                flushFailures.incrementAndGet();
+                if (!DatabaseConnection.isTransient(e)) {
+                    // The data, not the connection - split the batch so one bad scan can't block the rest
+                    System.err.println("✗ Write-behind batch rejected (" + batch.size() + " scans), writing them "
+                            + "one by one: " + e.getMessage());
+                    if (writeOneByOne(batch)) {
+                        backoffMs = 1000;
+                        continue;
+                    }
+                    // A single write hit a connection problem - batch now holds what is left
+                }
+                // Keep the batch and retry - the scans are safe in the journal meanwhile
+                System.err.println("✗ Write-behind flush failed (" + batch.size() + " scans), retrying in "
+                        + backoffMs + "ms: " + e.getMessage());
+                if (!running) {
+                    break;  // shutting down - leave the rest for replay on next start
+                }
+                sleepQuietly(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, 30000);
+            } catch (InterruptedException e) {
+                // stop() interrupts us - loop again to flush what's left
+            }
+        }
+    }
+
+    /**
+     * Write a rejected batch one scan at a time. Scans that fail twice on their own go to the
+     * dead-letter file. Written and dead-lettered scans are removed from the batch and checkpointed.
+     *
+     * @return true if the whole batch was handled, false if a connection problem stopped it
+     *         (the batch then holds the scans still to write)
+     */
+    private boolean writeOneByOne(List<AttendanceScan> batch) {
+        long handled = -1;
+        try {
+            for (Iterator<AttendanceScan> it = batch.iterator(); it.hasNext(); ) {
+                AttendanceScan scan = it.next();
+                Exception error = null;
+                for (int attempt = 0; attempt < 2; attempt++) {
+                    try {
+                        long start = System.currentTimeMillis();
+                        attendanceDAO.writeScanBatch(Collections.singletonList(scan));
+                        recordFlush(1, System.currentTimeMillis() - start);
+                        error = null;
+                        break;
+                    } catch (SQLException | RuntimeException e) {
+                        if (DatabaseConnection.isTransient(e)) {
+                            return false;
+                        }
+                        error = e;
+                    }
+                }
+                if (error != null) {
+                    journal.deadLetter(scan, String.valueOf(error));
+                    deadLettered.incrementAndGet();
+                    forgetRejected(scan);
+                    System.err.println("✗ Scan for employee " + scan.getEmployeeId() + " at " + scan.getScanTime()
+                            + " moved to the dead-letter file: " + error.getMessage());
+                }
+                handled = scan.getSequence();
+                it.remove();
+            }
+            return true;
+        } catch (IOException e) {
+            // Can't set the scan aside - keep it (and everything after it) for the next attempt
+            System.err.println("✗ Could not write scan dead-letter file: " + e.getMessage());
+            return false;
+        } finally {
+            if (handled >= 0) {
+                journal.checkpoint(handled);
+            }
+        }
+    }
+
+    /**
+     * A dead-lettered scan never reaches the database - take it back out of today's state
+     * (only if nothing changed the record since) so the badge's next scan is decided again
+     */
+    private void forgetRejected(AttendanceScan scan) {
+        today.computeIfPresent(scan.getEmployeeId(), (id, existing) -> {
+            if (!scan.isCheckOut()) {
+                return scan.getScanTime().equals(existing.getCheckInTime()) ? null : existing;
+            }
+            if (!scan.getScanTime().equals(existing.getCheckOutTime())) {
+                return existing;
+            }
+            Attendance reverted = copyOf(existing);
+            reverted.setCheckOutTime(null);
+            return reverted;
+        });
+        try {
+            onRejected.accept(scan);
+        } catch (RuntimeException e) {
+            System.err.println("⚠ Rejected-scan listener failed: " + e.getMessage());
+        }
+    }
+
+    private void recordFlush(int size, long millis) {
+        batchesFlushed.incrementAndGet();
+        scansFlushed.addAndGet(size);
+        maxBatchSize.accumulateAndGet(size, Math::max);
+        totalFlushMillis.addAndGet(millis);
+        lastFlushMillis.set(millis);
+    }
+
+    // ========== STATE HELPERS ==========
+
+    /**
+     * At midnight, yesterday's state is no longer needed for decisions
+     */
+    private synchronized void rollOverIfNewDay(LocalDate date) {
+        if (!date.equals(todayDate)) {
+            today.clear();
+            todayDate = date;
+        }
+    }
+
+    /**
+     * Apply a replayed scan to today's state (same rules as the database writes)
+     */
+    private void applyToState(AttendanceScan scan) {
+        today.compute(scan.getEmployeeId(), (id, existing) -> {
+            if (!scan.isCheckOut()) {
+                if (existing != null) {
+                    return existing;
+                }
+                Attendance created = new Attendance(id, scan.getScanTime(), scan.getDate(),
+                        AttendanceDAO.determineStatus(scan.getScanTime()));
+                created.setLocation(scan.getLocation());
+                created.setQrScanData(scan.getQrCode());
+                return created;
+            }
+            if (existing == null || existing.getCheckOutTime() != null) {
+                return existing;
+            }
+            Attendance updated = copyOf(existing);
+            updated.setCheckOutTime(scan.getScanTime());
+            return updated;
+        });
+    }
+
+    private static Attendance copyOf(Attendance source) {
+        Attendance copy = new Attendance(source.getEmployeeId(), source.getCheckInTime(),
+                source.getDate(), source.getStatus());
+        copy.setRecordId(source.getRecordId());
+        copy.setCheckOutTime(source.getCheckOutTime());
+        copy.setLocation(source.getLocation());
+        copy.setQrScanData(source.getQrScanData());
+        copy.setNotes(source.getNotes());
+        return copy;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
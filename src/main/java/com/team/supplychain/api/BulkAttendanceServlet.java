@@ -0,0 +1,358 @@
+package com.team.supplychain.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.team.supplychain.dao.AttendanceDAO;
+import com.team.supplychain.dao.AttendanceDAO.ScanOutcome;
+import com.team.supplychain.dao.AttendanceDAO.ScanResult;
+import com.team.supplychain.dao.BulkScanSession;
+import com.team.supplychain.dao.EmployeeQRCodeCache;
+import com.team.supplychain.models.AttendanceScan;
+import com.team.supplychain.models.Employee;
+import com.team.supplychain.services.QRCodeService;
+import com.team.supplychain.utils.AppConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST API Servlet for bulk uploads from gate scanner devices
+ * Devices at remote gates buffer scans while Wi-Fi is flaky and upload them in one go
+ *
+ * Endpoint: POST /api/attendance/scan/bulk
+ * Request Body:
+ *   {"scans": [
+ *     {"qrCode": "EMP-00001-ABC123", "action": "checkin", "location": "North Gate",
+ *      "scannedAt": "2025-01-06T08:21:33"},
+ *     ...
+ *   ]}
+ *   (a bare [...] array is accepted too)
+ *   scannedAt: ISO local time (server time zone), ISO with offset/"Z", or epoch milliseconds.
+ *   The DEVICE's time is what gets recorded - not the time the upload arrived.
+ *
+ * Response (streamed):
+ *   {"results": [{"index": 0, "success": true, "outcome": "CHECKED_IN", "employeeId": 5}, ...],
+ *    "total": 1200, "accepted": 1180, "rejected": 20, "committed": true, "success": true}
+ *
+ * CONSTANT MEMORY:
+ * The body is read with a streaming JsonReader, scans are processed in chunks of
+ * scan.bulk.chunkSize (default 500) and each chunk's results are written out before the
+ * next chunk is read - a 20,000-scan upload uses the same memory as a 500-scan one.
+ *
+ * ONE TRANSACTION:
+ * All chunks run in one BulkScanSession. If anything fails, everything is rolled back and the
+ * response ends with "committed": false - the device must then treat all results as void and
+ * upload the batch again (re-uploading is always safe).
+ */
+public class BulkAttendanceServlet extends HttpServlet {
+
+    // Device clocks may run slightly ahead of ours
+    private static final long MAX_CLOCK_SKEW_SECONDS = 300;
+
+    private AttendanceDAO attendanceDAO;
+    private Gson gson;
+    private int chunkSize;
+    private int maxScans;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        attendanceDAO = new AttendanceDAO();
+        gson = new Gson();
+        chunkSize = AppConfig.getInt("scan.bulk.chunkSize", 500);
+        maxScans = AppConfig.getInt("scan.bulk.maxScans", 50000);
+        System.out.println("BulkAttendanceServlet initialized");
+    }
+
+    /**
+     * Handle OPTIONS request for CORS preflight
+     */
+    @Override
+    protected void doOptions(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        setCorsHeaders(resp);
+        resp.setStatus(HttpServletResponse.SC_OK);
+    }
+
+    /**
+     * Handle POST request with a batch of scans
+     */
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        setCorsHeaders(resp);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        BulkScanSession session;
+        try {
+            session = attendanceDAO.openBulkSession();
+        } catch (SQLException e) {
+            // Nothing read yet - the device keeps its buffer and retries later
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            resp.setHeader("Retry-After", "30");
+            JsonObject response = new JsonObject();
+            response.addProperty("success", false);
+            response.addProperty("message", "Database unavailable. Please retry later.");
+            PrintWriter out = resp.getWriter();
+            out.print(gson.toJson(response));
+            out.flush();
+            return;
+        }
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        JsonWriter writer = gson.newJsonWriter(resp.getWriter());
+        int total = 0;
+        int accepted = 0;
+        PendingEvents events = new PendingEvents();  // published once committed
+        boolean committed = false;
+        String error = null;
+
+        try (session; JsonReader reader = new JsonReader(req.getReader())) {
+            writer.beginObject();
+            writer.name("results").beginArray();
+
+            if (openScansArray(reader)) {
+                List<AttendanceScan> chunk = new ArrayList<>(chunkSize);
+                List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+
+                while (reader.hasNext()) {
+                    if (total >= maxScans) {
+                        throw new IllegalArgumentException("Too many scans in one request (max " + maxScans + ")");
+                    }
+                    int index = total++;
+                    JsonElement item = gson.fromJson(reader, JsonElement.class);
+
+                    String invalid = validate(item);
+                    if (invalid != null) {
+                        writeResult(writer, index, false, "INVALID", null, invalid);
+                        continue;
+                    }
+                    chunk.add(toScan(item.getAsJsonObject()));
+                    chunkIndexes.add(index);
+
+                    if (chunk.size() >= chunkSize) {
+                        accepted += processChunk(session, chunk, chunkIndexes, writer, events);
+                    }
+                }
+                accepted += processChunk(session, chunk, chunkIndexes, writer, events);
+                reader.endArray();
+            }
+
+            session.commit();
+            committed = true;
+            events.publish();
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            error = "Database error: " + e.getMessage();
+        } catch (IOException | RuntimeException e) {
+            // Malformed, empty or cut-off JSON (JsonReader reports those as IOException) or too
+            // many scans - nothing is kept
+            error = "Invalid request: " + e.getMessage();
+        }
+
+        writer.endArray();
+        writer.name("total").value(total);
+        writer.name("accepted").value(committed ? accepted : 0);
+        writer.name("rejected").value(committed ? total - accepted : total);
+        writer.name("committed").value(committed);
+        writer.name("success").value(committed);
+        if (error != null) {
+            writer.name("message").value(error);
+        }
+        writer.endObject();
+        writer.flush();
+
+        System.out.println("Bulk upload: " + total + " scans, " + (committed ? accepted + " accepted" : "rolled back"));
+    }
+
+    /**
+     * Position the reader inside the scans array, for either {"scans": [...]} or a bare [...]
+     *
+     * @return false if the body has no scans array
+     */
+    private boolean openScansArray(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            return true;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("scans".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                return true;
+            }
+            reader.skipValue();
+        }
+        return false;
+    }
+
+    /**
+     * Process one chunk, stream its results and clear it for the next one
+     *
+     * @return Number of accepted scans
+     */
+    private int processChunk(BulkScanSession session, List<AttendanceScan> chunk, List<Integer> indexes,
+                             JsonWriter writer, PendingEvents events) throws SQLException, IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<ScanResult> results = session.process(chunk);
+        int accepted = 0;
+        for (int i = 0; i < results.size(); i++) {
+            ScanResult result = results.get(i);
+            Integer employeeId = result.outcome == ScanOutcome.UNKNOWN_BADGE ? null : chunk.get(i).getEmployeeId();
+            writeResult(writer, indexes.get(i), result.isSuccess(), result.outcome.name(), employeeId, null);
+            if (result.isSuccess()) {
+                accepted++;
+                events.add(result, chunk.get(i).getQrCode());
+            }
+        }
+        writer.flush();
+        chunk.clear();
+        indexes.clear();
+        return accepted;
+    }
+
+    /**
+     * Events for the scans of one upload, held until the upload commits.
+     * Only up to half the event buffer is held: an upload bigger than that is announced as a
+     * single reload anyway, so from then on only the count is kept - memory stays bounded
+     * however big the upload is.
+     */
+    private static final class PendingEvents {
+        private final int limit = AttendanceEventBus.getCapacity() / 2;
+        private final List<Runnable> events = new ArrayList<>();
+        private int count;
+
+        void add(ScanResult result, String qrCode) {
+            count++;
+            if (count > limit) {
+                events.clear();  // Too many to stream - publish() sends one reload
+                return;
+            }
+            // The session just resolved this badge, so the cache has the employee
+            Employee employee = EmployeeQRCodeCache.peek(qrCode);
+            events.add(() -> AttendanceEventBus.publish(result.outcome, employee, result.attendance));
+        }
+
+        /**
+         * Stream the committed scans to manager dashboards (AttendanceEventBus)
+         */
+        void publish() {
+            if (count > limit) {
+                AttendanceEventBus.publishReload("bulk upload of " + count + " scans");
+                return;
+            }
+            events.forEach(Runnable::run);
+        }
+    }
+
+    private void writeResult(JsonWriter writer, int index, boolean success, String outcome,
+                             Integer employeeId, String message) throws IOException {
+        writer.beginObject();
+        writer.name("index").value(index);
+        writer.name("success").value(success);
+        writer.name("outcome").value(outcome);
+        if (employeeId != null) {
+            writer.name("employeeId").value(employeeId);
+        }
+        if (message != null) {
+            writer.name("message").value(message);
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Checked per item: a bad item gets an INVALID result, the rest of the upload goes ahead
+     *
+     * @return Error message, or null if the item is usable
+     */
+    private String validate(JsonElement element) {
+        if (element == null || !element.isJsonObject()) {
+            return "Scan must be a JSON object";
+        }
+        JsonObject item = element.getAsJsonObject();
+        if (!isText(item, "qrCode") || item.get("qrCode").getAsString().trim().isEmpty()) {
+            return "QR code is required";
+        }
+        QRCodeService.Verification signature = QRCodeService.verifySignedCode(item.get("qrCode").getAsString().trim());
+        if (signature == QRCodeService.Verification.INVALID
+                || (signature == QRCodeService.Verification.PLAIN && !QRCodeService.isPlainCodeAccepted())) {
+            return "Invalid QR code";
+        }
+        if (!isText(item, "scannedAt")) {
+            return "scannedAt is required";
+        }
+        LocalDateTime scannedAt = parseScanTime(item);
+        if (scannedAt == null) {
+            return "Invalid scannedAt: " + item.get("scannedAt").getAsString();
+        }
+        if (scannedAt.isAfter(LocalDateTime.now().plusSeconds(MAX_CLOCK_SKEW_SECONDS))) {
+            return "scannedAt is in the future";
+        }
+        if ((item.has("action") && !isText(item, "action")) || (item.has("location") && !isText(item, "location"))) {
+            return "action and location must be strings";
+        }
+        return null;
+    }
+
+    /**
+     * A string or number - getAsString() throws on objects, arrays and null
+     */
+    private static boolean isText(JsonObject item, String name) {
+        JsonElement value = item.get(name);
+        return value != null && value.isJsonPrimitive();
+    }
+
+    private AttendanceScan toScan(JsonObject item) {
+        String action = item.has("action") ? item.get("action").getAsString() : "checkin";
+        String location = item.has("location") ? item.get("location").getAsString() : "Main Entrance";
+        return new AttendanceScan(0, item.get("qrCode").getAsString().trim(), location,
+                "checkout".equalsIgnoreCase(action), parseScanTime(item));
+    }
+
+    /**
+     * Accepts "2025-01-06T08:21:33" (server time zone), "2025-01-06T07:21:33Z" / "+01:00", or epoch millis
+     */
+    private LocalDateTime parseScanTime(JsonObject item) {
+        try {
+            if (item.get("scannedAt").getAsJsonPrimitive().isNumber()) {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(item.get("scannedAt").getAsLong()),
+                        ZoneId.systemDefault());
+            }
+            String text = item.get("scannedAt").getAsString();
+            if (text.endsWith("Z") || text.matches(".*[+-]\\d{2}:\\d{2}$")) {
+                return OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException | IllegalStateException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Set CORS headers to allow cross-origin requests
+     */
+    private void setCorsHeaders(HttpServletResponse resp) {
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setHeader("Access-Control-Allow-Methods", "POST, OPTIONS");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization");
+        resp.setHeader("Access-Control-Max-Age", "3600");
+    }
+}
@@ -0,0 +1,70 @@
+package com.team.supplychain.api;
+
+import com.team.supplychain.utils.Metrics;
+import com.team.supplychain.utils.SqlStats;
+import com.team.supplychain.utils.SqlStats.StatementStats;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Comparator;
+
+/**
+ * Prometheus scrape endpoint
+ *
+ * Endpoint: GET /api/metrics
+ * Exports:
+ *   http_request_duration_seconds{endpoint}  - API latency per servlet (ScanMetricsFilter)
+ *   dao_method_duration_seconds{method}      - scan-path DAO calls, with *_errors_total counters
+ *   db_connection_acquire_duration_seconds   - time to get a pooled connection
+ *   db_pool_*                                - live HikariCP gauges (active, idle, waiting, ...)
+ *
+ * Endpoint: GET /api/metrics/sql?top=20&sort=total|avg|max|calls|rows|wait
+ * Plain-text table of the costliest SQL statements and the DAO method that runs each (SqlStats)
+ */
+public class MetricsServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if ("/sql".equals(req.getPathInfo())) {
+            writeSqlStats(req, resp);
+            return;
+        }
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.getWriter().write(Metrics.toPrometheusText());
+    }
+
+    private void writeSqlStats(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        int top;
+        try {
+            top = req.getParameter("top") != null ? Integer.parseInt(req.getParameter("top")) : 20;
+        } catch (NumberFormatException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "top must be a number");
+            return;
+        }
+
+        Comparator<StatementStats> order;
+        String sort = req.getParameter("sort") != null ? req.getParameter("sort") : "total";
+        switch (sort) {
+            case "total": order = Comparator.comparingLong(StatementStats::getTotalNanos); break;
+            case "avg":   order = Comparator.comparingLong(StatementStats::getAverageNanos); break;
+            case "max":   order = Comparator.comparingLong(StatementStats::getMaxNanos); break;
+            case "calls": order = Comparator.comparingLong(StatementStats::getCalls); break;
+            case "rows":  order = Comparator.comparingLong(StatementStats::getRows); break;
+            case "wait":  order = Comparator.comparingLong(StatementStats::getWaitNanos); break;
+            default:
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "sort must be total, avg, max, calls, rows or wait");
+                return;
+        }
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("text/plain; charset=utf-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.getWriter().write(SqlStats.toText(SqlStats.top(Math.max(0, top), order)));
+    }
+}
@@ -0,0 +1,263 @@
+package com.team.supplychain.api;
+
+import com.google.gson.JsonObject;
+import com.team.supplychain.dao.AttendanceDAO;
+import com.team.supplychain.dao.AttendanceDAO.ScanOutcome;
+import com.team.supplychain.dao.AttendanceDAO.ScanResult;
+import com.team.supplychain.models.Attendance;
+import com.team.supplychain.models.AttendanceScan;
+import com.team.supplychain.utils.AppConfig;
+import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the scan API working while TiDB Cloud is unreachable (enabled by default,
+ * scan.offline.enabled=false turns it off).
+ *
+ * THE PROBLEM:
+ * During a network blip every scan used to wait for the pool's 30s connectionTimeout and
+ * then answer "Server error" - and people queue at the door.
+ *
+ * HOW IT WORKS (a simple circuit breaker):
+ * - ONLINE: scans go to the database on a short connection budget
+ *   (scan.offline.connectionBudgetMs, default 500ms). If that fails, the servlet calls
+ *   goOffline() and records the scan here instead.
+ * - OFFLINE: scans never touch the database. Badges are checked against the in-memory
+ *   badge list (EmployeeQRCodeCache.peek) and accepted scans go to the memory-mapped
+ *   OfflineScanLog. Throughput no longer depends on database timeouts at all.
+ * - A background thread probes the database every scan.offline.probeIntervalMs. When it
+ *   answers, the log is reconciled into attendance_records in batches
+ *   (AttendanceDAO.reconcileOfflineScans) and only THEN does the API go back online,
+ *   so an online check-out can never overtake its offline check-in.
+ *
+ * OFFLINE DECISIONS:
+ * Without the database we don't know who checked in before the outage, so the rules are lenient:
+ * - Check-in is refused only if this badge already checked in during the outage
+ * - Check-out is refused only if this badge already checked out during the outage
+ * Conflicts with rows already in the database are resolved during reconciliation
+ * (earliest check-in wins, latest check-out wins).
+ */
+public class OfflineScanBuffer {
+
+    private final AttendanceDAO attendanceDAO;
+    private final OfflineScanLog log;
+    private final long connectionBudgetMs;
+    private final long probeIntervalMs;
+    private final int reconcileBatchSize;
+
+    private volatile boolean offline;
+    private volatile long offlineSince;
+    private volatile boolean running;
+    private Thread reconciler;
+
+    // Scans accepted during this outage, by employee_id (for the offline decisions above)
+    private final Map<Integer, Attendance> offlineToday = new ConcurrentHashMap<>();
+    private volatile LocalDate offlineDate = LocalDate.now();
+
+    // Statistics
+    private final AtomicLong outages = new AtomicLong();
+    private final AtomicLong scansBuffered = new AtomicLong();
+    private final AtomicLong scansReconciled = new AtomicLong();
+    private final AtomicLong unmatchedCheckOuts = new AtomicLong();
+    private final AtomicLong rejectedFull = new AtomicLong();
+
+    public OfflineScanBuffer(AttendanceDAO attendanceDAO) throws IOException {
+        this.attendanceDAO = attendanceDAO;
+        this.connectionBudgetMs = AppConfig.getLong("scan.offline.connectionBudgetMs", 500);
+        this.probeIntervalMs = AppConfig.getLong("scan.offline.probeIntervalMs", 5000);
+        this.reconcileBatchSize = AppConfig.getInt("scan.offline.reconcileBatchSize", 200);
+        this.log = new OfflineScanLog(
+                Paths.get(AppConfig.getString("scan.offline.logDir", "data/offline")),
+                AppConfig.getInt("scan.offline.logSizeBytes", 8 * 1024 * 1024));
+
+        // Scans left over from a previous run must be reconciled before going online
+        this.offline = !log.isEmpty();
+    }
+
+    /**
+     * Start the background probe/reconcile thread
+     */
+    public void start() {
+        running = true;
+        reconciler = new Thread(this::reconcileLoop, "offline-scan-reconciler");
+        reconciler.setDaemon(true);
+        reconciler.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (reconciler != null) {
+            reconciler.interrupt();
+            try {
+                reconciler.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.close();
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * @return Connection budget for online scans (ms)
+     */
+    public long getConnectionBudgetMs() {
+        return connectionBudgetMs;
+    }
+
+    /**
+     * Switch to offline mode after a failed database call
+     */
+    public void goOffline(SQLException cause) {
+        if (!offline) {
+            synchronized (this) {
+                if (!offline) {
+                    offline = true;
+                    offlineSince = System.currentTimeMillis();
+                    outages.incrementAndGet();
+                    System.err.println("⚠ Database unreachable - scan API switching to offline mode: "
+                            + cause.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Record a scan in the offline log.
+     *
+     * @return Outcome and the employee's offline record; FAILED if the log is full
+     */
+    public ScanResult recordScan(int employeeId, String qrCode, String location, boolean checkOut) {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (this) {
+            if (!now.toLocalDate().equals(offlineDate)) {
+                offlineToday.clear();
+                offlineDate = now.toLocalDate();
+            }
+
+            Attendance existing = offlineToday.get(employeeId);
+            if (!checkOut && existing != null) {
+                return new ScanResult(existing.getCheckOutTime() == null ?
+                        ScanOutcome.ALREADY_CHECKED_IN : ScanOutcome.ALREADY_COMPLETED, existing);
+            }
+            if (checkOut && existing != null && existing.getCheckOutTime() != null) {
+                return new ScanResult(ScanOutcome.ALREADY_CHECKED_OUT, existing);
+            }
+
+            if (!log.append(new AttendanceScan(employeeId, qrCode, location, checkOut, now))) {
+                rejectedFull.incrementAndGet();
+                System.err.println("✗ Offline scan log is full - scan for employee " + employeeId + " refused");
+                return new ScanResult(ScanOutcome.FAILED, null);
+            }
+            scansBuffered.incrementAndGet();
+
+            Attendance attendance;
+            if (checkOut) {
+                // Check-in time is only known if it also happened during the outage
+                attendance = existing != null ? existing : new Attendance(employeeId, null, now.toLocalDate(), null);
+                attendance.setCheckOutTime(now);
+            } else {
+                attendance = new Attendance(employeeId, now, now.toLocalDate(), AttendanceDAO.determineStatus(now));
+                attendance.setLocation(location);
+                attendance.setQrScanData(qrCode);
+            }
+            offlineToday.put(employeeId, attendance);
+            return new ScanResult(checkOut ? ScanOutcome.CHECKED_OUT : ScanOutcome.CHECKED_IN, attendance);
+        }
+    }
+
+    /**
+     * Outage and reconciliation metrics for the status endpoint
+     */
+    public JsonObject getStats() {
+        JsonObject stats = new JsonObject();
+        stats.addProperty("mode", offline ? "OFFLINE" : "ONLINE");
+        if (offline) {
+            stats.addProperty("offlineForSeconds", (System.currentTimeMillis() - offlineSince) / 1000);
+        }
+        stats.addProperty("pendingScans", log.getPendingCount());
+        stats.addProperty("logUsedPercent", log.getUsedPercent());
+        stats.addProperty("outages", outages.get());
+        stats.addProperty("scansBuffered", scansBuffered.get());
+        stats.addProperty("scansReconciled", scansReconciled.get());
+        stats.addProperty("unmatchedCheckOuts", unmatchedCheckOuts.get());
+        stats.addProperty("rejectedLogFull", rejectedFull.get());
+        stats.addProperty("unreadableRecords", log.getRejectedCount());
+        return stats;
+    }
+
+    // ========== RECONCILER ==========
+
+    private void reconcileLoop() {
+        while (running) {
+            try {
+                Thread.sleep(probeIntervalMs);
+            } catch (InterruptedException e) {
+                continue;  // stop() - loop condition ends the thread
+            }
+            if (!offline && log.isEmpty()) {
+                continue;
+            }
+            try {
+                probe();
+                reconcile();
+            } catch (SQLException e) {
+                // Still down - stay offline and try again next round
+            }
+        }
+    }
+
+    /**
+     * Cheap connectivity check so a dead database costs one budgeted wait, not a batch timeout
+     */
+    private void probe() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(Workload.BULK, connectionBudgetMs)) {
+            if (!conn.isValid(2)) {
+                throw new SQLException("Connection is not valid");
+            }
+        }
+    }
+
+    private void reconcile() throws SQLException {
+        while (running) {
+            List<AttendanceScan> batch = log.readPending(reconcileBatchSize);
+            if (batch.isEmpty()) {
+                synchronized (this) {
+                    // Nothing slipped in since the last read - safe to go back online
+                    if (log.isEmpty()) {
+                        if (offline) {
+                            System.out.println("✓ Database reachable again - scan API back online ("
+                                    + scansReconciled.get() + " offline scans reconciled so far)");
+                        }
+                        offline = false;
+                        offlineToday.clear();
+                        return;
+                    }
+                }
+                return;  // A scan was appended meanwhile - picked up next round, no busy loop
+            }
+
+            int unmatched = attendanceDAO.reconcileOfflineScans(batch);
+            log.markReconciled(batch.get(batch.size() - 1).getSequence());
+            scansReconciled.addAndGet(batch.size());
+            if (unmatched > 0) {
+                unmatchedCheckOuts.addAndGet(unmatched);
+                System.err.println("⚠ " + unmatched + " offline check-outs had no check-in to attach to");
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.team.supplychain.api;
+
+import com.team.supplychain.models.AttendanceScan;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-mapped local log of scans accepted while the database is unreachable.
+ *
+ * WHY MEMORY-MAPPED?
+ * During an outage every scan lands here, so appending must be as cheap as possible.
+ * Writing into a mapped file is a memory copy - no system call per scan. The bytes live in
+ * the OS page cache, so they survive a crash or kill of the JVM; only a power loss before
+ * the OS writes them back could lose the last few scans (force() on close narrows that).
+ *
+ * FILE LAYOUT (fixed size, default 8 MB ≈ 50,000 scans):
+ *   [long writeEnd][long reconciledEnd][record][record]...
+ *   record = [int length][JSON bytes, same format as the ScanJournal lines]
+ *
+ * A record is written completely before writeEnd moves past it, so a crash in the middle of
+ * an append leaves the log consistent. Once every record is reconciled, both positions go
+ * back to the start and the space is reused.
+ *
+ * Each scan read back from the log gets its end position as sequence number;
+ * markReconciled(scan.getSequence()) releases everything up to and including it.
+ *
+ * A record that can't be read back (damaged bytes, or a length pointing outside the log) is
+ * set aside in offline-scans.rejected as soon as it is the oldest pending record, so it can't
+ * hold up the records behind it. After a damaged length the next record can't be found, so
+ * the rest of the log goes with it.
+ */
+public class OfflineScanLog implements AutoCloseable {
+
+    private static final String LOG_FILE = "offline-scans.log";
+    private static final String REJECTED_FILE = "offline-scans.rejected";
+    private static final int HEADER_BYTES = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final Path rejectedPath;
+
+    private int writeEnd;
+    private int reconciledEnd;
+    private int pendingCount;
+    private int rejectedCount;
+
+    /**
+     * @param directory Folder for the log file (created if missing)
+     * @param sizeBytes Size of the mapped file - scans beyond it are refused
+     */
+    public OfflineScanLog(Path directory, int sizeBytes) throws IOException {
+        Files.createDirectories(directory);
+        Path path = directory.resolve(LOG_FILE);
+        rejectedPath = directory.resolve(REJECTED_FILE);
+
+        channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        capacity = (int) Math.max(sizeBytes, channel.size());
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        writeEnd = (int) buffer.getLong(0);
+        reconciledEnd = (int) buffer.getLong(8);
+        if (writeEnd < HEADER_BYTES || writeEnd > capacity || reconciledEnd < HEADER_BYTES || reconciledEnd > writeEnd) {
+            // New (all zeros) or unreadable header - start empty
+            writeEnd = HEADER_BYTES;
+            reconciledEnd = HEADER_BYTES;
+            writeHeader();
+        }
+
+        pendingCount = countRecords(reconciledEnd, writeEnd);
+        if (pendingCount > 0) {
+            System.out.println("⚠ Offline scan log: " + pendingCount + " scans waiting to be reconciled");
+        }
+    }
+
+    /**
+     * Append a scan.
+     *
+     * @return true if stored, false if the log is full
+     */
+    public synchronized boolean append(AttendanceScan scan) {
+        byte[] bytes = ScanJournal.toLine(scan).getBytes(StandardCharsets.UTF_8);
+        int recordEnd = writeEnd + 4 + bytes.length;
+        if (recordEnd > capacity) {
+            return false;
+        }
+
+        buffer.putInt(writeEnd, bytes.length);
+        buffer.put(writeEnd + 4, bytes);
+        writeEnd = recordEnd;  // Record is complete - now publish it
+        buffer.putLong(0, writeEnd);
+        pendingCount++;
+        return true;
+    }
+
+    /**
+     * Read the oldest scans that have not been reconciled yet (does not remove them)
+     *
+     * @param max Maximum number of scans to return
+     * @return Scans in the order they were taken
+     */
+    public synchronized List<AttendanceScan> readPending(int max) {
+        List<AttendanceScan> scans = new ArrayList<>();
+        int position = reconciledEnd;
+        while (position < writeEnd && scans.size() < max) {
+            int length = buffer.getInt(position);
+            if (length < 0 || length > writeEnd - position - 4) {
+                if (scans.isEmpty()) {
+                    setAside(writeEnd, "Damaged record length " + length + " - dropped " +
+                            (writeEnd - position) + " bytes", null);
+                }
+                break;  // Otherwise set aside once the scans before it are reconciled
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position + 4, bytes);
+            String line = new String(bytes, StandardCharsets.UTF_8);
+            int recordEnd = position + 4 + length;
+
+            AttendanceScan scan = ScanJournal.parseLine(line);
+            if (scan == null) {
+                if (!scans.isEmpty()) {
+                    break;
+                }
+                setAside(recordEnd, "Unreadable record", line);
+                position = reconciledEnd;
+                continue;
+            }
+            scan.setSequence(recordEnd);
+            scans.add(scan);
+            position = recordEnd;
+        }
+        return scans;
+    }
+
+    /**
+     * Release the oldest pending record(s) up to end without reconciling them, noting them in
+     * the rejected file for a person to look at
+     */
+    private void setAside(int end, String reason, String line) {
+        System.err.println("✗ Offline scan log: " + reason + " - set aside in " + REJECTED_FILE);
+        try {
+            String entry = LocalDateTime.now() + " " + reason + (line != null ? ": " + line : "") + "\n";
+            Files.writeString(rejectedPath, entry, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("✗ Could not write " + REJECTED_FILE + ": " + e.getMessage());
+        }
+        rejectedCount++;
+        markReconciled(end);
+    }
+
+    /**
+     * Release every scan up to and including the one with this sequence number
+     */
+    public synchronized void markReconciled(long sequence) {
+        if (sequence <= reconciledEnd || sequence > writeEnd) {
+            return;
+        }
+        pendingCount -= countRecords(reconciledEnd, (int) sequence);
+        reconciledEnd = (int) sequence;
+        if (reconciledEnd == writeEnd) {
+            // Everything is in the database - reuse the space from the start
+            writeEnd = HEADER_BYTES;
+            reconciledEnd = HEADER_BYTES;
+        }
+        writeHeader();
+    }
+
+    public synchronized boolean isEmpty() {
+        return reconciledEnd == writeEnd;
+    }
+
+    public synchronized int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * @return Records set aside because they could not be read back
+     */
+    public synchronized int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * @return How full the log is, 0-100
+     */
+    public synchronized int getUsedPercent() {
+        return (int) ((long) (writeEnd - HEADER_BYTES) * 100 / (capacity - HEADER_BYTES));
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putLong(0, writeEnd);
+        buffer.putLong(8, reconciledEnd);
+    }
+
+    private int countRecords(int from, int to) {
+        int count = 0;
+        int position = from;
+        while (position < to) {
+            int length = buffer.getInt(position);
+            count++;
+            if (length < 0 || length > to - position - 4) {
+                break;  // Damaged length - the rest counts as one record (readPending sets it aside)
+            }
+            position += 4 + length;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,135 @@
+package com.team.supplychain.api;
+
+import com.google.gson.JsonObject;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dedicated executor + bounded admission queue for the async scan mode
+ * (scan.async.enabled=true, see AttendanceServlet).
+ *
+ * WHY?
+ * Without it, a burst of scans beyond the 10 Hikari connections parks one Jetty thread per
+ * request inside getConnection() until the 30s timeout. With it:
+ * - The request is parked with AsyncContext (no thread held) and queued here
+ * - Only `threads` scans (default: the pool size) do database work at once
+ * - When the queue is full, or a scan has already waited longer than maxWaitMs,
+ *   it is shed immediately with 429 + Retry-After instead of piling up
+ *
+ * A quick "busy, scan again" beats a 30-second spinner followed by "Server error".
+ */
+public class ScanAdmissionControl {
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final int maxQueue;
+    private final long maxWaitMs;
+
+    // Statistics
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejectedQueueFull = new AtomicLong();
+    private final AtomicLong rejectedWaitTooLong = new AtomicLong();
+    private final AtomicLong totalQueueWaitMillis = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private volatile double avgServiceMillis = 100;  // moving average, seeds the Retry-After estimate
+
+    /**
+     * @param threads Scans processed at the same time
+     * @param maxQueue Scans allowed to wait; the next one gets 429
+     * @param maxWaitMs Scans that waited longer than this get 429 instead of being processed
+     */
+    public ScanAdmissionControl(int threads, int maxQueue, long maxWaitMs) {
+        this.threads = threads;
+        this.maxQueue = maxQueue;
+        this.maxWaitMs = maxWaitMs;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "scan-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue a scan.
+     *
+     * @param work The scan processing (runs on a scan worker thread)
+     * @param onWaitTooLong Runs instead of work if the scan sat in the queue longer than maxWaitMs
+     * @return false if the queue is full (caller must answer 429 itself)
+     */
+    public boolean submit(Runnable work, Runnable onWaitTooLong) {
+        long queuedAt = System.currentTimeMillis();
+        try {
+            executor.execute(() -> {
+                long waited = System.currentTimeMillis() - queuedAt;
+                totalQueueWaitMillis.addAndGet(waited);
+                if (waited > maxWaitMs) {
+                    rejectedWaitTooLong.incrementAndGet();
+                    onWaitTooLong.run();
+                    return;
+                }
+
+                long start = System.currentTimeMillis();
+                try {
+                    work.run();
+                } finally {
+                    long took = System.currentTimeMillis() - start;
+                    avgServiceMillis = avgServiceMillis * 0.9 + took * 0.1;
+                    completed.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.incrementAndGet();
+            return false;
+        }
+
+        admitted.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(executor.getQueue().size(), Math::max);
+        return true;
+    }
+
+    /**
+     * Estimated seconds until the current queue has drained (1-30), for the Retry-After header
+     */
+    public int getRetryAfterSeconds() {
+        double drainMillis = (executor.getQueue().size() + threads) * avgServiceMillis / threads;
+        return (int) Math.max(1, Math.min(30, Math.ceil(drainMillis / 1000)));
+    }
+
+    /**
+     * Queue depth and rejection counters for the status endpoint
+     */
+    public JsonObject getStats() {
+        long started = completed.get() + rejectedWaitTooLong.get();
+        JsonObject stats = new JsonObject();
+        stats.addProperty("threads", threads);
+        stats.addProperty("active", executor.getActiveCount());
+        stats.addProperty("queueDepth", executor.getQueue().size());
+        stats.addProperty("maxQueue", maxQueue);
+        stats.addProperty("maxQueueDepthSeen", maxQueueDepth.get());
+        stats.addProperty("admitted", admitted.get());
+        stats.addProperty("completed", completed.get());
+        stats.addProperty("rejectedQueueFull", rejectedQueueFull.get());
+        stats.addProperty("rejectedWaitTooLong", rejectedWaitTooLong.get());
+        stats.addProperty("avgQueueWaitMs", started == 0 ? 0 : totalQueueWaitMillis.get() / started);
+        stats.addProperty("avgServiceMs", Math.round(avgServiceMillis));
+        return stats;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.team.supplychain.api;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-term memory of scan answers, so a badge held in front of the camera
+ * doesn't turn into a stream of identical database requests.
+ *
+ * The scanner page keeps decoding the same QR code while someone lingers. Without this,
+ * every repeat costs a badge lookup + attendance write attempt just to answer
+ * "Already checked in". With it, a repeat within scan.dedup.windowSeconds gets the
+ * previous answer straight from memory.
+ *
+ * KEY: qr_code + location + action
+ * (the action is part of the key so a deliberate check-out right after a check-in still goes through)
+ *
+ * EXPIRY:
+ * Every entry lives for the same window, so insertion order IS expiry order. Entries sit in a
+ * LinkedHashMap in insertion order and expired ones are dropped from the head on each call -
+ * no timer thread, no scanning. maxEntries bounds memory if the window is large.
+ * A repeat does NOT extend the window, so the real answer is refreshed at least once per window.
+ *
+ * Only answers for scans that are already safe are remembered (committed, or fsync'd to the
+ * write-behind journal / offline log). If a journaled scan is later refused by the database,
+ * forget() drops its answers so the next scan of that badge is decided again.
+ */
+public class ScanDeduplicator {
+
+    private final long windowNanos;
+    private final int maxEntries;
+    private final Map<String, Answer> answers = new LinkedHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param windowSeconds How long an answer is reused
+     * @param maxEntries Maximum remembered answers (oldest dropped first)
+     */
+    public ScanDeduplicator(int windowSeconds, int maxEntries) {
+        this.windowNanos = windowSeconds * 1_000_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return The previous answer for this scan if it is still inside the window, otherwise null
+     */
+    public synchronized String lookup(String qrCode, String location, String action) {
+        long now = System.nanoTime();
+        evictExpired(now);
+
+        Answer answer = answers.get(key(qrCode, location, action));
+        if (answer != null) {
+            hits.incrementAndGet();
+            return answer.responseJson;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Remember the answer given for this scan (only answers worth repeating - HTTP 200)
+     */
+    public synchronized void remember(String qrCode, String location, String action, String responseJson) {
+        long now = System.nanoTime();
+        String key = key(qrCode, location, action);
+        answers.remove(key);  // re-insert at the tail so insertion order stays expiry order
+        answers.put(key, new Answer(responseJson, now + windowNanos));
+
+        if (answers.size() > maxEntries) {
+            Iterator<Answer> oldest = answers.values().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Drop every remembered answer for a badge (any gate, any action)
+     */
+    public synchronized void forget(String qrCode) {
+        String prefix = qrCode + '\n';
+        answers.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Get de-duplication statistics for monitoring.
+     *
+     * @return String containing hit/miss counts and hit rate
+     */
+    public String getStats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        int size;
+        synchronized (this) {
+            size = answers.size();
+        }
+        return String.format("Scan Dedup - Entries: %d, Hits: %d, Misses: %d, Hit rate: %.1f%%",
+                size, hitCount, total - hitCount, total == 0 ? 0.0 : hitCount * 100.0 / total);
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Answer> iterator = answers.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt - now > 0) {
+                break;  // everything after this one is newer
+            }
+            iterator.remove();
+        }
+    }
+
+    private static String key(String qrCode, String location, String action) {
+        return qrCode + '\n' + location + '\n' + action.toLowerCase();
+    }
+
+    private static final class Answer {
+        final String responseJson;
+        final long expiresAt;
+
+        Answer(String responseJson, long expiresAt) {
+            this.responseJson = responseJson;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.team.supplychain.api;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.team.supplychain.models.AttendanceScan;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Append-only local journal for accepted attendance scans (write-behind mode).
+ *
+ * WHY A JOURNAL?
+ * In write-behind mode a scan is acknowledged BEFORE it reaches TiDB. If the server
+ * crashes in between, the scan would be lost - unless it was written to local disk first.
+ * The journal is that local copy: one JSON line per scan, fsync'd before the scanner
+ * gets its "Check-in successful!".
+ *
+ * GROUP COMMIT:
+ * fsync is the expensive part (~1-10ms per call). Instead of one fsync per scan,
+ * request threads hand their scan to a single writer thread. The writer takes
+ * everything that is waiting (up to maxGroupSize), writes it, calls fsync ONCE,
+ * and then releases all waiting threads together. At 8:25 a.m. with dozens of scans
+ * per second, one fsync covers many scans; when it's quiet, a group is just one scan.
+ *
+ * SEQUENCE NUMBERS AND CHECKPOINT:
+ * The writer assigns each scan an increasing sequence number in file order and hands
+ * each durable group to the onDurable callback in that same order. Once the flusher has
+ * committed scans to the database it calls checkpoint(seq); on restart recover() returns
+ * only the scans after the checkpoint. Replaying a few already-flushed scans is harmless
+ * because the database writes are idempotent (see AttendanceDAO.writeScanBatch).
+ *
+ * COMPACTION:
+ * When everything in the file has been checkpointed and the writer is idle, the file is
+ * truncated so it doesn't grow forever.
+ *
+ * FILES (in the configured directory):
+ * - attendance-scans.journal     (JSON lines)
+ * - attendance-scans.checkpoint  (last sequence number safely in the database)
+ * - attendance-scans.dead-letter (scans the database refused for good, with the error - see deadLetter)
+ */
+public class ScanJournal implements AutoCloseable {
+
+    private static final String JOURNAL_FILE = "attendance-scans.journal";
+    private static final String CHECKPOINT_FILE = "attendance-scans.checkpoint";
+    private static final String DEAD_LETTER_FILE = "attendance-scans.dead-letter";
+
+    // Truncate the journal once it's fully checkpointed and bigger than this
+    private static final long COMPACT_THRESHOLD_BYTES = 1024 * 1024;
+
+    private final Path journalPath;
+    private final Path checkpointPath;
+    private final Path deadLetterPath;
+    private final int maxGroupSize;
+    private final Consumer<List<AttendanceScan>> onDurable;
+
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong nextSequence = new AtomicLong(1);
+    private volatile long checkpointSequence;
+    private volatile boolean running;
+
+    private FileChannel channel;
+    private Thread writer;
+    private long lastWrittenSequence;  // writer thread only
+
+    // Statistics
+    private final AtomicLong fsyncCount = new AtomicLong();
+    private final AtomicLong fsyncedScans = new AtomicLong();
+    private final AtomicLong fsyncNanos = new AtomicLong();
+
+    /**
+     * @param directory Folder for the journal and checkpoint files (created if missing)
+     * @param maxGroupSize Maximum scans per fsync
+     * @param onDurable Called on the writer thread with each group once it is on disk, in sequence order
+     */
+    public ScanJournal(Path directory, int maxGroupSize, Consumer<List<AttendanceScan>> onDurable) throws IOException {
+        Files.createDirectories(directory);
+        this.journalPath = directory.resolve(JOURNAL_FILE);
+        this.checkpointPath = directory.resolve(CHECKPOINT_FILE);
+        this.deadLetterPath = directory.resolve(DEAD_LETTER_FILE);
+        this.maxGroupSize = maxGroupSize;
+        this.onDurable = onDurable;
+    }
+
+    /**
+     * Read the checkpoint and return every journaled scan that never made it to the database.
+     * Must be called once, before start().
+     *
+     * A half-written last line (crash in the middle of a write) is skipped - that scan
+     * was never acknowledged, because acknowledgement waits for fsync.
+     *
+     * @return Scans after the checkpoint, in sequence order
+     */
+    public List<AttendanceScan> recover() throws IOException {
+        if (Files.exists(checkpointPath)) {
+            String text = Files.readString(checkpointPath, StandardCharsets.UTF_8).trim();
+            if (!text.isEmpty()) {
+                checkpointSequence = Long.parseLong(text);
+            }
+        }
+
+        List<AttendanceScan> unflushed = new ArrayList<>();
+        long maxSequence = checkpointSequence;
+
+        if (Files.exists(journalPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    AttendanceScan scan = parseLine(line);
+                    if (scan == null) {
+                        continue;
+                    }
+                    maxSequence = Math.max(maxSequence, scan.getSequence());
+                    if (scan.getSequence() > checkpointSequence) {
+                        unflushed.add(scan);
+                    }
+                }
+            }
+        }
+
+        nextSequence.set(maxSequence + 1);
+        lastWrittenSequence = maxSequence;
+        if (!unflushed.isEmpty()) {
+            System.out.println("⚠ Scan journal: replaying " + unflushed.size() + " scans not yet in the database");
+        }
+        return unflushed;
+    }
+
+    /**
+     * Open the journal for appending and start the writer thread
+     */
+    public void start() throws IOException {
+        channel = FileChannel.open(journalPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        running = true;
+        writer = new Thread(this::writeLoop, "scan-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a scan for the next group commit.
+     * The returned future completes once the scan is fsync'd (or fails if the write failed).
+     * cancel() on it only succeeds while the writer hasn't taken the scan yet - a cancelled
+     * scan is never written; once cancel() returns false the scan will be written (or fail).
+     *
+     * @param scan The accepted scan (its sequence number is assigned by the writer)
+     * @return Future that completes when the scan is durable on local disk
+     */
+    public CompletableFuture<Void> append(AttendanceScan scan) {
+        PendingAppend pending = new PendingAppend(scan);
+        if (!running) {
+            pending.future.completeExceptionally(new IOException("Scan journal is closed"));
+            return pending.future;
+        }
+        queue.add(pending);
+        return pending.future;
+    }
+
+    /**
+     * Record that every scan up to this sequence number is committed in the database.
+     * Called by the flusher after each successful batch.
+     */
+    public synchronized void checkpoint(long sequence) {
+        if (sequence <= checkpointSequence) {
+            return;
+        }
+        try {
+            Path temp = checkpointPath.resolveSibling(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(temp, Long.toString(sequence), StandardCharsets.UTF_8);
+            Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpointSequence = sequence;
+        } catch (IOException e) {
+            // Not fatal - a stale checkpoint only means a few extra (idempotent) replays on restart
+            System.err.println("⚠ Could not write scan journal checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop accepting scans, finish writing what's queued, and close the file
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long getFsyncCount() {
+        return fsyncCount.get();
+    }
+
+    /**
+     * @return Average number of scans made durable per fsync
+     */
+    public double getAverageGroupSize() {
+        long count = fsyncCount.get();
+        return count == 0 ? 0 : (double) fsyncedScans.get() / count;
+    }
+
+    /**
+     * @return Average fsync time in milliseconds
+     */
+    public double getAverageFsyncMillis() {
+        long count = fsyncCount.get();
+        return count == 0 ? 0 : fsyncNanos.get() / 1_000_000.0 / count;
+    }
+
+    public long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    // ========== WRITER THREAD ==========
+
+    private void writeLoop() {
+        List<PendingAppend> group = new ArrayList<>(maxGroupSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    compactIfIdle();
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxGroupSize - 1);
+                writeGroup(group);
+            } catch (InterruptedException e) {
+                // close() interrupts us - loop again to drain whatever is still queued
+                if (!running && queue.isEmpty()) {
+                    break;
+                }
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void writeGroup(List<PendingAppend> group) {
+        // Requesters that gave up waiting have cancelled theirs - the rest can't be cancelled now
+        group.removeIf(pending -> !pending.future.take());
+        if (group.isEmpty()) {
+            return;
+        }
+        try {
+            StringBuilder lines = new StringBuilder(group.size() * 160);
+            List<AttendanceScan> scans = new ArrayList<>(group.size());
+            for (PendingAppend pending : group) {
+                pending.scan.setSequence(nextSequence.getAndIncrement());
+                lines.append(toLine(pending.scan)).append('\n');
+                scans.add(pending.scan);
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            long start = System.nanoTime();
+            channel.force(false);  // ONE fsync for the whole group
+            fsyncNanos.addAndGet(System.nanoTime() - start);
+            fsyncCount.incrementAndGet();
+            fsyncedScans.addAndGet(group.size());
+
+            lastWrittenSequence = scans.get(scans.size() - 1).getSequence();
+
+            // Hand to the flusher in journal order, then release the waiting request threads
+            onDurable.accept(scans);
+            for (PendingAppend pending : group) {
+                pending.future.complete(null);
+            }
+        } catch (Exception e) {
+            System.err.println("✗ Scan journal write failed: " + e.getMessage());
+            for (PendingAppend pending : group) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Truncate the journal when every scan in it is already in the database
+     */
+    private void compactIfIdle() {
+        try {
+            if (queue.isEmpty() && checkpointSequence >= lastWrittenSequence
+                    && channel.size() > COMPACT_THRESHOLD_BYTES) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠ Could not compact scan journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Set a scan aside that the database refuses for good (constraint violation, deleted
+     * employee, ...), so it stops blocking the scans behind it. Appended and fsync'd before
+     * returning - the caller may checkpoint past the scan afterwards.
+     * The file is for a person to look at; nothing reads it back.
+     *
+     * @param scan The rejected scan
+     * @param error Why the database refused it
+     */
+    public synchronized void deadLetter(AttendanceScan scan, String error) throws IOException {
+        JsonObject json = JsonParser.parseString(toLine(scan)).getAsJsonObject();
+        json.addProperty("error", error);
+        json.addProperty("rejectedAt", LocalDateTime.now().toString());
+
+        try (FileChannel out = FileChannel.open(deadLetterPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap((json + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+    }
+
+    // ========== LINE FORMAT (shared with OfflineScanLog) ==========
+
+    static String toLine(AttendanceScan scan) {
+        JsonObject json = new JsonObject();
+        json.addProperty("seq", scan.getSequence());
+        json.addProperty("employeeId", scan.getEmployeeId());
+        json.addProperty("qrCode", scan.getQrCode());
+        json.addProperty("location", scan.getLocation());
+        json.addProperty("checkOut", scan.isCheckOut());
+        json.addProperty("scanTime", scan.getScanTime().toString());
+        return json.toString();
+    }
+
+    static AttendanceScan parseLine(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+            AttendanceScan scan = new AttendanceScan(
+                    json.get("employeeId").getAsInt(),
+                    json.has("qrCode") ? json.get("qrCode").getAsString() : null,
+                    json.has("location") ? json.get("location").getAsString() : null,
+                    json.get("checkOut").getAsBoolean(),
+                    LocalDateTime.parse(json.get("scanTime").getAsString()));
+            scan.setSequence(json.get("seq").getAsLong());
+            return scan;
+        } catch (RuntimeException e) {
+            System.err.println("⚠ Skipping unreadable scan journal line: " + line);
+            return null;
+        }
+    }
+
+    private static final class PendingAppend {
+        final AttendanceScan scan;
+        final AppendFuture future = new AppendFuture();
+
+        PendingAppend(AttendanceScan scan) {
+            this.scan = scan;
+        }
+    }
+
+    /**
+     * Either the writer takes the scan or the requester cancels it - never both
+     */
+    private static final class AppendFuture extends CompletableFuture<Void> {
+        private final AtomicBoolean decided = new AtomicBoolean();
+
+        boolean take() {
+            return decided.compareAndSet(false, true);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return decided.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.team.supplychain.api;
+
+import com.team.supplychain.utils.Metrics;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every /api/* request into http_request_duration_seconds{endpoint="<servlet name>"}
+ * (exported by MetricsServlet). A request counts as an error if it ends with a 5xx status.
+ *
+ * Async scans (scan.async.enabled) are timed until the response is completed, not until
+ * doPost returns. The event stream is skipped - its requests last as long as a dashboard is open.
+ */
+public class ScanMetricsFilter implements Filter {
+
+    private static final String UNTIMED_SERVLET = "attendanceEvents";
+
+    // One histogram per servlet, created on its first request
+    private final Map<String, Metrics.Histogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse resp = (HttpServletResponse) response;
+
+        String endpoint = req.getHttpServletMapping().getServletName();
+        if (UNTIMED_SERVLET.equals(endpoint)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Metrics.Histogram histogram = histograms.computeIfAbsent(endpoint, name ->
+                Metrics.histogram("http_request_duration_seconds", "Time to answer API requests", "endpoint", name));
+
+        long start = System.nanoTime();
+        boolean thrown = true;
+        try {
+            chain.doFilter(request, response);
+            thrown = false;
+        } finally {
+            if (!thrown && req.isAsyncStarted()) {
+                req.getAsyncContext().addListener(new AsyncTimer(histogram, start, resp));
+            } else {
+                histogram.record(start, thrown || resp.getStatus() >= 500);
+            }
+        }
+    }
+
+    /**
+     * Records an async request once it completes (or times out)
+     */
+    private static final class AsyncTimer implements AsyncListener {
+        private final Metrics.Histogram histogram;
+        private final long start;
+        private final HttpServletResponse resp;
+
+        AsyncTimer(Metrics.Histogram histogram, long start, HttpServletResponse resp) {
+            this.histogram = histogram;
+            this.start = start;
+            this.resp = resp;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            histogram.record(start, resp.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // onComplete still follows
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // onComplete still follows
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // nothing to do
+        }
+    }
+}
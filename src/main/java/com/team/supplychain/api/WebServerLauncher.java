@@ -1,5 +1,10 @@
 package com.team.supplychain.api;
 
+import com.team.supplychain.dao.CountersDAO;
+import com.team.supplychain.dao.EmployeeQRCodeCache;
+import com.team.supplychain.utils.AppConfig;
+import com.team.supplychain.utils.DatabaseConnection;
+import jakarta.servlet.DispatcherType;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.HttpConfiguration;
@@ -7,12 +12,16 @@ import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.SecureRequestCustomizer;
 import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.servlet.DefaultServlet;
+import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
 import java.net.InetAddress;
+import java.util.EnumSet;
 
 /**
  * Embedded Jetty Web Server Launcher for QR Code Attendance Scanner
@@ -23,28 +32,46 @@ import java.net.InetAddress;
  *
  * Default URL: http://localhost:8080/scanner.html
  * API Endpoint: http://localhost:8080/api/attendance/scan
+ * Bulk Endpoint: http://localhost:8080/api/attendance/scan/bulk (gate devices)
+ * Event Stream: http://localhost:8080/api/attendance/events (manager dashboards, Server-Sent Events)
+ * Metrics:      http://localhost:8080/api/metrics (Prometheus), /api/metrics/sql (top SQL statements)
  *
  * Usage:
  *   java -cp target/classes com.team.supplychain.api.WebServerLauncher
  *   OR
  *   Run this class directly from your IDE
+ *
+ * Request threads (server.threads.mode in config.properties):
+ *   platform - Jetty's normal pool of up to server.threads.max OS threads (default)
+ *   virtual  - every request runs on its own virtual thread (needs a Java 21+ runtime).
+ *              A request blocked on JDBC no longer holds an OS thread, so thousands of
+ *              scanners can be connected at once. Database access is then limited to the
+ *              pool size by DatabaseConnection.enableAccessLimit().
  */
 public class WebServerLauncher {
 
-    private static final int PORT = 8080;
-    private static final int HTTPS_PORT = 8443;
+    // server.port / server.httpsPort (0 = any free port); server.https.enabled=false skips HTTPS
+    private final int port = AppConfig.getInt("server.port", 8080);
+    private final int httpsPort = AppConfig.getInt("server.httpsPort", 8443);
+    private final boolean httpsEnabled = AppConfig.getBoolean("server.https.enabled", true);
     private Server server;
+    private ServerConnector httpConnector;
 
     /**
-     * Start the embedded web server
+     * Start the embedded web server and return once it accepts requests (see join())
      */
     public void start() throws Exception {
-        server = new Server();
+        String threadMode = AppConfig.getString("server.threads.mode", "platform");
+        QueuedThreadPool threadPool = createThreadPool(threadMode, AppConfig.getInt("server.threads.max", 200));
+        if (threadPool.getVirtualThreadsExecutor() != null) {
+            DatabaseConnection.enableAccessLimit();
+        }
+        server = new Server(threadPool);
 
         // HTTP Configuration
         HttpConfiguration httpConfig = new HttpConfiguration();
         httpConfig.setSecureScheme("https");
-        httpConfig.setSecurePort(HTTPS_PORT);
+        httpConfig.setSecurePort(httpsPort);
 
         // HTTPS Configuration
         HttpConfiguration httpsConfig = new HttpConfiguration(httpConfig);
@@ -64,19 +91,19 @@ public class WebServerLauncher {
         sslContextFactory.setEndpointIdentificationAlgorithm(null);  // Allow IP access
 
         // HTTP Connector (port 8080) - keep for backward compatibility
-        ServerConnector httpConnector = new ServerConnector(server,
+        httpConnector = new ServerConnector(server,
             new HttpConnectionFactory(httpConfig));
-        httpConnector.setPort(PORT);
+        httpConnector.setPort(port);
+        server.addConnector(httpConnector);
 
         // HTTPS Connector (port 8443) - main connector for mobile camera access
-        ServerConnector httpsConnector = new ServerConnector(server,
-            new SslConnectionFactory(sslContextFactory, "http/1.1"),
-            new HttpConnectionFactory(httpsConfig));
-        httpsConnector.setPort(HTTPS_PORT);
-
-        // Add both connectors to server
-        server.addConnector(httpConnector);
-        server.addConnector(httpsConnector);
+        if (httpsEnabled) {
+            ServerConnector httpsConnector = new ServerConnector(server,
+                new SslConnectionFactory(sslContextFactory, "http/1.1"),
+                new HttpConnectionFactory(httpsConfig));
+            httpsConnector.setPort(httpsPort);
+            server.addConnector(httpsConnector);
+        }
 
         // Create servlet context
         ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
@@ -84,8 +111,24 @@ public class WebServerLauncher {
 
         // Register AttendanceServlet for API endpoint
         ServletHolder attendanceServlet = new ServletHolder("attendance", new AttendanceServlet());
+        attendanceServlet.setAsyncSupported(true);  // Needed for scan.async.enabled
         context.addServlet(attendanceServlet, "/api/attendance/scan");
 
+        // Register BulkAttendanceServlet for gate devices uploading buffered scans
+        ServletHolder bulkServlet = new ServletHolder("attendanceBulk", new BulkAttendanceServlet());
+        context.addServlet(bulkServlet, "/api/attendance/scan/bulk");
+
+        // Register AttendanceEventServlet for live manager dashboards
+        ServletHolder eventServlet = new ServletHolder("attendanceEvents", new AttendanceEventServlet());
+        context.addServlet(eventServlet, "/api/attendance/events");
+
+        // Register MetricsServlet for Prometheus, and time every API request
+        // ("/api/metrics/*" also matches /api/metrics itself)
+        context.addServlet(new ServletHolder("metrics", new MetricsServlet()), "/api/metrics/*");
+        FilterHolder metricsFilter = new FilterHolder(new ScanMetricsFilter());
+        metricsFilter.setAsyncSupported(true);
+        context.addFilter(metricsFilter, "/api/*", EnumSet.of(DispatcherType.REQUEST));
+
         // Serve static files (HTML, CSS, JS) from src/main/webapp
         String resourceBase = getWebappResourceBase();
         System.out.println("Serving static files from: " + resourceBase);
@@ -99,26 +142,82 @@ public class WebServerLauncher {
 
         server.setHandler(context);
 
+        // Preload badges so the first scans of the morning are answered from memory
+        warmQRCodeCache();
+
+        // Keep dashboard_counters honest (corrects writes that bypassed the DAOs)
+        CountersDAO.startReconciliation();
+
         // Start server
         server.start();
 
         // Print access information
         printStartupInfo();
+    }
 
-        // Wait for server to be stopped
+    /**
+     * Block until the server is stopped
+     */
+    public void join() throws InterruptedException {
         server.join();
     }
 
+    /**
+     * @return The port HTTP requests are served on (the real one when server.port=0)
+     */
+    public int getHttpPort() {
+        return httpConnector.getLocalPort();
+    }
+
     /**
      * Stop the web server
      */
     public void stop() throws Exception {
         if (server != null && server.isRunning()) {
             server.stop();
+            CountersDAO.stopReconciliation();
             System.out.println("Web server stopped");
         }
     }
 
+    /**
+     * Create Jetty's request thread pool for the given mode ("platform" or "virtual").
+     * Falls back to platform threads if the Java runtime has no virtual threads.
+     *
+     * @param mode Thread mode from server.threads.mode
+     * @param maxThreads Maximum platform threads (in virtual mode these only run Jetty's
+     *                   selectors/acceptors - requests get their own virtual thread)
+     * @return Configured (not yet started) thread pool
+     */
+    static QueuedThreadPool createThreadPool(String mode, int maxThreads) {
+        QueuedThreadPool threadPool = new QueuedThreadPool(maxThreads);
+        threadPool.setName("scan-server");
+
+        if ("virtual".equalsIgnoreCase(mode)) {
+            if (VirtualThreads.areSupported()) {
+                threadPool.setVirtualThreadsExecutor(VirtualThreads.getDefaultVirtualThreadsExecutor());
+                System.out.println("✓ Requests run on virtual threads");
+            } else {
+                System.err.println("⚠ Virtual threads need Java 21+ (running " + System.getProperty("java.version")
+                        + ") - using platform threads");
+            }
+        }
+        return threadPool;
+    }
+
+    /**
+     * Warm the QR code cache before accepting scans.
+     * A database problem here must not stop the server - scans just fall back to
+     * loading badges on demand.
+     */
+    private void warmQRCodeCache() {
+        try {
+            EmployeeQRCodeCache.warm();
+        } catch (Exception e) {
+            System.err.println("⚠ Could not warm QR code cache: " + e.getMessage());
+        }
+    }
+
     /**
      * Get the webapp resource base directory
      */
@@ -155,19 +254,22 @@ public class WebServerLauncher {
             System.out.println("  QR CODE ATTENDANCE SCANNER - WEB SERVER STARTED");
             System.out.println("=".repeat(70));
             System.out.println();
-            System.out.println("  Server is running on ports: " + PORT + " (HTTP) & " + HTTPS_PORT + " (HTTPS)");
+            System.out.println("  Server is running on ports: " + port + " (HTTP) & " + httpsPort + " (HTTPS)");
             System.out.println();
             System.out.println("  📱 Access the QR Scanner:");
-            System.out.println("     Local HTTP:    http://localhost:" + PORT + "/scanner.html");
-            System.out.println("     Local HTTPS:   https://localhost:" + HTTPS_PORT + "/scanner.html");
-            System.out.println("     Network HTTPS: https://" + hostname + ":" + HTTPS_PORT + "/scanner.html");
+            System.out.println("     Local HTTP:    http://localhost:" + port + "/scanner.html");
+            System.out.println("     Local HTTPS:   https://localhost:" + httpsPort + "/scanner.html");
+            System.out.println("     Network HTTPS: https://" + hostname + ":" + httpsPort + "/scanner.html");
             System.out.println();
             System.out.println("  🔌 API Endpoints:");
-            System.out.println("     POST https://localhost:" + HTTPS_PORT + "/api/attendance/scan");
-            System.out.println("     POST http://localhost:" + PORT + "/api/attendance/scan");
+            System.out.println("     POST https://localhost:" + httpsPort + "/api/attendance/scan");
+            System.out.println("     POST http://localhost:" + port + "/api/attendance/scan");
+            System.out.println("     POST https://localhost:" + httpsPort + "/api/attendance/scan/bulk  (gate devices)");
+            System.out.println("     GET  http://localhost:" + port + "/api/attendance/events  (live manager dashboards)");
+            System.out.println("     GET  http://localhost:" + port + "/api/metrics  (Prometheus)");
             System.out.println();
             System.out.println("  ⚠️  MOBILE DEVICE USERS:");
-            System.out.println("     - Use HTTPS URL for camera access: https://" + hostname + ":" + HTTPS_PORT + "/scanner.html");
+            System.out.println("     - Use HTTPS URL for camera access: https://" + hostname + ":" + httpsPort + "/scanner.html");
             System.out.println("     - Accept the security warning (self-signed certificate)");
             System.out.println("     - Camera permissions will then work correctly");
             System.out.println();
@@ -180,8 +282,8 @@ public class WebServerLauncher {
             System.out.println();
 
         } catch (Exception e) {
-            System.out.println("Server started on ports: " + PORT + " (HTTP) & " + HTTPS_PORT + " (HTTPS)");
-            System.out.println("Access at: https://localhost:" + HTTPS_PORT + "/scanner.html");
+            System.out.println("Server started on ports: " + port + " (HTTP) & " + httpsPort + " (HTTPS)");
+            System.out.println("Access at: https://localhost:" + httpsPort + "/scanner.html");
         }
     }
 
@@ -194,6 +296,7 @@ public class WebServerLauncher {
         try {
             System.out.println("Starting QR Code Attendance Scanner Web Server...");
             launcher.start();
+            launcher.join();
 
         } catch (Exception e) {
             System.err.println("Failed to start web server: " + e.getMessage());
@@ -1,10 +1,12 @@
 package com.team.supplychain.controllers;
 
+import com.team.supplychain.dao.AuditLogArchiver;
 import com.team.supplychain.dao.AuditLogDAO;
 import com.team.supplychain.models.AuditLog;
 import com.team.supplychain.models.User;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -18,14 +20,22 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 
 public class AdminAuditLogsController {
 
     @FXML private Label todayActivitiesLabel, dbChangesLabel, userActionsLabel, systemEventsLabel;
     @FXML private ComboBox<String> actionTypeFilter, moduleFilter, resultFilter;
     @FXML private TextField searchField;
-    @FXML private Button exportButton, archiveButton, refreshButton;
+    @FXML private Button exportButton, archiveButton, refreshButton, newerButton, olderButton;
+    @FXML private Label pageLabel;
+    @FXML private HBox archiveProgressBox;
+    @FXML private ProgressBar archiveProgressBar;
+    @FXML private Label archiveProgressLabel;
+    @FXML private Button stopArchiveButton;
     @FXML private TableView<AuditLog> logsTable;
     @FXML private TableColumn<AuditLog, String> logIdColumn, timestampColumn, userColumn, actionTypeColumn, moduleColumn, descriptionColumn, resultColumn;
     @FXML private TableColumn<AuditLog, Void> actionsColumn;
@@ -35,7 +45,18 @@ public class AdminAuditLogsController {
     private AuditLogDAO auditLogDAO;
     private DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final int PAGE_SIZE = 100;
-    private int currentOffset = 0;
+
+    // Keyset paging - tokens come from AuditLogDAO.getAuditLogPage (null token = newest page)
+    private String currentPageToken = null;
+    private AuditLogDAO.AuditLogPage currentPage;
+    private int pageNumber = 1;
+    // Set while the search box is in use - ranked results, paged by page number
+    private AuditLogDAO.AuditLogSearchResult searchResult;
+
+    // Archiving runs in the background in small steps (see AuditLogArchiver) - Stop ends it
+    // after the current step, and the next Archive click offers to resume it
+    private AuditLogArchiver archiver;
+    private volatile boolean stopArchiveRequested;
 
     public void setCurrentUser(User user) {
         this.currentUser = user;
@@ -45,6 +66,7 @@ public class AdminAuditLogsController {
     private void initialize() {
         System.out.println("AdminAuditLogsController initialized");
         auditLogDAO = new AuditLogDAO();
+        archiver = new AuditLogArchiver();
         logsData = FXCollections.observableArrayList();
         setupTable();
         setupFilters();
@@ -141,28 +163,28 @@ public class AdminAuditLogsController {
         // Add listeners to filters - reload data when filter changes
         if (actionTypeFilter != null) {
             actionTypeFilter.valueProperty().addListener((obs, oldVal, newVal) -> {
-                currentOffset = 0;
+                resetPaging();
                 loadLogsFromDatabase();
                 updateStats();
             });
         }
         if (moduleFilter != null) {
             moduleFilter.valueProperty().addListener((obs, oldVal, newVal) -> {
-                currentOffset = 0;
+                resetPaging();
                 loadLogsFromDatabase();
                 updateStats();
             });
         }
         if (resultFilter != null) {
             resultFilter.valueProperty().addListener((obs, oldVal, newVal) -> {
-                currentOffset = 0;
+                resetPaging();
                 loadLogsFromDatabase();
                 updateStats();
             });
         }
         if (searchField != null) {
             searchField.textProperty().addListener((obs, oldVal, newVal) -> {
-                currentOffset = 0;
+                resetPaging();
                 loadLogsFromDatabase();
                 updateStats();
             });
@@ -190,12 +212,27 @@ public class AdminAuditLogsController {
             if ("All Results".equals(result)) result = null;
             if (searchText != null && searchText.trim().isEmpty()) searchText = null;
 
-            // Fetch filtered logs from database
-            List<AuditLog> logs = auditLogDAO.getFilteredAuditLogs(
-                actionType, module, result, searchText, PAGE_SIZE, currentOffset);
+            List<AuditLog> logs;
+            if (searchText != null) {
+                // Search box in use - best matches first, with the total match count
+                currentPage = null;
+                searchResult = auditLogDAO.searchAuditLogs(
+                    searchText, actionType, module, result, PAGE_SIZE, (pageNumber - 1) * PAGE_SIZE);
+                logs = searchResult.logs;
+            } else {
+                // Fetch one page of filtered logs from database (keyset paging - deep pages stay fast)
+                searchResult = null;
+                currentPage = auditLogDAO.getAuditLogPage(
+                    actionType, module, result, null, currentPageToken, PAGE_SIZE);
+                logs = currentPage.logs;
+                if (!currentPage.hasPrevious()) {
+                    pageNumber = 1;  // "Newer" ran into the newest rows
+                }
+            }
 
             // Add to observable list
             logsData.addAll(logs);
+            updatePagingControls();
 
             System.out.println("Loaded " + logs.size() + " audit logs from database");
 
@@ -205,6 +242,65 @@ public class AdminAuditLogsController {
         }
     }
 
+    @FXML
+    private void handleOlderPage() {
+        if (!hasOlderPage()) return;
+        if (currentPage != null) {
+            currentPageToken = currentPage.nextPageToken;
+        }
+        pageNumber++;
+        loadLogsFromDatabase();
+    }
+
+    @FXML
+    private void handleNewerPage() {
+        if (!hasNewerPage()) return;
+        if (currentPage != null) {
+            currentPageToken = currentPage.previousPageToken;
+        }
+        pageNumber--;
+        loadLogsFromDatabase();
+    }
+
+    private boolean hasOlderPage() {
+        if (searchResult != null) {
+            return pageNumber * PAGE_SIZE < searchResult.totalCount;
+        }
+        return currentPage != null && currentPage.hasNext();
+    }
+
+    private boolean hasNewerPage() {
+        if (searchResult != null) {
+            return pageNumber > 1;
+        }
+        return currentPage != null && currentPage.hasPrevious();
+    }
+
+    /**
+     * Back to the newest page (filters changed or refresh)
+     */
+    private void resetPaging() {
+        currentPageToken = null;
+        pageNumber = 1;
+    }
+
+    private void updatePagingControls() {
+        if (pageLabel != null) {
+            if (searchResult != null) {
+                int pages = Math.max(1, (searchResult.totalCount + PAGE_SIZE - 1) / PAGE_SIZE);
+                pageLabel.setText("Page " + pageNumber + " of " + pages + " (" + searchResult.totalCount + " matches)");
+            } else {
+                pageLabel.setText("Page " + pageNumber);
+            }
+        }
+        if (newerButton != null) {
+            newerButton.setDisable(!hasNewerPage());
+        }
+        if (olderButton != null) {
+            olderButton.setDisable(!hasOlderPage());
+        }
+    }
+
     /**
      * Update statistics cards from database
      */
@@ -365,14 +461,25 @@ public class AdminAuditLogsController {
         }
     }
 
+    /**
+     * Export every log matching the current filters (not just the page on screen).
+     * Rows are streamed from the database straight into the file.
+     */
     private void exportToCSV(File file) throws Exception {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+        String actionType = actionTypeFilter != null ? actionTypeFilter.getValue() : null;
+        String module = moduleFilter != null ? moduleFilter.getValue() : null;
+        String result = resultFilter != null ? resultFilter.getValue() : null;
+        String searchText = searchField != null ? searchField.getText() : null;
+
+        try (Stream<AuditLog> logs = auditLogDAO.streamFilteredAuditLogs(actionType, module, result, searchText);
+             BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
             // Write header
             writer.write("Log Code,Timestamp,User,Action Type,Module,Description,Result");
             writer.newLine();
 
             // Write data
-            for (AuditLog log : logsData) {
+            for (Iterator<AuditLog> it = logs.iterator(); it.hasNext(); ) {
+                AuditLog log = it.next();
                 writer.write(String.format("%s,%s,%s,%s,%s,%s,%s",
                     escapeCsv(log.getLogCode()),
                     escapeCsv(log.getTimestamp().format(dateFormatter)),
@@ -401,6 +508,52 @@ public class AdminAuditLogsController {
 
     @FXML
     private void handleArchive() {
+        // An earlier run that was stopped or interrupted has to finish first - looked up in
+        // the background, the BULK pool can take a while to hand out a connection
+        Task<AuditLogArchiver.Progress> lookupTask = new Task<>() {
+            @Override
+            protected AuditLogArchiver.Progress call() throws Exception {
+                return archiver.findUnfinishedRun();
+            }
+        };
+
+        archiveButton.setDisable(true);
+        lookupTask.setOnSucceeded(e -> {
+            archiveButton.setDisable(false);
+            AuditLogArchiver.Progress unfinished = lookupTask.getValue();
+            if (unfinished != null) {
+                askResumeArchive(unfinished);
+            } else {
+                askNewArchive();
+            }
+        });
+        lookupTask.setOnFailed(e -> {
+            archiveButton.setDisable(false);
+            Throwable error = lookupTask.getException();
+            error.printStackTrace();
+            showError("Archive Failed", "Failed to check for an unfinished archive: " + error.getMessage());
+        });
+
+        Thread thread = new Thread(lookupTask, "audit-archive-lookup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void askResumeArchive(AuditLogArchiver.Progress unfinished) {
+        Alert resume = new Alert(Alert.AlertType.CONFIRMATION);
+        resume.setTitle("Resume Archive");
+        resume.setHeaderText("An earlier archive did not finish");
+        resume.setContentText(String.format(
+            "It was deleting SUCCESS logs from before %s.\n%d logs deleted so far (%.0f%% done).\n\nResume it now?",
+            unfinished.cutoff.format(dateFormatter), unfinished.deleted, unfinished.getFraction() * 100));
+        resume.showAndWait().ifPresent(response -> {
+            if (response == ButtonType.OK) {
+                runArchive(() -> unfinished);
+            }
+        });
+    }
+
+    private void askNewArchive() {
         // Create custom dialog with spinner for days
         Dialog<Integer> dialog = new Dialog<>();
         dialog.setTitle("Archive Old Logs");
@@ -438,29 +591,102 @@ public class AdminAuditLogsController {
 
             confirm.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
-                    try {
-                        int deletedCount = auditLogDAO.archiveOldLogs(days);
-
-                        // Log the archive action (using DELETE action type)
-                        if (currentUser != null) {
-                            auditLogDAO.logSuccess(currentUser.getUserId(), currentUser.getUsername(),
-                                "DELETE", "Audit Logs", "Archived " + deletedCount + " logs older than " + days + " days");
-                        }
-
-                        showInfo("Archive Complete", deletedCount + " old audit logs were deleted.");
-                        handleRefresh();
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        showError("Archive Failed", "Failed to archive logs: " + e.getMessage());
-                    }
+                    runArchive(() -> archiver.startRun(days));
                 }
             });
         });
     }
 
+    /**
+     * Run (or resume) an archive run on a background thread, with progress shown next to the
+     * Archive button. The run commits after every step, so Stop, a failure or closing the app
+     * only pauses it.
+     *
+     * @param runSource Gives the run to work on - called on the background thread, so
+     *                  starting a new run (a range query and an insert) doesn't block the UI
+     */
+    private void runArchive(Callable<AuditLogArchiver.Progress> runSource) {
+        stopArchiveRequested = false;
+
+        Task<AuditLogArchiver.Progress> archiveTask = new Task<>() {
+            @Override
+            protected AuditLogArchiver.Progress call() throws Exception {
+                // RUNS ON BACKGROUND THREAD - updateProgress/updateMessage hand over to the UI thread
+                updateMessage("Starting...");
+                AuditLogArchiver.Progress run = runSource.call();
+                return archiver.run(run, progress -> {
+                    updateProgress(progress.getFraction(), 1.0);
+                    updateMessage(describeArchiveProgress(progress));
+                }, () -> stopArchiveRequested);
+            }
+        };
+
+        archiveProgressBar.progressProperty().bind(archiveTask.progressProperty());
+        archiveProgressLabel.textProperty().bind(archiveTask.messageProperty());
+        archiveProgressBox.setVisible(true);
+        archiveProgressBox.setManaged(true);
+        stopArchiveButton.setDisable(false);
+        archiveButton.setDisable(true);
+
+        archiveTask.setOnSucceeded(e -> {
+            hideArchiveProgress();
+            AuditLogArchiver.Progress result = archiveTask.getValue();
+
+            // Log the archive action (using DELETE action type)
+            if (currentUser != null) {
+                auditLogDAO.logSuccess(currentUser.getUserId(), currentUser.getUsername(),
+                    "DELETE", "Audit Logs", String.format("Archived %d logs older than %s%s",
+                        result.deleted, result.cutoff.format(dateFormatter), result.done ? "" : " (stopped)"));
+            }
+
+            if (result.done) {
+                showInfo("Archive Complete", result.deleted + " old audit logs were deleted.");
+            } else {
+                showInfo("Archive Stopped", result.deleted + " old audit logs were deleted so far.\n" +
+                    "Click Archive Old Logs to resume.");
+            }
+            handleRefresh();
+        });
+
+        archiveTask.setOnFailed(e -> {
+            hideArchiveProgress();
+            Throwable error = archiveTask.getException();
+            error.printStackTrace();
+            showError("Archive Failed", "Failed to archive logs: " + error.getMessage() +
+                "\nEverything deleted so far is kept - click Archive Old Logs to resume.");
+        });
+
+        Thread thread = new Thread(archiveTask, "audit-log-archiver");
+        thread.setDaemon(true);  // Closing the app just pauses the run
+        thread.start();
+    }
+
+    @FXML
+    private void handleStopArchive() {
+        stopArchiveRequested = true;
+        stopArchiveButton.setDisable(true);
+        archiveProgressLabel.textProperty().unbind();
+        archiveProgressLabel.setText("Stopping after the current step...");
+    }
+
+    private void hideArchiveProgress() {
+        archiveProgressBar.progressProperty().unbind();
+        archiveProgressLabel.textProperty().unbind();
+        archiveProgressBox.setVisible(false);
+        archiveProgressBox.setManaged(false);
+        archiveButton.setDisable(false);
+    }
+
+    private static String describeArchiveProgress(AuditLogArchiver.Progress progress) {
+        if (progress.partition != null) {
+            return String.format("Dropping old partition %s... (%d deleted)", progress.partition, progress.deleted);
+        }
+        return String.format("%d deleted - %.0f%%", progress.deleted, progress.getFraction() * 100);
+    }
+
     @FXML
     private void handleRefresh() {
-        currentOffset = 0;
+        resetPaging();
         loadLogsFromDatabase();
         updateStats();
         showInfo("Refreshed", "Audit logs have been refreshed from the database.");
@@ -1,6 +1,7 @@
 package com.team.supplychain.controllers;
 
 import com.team.supplychain.dao.AuditLogDAO;
+import com.team.supplychain.dao.DashboardMetricsDAO;
 import com.team.supplychain.dao.InventoryDAO;
 import com.team.supplychain.dao.RequisitionDAO;
 import com.team.supplychain.dao.UserDAO;
@@ -61,6 +62,7 @@ public class AdminDashboardController {
     private InventoryDAO inventoryDAO;
     private RequisitionDAO requisitionDAO;
     private AuditLogDAO auditLogDAO;
+    private DashboardMetricsDAO dashboardMetricsDAO;
 
     /**
      * Helper class to hold all dashboard metrics loaded in background
@@ -140,6 +142,7 @@ public class AdminDashboardController {
         inventoryDAO = new InventoryDAO();
         requisitionDAO = new RequisitionDAO();
         auditLogDAO = new AuditLogDAO();
+        dashboardMetricsDAO = new DashboardMetricsDAO();
 
         // Load all data asynchronously
         loadDashboardDataAsync();
@@ -155,17 +158,12 @@ public class AdminDashboardController {
             @Override
             protected DashboardMetrics call() throws Exception {
                 // Load all metrics in background thread
-                // Note: Each query is called ONCE (no duplicates)
-                int activeUsers = userDAO.getActiveUserCount();
-                int totalItems = inventoryDAO.getTotalItemsCount();
-                int lowStockCount = inventoryDAO.getLowStockCount();
-                int outOfStockCount = inventoryDAO.getOutOfStockCount();
-                int pendingRequisitions = requisitionDAO.getPendingRequisitionsCount();
-                int securityIncidents = auditLogDAO.getRecentAuditLogCount();
+                // Note: One query for all six counts, shared with other dashboards for a few seconds
+                DashboardMetricsDAO.Snapshot snapshot = dashboardMetricsDAO.getSnapshot();
 
                 return new DashboardMetrics(
-                    activeUsers, totalItems, lowStockCount,
-                    outOfStockCount, pendingRequisitions, securityIncidents
+                    snapshot.getActiveUsers(), snapshot.getTotalItems(), snapshot.getLowStockCount(),
+                    snapshot.getOutOfStockCount(), snapshot.getPendingRequisitions(), snapshot.getRecentAuditLogs()
                 );
             }
         };
@@ -6,6 +6,7 @@ import com.team.supplychain.dao.UserDAO;
 import com.team.supplychain.enums.UserRole;
 import com.team.supplychain.models.Employee;
 import com.team.supplychain.models.User;
+import com.team.supplychain.services.QRCodeService;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -490,7 +491,11 @@ public class AdminUserManagementController {
                         employee.setHireDate(LocalDate.now());
                         employee.setQrCode("QR-" + user.getUserId()); // Generate simple QR code
 
-                        employeeDAO.createEmployee(employee);
+                        // Signed badges embed the employee id, so they can only be issued after the insert
+                        if (employeeDAO.createEmployee(employee) && QRCodeService.isSigningEnabled()) {
+                            employee.setQrCode(QRCodeService.generateSignedCode(employee.getEmployeeId()));
+                            employeeDAO.updateEmployee(employee);
+                        }
                     }
 
                     if (userCreated) {
@@ -3,11 +3,13 @@ package com.team.supplychain.controllers;
 import com.team.supplychain.dao.AttendanceDAO;
 import com.team.supplychain.dao.EmployeeDAO;
 import com.team.supplychain.dao.RequisitionDAO;
+import com.team.supplychain.dao.UnitOfWork;
 import com.team.supplychain.enums.AttendanceStatus;
 import com.team.supplychain.models.Attendance;
 import com.team.supplychain.models.Employee;
 import com.team.supplychain.models.Requisition;
 import com.team.supplychain.models.User;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
@@ -123,32 +125,35 @@ public class EmployeeDashboardController {
         Task<DashboardData> loadTask = new Task<>() {
             @Override
             protected DashboardData call() throws Exception {
-                // Load employee profile
-                Employee employee = employeeDAO.getEmployeeByUserId(user.getUserId());
+                // One pooled connection for all five lookups
+                try (UnitOfWork work = UnitOfWork.begin(Workload.INTERACTIVE)) {
+                    // Load employee profile
+                    Employee employee = employeeDAO.getEmployeeByUserId(user.getUserId());
 
-                if (employee == null) {
-                    throw new Exception("No employee record found for user: " + user.getUsername());
-                }
+                    if (employee == null) {
+                        throw new Exception("No employee record found for user: " + user.getUsername());
+                    }
 
-                int employeeId = employee.getEmployeeId();
+                    int employeeId = employee.getEmployeeId();
 
-                // Load today's attendance
-                Attendance todayAttendance = attendanceDAO.getTodayAttendance(employeeId);
+                    // Load today's attendance
+                    Attendance todayAttendance = attendanceDAO.getTodayAttendance(employeeId);
 
-                // Load week's attendance
-                LocalDate today = LocalDate.now();
-                LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-                List<Attendance> weekAttendance = attendanceDAO.getWeekAttendance(employeeId, weekStart);
+                    // Load week's attendance
+                    LocalDate today = LocalDate.now();
+                    LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                    List<Attendance> weekAttendance = attendanceDAO.getWeekAttendance(employeeId, weekStart);
 
-                // Load month's attendance
-                LocalDate monthStart = today.withDayOfMonth(1);
-                LocalDate monthEnd = today.with(TemporalAdjusters.lastDayOfMonth());
-                List<Attendance> monthAttendance = attendanceDAO.getAttendanceByDateRange(employeeId, monthStart, monthEnd);
+                    // Load month's attendance
+                    LocalDate monthStart = today.withDayOfMonth(1);
+                    LocalDate monthEnd = today.with(TemporalAdjusters.lastDayOfMonth());
+                    List<Attendance> monthAttendance = attendanceDAO.getAttendanceByDateRange(employeeId, monthStart, monthEnd);
 
-                // Load recent requisitions
-                List<Requisition> requisitions = requisitionDAO.getRequisitionsByUser(user.getUserId());
+                    // Load recent requisitions
+                    List<Requisition> requisitions = requisitionDAO.getRequisitionsByUser(user.getUserId());
 
-                return new DashboardData(employee, todayAttendance, weekAttendance, monthAttendance, requisitions);
+                    return new DashboardData(employee, todayAttendance, weekAttendance, monthAttendance, requisitions);
+                }
             }
         };
 
@@ -204,23 +209,26 @@ public class EmployeeDashboardController {
             protected DashboardData call() throws Exception {
                 int employeeId = currentEmployee.getEmployeeId();
 
-                // Load today's attendance
-                Attendance todayAttendance = attendanceDAO.getTodayAttendance(employeeId);
+                // One pooled connection for all four lookups
+                try (UnitOfWork work = UnitOfWork.begin(Workload.INTERACTIVE)) {
+                    // Load today's attendance
+                    Attendance todayAttendance = attendanceDAO.getTodayAttendance(employeeId);
 
-                // Load week's attendance
-                LocalDate today = LocalDate.now();
-                LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-                List<Attendance> weekAttendance = attendanceDAO.getWeekAttendance(employeeId, weekStart);
+                    // Load week's attendance
+                    LocalDate today = LocalDate.now();
+                    LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                    List<Attendance> weekAttendance = attendanceDAO.getWeekAttendance(employeeId, weekStart);
 
-                // Load month's attendance
-                LocalDate monthStart = today.withDayOfMonth(1);
-                LocalDate monthEnd = today.with(TemporalAdjusters.lastDayOfMonth());
-                List<Attendance> monthAttendance = attendanceDAO.getAttendanceByDateRange(employeeId, monthStart, monthEnd);
+                    // Load month's attendance
+                    LocalDate monthStart = today.withDayOfMonth(1);
+                    LocalDate monthEnd = today.with(TemporalAdjusters.lastDayOfMonth());
+                    List<Attendance> monthAttendance = attendanceDAO.getAttendanceByDateRange(employeeId, monthStart, monthEnd);
 
-                // Load recent requisitions
-                List<Requisition> requisitions = requisitionDAO.getRequisitionsByUser(currentUser.getUserId());
+                    // Load recent requisitions
+                    List<Requisition> requisitions = requisitionDAO.getRequisitionsByUser(currentUser.getUserId());
 
-                return new DashboardData(currentEmployee, todayAttendance, weekAttendance, monthAttendance, requisitions);
+                    return new DashboardData(currentEmployee, todayAttendance, weekAttendance, monthAttendance, requisitions);
+                }
             }
         };
 
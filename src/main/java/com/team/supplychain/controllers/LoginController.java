@@ -109,17 +109,15 @@ public class LoginController {
                 // Authentication successful! User exists and password matches
 
                 // Log successful login to audit trail
-                // We do this in ANOTHER background thread so dashboard loads immediately
-                // Audit logging is "fire and forget" - we don't wait for it
-                new Thread(() -> {
-                    auditLogDAO.logSuccess(
-                        user.getUserId(),
-                        user.getUsername(),
-                        "LOGIN",
-                        "Authentication",
-                        String.format("User %s logged in successfully", user.getUsername())
-                    );
-                }).start();
+                // Audit logging is "fire and forget" - the event is queued and written in
+                // the background (AuditLogSink), so the dashboard loads immediately
+                auditLogDAO.logSuccess(
+                    user.getUserId(),
+                    user.getUsername(),
+                    "LOGIN",
+                    "Authentication",
+                    String.format("User %s logged in successfully", user.getUsername())
+                );
 
                 // Load the appropriate dashboard (AdminDashboard, EmployeeDashboard, etc.)
                 openDashboard(user);
@@ -129,15 +127,13 @@ public class LoginController {
                 // For security, we don't tell the user WHICH one is wrong
 
                 // Log failed login attempt (helps detect brute force attacks)
-                new Thread(() -> {
-                    auditLogDAO.logFailure(
-                        null,  // No user ID since login failed
-                        username,
-                        "LOGIN",
-                        "Authentication",
-                        String.format("Failed login attempt for username: %s", username)
-                    );
-                }).start();
+                auditLogDAO.logFailure(
+                    null,  // No user ID since login failed
+                    username,
+                    "LOGIN",
+                    "Authentication",
+                    String.format("Failed login attempt for username: %s", username)
+                );
 
                 // Show generic error message (don't reveal if username exists)
                 showError("Invalid username or password");
@@ -154,15 +150,13 @@ public class LoginController {
             exception.printStackTrace();
 
             // Log the technical error for debugging
-            new Thread(() -> {
-                auditLogDAO.logFailure(
-                    null,
-                    username,
-                    "LOGIN",
-                    "Authentication",
-                    String.format("Login error for username %s: %s", username, exception.getMessage())
-                );
-            }).start();
+            auditLogDAO.logFailure(
+                null,
+                username,
+                "LOGIN",
+                "Authentication",
+                String.format("Login error for username %s: %s", username, exception.getMessage())
+            );
 
             // Show user-friendly error message (don't expose technical details)
             showError("An error occurred. Please try again.");
@@ -1,9 +1,12 @@
 package com.team.supplychain.controllers;
 
+import com.google.gson.JsonObject;
 import com.team.supplychain.dao.AttendanceDAO;
 import com.team.supplychain.enums.AttendanceStatus;
 import com.team.supplychain.models.Attendance;
 import com.team.supplychain.models.User;
+import com.team.supplychain.utils.AttendanceEventClient;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -14,11 +17,19 @@ import javafx.geometry.Pos;
 import javafx.scene.control.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Controller for the Manager Attendance Tracking view
  * Displays all attendance records from database with statistics for selected date
+ *
+ * LIVE UPDATES:
+ * After the first load, the view subscribes to the scan server's event stream
+ * (AttendanceEventClient) and applies each check-in/check-out to the table and counters
+ * as it happens - no full reload. Refresh still reloads everything, e.g. for
+ * changes made outside the scan server.
  */
 public class ManagerAttendanceController {
 
@@ -47,6 +58,21 @@ public class ManagerAttendanceController {
     private ObservableList<Attendance> attendanceData;
     private final AttendanceDAO attendanceDAO = new AttendanceDAO();
 
+    // Counters for the selected date (kept current by live events)
+    private int totalCount, presentCount, lateCount, absentCount;
+
+    // How long the first load waits for the event stream before going ahead without it
+    private static final long SUBSCRIBE_TIMEOUT_MS = 3000;
+
+    private AttendanceEventClient eventClient;
+    // Events that arrive while a full load is running are re-applied on top of its result
+    private boolean loading;
+    private boolean loadStarted;
+    private final List<JsonObject> eventsDuringLoad = new ArrayList<>();
+    // Same for the counters, which come from their own query
+    private boolean statsLoading;
+    private final List<JsonObject> eventsDuringStats = new ArrayList<>();
+
     public void setCurrentUser(User user) {
         this.currentUser = user;
     }
@@ -70,9 +96,45 @@ public class ManagerAttendanceController {
             });
         }
 
-        // Load all attendance records and stats for today
-        loadAllAttendanceFromDatabase();
-        loadStatsForDate(LocalDate.now());
+        // Subscribe first - all records and today's stats are loaded once the stream is ready
+        startLiveUpdates();
+    }
+
+    /**
+     * Subscribe to live check-ins/check-outs; unsubscribe when the view is closed.
+     *
+     * The records are loaded when the stream is ready, not before: a scan written while the
+     * load runs then still arrives as an event (see eventsDuringLoad). If the scan server
+     * can't be reached, the records are loaded anyway after SUBSCRIBE_TIMEOUT_MS, and again
+     * once the stream does connect.
+     */
+    private void startLiveUpdates() {
+        eventClient = new AttendanceEventClient(
+            event -> Platform.runLater(() -> applyEvent(event)),
+            reason -> Platform.runLater(() -> {
+                System.out.println("Reloading attendance (" + reason + ")");
+                handleRefresh();
+            }),
+            () -> Platform.runLater(this::handleRefresh));
+        eventClient.start();
+
+        javafx.animation.PauseTransition fallback =
+            new javafx.animation.PauseTransition(javafx.util.Duration.millis(SUBSCRIBE_TIMEOUT_MS));
+        fallback.setOnFinished(e -> {
+            if (!loadStarted) {
+                System.out.println("Live attendance updates not connected - loading without them");
+                handleRefresh();
+            }
+        });
+        fallback.play();
+
+        if (attendanceTable != null) {
+            attendanceTable.sceneProperty().addListener((obs, oldScene, newScene) -> {
+                if (oldScene != null && newScene == null) {
+                    eventClient.stop();
+                }
+            });
+        }
     }
 
     /**
@@ -168,12 +230,19 @@ public class ManagerAttendanceController {
             }
         };
 
+        loading = true;
+        loadStarted = true;
+        eventsDuringLoad.clear();
+
         loadTask.setOnSucceeded(event -> {
             // Update UI on JavaFX thread
+            loading = false;
             List<Attendance> records = loadTask.getValue();
             if (records != null) {
                 attendanceData.clear();
                 attendanceData.addAll(records);
+                // The query may have run before these scans were written
+                eventsDuringLoad.forEach(this::applyToTable);
                 System.out.println("Loaded " + records.size() + " attendance records from database");
             } else {
                 System.err.println("Failed to load attendance records - null result");
@@ -183,6 +252,7 @@ public class ManagerAttendanceController {
 
         loadTask.setOnFailed(event -> {
             // Handle errors
+            loading = false;
             Throwable error = loadTask.getException();
             error.printStackTrace();
             showError("Database Error", "Failed to load attendance: " + error.getMessage());
@@ -207,10 +277,22 @@ public class ManagerAttendanceController {
             }
         };
 
+        statsLoading = true;
+        eventsDuringStats.clear();
+
         statsTask.setOnSucceeded(event -> {
             // Calculate stats on JavaFX thread
+            statsLoading = false;
             List<Attendance> dateRecords = statsTask.getValue();
             if (dateRecords != null) {
+                // The query may have run before these scans were written
+                for (JsonObject scan : eventsDuringStats) {
+                    int employeeId = scan.get("employeeId").getAsInt();
+                    if (LocalDate.parse(scan.get("date").getAsString()).equals(date)
+                            && dateRecords.stream().noneMatch(a -> a.getEmployeeId() == employeeId)) {
+                        dateRecords.add(toAttendance(scan, null));
+                    }
+                }
                 updateStats(dateRecords);
                 System.out.println("Loaded stats for " + date + ": " + dateRecords.size() + " records");
             } else {
@@ -221,6 +303,7 @@ public class ManagerAttendanceController {
 
         statsTask.setOnFailed(event -> {
             // Handle errors
+            statsLoading = false;
             Throwable error = statsTask.getException();
             error.printStackTrace();
             showError("Database Error", "Failed to load statistics: " + error.getMessage());
@@ -254,21 +337,134 @@ public class ManagerAttendanceController {
             .filter(a -> a.getStatus() == AttendanceStatus.ABSENT)
             .count();
 
-        // Update labels
-        if (totalEmployeesLabel != null) totalEmployeesLabel.setText(String.valueOf(total));
-        if (presentLabel != null) presentLabel.setText(String.valueOf(present));
-        if (absentLabel != null) absentLabel.setText(String.valueOf(absent));
-        if (lateLabel != null) lateLabel.setText(String.valueOf(late));
+        totalCount = total;
+        presentCount = (int) present;
+        lateCount = (int) late;
+        absentCount = (int) absent;
+        showStats();
+    }
+
+    /**
+     * Update labels from the counters
+     */
+    private void showStats() {
+        if (totalEmployeesLabel != null) totalEmployeesLabel.setText(String.valueOf(totalCount));
+        if (presentLabel != null) presentLabel.setText(String.valueOf(presentCount));
+        if (absentLabel != null) absentLabel.setText(String.valueOf(absentCount));
+        if (lateLabel != null) lateLabel.setText(String.valueOf(lateCount));
     }
 
     /**
      * Clear all statistics labels
      */
     private void clearStats() {
-        if (totalEmployeesLabel != null) totalEmployeesLabel.setText("0");
-        if (presentLabel != null) presentLabel.setText("0");
-        if (absentLabel != null) absentLabel.setText("0");
-        if (lateLabel != null) lateLabel.setText("0");
+        totalCount = 0;
+        presentCount = 0;
+        lateCount = 0;
+        absentCount = 0;
+        showStats();
+    }
+
+    // ==================== LIVE UPDATES ====================
+
+    /**
+     * Apply one check-in/check-out event from the scan server (JavaFX thread)
+     */
+    private void applyEvent(JsonObject event) {
+        if (loading) {
+            eventsDuringLoad.add(event);
+        }
+        if (statsLoading) {
+            eventsDuringStats.add(event);
+        }
+        boolean newRecord = applyToTable(event);
+
+        // A new record for the selected date changes the counters; a check-out doesn't
+        LocalDate selectedDate = datePicker != null ? datePicker.getValue() : LocalDate.now();
+        if (newRecord && LocalDate.parse(event.get("date").getAsString()).equals(selectedDate)) {
+            totalCount++;
+            String status = event.has("status") ? event.get("status").getAsString() : "";
+            if ("PRESENT".equals(status)) presentCount++;
+            if ("LATE".equals(status)) lateCount++;
+            if ("ABSENT".equals(status)) absentCount++;
+            showStats();
+        }
+    }
+
+    /**
+     * Merge the event into its record in the table (one record per employee per day)
+     *
+     * @return true if the record was not in the table yet
+     */
+    private boolean applyToTable(JsonObject event) {
+        int employeeId = event.get("employeeId").getAsInt();
+        LocalDate date = LocalDate.parse(event.get("date").getAsString());
+
+        for (int i = 0; i < attendanceData.size(); i++) {
+            Attendance existing = attendanceData.get(i);
+            if (existing.getEmployeeId() == employeeId && date.equals(existing.getDate())) {
+                attendanceData.set(i, toAttendance(event, existing));
+                return false;
+            }
+        }
+        // Newest first, like the database query
+        attendanceData.add(0, toAttendance(event, null));
+        return true;
+    }
+
+    /**
+     * Build a record from an event on top of an existing row.
+     *
+     * WHY? A check-out event doesn't have to repeat the check-in time, location or
+     * employee details - only the fields the event actually carries replace the
+     * row's values, everything else is kept.
+     */
+    private Attendance toAttendance(JsonObject event, Attendance existing) {
+        Attendance attendance = new Attendance();
+        if (existing != null) {
+            attendance.setRecordId(existing.getRecordId());
+            attendance.setCheckInTime(existing.getCheckInTime());
+            attendance.setCheckOutTime(existing.getCheckOutTime());
+            attendance.setStatus(existing.getStatus());
+            attendance.setLocation(existing.getLocation());
+            attendance.setQrScanData(existing.getQrScanData());
+            attendance.setNotes(existing.getNotes());
+            attendance.setEmployeeFirstName(existing.getEmployeeFirstName());
+            attendance.setEmployeeLastName(existing.getEmployeeLastName());
+            attendance.setDepartment(existing.getDepartment());
+            attendance.setPosition(existing.getPosition());
+        }
+        attendance.setEmployeeId(event.get("employeeId").getAsInt());
+        attendance.setDate(LocalDate.parse(event.get("date").getAsString()));
+
+        String checkIn = stringOrNull(event, "checkInTime");
+        if (checkIn != null) {
+            attendance.setCheckInTime(LocalDateTime.parse(checkIn));
+        }
+        String checkOut = stringOrNull(event, "checkOutTime");
+        if (checkOut != null) {
+            attendance.setCheckOutTime(LocalDateTime.parse(checkOut));
+        }
+        String status = stringOrNull(event, "status");
+        if (status != null) {
+            attendance.setStatus(AttendanceStatus.valueOf(status));
+        }
+        String location = stringOrNull(event, "location");
+        if (location != null) {
+            attendance.setLocation(location);
+        }
+
+        if (stringOrNull(event, "firstName") != null) {
+            attendance.setEmployeeFirstName(stringOrNull(event, "firstName"));
+            attendance.setEmployeeLastName(stringOrNull(event, "lastName"));
+            attendance.setDepartment(stringOrNull(event, "department"));
+            attendance.setPosition(stringOrNull(event, "position"));
+        }
+        return attendance;
+    }
+
+    private static String stringOrNull(JsonObject event, String name) {
+        return event.has(name) && !event.get(name).isJsonNull() ? event.get(name).getAsString() : null;
     }
 
     // ==================== EVENT HANDLERS ====================
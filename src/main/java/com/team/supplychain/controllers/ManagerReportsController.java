@@ -21,7 +21,9 @@ import java.io.File;
 import java.io.PrintWriter;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class ManagerReportsController {
 
@@ -208,19 +210,17 @@ public class ManagerReportsController {
         if (file != null) {
             try {
                 AttendanceDAO attendanceDAO = new AttendanceDAO();
-                List<Attendance> records = attendanceDAO.getAllAttendanceWithEmployeeDetails();
+                int exported = 0;
 
-                if (records.isEmpty()) {
-                    showError("No Data", "No attendance records found.");
-                    return;
-                }
-
-                try (PrintWriter writer = new PrintWriter(file)) {
+                // Full attendance history - stream it straight into the file instead of loading it all
+                try (Stream<Attendance> records = attendanceDAO.streamAllAttendanceWithEmployeeDetails();
+                     PrintWriter writer = new PrintWriter(file)) {
                     // Write header
                     writer.println("Employee ID,Employee Name,Department,Date,Check In,Check Out,Hours Worked,Status");
 
                     // Write data
-                    for (Attendance record : records) {
+                    for (Iterator<Attendance> it = records.iterator(); it.hasNext(); exported++) {
+                        Attendance record = it.next();
                         writer.printf("%d,%s,%s,%s,%s,%s,%s,%s%n",
                             record.getEmployeeId(),
                             escapeCSV(record.getEmployeeFullName()),
@@ -234,9 +234,15 @@ public class ManagerReportsController {
                     }
                 }
 
+                if (exported == 0) {
+                    file.delete();
+                    showError("No Data", "No attendance records found.");
+                    return;
+                }
+
                 showInfo("Export Successful",
                     "Attendance report exported successfully!\n" +
-                    records.size() + " records exported to:\n" + file.getAbsolutePath());
+                    exported + " records exported to:\n" + file.getAbsolutePath());
 
             } catch (Exception e) {
                 e.printStackTrace();
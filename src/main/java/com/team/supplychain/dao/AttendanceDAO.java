@@ -2,7 +2,10 @@ package com.team.supplychain.dao;
 
 import com.team.supplychain.enums.AttendanceStatus;
 import com.team.supplychain.models.Attendance;
+import com.team.supplychain.models.AttendanceScan;
 import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
+import com.team.supplychain.utils.Metrics;
 
 import java.sql.*;
 import java.time.LocalDate;
@@ -10,6 +13,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for Attendance Records
@@ -20,6 +24,15 @@ public class AttendanceDAO {
     // Work day start time for determining LATE status
     private static final LocalTime WORK_START_TIME = LocalTime.of(8, 30); // 8:30 AM
 
+    // Timings of the scan write paths, exported at /api/metrics
+    private static final Metrics.Histogram RECORD_SCAN_TIME = daoTimer("AttendanceDAO.recordScan");
+    private static final Metrics.Histogram WRITE_BATCH_TIME = daoTimer("AttendanceDAO.writeScanBatch");
+    private static final Metrics.Histogram RECONCILE_TIME = daoTimer("AttendanceDAO.reconcileOfflineScans");
+
+    static Metrics.Histogram daoTimer(String method) {
+        return Metrics.histogram("dao_method_duration_seconds", "Time spent in DAO methods", "method", method);
+    }
+
     /**
      * Record employee check-in
      * Creates new attendance record for today with current timestamp
@@ -34,7 +47,7 @@ public class AttendanceDAO {
         String sql = "INSERT INTO attendance_records (employee_id, check_in_time, date, status, location, qr_scan_data) " +
                     "VALUES (?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             LocalDateTime now = LocalDateTime.now();
@@ -90,7 +103,7 @@ public class AttendanceDAO {
         String sql = "UPDATE attendance_records SET check_out_time = ? " +
                     "WHERE employee_id = ? AND date = CURDATE() AND check_out_time IS NULL";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             LocalDateTime now = LocalDateTime.now();
@@ -108,6 +121,382 @@ public class AttendanceDAO {
         return false;
     }
 
+    /**
+     * Record a QR scan (check-in or check-out) in a single atomic step
+     * Used by the scan API instead of getTodayAttendance() + checkIn()/checkOut()
+     *
+     * WHY NOT READ-THEN-WRITE?
+     * Reading today's record first and then writing costs 2-3 pooled connections per scan,
+     * and two gates scanning the same badge at the same moment can both see "no record"
+     * and both insert. Here the decision is made by the database itself:
+     * - Check-in: INSERT IGNORE against the UNIQUE (employee_id, date) key.
+     *   1 row affected = checked in, 0 rows = a record already exists for today.
+     * - Check-out: UPDATE ... WHERE check_out_time IS NULL.
+     *   1 row affected = checked out, 0 rows = not checked in or already checked out.
+     * Only the losing/duplicate case (and check-out, which needs the check-in time
+     * for hours worked) reads the row back - on the same connection.
+     *
+     * @param employeeId Employee's ID
+     * @param qrCode QR code scanned
+     * @param location Scan location (e.g., "Main Entrance")
+     * @param checkOut true for check-out, false for check-in
+     * @return ScanResult with the outcome and today's record (record is null if none exists)
+     */
+    public ScanResult recordScan(int employeeId, String qrCode, String location, boolean checkOut) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try (Connection conn = UnitOfWork.connection(Workload.SCAN)) {
+            ScanResult result = recordScan(conn, employeeId, qrCode, location, checkOut, LocalDateTime.now());
+            failed = false;
+            return result;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            RECORD_SCAN_TIME.record(start, failed);
+        }
+        return new ScanResult(ScanOutcome.FAILED, null);
+    }
+
+    /**
+     * Same as recordScan, but waits at most maxWaitMs for a connection and reports database
+     * failures instead of returning FAILED. The scan API uses this so it can switch to offline
+     * mode (see OfflineScanBuffer) instead of making people wait for the pool's 30s timeout.
+     *
+     * @param maxWaitMs How long to wait for a pooled connection
+     * @throws SQLException if the database could not be reached or the scan could not be written
+     */
+    public ScanResult recordScan(int employeeId, String qrCode, String location, boolean checkOut,
+                                 long maxWaitMs) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try (Connection conn = DatabaseConnection.getConnection(Workload.SCAN, maxWaitMs)) {
+            ScanResult result = recordScan(conn, employeeId, qrCode, location, checkOut, LocalDateTime.now());
+            failed = false;
+            return result;
+        } finally {
+            RECORD_SCAN_TIME.record(start, failed);
+        }
+    }
+
+    /**
+     * Record a scan on a caller-supplied connection at a given scan time
+     * The connection is NOT closed here - the caller owns it
+     *
+     * @param conn Open database connection
+     * @param employeeId Employee's ID
+     * @param qrCode QR code scanned
+     * @param location Scan location
+     * @param checkOut true for check-out, false for check-in
+     * @param scanTime When the badge was scanned
+     * @return ScanResult with the outcome and today's record
+     * @throws SQLException if database access error occurs
+     */
+    ScanResult recordScan(Connection conn, int employeeId, String qrCode, String location,
+                          boolean checkOut, LocalDateTime scanTime) throws SQLException {
+        LocalDate scanDate = scanTime.toLocalDate();
+
+        if (checkOut) {
+            String sql = "UPDATE attendance_records SET check_out_time = ? " +
+                        "WHERE employee_id = ? AND date = ? AND check_out_time IS NULL";
+
+            int rowsAffected;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setTimestamp(1, Timestamp.valueOf(scanTime));
+                stmt.setInt(2, employeeId);
+                stmt.setDate(3, Date.valueOf(scanDate));
+                rowsAffected = stmt.executeUpdate();
+            }
+
+            // Our UPDATE won (or lost) atomically - the row can't change check_out_time after this
+            Attendance record = findAttendance(conn, employeeId, scanDate);
+            if (rowsAffected > 0 && record != null) {
+                System.out.println("Check-out successful: Employee " + employeeId + " at " + scanTime);
+                return new ScanResult(ScanOutcome.CHECKED_OUT, record);
+            }
+            if (record == null) {
+                return new ScanResult(ScanOutcome.NOT_CHECKED_IN, null);
+            }
+            return new ScanResult(ScanOutcome.ALREADY_CHECKED_OUT, record);
+        }
+
+        String sql = "INSERT IGNORE INTO attendance_records " +
+                    "(employee_id, check_in_time, date, status, location, qr_scan_data) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+
+        AttendanceStatus status = determineStatus(scanTime);
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, employeeId);
+            stmt.setTimestamp(2, Timestamp.valueOf(scanTime));
+            stmt.setDate(3, Date.valueOf(scanDate));
+            stmt.setString(4, status.name());
+            stmt.setString(5, location);
+            stmt.setString(6, qrCode);
+
+            if (stmt.executeUpdate() > 0) {
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        Attendance attendance = new Attendance(employeeId, scanTime, scanDate, status);
+                        attendance.setRecordId(rs.getInt(1));
+                        attendance.setLocation(location);
+                        attendance.setQrScanData(qrCode);
+
+                        System.out.println("Check-in successful: Employee " + employeeId + " at " + scanTime);
+                        return new ScanResult(ScanOutcome.CHECKED_IN, attendance);
+                    }
+                }
+            }
+        }
+
+        // UNIQUE (employee_id, date) rejected the insert - someone already has today's row
+        Attendance existing = findAttendance(conn, employeeId, scanDate);
+        if (existing == null) {
+            return new ScanResult(ScanOutcome.FAILED, null);
+        }
+        return new ScanResult(existing.isCheckedIn() ?
+                ScanOutcome.ALREADY_CHECKED_IN : ScanOutcome.ALREADY_COMPLETED, existing);
+    }
+
+    /**
+     * Write a batch of already-decided scans in one transaction
+     * Used by the write-behind flusher to drain the local scan journal
+     *
+     * BATCHING:
+     * All check-ins go out as one batched INSERT and all check-outs as one batched UPDATE.
+     * With rewriteBatchedStatements=true (see DatabaseConnection) the driver turns the
+     * INSERT batch into a single multi-row INSERT - one round-trip for the whole group.
+     * Check-ins run first so a check-out in the same batch finds its row.
+     *
+     * IDEMPOTENT:
+     * INSERT IGNORE (UNIQUE employee_id + date) and UPDATE ... WHERE check_out_time IS NULL
+     * are both no-ops the second time, so replaying a journal after a crash is safe.
+     *
+     * @param scans Scans to write (check-ins and check-outs, any order)
+     * @throws SQLException if the batch could not be committed (nothing is written)
+     */
+    public void writeScanBatch(List<AttendanceScan> scans) throws SQLException {
+        String insertSql = "INSERT IGNORE INTO attendance_records " +
+                    "(employee_id, check_in_time, date, status, location, qr_scan_data) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+        String updateSql = "UPDATE attendance_records SET check_out_time = ? " +
+                    "WHERE employee_id = ? AND date = ? AND check_out_time IS NULL";
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            inTransaction(Workload.SCAN, conn -> writeScans(conn, scans, insertSql, updateSql, false));
+            failed = false;
+        } finally {
+            WRITE_BATCH_TIME.record(start, failed);
+        }
+    }
+
+    /**
+     * Reconcile scans that were accepted while the database was unreachable
+     * Used by OfflineScanBuffer once connectivity returns
+     *
+     * Offline scans were decided without knowing what was already in the database,
+     * so they are merged instead of applied blindly:
+     * - Check-in: the EARLIEST check-in of the day wins (and its LATE/PRESENT status with it).
+     *   A row written online before the outage is kept if it is earlier.
+     * - Check-out: the LATEST check-out of the day wins, and only if it is after the check-in.
+     * - A check-out with no check-in anywhere can't be placed and is counted as unmatched.
+     * Like writeScanBatch, the whole batch commits together and replaying it is harmless.
+     *
+     * @param scans Offline scans in the order they were taken
+     * @return Number of check-outs that found no check-in to attach to
+     * @throws SQLException if the batch could not be committed (nothing is written)
+     */
+    public int reconcileOfflineScans(List<AttendanceScan> scans) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        int[] updateCounts;
+        try {
+            updateCounts = inTransaction(Workload.BULK, conn -> mergeScans(conn, scans));
+            failed = false;
+        } finally {
+            RECONCILE_TIME.record(start, failed);
+        }
+        int unmatched = 0;
+        for (int count : updateCounts) {
+            if (count == 0) {
+                unmatched++;
+            }
+        }
+        return unmatched;
+    }
+
+    /**
+     * Merge scans on a caller-supplied connection (no commit) using the
+     * earliest-check-in / latest-check-out rules described on reconcileOfflineScans.
+     * Also used by BulkScanSession for gate-device uploads.
+     *
+     * @return Update counts of the check-out batch
+     */
+    int[] mergeScans(Connection conn, List<AttendanceScan> scans) throws SQLException {
+        // status/location are assigned before check_in_time so they compare against the old value
+        String insertSql = "INSERT INTO attendance_records " +
+                    "(employee_id, check_in_time, date, status, location, qr_scan_data) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "status = IF(VALUES(check_in_time) < check_in_time, VALUES(status), status), " +
+                    "location = IF(VALUES(check_in_time) < check_in_time, VALUES(location), location), " +
+                    "check_in_time = LEAST(check_in_time, VALUES(check_in_time))";
+        String updateSql = "UPDATE attendance_records " +
+                    "SET check_out_time = GREATEST(COALESCE(check_out_time, ?), ?) " +
+                    "WHERE employee_id = ? AND date = ? AND check_in_time <= ?";
+
+        return writeScans(conn, scans, insertSql, updateSql, true);
+    }
+
+    /**
+     * Write scans on the given connection: all check-ins as one batch, then all check-outs as another.
+     * Check-ins run first so a check-out in the same batch finds its row.
+     *
+     * @param mergeCheckOut false: check-out parameters are (time, employee, date)
+     *                      true: (time, time, employee, date, time) - see mergeScans
+     * @return Update counts of the check-out batch
+     */
+    private int[] writeScans(Connection conn, List<AttendanceScan> scans, String insertSql, String updateSql,
+                             boolean mergeCheckOut) throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement(insertSql);
+             PreparedStatement update = conn.prepareStatement(updateSql)) {
+
+            int checkIns = 0;
+            int checkOuts = 0;
+            for (AttendanceScan scan : scans) {
+                Timestamp scanTime = Timestamp.valueOf(scan.getScanTime());
+                if (scan.isCheckOut()) {
+                    int index = 1;
+                    update.setTimestamp(index++, scanTime);
+                    if (mergeCheckOut) {
+                        update.setTimestamp(index++, scanTime);
+                    }
+                    update.setInt(index++, scan.getEmployeeId());
+                    update.setDate(index++, Date.valueOf(scan.getDate()));
+                    if (mergeCheckOut) {
+                        update.setTimestamp(index, scanTime);
+                    }
+                    update.addBatch();
+                    checkOuts++;
+                } else {
+                    insert.setInt(1, scan.getEmployeeId());
+                    insert.setTimestamp(2, scanTime);
+                    insert.setDate(3, Date.valueOf(scan.getDate()));
+                    insert.setString(4, determineStatus(scan.getScanTime()).name());
+                    insert.setString(5, scan.getLocation());
+                    insert.setString(6, scan.getQrCode());
+                    insert.addBatch();
+                    checkIns++;
+                }
+            }
+
+            if (checkIns > 0) {
+                insert.executeBatch();
+            }
+            return checkOuts > 0 ? update.executeBatch() : new int[0];
+        }
+    }
+
+    /**
+     * Run work on one connection from the workload's pool as a single transaction (rolled back on failure)
+     */
+    private <T> T inTransaction(Workload workload, SqlWork<T> work) throws SQLException {
+        try (Connection conn = UnitOfWork.connection(workload)) {
+            conn.setAutoCommit(false);
+            try {
+                T result = work.run(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                // Roll back before setAutoCommit(true) below - it would commit the half-done work
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Lock and read the records for a set of (employee, date) pairs on a caller-supplied connection.
+     * Used by BulkScanSession to decide a whole chunk of uploaded scans with one query.
+     *
+     * @param conn Open connection inside a transaction (rows stay locked until it ends)
+     * @param employeeIds Employee of each pair
+     * @param dates Date of each pair (same length as employeeIds)
+     * @return Existing records (pairs without a record are simply absent)
+     */
+    List<Attendance> findAttendanceForUpdate(Connection conn, List<Integer> employeeIds,
+                                             List<LocalDate> dates) throws SQLException {
+        List<Attendance> records = new ArrayList<>();
+        if (employeeIds.isEmpty()) {
+            return records;
+        }
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT * FROM attendance_records WHERE (employee_id, date) IN (");
+        for (int i = 0; i < employeeIds.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        sql.append(") FOR UPDATE");
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (int i = 0; i < employeeIds.size(); i++) {
+                stmt.setInt(index++, employeeIds.get(i));
+                stmt.setDate(index++, Date.valueOf(dates.get(i)));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    records.add(extractAttendanceFromResultSet(rs));
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Start a bulk upload: one connection, one transaction, processed chunk by chunk
+     *
+     * @return Session the caller must close (rolls back unless commit() was called)
+     */
+    public BulkScanSession openBulkSession() throws SQLException {
+        return new BulkScanSession(this, DatabaseConnection.getConnection(Workload.BULK));
+    }
+
+    /**
+     * Determine check-in status: LATE if after 8:30 AM, otherwise PRESENT
+     */
+    public static AttendanceStatus determineStatus(LocalDateTime checkInTime) {
+        return checkInTime.toLocalTime().isAfter(WORK_START_TIME) ?
+                AttendanceStatus.LATE : AttendanceStatus.PRESENT;
+    }
+
+    /**
+     * Read one employee's record for a given date on an existing connection
+     */
+    private Attendance findAttendance(Connection conn, int employeeId, LocalDate date) throws SQLException {
+        String sql = "SELECT * FROM attendance_records WHERE employee_id = ? AND date = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, employeeId);
+            stmt.setDate(2, Date.valueOf(date));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return extractAttendanceFromResultSet(rs);
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Get today's attendance record for an employee
      *
@@ -117,7 +506,7 @@ public class AttendanceDAO {
     public Attendance getTodayAttendance(int employeeId) {
         String sql = "SELECT * FROM attendance_records WHERE employee_id = ? AND date = CURDATE()";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, employeeId);
@@ -145,7 +534,7 @@ public class AttendanceDAO {
                     "WHERE employee_id = ? AND date >= ? AND date < DATE_ADD(?, INTERVAL 7 DAY) " +
                     "ORDER BY date ASC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, employeeId);
@@ -177,7 +566,7 @@ public class AttendanceDAO {
                     "WHERE employee_id = ? AND YEAR(date) = ? AND MONTH(date) = ? " +
                     "ORDER BY date ASC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, employeeId);
@@ -209,7 +598,7 @@ public class AttendanceDAO {
                     "WHERE employee_id = ? AND date BETWEEN ? AND ? " +
                     "ORDER BY date DESC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, employeeId);
@@ -237,7 +626,7 @@ public class AttendanceDAO {
         List<Attendance> attendanceList = new ArrayList<>();
         String sql = "SELECT * FROM attendance_records WHERE employee_id = ? ORDER BY date DESC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, employeeId);
@@ -345,25 +734,15 @@ public class AttendanceDAO {
      */
     public List<Attendance> getAllAttendanceWithEmployeeDetails() {
         List<Attendance> attendanceList = new ArrayList<>();
-        String sql = "SELECT a.*, e.department, e.position, u.first_name, u.last_name " +
-                    "FROM attendance_records a " +
-                    "JOIN employees e ON a.employee_id = e.employee_id " +
-                    "JOIN users u ON e.user_id = u.user_id " +
-                    "ORDER BY a.date DESC, a.check_in_time DESC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        // Full history export - keep it out of the desktop pool if the replica is down
+        try (Connection conn = UnitOfWork.readConnection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement(ALL_WITH_EMPLOYEE_DETAILS_SQL)) {
 
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                Attendance attendance = extractAttendanceFromResultSet(rs);
-                // Set employee details from joined query
-                attendance.setEmployeeFirstName(rs.getString("first_name"));
-                attendance.setEmployeeLastName(rs.getString("last_name"));
-                attendance.setDepartment(rs.getString("department"));
-                attendance.setPosition(rs.getString("position"));
-                attendanceList.add(attendance);
+                attendanceList.add(extractAttendanceWithEmployeeDetails(rs));
             }
 
         } catch (SQLException e) {
@@ -373,6 +752,36 @@ public class AttendanceDAO {
         return attendanceList;
     }
 
+    /**
+     * Same rows as getAllAttendanceWithEmployeeDetails(), streamed in fetch-size chunks
+     * instead of loaded into one list - for exports and analytics over the full history.
+     * Close the Stream (try-with-resources) to give the connection back; see RowStream.
+     *
+     * @return Lazy stream of attendance records with employee information, newest first
+     * @throws SQLException if the query could not be started
+     */
+    public Stream<Attendance> streamAllAttendanceWithEmployeeDetails() throws SQLException {
+        return RowStream.query(Workload.BULK, ALL_WITH_EMPLOYEE_DETAILS_SQL, stmt -> { },
+                this::extractAttendanceWithEmployeeDetails);
+    }
+
+    private static final String ALL_WITH_EMPLOYEE_DETAILS_SQL =
+            "SELECT a.*, e.department, e.position, u.first_name, u.last_name " +
+            "FROM attendance_records a " +
+            "JOIN employees e ON a.employee_id = e.employee_id " +
+            "JOIN users u ON e.user_id = u.user_id " +
+            "ORDER BY a.date DESC, a.check_in_time DESC";
+
+    private Attendance extractAttendanceWithEmployeeDetails(ResultSet rs) throws SQLException {
+        Attendance attendance = extractAttendanceFromResultSet(rs);
+        // Set employee details from joined query
+        attendance.setEmployeeFirstName(rs.getString("first_name"));
+        attendance.setEmployeeLastName(rs.getString("last_name"));
+        attendance.setDepartment(rs.getString("department"));
+        attendance.setPosition(rs.getString("position"));
+        return attendance;
+    }
+
     /**
      * Get all attendance records for a specific date with employee details
      * Used by managers to view attendance for a particular day
@@ -389,7 +798,7 @@ public class AttendanceDAO {
                     "WHERE a.date = ? " +
                     "ORDER BY a.check_in_time ASC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setDate(1, Date.valueOf(date));
@@ -412,6 +821,42 @@ public class AttendanceDAO {
         return attendanceList;
     }
 
+    /**
+     * Possible results of a single QR scan
+     * Used by recordScan()
+     */
+    public enum ScanOutcome {
+        CHECKED_IN,          // New record created for today
+        CHECKED_OUT,         // Today's open record was closed
+        ALREADY_CHECKED_IN,  // Check-in scan, but employee is already checked in
+        ALREADY_COMPLETED,   // Check-in scan, but today's attendance is already checked out
+        NOT_CHECKED_IN,      // Check-out scan with no record for today
+        ALREADY_CHECKED_OUT, // Check-out scan, but employee already checked out
+        UNKNOWN_BADGE,       // QR code doesn't match an active employee (bulk uploads)
+        FAILED               // Database error
+    }
+
+    /**
+     * Inner class for the result of a QR scan
+     * Used by recordScan() - carries the outcome plus the final state of today's record
+     */
+    public static class ScanResult {
+        public final ScanOutcome outcome;
+        public final Attendance attendance;
+
+        public ScanResult(ScanOutcome outcome, Attendance attendance) {
+            this.outcome = outcome;
+            this.attendance = attendance;
+        }
+
+        /**
+         * @return true if this scan changed the database (check-in or check-out recorded)
+         */
+        public boolean isSuccess() {
+            return outcome == ScanOutcome.CHECKED_IN || outcome == ScanOutcome.CHECKED_OUT;
+        }
+    }
+
     /**
      * Inner class for attendance statistics
      * Used by getStatistics() method
@@ -0,0 +1,623 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.utils.AppConfig;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Archiving (deleting) old SUCCESS audit logs in small steps that can be stopped and resumed.
+ *
+ * WHY?
+ * archiveOldLogs used to be one DELETE over every old SUCCESS log - on a big table that is one
+ * transaction holding locks on millions of rows for minutes, while logins try to write their
+ * audit events. If it failed or the app was closed, everything was rolled back.
+ *
+ * HOW IT WORKS:
+ * audit_logs is partitioned by month (db.sql 2.1). A run:
+ * 1. Adds monthly partitions ahead of time (audit.partitions.monthsAhead, default 3) by
+ *    splitting p_future. db.sql creates the months up to monthsAhead and startup
+ *    (startPartitionMaintenance) keeps them ahead, so p_future is empty when it is split -
+ *    a metadata change. If rows did reach p_future it is left alone: splitting it would
+ *    copy them, holding a lock on audit_logs
+ * 2. Drops whole partitions that end before the cutoff and hold only SUCCESS logs - a
+ *    metadata change instead of deleting row by row (their search terms are deleted first)
+ * 3. Deletes the remaining old SUCCESS logs in small primary-key ranges
+ *    (audit.archive.chunkSize ids, default 1000), one short transaction each, pausing
+ *    audit.archive.pauseMs (default 200) between ranges so logins and gate scans get their turn
+ * A table that isn't partitioned (not yet migrated) skips steps 1 and 2.
+ *
+ * RESUMING:
+ * Each run is a row in audit_archive_runs. Every range commits together with the run's
+ * progress (last_log_id, deleted_count), so after a crash, a Stop or a closed app the run
+ * continues from the last committed range - findUnfinishedRun() + run().
+ * The cutoff is fixed when the run starts, so a resumed run deletes exactly what it would
+ * have deleted without the interruption.
+ *
+ * ONE RUN AT A TIME:
+ * Several clients share the database, so the lock is kept there, not in the JVM:
+ * - The RUNNING row has active = 1 under a unique key - a second startRun() fails on the
+ *   INSERT itself, not on a check that another client could pass at the same moment
+ * - run() claims the row (owner + lease_until) and every step renews the lease on the
+ *   condition that it still owns it. A client that crashed loses the run when its lease
+ *   runs out (LEASE_SECONDS); one that stalled that long stops at its next step
+ */
+public class AuditLogArchiver {
+
+    private static final int CHUNK_SIZE = Math.max(1, AppConfig.getInt("audit.archive.chunkSize", 1000));
+    private static final long PAUSE_MS = AppConfig.getLong("audit.archive.pauseMs", 200L);
+    private static final int MONTHS_AHEAD = AppConfig.getInt("audit.partitions.monthsAhead", 3);
+    private static final int LEASE_SECONDS = 300;
+
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter PARTITION_BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Partition names are put into SQL text - only accept plain identifiers
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_]+");
+
+    // One run at a time in this process - the lease in audit_archive_runs covers other clients
+    private static final AtomicBoolean running = new AtomicBoolean();
+    private static final String OWNER = UUID.randomUUID().toString();
+
+    private static Thread partitionMaintainer;
+
+    /**
+     * Add the monthly partitions ahead of time on a background thread (called at startup),
+     * so p_future is still empty when it is split
+     */
+    public static synchronized void startPartitionMaintenance() {
+        if (partitionMaintainer != null && partitionMaintainer.isAlive()) {
+            return;
+        }
+        partitionMaintainer = new Thread(() -> {
+            try {
+                new AuditLogArchiver().maintainPartitions();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("⚠ Could not add audit log partitions: " + e.getMessage());
+            }
+        }, "audit-log-partitions");
+        partitionMaintainer.setDaemon(true);
+        partitionMaintainer.start();
+    }
+
+    /**
+     * Find a run that was stopped or interrupted before it finished
+     *
+     * @return The run, or null if every run finished
+     */
+    public Progress findUnfinishedRun() throws SQLException {
+        String sql = "SELECT run_id, cutoff, first_log_id, last_log_id, end_log_id, deleted_count " +
+                    "FROM audit_archive_runs WHERE status = 'RUNNING' ORDER BY run_id DESC LIMIT 1";
+
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return new Progress(rs.getInt("run_id"), rs.getTimestamp("cutoff").toLocalDateTime(),
+                        rs.getInt("first_log_id"), rs.getInt("last_log_id"), rs.getInt("end_log_id"),
+                        rs.getLong("deleted_count"), false, null);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Record a new run: SUCCESS logs older than daysOld days, as of now
+     *
+     * @param daysOld Logs older than this many days are deleted
+     * @return The run (nothing deleted yet) - pass it to run()
+     * @throws IllegalStateException if an unfinished run exists (resume or finish it first)
+     */
+    public Progress startRun(int daysOld) throws SQLException {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(daysOld).truncatedTo(ChronoUnit.SECONDS);
+
+        // The id range to walk: ids are not in time order on TiDB (each server hands out its
+        // own id block), so the end is the highest id of an old row, not the id at the cutoff
+        String rangeSql = "SELECT COALESCE(MIN(log_id), 1) - 1 AS first_log_id, " +
+                         "COALESCE(MAX(log_id), 0) AS end_log_id FROM audit_logs WHERE timestamp < ?";
+        // active = 1 is unique: the INSERT fails while another run is RUNNING
+        String insertSql = "INSERT INTO audit_archive_runs (cutoff, first_log_id, last_log_id, end_log_id, active) " +
+                          "VALUES (?, ?, ?, ?, 1)";
+
+        try (Connection conn = UnitOfWork.connection(Workload.BULK)) {
+            int firstLogId;
+            int endLogId;
+            try (PreparedStatement stmt = conn.prepareStatement(rangeSql)) {
+                stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    firstLogId = rs.getInt("first_log_id");
+                    endLogId = rs.getInt("end_log_id");
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+                stmt.setInt(2, firstLogId);
+                stmt.setInt(3, firstLogId);
+                stmt.setInt(4, endLogId);
+                try {
+                    stmt.executeUpdate();
+                } catch (SQLException e) {
+                    if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                        throw new IllegalStateException("An earlier archive run has not finished - resume it first");
+                    }
+                    throw e;
+                }
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    keys.next();
+                    return new Progress(keys.getInt(1), cutoff, firstLogId, firstLogId, endLogId, 0, false, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run (or resume) an archive run until it is done or stopped
+     *
+     * @param run From startRun() or findUnfinishedRun()
+     * @param listener Told after every committed step (may be null) - called on this thread
+     * @param stopRequested Checked between steps; true stops the run, resumable later
+     * @return Where the run got to (done = false if it was stopped)
+     * @throws IllegalStateException if another run is active in this process, or another
+     *         client holds this run
+     */
+    public Progress run(Progress run, Consumer<Progress> listener, BooleanSupplier stopRequested) throws SQLException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Audit log archiving is already running");
+        }
+        try {
+            claim(run);
+        } catch (SQLException | RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        try {
+            try {
+                maintainPartitions();
+            } catch (SQLException e) {
+                // Missing future partitions only cost pruning - archiving can go ahead
+                System.err.println("⚠ Could not add audit log partitions: " + e.getMessage());
+            }
+
+            Progress progress = dropExpiredPartitions(run, listener, stopRequested);
+            if (stopped(stopRequested)) {
+                return progress;
+            }
+            return deleteInRanges(progress, listener, stopRequested);
+        } finally {
+            release(run);
+            running.set(false);
+        }
+    }
+
+    /**
+     * Take the lease on a RUNNING run: free, expired, or already ours
+     */
+    private void claim(Progress run) throws SQLException {
+        String sql = "UPDATE audit_archive_runs SET owner = ?, lease_until = DATE_ADD(NOW(), INTERVAL ? SECOND) " +
+                    "WHERE run_id = ? AND status = 'RUNNING' " +
+                    "AND (owner IS NULL OR owner = ? OR lease_until IS NULL OR lease_until < NOW())";
+
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, OWNER);
+            stmt.setInt(2, LEASE_SECONDS);
+            stmt.setInt(3, run.runId);
+            stmt.setString(4, OWNER);
+            if (stmt.executeUpdate() == 0) {
+                throw new IllegalStateException("Archive run " + run.runId +
+                        " is running in another client or has finished");
+            }
+        }
+    }
+
+    /**
+     * Give the lease back so the run can be resumed from another client right away
+     */
+    private void release(Progress run) {
+        String sql = "UPDATE audit_archive_runs SET owner = NULL, lease_until = NULL WHERE run_id = ? AND owner = ?";
+
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, run.runId);
+            stmt.setString(2, OWNER);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            // The lease runs out on its own
+            System.err.println("⚠ Could not release archive run " + run.runId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Extend the lease - fails if another client took the run over meanwhile
+     */
+    private void renewLease(Connection conn, int runId) throws SQLException {
+        String sql = "UPDATE audit_archive_runs SET lease_until = DATE_ADD(NOW(), INTERVAL ? SECOND) " +
+                    "WHERE run_id = ? AND owner = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, LEASE_SECONDS);
+            stmt.setInt(2, runId);
+            stmt.setString(3, OWNER);
+            if (stmt.executeUpdate() == 0) {
+                throw new SQLException("Archive run " + runId + " was taken over by another client");
+            }
+        }
+    }
+
+    /**
+     * Split p_future so that every month up to MONTHS_AHEAD months from now has its own partition
+     *
+     * @return Number of partitions added (0 if there was nothing to do or the table isn't partitioned)
+     */
+    int maintainPartitions() throws SQLException {
+        LocalDateTime highestBound = null;
+        boolean hasFuture = false;
+        for (Partition partition : listPartitions()) {
+            if (partition.upperBound == null) {
+                hasFuture = FUTURE_PARTITION.equals(partition.name);
+            } else if (highestBound == null || partition.upperBound.isAfter(highestBound)) {
+                highestBound = partition.upperBound;
+            }
+        }
+        if (!hasFuture || highestBound == null) {
+            return 0;  // Not partitioned, or not laid out the way db.sql creates it
+        }
+
+        LocalDateTime target = LocalDateTime.now().withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS)
+                .plusMonths(MONTHS_AHEAD + 1L);
+        List<String> definitions = new ArrayList<>();
+        for (LocalDateTime from = highestBound; from.isBefore(target); ) {
+            LocalDateTime to = from.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            definitions.add("PARTITION " + from.format(PARTITION_NAME) + " VALUES LESS THAN (UNIX_TIMESTAMP('" +
+                    to.format(PARTITION_BOUND) + "'))");
+            from = to;
+        }
+        if (definitions.isEmpty()) {
+            return 0;
+        }
+        if (hasRows(FUTURE_PARTITION)) {
+            System.err.println("⚠ Audit log partition " + FUTURE_PARTITION + " is not empty - splitting it would " +
+                    "copy its rows, so no partitions were added. Raise audit.partitions.monthsAhead and split " +
+                    "it during a quiet period.");
+            return 0;
+        }
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+
+        String sql = "ALTER TABLE audit_logs REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" +
+                    String.join(", ", definitions) + ")";
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+        int added = definitions.size() - 1;
+        System.out.println("✓ Added " + added + " monthly audit log partitions");
+        return added;
+    }
+
+    /**
+     * Step 2: drop partitions that end before the cutoff and hold nothing but SUCCESS logs
+     */
+    private Progress dropExpiredPartitions(Progress progress, Consumer<Progress> listener,
+                                           BooleanSupplier stopRequested) throws SQLException {
+        for (Partition partition : listPartitions()) {
+            if (partition.upperBound == null || partition.upperBound.isAfter(progress.cutoff)
+                    || !IDENTIFIER.matcher(partition.name).matches()) {
+                continue;
+            }
+            if (stopped(stopRequested)) {
+                return progress;
+            }
+            if (hasLogsToKeep(partition.name)) {
+                continue;  // FAILED/WARNING logs are kept - step 3 deletes around them
+            }
+
+            progress = progress.at(partition.name);
+            notify(listener, progress);
+            long rows = deletePartitionTerms(progress.runId, partition.name, stopRequested);
+            if (rows < 0) {
+                return progress.at(null);  // Stopped - the partition is dropped when the run resumes
+            }
+
+            try (Connection conn = UnitOfWork.connection(Workload.BULK);
+                 Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("ALTER TABLE audit_logs DROP PARTITION " + partition.name);
+            }
+            // DDL commits on its own - counted right after (a crash in between only loses the count)
+            progress = saveProgress(progress, progress.lastLogId, rows).at(null);
+            System.out.println("✓ Dropped audit log partition " + partition.name + " (" + rows + " logs)");
+            notify(listener, progress);
+        }
+        return progress;
+    }
+
+    /**
+     * Step 3: delete old SUCCESS logs one primary-key range at a time
+     */
+    private Progress deleteInRanges(Progress progress, Consumer<Progress> listener,
+                                    BooleanSupplier stopRequested) throws SQLException {
+        String termsSql = "DELETE t FROM audit_log_terms t JOIN audit_logs l ON l.log_id = t.log_id " +
+                         "WHERE l.log_id > ? AND l.log_id <= ? AND l.timestamp < ? AND l.result = 'SUCCESS'";
+        String logsSql = "DELETE FROM audit_logs WHERE log_id > ? AND log_id <= ? AND timestamp < ? AND result = 'SUCCESS'";
+        Timestamp cutoff = Timestamp.valueOf(progress.cutoff);
+
+        while (progress.lastLogId < progress.endLogId) {
+            if (stopped(stopRequested)) {
+                return progress;
+            }
+            int from = progress.lastLogId;
+            int to = (int) Math.min((long) from + CHUNK_SIZE, progress.endLogId);
+
+            int deleted;
+            try (Connection conn = UnitOfWork.connection(Workload.BULK)) {
+                conn.setAutoCommit(false);
+                try {
+                    // Terms first: they are found through the log rows
+                    try (PreparedStatement stmt = conn.prepareStatement(termsSql)) {
+                        stmt.setInt(1, from);
+                        stmt.setInt(2, to);
+                        stmt.setTimestamp(3, cutoff);
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(logsSql)) {
+                        stmt.setInt(1, from);
+                        stmt.setInt(2, to);
+                        stmt.setTimestamp(3, cutoff);
+                        deleted = stmt.executeUpdate();
+                    }
+                    if (deleted == 0) {
+                        // Ids come in blocks with gaps - skip straight to the next existing id
+                        to = Math.max(to, nextLogId(conn, to) - 1);
+                    }
+                    progress = saveProgress(conn, progress, Math.min(to, progress.endLogId), deleted);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+            notify(listener, progress);
+
+            if (deleted > 0 && PAUSE_MS > 0) {
+                try {
+                    Thread.sleep(PAUSE_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return progress;
+                }
+            }
+        }
+
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement(
+                     "UPDATE audit_archive_runs SET status = 'DONE', active = NULL, owner = NULL, lease_until = NULL " +
+                     "WHERE run_id = ? AND owner = ?")) {
+            stmt.setInt(1, progress.runId);
+            stmt.setString(2, OWNER);
+            if (stmt.executeUpdate() == 0) {
+                throw new SQLException("Archive run " + progress.runId + " was taken over by another client");
+            }
+        }
+        progress = progress.finished();
+        notify(listener, progress);
+        return progress;
+    }
+
+    /**
+     * Delete the search terms of every log in a partition, in id ranges
+     *
+     * @return Number of logs in the partition, or -1 if stopped
+     */
+    private long deletePartitionTerms(int runId, String partition, BooleanSupplier stopRequested) throws SQLException {
+        String selectSql = "SELECT log_id FROM audit_logs PARTITION (" + partition + ") WHERE log_id > ? " +
+                          "ORDER BY log_id LIMIT ?";
+        long rows = 0;
+        int lastLogId = 0;
+
+        while (true) {
+            if (stopped(stopRequested)) {
+                return -1;
+            }
+            List<Integer> logIds = new ArrayList<>();
+            try (Connection conn = UnitOfWork.connection(Workload.BULK)) {
+                renewLease(conn, runId);
+                try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                    stmt.setInt(1, lastLogId);
+                    stmt.setInt(2, CHUNK_SIZE);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            logIds.add(rs.getInt("log_id"));
+                        }
+                    }
+                }
+                if (logIds.isEmpty()) {
+                    return rows;
+                }
+
+                StringBuilder deleteSql = new StringBuilder("DELETE FROM audit_log_terms WHERE log_id IN (");
+                for (int i = 0; i < logIds.size(); i++) {
+                    deleteSql.append(i == 0 ? "?" : ", ?");
+                }
+                deleteSql.append(")");
+                try (PreparedStatement stmt = conn.prepareStatement(deleteSql.toString())) {
+                    for (int i = 0; i < logIds.size(); i++) {
+                        stmt.setInt(i + 1, logIds.get(i));
+                    }
+                    stmt.executeUpdate();
+                }
+            }
+            rows += logIds.size();
+            lastLogId = logIds.get(logIds.size() - 1);
+
+            if (PAUSE_MS > 0) {
+                try {
+                    Thread.sleep(PAUSE_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private boolean hasRows(String partition) throws SQLException {
+        String sql = "SELECT 1 FROM audit_logs PARTITION (" + partition + ") LIMIT 1";
+
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    private boolean hasLogsToKeep(String partition) throws SQLException {
+        String sql = "SELECT 1 FROM audit_logs PARTITION (" + partition + ") WHERE result <> 'SUCCESS' LIMIT 1";
+
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    private int nextLogId(Connection conn, int after) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT MIN(log_id) FROM audit_logs WHERE log_id > ?")) {
+            stmt.setInt(1, after);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                int next = rs.getInt(1);
+                return rs.wasNull() ? Integer.MAX_VALUE : next;
+            }
+        }
+    }
+
+    private Progress saveProgress(Progress progress, int lastLogId, long deleted) throws SQLException {
+        try (Connection conn = UnitOfWork.connection(Workload.BULK)) {
+            return saveProgress(conn, progress, lastLogId, deleted);
+        }
+    }
+
+    private Progress saveProgress(Connection conn, Progress progress, int lastLogId, long deleted) throws SQLException {
+        // Renews the lease too - and fails (rolling the range back) if the run isn't ours any more
+        String sql = "UPDATE audit_archive_runs SET last_log_id = ?, deleted_count = deleted_count + ?, " +
+                    "lease_until = DATE_ADD(NOW(), INTERVAL ? SECOND) WHERE run_id = ? AND owner = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, lastLogId);
+            stmt.setLong(2, deleted);
+            stmt.setInt(3, LEASE_SECONDS);
+            stmt.setInt(4, progress.runId);
+            stmt.setString(5, OWNER);
+            if (stmt.executeUpdate() == 0) {
+                throw new SQLException("Archive run " + progress.runId + " was taken over by another client");
+            }
+        }
+        return new Progress(progress.runId, progress.cutoff, progress.firstLogId, lastLogId, progress.endLogId,
+                progress.deleted + deleted, false, progress.partition);
+    }
+
+    /**
+     * Partitions of audit_logs in order (empty if the table isn't partitioned)
+     */
+    private List<Partition> listPartitions() throws SQLException {
+        String sql = "SELECT PARTITION_NAME, " +
+                    "CASE WHEN PARTITION_DESCRIPTION = 'MAXVALUE' THEN NULL " +
+                    "ELSE FROM_UNIXTIME(CAST(PARTITION_DESCRIPTION AS SIGNED)) END AS upper_bound " +
+                    "FROM INFORMATION_SCHEMA.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_logs' AND PARTITION_NAME IS NOT NULL " +
+                    "ORDER BY PARTITION_ORDINAL_POSITION";
+        List<Partition> partitions = new ArrayList<>();
+
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                Timestamp upperBound = rs.getTimestamp("upper_bound");
+                partitions.add(new Partition(rs.getString("PARTITION_NAME"),
+                        upperBound != null ? upperBound.toLocalDateTime() : null));
+            }
+        }
+        return partitions;
+    }
+
+    private static boolean stopped(BooleanSupplier stopRequested) {
+        return Thread.currentThread().isInterrupted() || (stopRequested != null && stopRequested.getAsBoolean());
+    }
+
+    private static void notify(Consumer<Progress> listener, Progress progress) {
+        if (listener != null) {
+            listener.accept(progress);
+        }
+    }
+
+    /**
+     * Where an archive run has got to
+     */
+    public static class Progress {
+        public final int runId;
+        public final LocalDateTime cutoff;    // SUCCESS logs older than this are deleted
+        public final int firstLogId;          // Ids (firstLogId, endLogId] are walked
+        public final int lastLogId;           // Ids up to here are done
+        public final int endLogId;
+        public final long deleted;            // Logs deleted so far, by all sessions of this run
+        public final boolean done;
+        public final String partition;        // Partition being dropped right now, or null
+
+        Progress(int runId, LocalDateTime cutoff, int firstLogId, int lastLogId, int endLogId,
+                 long deleted, boolean done, String partition) {
+            this.runId = runId;
+            this.cutoff = cutoff;
+            this.firstLogId = firstLogId;
+            this.lastLogId = lastLogId;
+            this.endLogId = endLogId;
+            this.deleted = deleted;
+            this.done = done;
+            this.partition = partition;
+        }
+
+        /**
+         * @return Share of the id range walked, 0.0 to 1.0
+         */
+        public double getFraction() {
+            if (done || endLogId <= firstLogId) {
+                return done ? 1.0 : 0.0;
+            }
+            return Math.min(1.0, Math.max(0.0, (lastLogId - firstLogId) / (double) (endLogId - firstLogId)));
+        }
+
+        Progress at(String partition) {
+            return new Progress(runId, cutoff, firstLogId, lastLogId, endLogId, deleted, done, partition);
+        }
+
+        Progress finished() {
+            return new Progress(runId, cutoff, firstLogId, endLogId, endLogId, deleted, true, null);
+        }
+    }
+
+    private static final class Partition {
+        final String name;
+        final LocalDateTime upperBound;  // Exclusive; null for MAXVALUE
+
+        Partition(String name, LocalDateTime upperBound) {
+            this.name = name;
+            this.upperBound = upperBound;
+        }
+    }
+}
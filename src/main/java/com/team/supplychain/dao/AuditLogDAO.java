@@ -1,11 +1,19 @@
 package com.team.supplychain.dao;
 
 import com.team.supplychain.models.AuditLog;
-import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for audit logging and compliance tracking.
@@ -26,7 +34,7 @@ import java.util.List;
  *
  * KEY FEATURES:
  * - Dynamic filtering (by action, module, result, search text)
- * - Pagination support (limit/offset for large datasets)
+ * - Pagination support (keyset page tokens, plus limit/offset for small datasets)
  * - Log archival (automatically delete old SUCCESS logs, keep failures)
  * - Anonymous logging (for failed logins where user_id is unknown)
  *
@@ -37,15 +45,18 @@ import java.util.List;
  * - Failed/Warning logs are preserved indefinitely (security requirement)
  *
  * THREAD SAFETY:
- * All methods are called from background threads (LoginController, etc.)
- * to avoid blocking the UI during logging operations.
+ * logSuccess / logFailure / logSecurityIncident only queue the event (AuditLogSink),
+ * so they are safe to call from the UI thread. The query methods should still be
+ * called from background threads to avoid blocking the UI.
  */
 public class AuditLogDAO {
 
     /**
      * Create an audit log entry for tracking system actions.
      *
-     * This is the core logging method - all other log methods call this one.
+     * Writes synchronously - the caller waits for the database. The convenience methods
+     * (logSuccess, logFailure, logSecurityIncident) queue their events on the AuditLogSink
+     * instead, which writes them in batches through createAuditLogs().
      *
      * NULLABLE user_id:
      * userId can be null for actions where we don't know the user (e.g., failed login attempts).
@@ -83,35 +94,11 @@ public class AuditLogDAO {
             String module,
             String description,
             String result) {
-
-        // Generate log code BEFORE opening database connection
-        // This avoids holding a connection while generating the code
-        String logCode = generateLogCode();
-
-        String sql = "INSERT INTO audit_logs (log_code, user_id, username, action_type, " +
-                    "module, description, result) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, logCode);
-
-            // Handle nullable user_id
-            // Failed login attempts have no user_id (we don't know who they are yet)
-            if (userId != null) {
-                stmt.setInt(2, userId);
-            } else {
-                stmt.setNull(2, Types.INTEGER);
-            }
-
-            stmt.setString(3, username);
-            stmt.setString(4, actionType);
-            stmt.setString(5, module);
-            stmt.setString(6, description);
-            stmt.setString(7, result);
-
-            return stmt.executeUpdate() > 0;
+        AuditLog log = new AuditLog(LocalDateTime.now(), userId, username, actionType,
+                                    module, description, null, result);
+        try {
+            createAuditLogs(Collections.singletonList(log));
+            return true;
         } catch (SQLException e) {
             // If logging fails, we don't want to crash the application
             // Just print the error and continue
@@ -120,6 +107,111 @@ public class AuditLogDAO {
         return false;
     }
 
+    /**
+     * Write audit logs in one transaction: one multi-row INSERT, their search terms
+     * (AuditLogSearch) and one update of today's activity counter (CountersDAO).
+     *
+     * AuditLogSink calls this with whole batches of queued events; createAuditLog with one.
+     * Each log keeps its own timestamp (when it happened, not when the batch is written).
+     *
+     * log_code is unique per timestamp (uk_log_code); each code must come back as exactly one
+     * row, otherwise the whole batch is rolled back. Codes generated here are cleared again
+     * on failure, so a retry gets new ones.
+     *
+     * @param logs Logs to write - logCode is generated if missing, logId is filled in
+     * @throws SQLException if the logs could not be written (nothing is committed)
+     */
+    void createAuditLogs(List<AuditLog> logs) throws SQLException {
+        if (logs.isEmpty()) {
+            return;
+        }
+        List<AuditLog> generated = new ArrayList<>();
+        for (AuditLog log : logs) {
+            if (log.getLogCode() == null) {
+                log.setLogCode(generateLogCode());
+                generated.add(log);
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO audit_logs (log_code, timestamp, user_id, username, " +
+                                              "action_type, module, description, result) VALUES ");
+        StringBuilder lookup = new StringBuilder("SELECT log_id, log_code FROM audit_logs WHERE log_code IN (");
+        for (int i = 0; i < logs.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?, ?)");
+            lookup.append(i == 0 ? "?" : ", ?");
+        }
+        lookup.append(")");
+
+        Map<String, AuditLog> byCode = new HashMap<>();
+        for (AuditLog log : logs) {
+            if (byCode.put(log.getLogCode(), log) != null) {
+                generated.forEach(g -> g.setLogCode(null));
+                throw new SQLException("Log code " + log.getLogCode() + " appears twice in one batch");
+            }
+        }
+
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE)) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                    int index = 1;
+                    for (AuditLog log : logs) {
+                        stmt.setString(index++, log.getLogCode());
+                        stmt.setTimestamp(index++, Timestamp.valueOf(log.getTimestamp()));
+
+                        // Handle nullable user_id
+                        // Failed login attempts have no user_id (we don't know who they are yet)
+                        if (log.getUserId() != null) {
+                            stmt.setInt(index++, log.getUserId());
+                        } else {
+                            stmt.setNull(index++, Types.INTEGER);
+                        }
+
+                        stmt.setString(index++, log.getUsername());
+                        stmt.setString(index++, log.getActionType());
+                        stmt.setString(index++, log.getModule());
+                        stmt.setString(index++, log.getDescription());
+                        stmt.setString(index++, log.getResult());
+                    }
+                    stmt.executeUpdate();
+                }
+
+                // The new log_ids, looked up by their unique codes (generated keys of a
+                // multi-row insert are only a guess when TiDB allocates the ids)
+                try (PreparedStatement stmt = conn.prepareStatement(lookup.toString())) {
+                    int index = 1;
+                    for (AuditLog log : logs) {
+                        stmt.setString(index++, log.getLogCode());
+                    }
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        // An older log with the same code (different timestamp) would index
+                        // the wrong row - refuse the batch instead
+                        AuditLog log = byCode.remove(rs.getString("log_code"));
+                        if (log == null) {
+                            throw new SQLException("Log code " + rs.getString("log_code") + " is not unique");
+                        }
+                        log.setLogId(rs.getInt("log_id"));
+                    }
+                }
+                if (!byCode.isEmpty()) {
+                    throw new SQLException("Inserted audit logs could not be found by their codes: " + byCode.keySet());
+                }
+
+                AuditLogSearch.index(conn, logs);
+                CountersDAO.addToday(conn, CountersDAO.AUDIT_LOGS_DAY, logs.size());
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                // Roll back before finally re-enables auto-commit - that would commit the half-done batch
+                conn.rollback();
+                generated.forEach(log -> log.setLogCode(null));
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
     /**
      * Convenience method for logging successful actions.
      * Automatically sets result = "SUCCESS" so you don't have to.
@@ -128,11 +220,11 @@ public class AuditLogDAO {
      * auditLogDAO.logSuccess(user.getUserId(), user.getUsername(),
      *                        "CREATE", "Inventory", "Added 50 units of SKU-12345");
      *
-     * @return true if log created successfully
+     * @return true if log was accepted (written in the background - see AuditLogSink)
      */
     public boolean logSuccess(Integer userId, String username, String actionType,
                              String module, String description) {
-        return createAuditLog(userId, username, actionType, module, description, "SUCCESS");
+        return queueAuditLog(userId, username, actionType, module, description, "SUCCESS");
     }
 
     /**
@@ -145,11 +237,11 @@ public class AuditLogDAO {
      * - Permission denied errors
      * - Database errors
      *
-     * @return true if log created successfully
+     * @return true if log was accepted (written in the background - see AuditLogSink)
      */
     public boolean logFailure(Integer userId, String username, String actionType,
                              String module, String description) {
-        return createAuditLog(userId, username, actionType, module, description, "FAILED");
+        return queueAuditLog(userId, username, actionType, module, description, "FAILED");
     }
 
     /**
@@ -166,10 +258,22 @@ public class AuditLogDAO {
      * @param userId User ID if known (can be null for anonymous incidents)
      * @param username Username associated with incident
      * @param description What happened
-     * @return true if log created successfully
+     * @return true if log was accepted (written in the background - see AuditLogSink)
      */
     public boolean logSecurityIncident(Integer userId, String username, String description) {
-        return createAuditLog(userId, username, "SECURITY_INCIDENT", "Security", description, "WARNING");
+        return queueAuditLog(userId, username, "SECURITY_INCIDENT", "Security", description, "WARNING");
+    }
+
+    /**
+     * Hand an event to the AuditLogSink - it is written in the background, batched with others.
+     * Callers don't wait for the database (no need for a separate thread per log).
+     *
+     * @return true if the event was accepted (false if it was dropped or could not be written)
+     */
+    private boolean queueAuditLog(Integer userId, String username, String actionType,
+                                  String module, String description, String result) {
+        return AuditLogSink.get().submit(new AuditLog(LocalDateTime.now(), userId, username, actionType,
+                                                      module, description, null, result));
     }
 
     /**
@@ -179,54 +283,30 @@ public class AuditLogDAO {
      * Examples: LOG0000001, LOG0001247, LOG9999999
      *
      * GENERATION STRATEGY:
-     * 1. Find the highest log_id currently in the database
-     * 2. Add 1 to get the next number
-     * 3. Format as LOG + zero-padded number
-     *
-     * RACE CONDITION WARNING:
-     * There's a potential race condition here if two threads call this simultaneously:
-     * - Thread 1: reads MAX(log_id) = 100
-     * - Thread 2: reads MAX(log_id) = 100 (same value!)
-     * - Thread 1: generates LOG0000101
-     * - Thread 2: generates LOG0000101 (duplicate!)
-     *
-     * In practice, this is unlikely because:
-     * - Audit logging happens on background threads (not super frequent)
-     * - The window for collision is tiny (~1ms)
-     * - Even if it happens, log_id (primary key) is still unique - only the log_code duplicates
-     *
-     * BETTER SOLUTION (for future):
-     * Use a database sequence or UUID instead of MAX(log_id).
-     * But this works fine for current usage levels.
+     * The number comes from CodeSequence.AUDIT_LOG: blocks of numbers are reserved in the
+     * database (code_sequences) and handed out from memory - no query for most logs, and no
+     * duplicates even when several threads or processes log at the same moment.
+     * (The old MAX(log_id) + 1 lookup cost a round-trip per log and could repeat codes.)
      *
      * FALLBACK:
-     * If MAX query fails (e.g., empty table), use timestamp-based code.
-     * This ensures logging always works, even on first run.
+     * If no block can be reserved, use a random code: LOGX + 16 hex digits (e.g. "LOGX3F9A0C12E4B7D865").
+     * This ensures logging always works, even when code_sequences is unavailable, and every event
+     * gets its own code (a millisecond timestamp repeats within a batch). The X keeps these codes
+     * out of the numeric range the sequence is seeded from.
      *
      * @return Unique log code string (e.g., "LOG0001247")
      */
     private String generateLogCode() {
-        String sql = "SELECT MAX(log_id) as max_id FROM audit_logs";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                int maxId = rs.getInt("max_id");
-
-                // Format as LOG + 7-digit zero-padded number
-                // String.format("%07d", 123) → "0000123"
-                return String.format("LOG%07d", maxId + 1);
-            }
+        try {
+            // Format as LOG + 7-digit zero-padded number
+            // String.format("%07d", 123) → "0000123"
+            return String.format("LOG%07d", CodeSequence.AUDIT_LOG.next());
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        // Fallback for errors or empty table
-        // Uses current timestamp in milliseconds to ensure uniqueness
-        // Example: "LOG1702476123456"
-        return "LOG" + System.currentTimeMillis();
+        // Fallback for errors - 20 characters, the width of the log_code column
+        return String.format("LOGX%016X", ThreadLocalRandom.current().nextLong());
     }
 
     /**
@@ -235,7 +315,7 @@ public class AuditLogDAO {
     public int getAuditLogCount() {
         String sql = "SELECT COUNT(*) as count FROM audit_logs";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -255,7 +335,7 @@ public class AuditLogDAO {
         String sql = "SELECT COUNT(*) as count FROM audit_logs " +
                     "WHERE timestamp >= DATE_SUB(NOW(), INTERVAL 24 HOUR)";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -270,6 +350,7 @@ public class AuditLogDAO {
 
     /**
      * Get all audit logs with pagination
+     * (OFFSET gets slower the deeper the page - screens use getAuditLogPage())
      * @param limit Maximum number of records to return
      * @param offset Number of records to skip
      * @return List of AuditLog objects ordered by timestamp DESC
@@ -278,7 +359,7 @@ public class AuditLogDAO {
         List<AuditLog> logs = new ArrayList<>();
         String sql = "SELECT * FROM audit_logs ORDER BY timestamp DESC LIMIT ? OFFSET ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, limit);
@@ -320,8 +401,9 @@ public class AuditLogDAO {
      * This prevents SQL injection attacks.
      *
      * SEARCH PATTERN:
-     * searchText uses LIKE with % wildcards to match anywhere in the field.
-     * "admin" matches: "admin", "Administrator", "badmin", etc.
+     * searchText is looked up in the audit_log_terms word index (see AuditLogSearch).
+     * Every word must occur, as a word or the start of one: "admin" matches "admin",
+     * "Administrator", but not "badmin". "Quoted words" must occur together.
      *
      * SPECIAL FILTER VALUES:
      * "All Actions", "All Modules", "All Results" mean "no filter" (from UI dropdowns).
@@ -334,6 +416,7 @@ public class AuditLogDAO {
      * @param limit Maximum number of records to return (for pagination)
      * @param offset Number of records to skip (for pagination)
      * @return List of filtered AuditLog objects, ordered by timestamp (newest first)
+     * @see #getAuditLogPage for paging that doesn't slow down on deep pages
      */
     public List<AuditLog> getFilteredAuditLogs(String actionType, String module, String result,
                                                  String searchText, int limit, int offset) {
@@ -348,35 +431,14 @@ public class AuditLogDAO {
         List<Object> params = new ArrayList<>();
 
         // Build WHERE clause dynamically based on which filters are provided
-        if (actionType != null && !actionType.isEmpty() && !"All Actions".equals(actionType)) {
-            sql.append(" AND action_type = ?");
-            params.add(actionType);
-        }
-        if (module != null && !module.isEmpty() && !"All Modules".equals(module)) {
-            sql.append(" AND module = ?");
-            params.add(module);
-        }
-        if (result != null && !result.isEmpty() && !"All Results".equals(result)) {
-            sql.append(" AND result = ?");
-            params.add(result);
-        }
-        if (searchText != null && !searchText.trim().isEmpty()) {
-            // Search in multiple columns with OR
-            // LIKE '%text%' matches text anywhere in the field
-            sql.append(" AND (username LIKE ? OR description LIKE ? OR log_code LIKE ?)");
-
-            String searchPattern = "%" + searchText.trim() + "%";
-            params.add(searchPattern);  // For username LIKE ?
-            params.add(searchPattern);  // For description LIKE ?
-            params.add(searchPattern);  // For log_code LIKE ?
-        }
+        appendFilters(sql, params, actionType, module, result, searchText);
 
         // Always sort by newest first (DESC = descending)
         sql.append(" ORDER BY timestamp DESC LIMIT ? OFFSET ?");
         params.add(limit);
         params.add(offset);
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
             // Bind all parameters to the PreparedStatement
@@ -395,6 +457,38 @@ public class AuditLogDAO {
         return logs;
     }
 
+    /**
+     * Stream EVERY audit log matching the filters - for exports and analytics.
+     *
+     * Same filters as getFilteredAuditLogs(), but without LIMIT/OFFSET: rows are read from
+     * TiDB in fetch-size chunks as the Stream is consumed, so an export of the full history
+     * doesn't hold it all on the heap. Close the Stream (try-with-resources) to give the
+     * connection back; see RowStream.
+     *
+     * @param actionType Filter by action type (null for no filter)
+     * @param module Filter by module (null for no filter)
+     * @param result Filter by result (null for no filter)
+     * @param searchText Search in username, description, log_code (null for no filter)
+     * @return Lazy stream of matching AuditLog objects, newest first
+     * @throws SQLException if the query could not be started
+     */
+    public Stream<AuditLog> streamFilteredAuditLogs(String actionType, String module, String result,
+                                                    String searchText) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM audit_logs WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+
+        // Same WHERE clause as getFilteredAuditLogs
+        appendFilters(sql, params, actionType, module, result, searchText);
+        sql.append(" ORDER BY timestamp DESC");
+
+        // Full-history read - keep it out of the desktop pool
+        return RowStream.query(Workload.BULK, sql.toString(), stmt -> {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+        }, this::mapResultSetToAuditLog);
+    }
+
     /**
      * Get count of filtered audit logs (for pagination).
      *
@@ -408,8 +502,8 @@ public class AuditLogDAO {
      *
      * Example: 573 total results ÷ 20 per page = 29 pages
      *
-     * IMPORTANT: Keep the WHERE clause logic IDENTICAL to getFilteredAuditLogs()!
-     * If they differ, the count won't match the actual results.
+     * Both build their WHERE clause with appendFilters(), so the count always
+     * matches the actual results.
      *
      * @param actionType Filter by action type (null for no filter)
      * @param module Filter by module (null for no filter)
@@ -421,28 +515,10 @@ public class AuditLogDAO {
         StringBuilder sql = new StringBuilder("SELECT COUNT(*) as count FROM audit_logs WHERE 1=1");
         List<Object> params = new ArrayList<>();
 
-        // Build WHERE clause (MUST match getFilteredAuditLogs exactly!)
-        if (actionType != null && !actionType.isEmpty() && !"All Actions".equals(actionType)) {
-            sql.append(" AND action_type = ?");
-            params.add(actionType);
-        }
-        if (module != null && !module.isEmpty() && !"All Modules".equals(module)) {
-            sql.append(" AND module = ?");
-            params.add(module);
-        }
-        if (result != null && !result.isEmpty() && !"All Results".equals(result)) {
-            sql.append(" AND result = ?");
-            params.add(result);
-        }
-        if (searchText != null && !searchText.trim().isEmpty()) {
-            sql.append(" AND (username LIKE ? OR description LIKE ? OR log_code LIKE ?)");
-            String searchPattern = "%" + searchText.trim() + "%";
-            params.add(searchPattern);
-            params.add(searchPattern);
-            params.add(searchPattern);
-        }
+        // Same WHERE clause as getFilteredAuditLogs
+        appendFilters(sql, params, actionType, module, result, searchText);
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
             // Bind parameters (same pattern as getFilteredAuditLogs)
@@ -461,23 +537,173 @@ public class AuditLogDAO {
     }
 
     /**
-     * Get count of today's activities
-     * @return Number of audit logs created today
+     * Get one page of filtered audit logs with keyset ("seek") pagination.
+     *
+     * WHY NOT LIMIT/OFFSET?
+     * OFFSET 5000 makes the database read and throw away 5000 rows before returning the
+     * 100 we asked for - every page deeper is slower, and audit_logs grows by thousands
+     * of rows a day.
+     *
+     * HOW IT WORKS:
+     * - Rows are ordered by (timestamp, log_id), newest first. log_id breaks timestamp ties,
+     *   so no row is skipped or shown twice between pages
+     * - A page token remembers the (timestamp, log_id) of the row at the edge of the page
+     * - The next page is "rows older than the last row shown":
+     *   WHERE ... AND (timestamp < ? OR (timestamp = ? AND log_id < ?))
+     *   The database seeks to that point in idx_timestamp (or idx_audit_*_time when filtering)
+     *   and reads only one page - the cost is the same for page 1 and page 500
+     * - The previous page is the same seek in the other direction, read back in reverse
+     * - One extra row is fetched to know whether there is another page in that direction
+     *
+     * Filters work exactly like getFilteredAuditLogs(). Tokens are opaque - pass them back
+     * unchanged, with the same filters they were issued for.
+     *
+     * @param actionType Filter by action type (null for no filter)
+     * @param module Filter by module (null for no filter)
+     * @param result Filter by result (null for no filter)
+     * @param searchText Search in username, description, log_code (null for no filter)
+     * @param pageToken Token from a previous AuditLogPage (null for the first, newest page)
+     * @param pageSize Maximum number of records on the page
+     * @return The page (no rows and no tokens on database error)
      */
-    public int getTodayActivityCount() {
-        String sql = "SELECT COUNT(*) as count FROM audit_logs WHERE DATE(timestamp) = CURDATE()";
+    public AuditLogPage getAuditLogPage(String actionType, String module, String result,
+                                        String searchText, String pageToken, int pageSize) {
+        PageToken token = PageToken.decode(pageToken);
+        boolean backward = token != null && token.backward;
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM audit_logs WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, actionType, module, result, searchText);
+
+        // Seek past the edge of the page we came from
+        if (token != null) {
+            String op = backward ? ">" : "<";
+            sql.append(" AND (timestamp ").append(op).append(" ? OR (timestamp = ? AND log_id ").append(op).append(" ?))");
+            params.add(Timestamp.valueOf(token.timestamp));
+            params.add(Timestamp.valueOf(token.timestamp));
+            params.add(token.logId);
+        }
+        String direction = backward ? "ASC" : "DESC";
+        sql.append(" ORDER BY timestamp ").append(direction).append(", log_id ").append(direction).append(" LIMIT ?");
+        params.add(pageSize + 1);  // One extra row: is there another page after this one?
 
-            if (rs.next()) {
-                return rs.getInt("count");
+        List<AuditLog> logs = new ArrayList<>();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                logs.add(mapResultSetToAuditLog(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            return new AuditLogPage(new ArrayList<>(), null, null);
         }
-        return 0;
+
+        boolean more = logs.size() > pageSize;
+        if (more) {
+            logs.remove(pageSize);
+        }
+
+        boolean hasNewer;
+        boolean hasOlder;
+        if (backward) {
+            if (!more) {
+                // Back at the newest rows - show a full first page rather than a short one
+                return getAuditLogPage(actionType, module, result, searchText, null, pageSize);
+            }
+            Collections.reverse(logs);
+            hasNewer = true;
+            hasOlder = true;
+        } else {
+            hasNewer = token != null;
+            hasOlder = more;
+        }
+
+        String previousToken = hasNewer && !logs.isEmpty() ? PageToken.encode(true, logs.get(0)) : null;
+        String nextToken = hasOlder && !logs.isEmpty() ? PageToken.encode(false, logs.get(logs.size() - 1)) : null;
+        return new AuditLogPage(logs, previousToken, nextToken);
+    }
+
+    /**
+     * Search audit logs by relevance - the search box (query syntax: see AuditLogSearch).
+     *
+     * Unlike getFilteredAuditLogs(), results are ranked: logs where the search words occur
+     * more often come first, newest first among equals. The other filters still apply.
+     * Matches are found in the audit_log_terms word index, so both the page and the count
+     * cost as much as the number of matches, not the size of audit_logs.
+     *
+     * @param searchText Words and "quoted phrases" to search for
+     * @param actionType Filter by action type (null for no filter)
+     * @param module Filter by module (null for no filter)
+     * @param result Filter by result (null for no filter)
+     * @param limit Maximum number of records to return (for pagination)
+     * @param offset Number of records to skip (for pagination)
+     * @return One page of ranked logs plus the total number of matches (empty on error or blank search)
+     */
+    public AuditLogSearchResult searchAuditLogs(String searchText, String actionType, String module,
+                                                String result, int limit, int offset) {
+        AuditLogSearch.Query query = AuditLogSearch.parse(searchText);
+        if (query == null) {
+            return new AuditLogSearchResult(new ArrayList<>(), 0);
+        }
+
+        // Matching logs with their score, joined back to the log rows
+        StringBuilder from = new StringBuilder(" FROM audit_logs JOIN (");
+        List<Object> params = new ArrayList<>();
+        AuditLogSearch.appendMatches(from, params, query);
+        from.append(") found USING (log_id) WHERE 1=1");
+        appendFilters(from, params, actionType, module, result, null);
+        AuditLogSearch.appendPhraseChecks(from, params, query);
+
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE)) {
+            int totalCount = 0;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) AS count" + from)) {
+                for (int i = 0; i < params.size(); i++) {
+                    stmt.setObject(i + 1, params.get(i));
+                }
+                ResultSet rs = stmt.executeQuery();
+                if (rs.next()) {
+                    totalCount = rs.getInt("count");
+                }
+            }
+
+            List<AuditLog> logs = new ArrayList<>();
+            if (totalCount > offset) {
+                String sql = "SELECT *" + from + " ORDER BY found.score DESC, timestamp DESC, log_id DESC LIMIT ? OFFSET ?";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Object param : params) {
+                        stmt.setObject(index++, param);
+                    }
+                    stmt.setInt(index++, limit);
+                    stmt.setInt(index, offset);
+
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        logs.add(mapResultSetToAuditLog(rs));
+                    }
+                }
+            }
+            return new AuditLogSearchResult(logs, totalCount);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new AuditLogSearchResult(new ArrayList<>(), 0);
+    }
+
+    /**
+     * Get count of today's activities.
+     * Read from today's row in dashboard_counters (kept up to date by createAuditLogs,
+     * see CountersDAO) instead of scanning audit_logs with DATE(timestamp) = CURDATE().
+     * @return Number of audit logs created today
+     */
+    public int getTodayActivityCount() {
+        return new CountersDAO().getToday(CountersDAO.AUDIT_LOGS_DAY).intValue();
     }
 
     /**
@@ -488,7 +714,7 @@ public class AuditLogDAO {
     public int getCountByModule(String module) {
         String sql = "SELECT COUNT(*) as count FROM audit_logs WHERE module = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, module);
@@ -516,7 +742,7 @@ public class AuditLogDAO {
             sql = "SELECT COUNT(*) as count FROM audit_logs WHERE username != 'system' AND username NOT LIKE 'SYSTEM%'";
         }
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -537,7 +763,7 @@ public class AuditLogDAO {
     public AuditLog getAuditLogById(int logId) {
         String sql = "SELECT * FROM audit_logs WHERE log_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, logId);
@@ -574,26 +800,69 @@ public class AuditLogDAO {
      * EXAMPLE USAGE:
      * archiveOldLogs(90) - delete SUCCESS logs older than 90 days
      *
-     * DATE_SUB EXPLAINED:
-     * DATE_SUB(NOW(), INTERVAL ? DAY) subtracts days from current date.
-     * If today is 2024-01-15 and daysOld=90, it returns 2024-10-17.
+     * HOW IT RUNS:
+     * In small steps that never hold locks for long (see AuditLogArchiver): whole monthly
+     * partitions are dropped where possible, the rest is deleted in short primary-key ranges.
+     * A run that was interrupted earlier is finished first (with its own cutoff).
+     *
+     * This call waits until archiving is done - AdminAuditLogsController uses AuditLogArchiver
+     * directly to show progress and offer Stop / Resume.
      *
      * @param daysOld Number of days - logs older than this will be deleted
      * @return Number of logs deleted (0 if none match or error occurs)
      */
     public int archiveOldLogs(int daysOld) {
-        // Only delete SUCCESS logs - keep FAILED and WARNING forever
-        String sql = "DELETE FROM audit_logs WHERE timestamp < DATE_SUB(NOW(), INTERVAL ? DAY) AND result = 'SUCCESS'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, daysOld);
-            return stmt.executeUpdate();  // Returns number of rows deleted
-        } catch (SQLException e) {
+        AuditLogArchiver archiver = new AuditLogArchiver();
+        long deleted = 0;
+        try {
+            AuditLogArchiver.Progress unfinished = archiver.findUnfinishedRun();
+            if (unfinished != null) {
+                long before = unfinished.deleted;
+                AuditLogArchiver.Progress resumed = archiver.run(unfinished, null, null);
+                deleted += resumed.deleted - before;
+                if (!resumed.done) {
+                    return (int) deleted;
+                }
+            }
+            deleted += archiver.run(archiver.startRun(daysOld), null, null).deleted;
+        } catch (SQLException | IllegalStateException e) {
             e.printStackTrace();
         }
-        return 0;
+        return (int) deleted;
+    }
+
+    /**
+     * Append the WHERE conditions for the audit log filters.
+     *
+     * Shared by getFilteredAuditLogs, getFilteredAuditLogCount, getAuditLogPage and
+     * streamFilteredAuditLogs so they always agree on which rows match.
+     * "All Actions", "All Modules", "All Results" and blank search text mean "no filter".
+     *
+     * @param sql Query ending in "WHERE 1=1" - conditions are appended as "AND ..."
+     * @param params Parameter list - values are added in placeholder order
+     */
+    private void appendFilters(StringBuilder sql, List<Object> params, String actionType,
+                               String module, String result, String searchText) {
+        if (actionType != null && !actionType.isEmpty() && !"All Actions".equals(actionType)) {
+            sql.append(" AND action_type = ?");
+            params.add(actionType);
+        }
+        if (module != null && !module.isEmpty() && !"All Modules".equals(module)) {
+            sql.append(" AND module = ?");
+            params.add(module);
+        }
+        if (result != null && !result.isEmpty() && !"All Results".equals(result)) {
+            sql.append(" AND result = ?");
+            params.add(result);
+        }
+        AuditLogSearch.Query query = AuditLogSearch.parse(searchText);
+        if (query != null) {
+            // Logs that contain every search word - read from the word index, not a LIKE scan
+            sql.append(" AND log_id IN (SELECT log_id FROM (");
+            AuditLogSearch.appendMatches(sql, params, query);
+            sql.append(") found)");
+            AuditLogSearch.appendPhraseChecks(sql, params, query);
+        }
     }
 
     /**
@@ -641,4 +910,75 @@ public class AuditLogDAO {
             rs.getString("result")
         );
     }
+
+    /**
+     * One page of audit logs from getAuditLogPage()
+     */
+    public static class AuditLogPage {
+        public final List<AuditLog> logs;
+        public final String previousPageToken;  // Newer rows - null on the first page
+        public final String nextPageToken;      // Older rows - null on the last page
+
+        public AuditLogPage(List<AuditLog> logs, String previousPageToken, String nextPageToken) {
+            this.logs = logs;
+            this.previousPageToken = previousPageToken;
+            this.nextPageToken = nextPageToken;
+        }
+
+        public boolean hasPrevious() {
+            return previousPageToken != null;
+        }
+
+        public boolean hasNext() {
+            return nextPageToken != null;
+        }
+    }
+
+    /**
+     * One page of ranked results from searchAuditLogs()
+     */
+    public static class AuditLogSearchResult {
+        public final List<AuditLog> logs;
+        public final int totalCount;  // All matches, not just this page
+
+        public AuditLogSearchResult(List<AuditLog> logs, int totalCount) {
+            this.logs = logs;
+            this.totalCount = totalCount;
+        }
+    }
+
+    /**
+     * Page edge carried by a page token: direction + (timestamp, log_id) of the edge row.
+     * Encoded as URL-safe Base64 so callers treat it as an opaque string.
+     */
+    private static final class PageToken {
+        final boolean backward;
+        final LocalDateTime timestamp;
+        final int logId;
+
+        private PageToken(boolean backward, LocalDateTime timestamp, int logId) {
+            this.backward = backward;
+            this.timestamp = timestamp;
+            this.logId = logId;
+        }
+
+        static String encode(boolean backward, AuditLog edge) {
+            String raw = (backward ? "P" : "N") + "|" + edge.getTimestamp() + "|" + edge.getLogId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PageToken decode(String token) {
+            if (token == null || token.isEmpty()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                return new PageToken("P".equals(parts[0]), LocalDateTime.parse(parts[1]), Integer.parseInt(parts[2]));
+            } catch (RuntimeException e) {
+                System.err.println("⚠ Invalid audit log page token, showing the first page: " + token);
+                return null;
+            }
+        }
+    }
 }
@@ -0,0 +1,358 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.models.AuditLog;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index behind the audit log search box.
+ *
+ * WHY?
+ * The search box used to add "username LIKE '%x%' OR description LIKE '%x%' OR log_code LIKE '%x%'",
+ * which no index can answer - every keystroke scanned all of audit_logs, twice (page + count).
+ * TiDB has no MySQL FULLTEXT indexes, so the index is an ordinary table, audit_log_terms:
+ * one (term, log_id, pos) row per word occurrence, pos being the word's position in the log.
+ *
+ * HOW IT WORKS:
+ * - Words are the lower-cased runs of letters and digits in username, description and log_code
+ *   ("Added 50 units of SKU-12345" → added, 50, units, of, sku, 12345)
+ * - Positions count on across the three fields, with a gap between fields so a phrase can't
+ *   run from the end of one field into the next
+ * - AuditLogDAO.createAuditLogs indexes logs in the same transaction as the insert;
+ *   archiving (AuditLogArchiver) deletes the terms together with the logs
+ * - startIndexing() catches up on logs written any other way (rows from before this table
+ *   existed, SQL run by hand) on a background thread. It only looks at logs after the
+ *   high-water mark it saved last time (code_sequences row 'audit_log_index'), so a
+ *   startup costs as much as the logs written since the previous one
+ * - A search reads the primary-key range of each typed word and keeps the logs that have all
+ *   of them - the cost follows the number of matches, not the size of audit_logs
+ *
+ * QUERY SYNTAX:
+ * - admin login        both words must occur; each word also matches longer words ("adm" → admin)
+ * - "added 50 units"   the words must occur next to each other, in that order, in the same field
+ *                      (checked on the positions, so "sku-12345" finds "SKU-12345"); the last
+ *                      word also matches longer words
+ * One-letter words only match exactly - as a prefix they would read a large part of the index.
+ *
+ * RANKING:
+ * Score = how often the searched words occur in the log; ties are shown newest first.
+ */
+public final class AuditLogSearch {
+
+    static final int MAX_TERM_LENGTH = 64;
+    // More words than this are ignored - each one adds a range read to the query
+    private static final int MAX_QUERY_WORDS = 8;
+    private static final int MAX_POSITION = 65_535;  // SMALLINT UNSIGNED - later words aren't indexed
+    private static final int INDEXING_BATCH_SIZE = 500;
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+    private static final String HIGH_WATER_MARK = "audit_log_index";
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern PHRASE = Pattern.compile("\"([^\"]*)\"");
+
+    private static Thread indexer;
+
+    private AuditLogSearch() {
+    }
+
+    /**
+     * Split text into index words: lower-cased runs of letters and digits, in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String word = matcher.group();
+            words.add(word.length() > MAX_TERM_LENGTH ? word.substring(0, MAX_TERM_LENGTH) : word);
+        }
+        return words;
+    }
+
+    /**
+     * The index rows of a log's searchable fields: every word with its position.
+     * Each field starts one position after the previous field ended plus one, so
+     * field boundaries never look adjacent.
+     *
+     * @return {word, position} pairs, in order
+     */
+    static List<Object[]> postings(String... texts) {
+        List<Object[]> postings = new ArrayList<>();
+        int position = 0;
+        for (String text : texts) {
+            for (String word : tokenize(text)) {
+                if (position > MAX_POSITION) {
+                    return postings;
+                }
+                postings.add(new Object[]{word, position++});
+            }
+            position++;
+        }
+        return postings;
+    }
+
+    /**
+     * Write a log's terms (one multi-row statement; re-indexing a log changes nothing)
+     *
+     * @param conn Connection to write with
+     * @param logId The log
+     * @param texts username, description, log_code
+     */
+    static void index(Connection conn, int logId, String... texts) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        addRows(rows, logId, texts);
+        insertTerms(conn, rows);
+    }
+
+    /**
+     * Write the terms of several new logs
+     *
+     * @param conn Connection of the transaction that inserted the logs
+     * @param logs The logs (logId set)
+     */
+    static void index(Connection conn, List<AuditLog> logs) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        for (AuditLog log : logs) {
+            addRows(rows, log.getLogId(), log.getUsername(), log.getDescription(), log.getLogCode());
+        }
+        insertTerms(conn, rows);
+    }
+
+    private static void addRows(List<Object[]> rows, int logId, String... texts) {
+        for (Object[] posting : postings(texts)) {
+            rows.add(new Object[]{posting[0], logId, posting[1]});
+        }
+    }
+
+    private static void insertTerms(Connection conn, List<Object[]> rows) throws SQLException {
+        // Long descriptions add up - keep each statement well under the placeholder limit
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_INSERT) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, rows.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO audit_log_terms (term, log_id, pos) VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+            }
+            sql.append(" ON DUPLICATE KEY UPDATE log_id = log_id");
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                int index = 1;
+                for (Object[] row : chunk) {
+                    stmt.setString(index++, (String) row[0]);
+                    stmt.setInt(index++, (Integer) row[1]);
+                    stmt.setInt(index++, (Integer) row[2]);
+                }
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Parse the search box text
+     *
+     * @return The query, or null if the text contains no words
+     */
+    static Query parse(String searchText) {
+        if (searchText == null || searchText.trim().isEmpty()) {
+            return null;
+        }
+        List<String> words = new ArrayList<>();
+        List<String> phrases = new ArrayList<>();
+
+        // "quoted phrases" - their words are required too, the phrase check runs on the matches
+        Matcher matcher = PHRASE.matcher(searchText);
+        StringBuilder rest = new StringBuilder();
+        while (matcher.find()) {
+            List<String> phraseWords = tokenize(matcher.group(1));
+            if (phraseWords.size() > MAX_QUERY_WORDS) {
+                phraseWords = phraseWords.subList(0, MAX_QUERY_WORDS);
+            }
+            words.addAll(phraseWords);
+            if (phraseWords.size() > 1) {
+                phrases.add(String.join(" ", phraseWords));
+            }
+            matcher.appendReplacement(rest, " ");
+        }
+        matcher.appendTail(rest);
+        words.addAll(tokenize(rest.toString()));
+
+        if (words.isEmpty()) {
+            return null;
+        }
+        if (words.size() > MAX_QUERY_WORDS) {
+            words = words.subList(0, MAX_QUERY_WORDS);
+        }
+        return new Query(words, phrases);
+    }
+
+    /**
+     * Append the subquery that finds the logs matching every word, with their score:
+     * "SELECT log_id, SUM(score) AS score FROM (...) GROUP BY log_id HAVING COUNT(*) = words"
+     *
+     * Each word contributes one row per log it occurs in, so a log that has all N words
+     * ends up with exactly N rows.
+     */
+    static void appendMatches(StringBuilder sql, List<Object> params, Query query) {
+        sql.append("SELECT log_id, SUM(score) AS score FROM (");
+        for (int i = 0; i < query.words.size(); i++) {
+            String word = query.words.get(i);
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            // Words are letters and digits only - nothing to escape for LIKE
+            if (word.length() > 1) {
+                sql.append("SELECT log_id, COUNT(*) AS score FROM audit_log_terms WHERE term LIKE ? GROUP BY log_id");
+                params.add(word + "%");
+            } else {
+                sql.append("SELECT log_id, COUNT(*) AS score FROM audit_log_terms WHERE term = ? GROUP BY log_id");
+                params.add(word);
+            }
+        }
+        sql.append(") matches GROUP BY log_id HAVING COUNT(*) = ?");
+        params.add(query.words.size());
+    }
+
+    /**
+     * Append the phrase checks (" AND EXISTS ...") - only run on the rows the words already matched.
+     *
+     * A phrase matches where its first word is at some position p and word i is at p + i.
+     * The first word is read from the log's own key range (term, log_id), every following
+     * word is a primary-key lookup.
+     */
+    static void appendPhraseChecks(StringBuilder sql, List<Object> params, Query query) {
+        for (String phrase : query.phrases) {
+            String[] words = phrase.split(" ");
+            sql.append(" AND EXISTS (SELECT 1 FROM audit_log_terms p0");
+            for (int i = 1; i < words.length; i++) {
+                String p = "p" + i;
+                boolean prefix = i == words.length - 1 && words[i].length() > 1;
+                sql.append(" JOIN audit_log_terms ").append(p).append(" ON ")
+                   .append(p).append(prefix ? ".term LIKE ?" : ".term = ?")
+                   .append(" AND ").append(p).append(".log_id = p0.log_id AND ")
+                   .append(p).append(".pos = p0.pos + ").append(i);
+                params.add(prefix ? words[i] + "%" : words[i]);
+            }
+            sql.append(" WHERE p0.term = ? AND p0.log_id = audit_logs.log_id)");
+            params.add(words[0]);
+        }
+    }
+
+    /**
+     * Index the logs after the high-water mark that have no terms yet, in batches,
+     * then move the mark past them
+     *
+     * @return Number of logs indexed
+     */
+    static int indexMissingLogs() throws SQLException {
+        // Only logs after the mark - the anti-join never runs over the whole table
+        String select = "SELECT l.log_id, l.username, l.description, l.log_code FROM audit_logs l " +
+                       "WHERE l.log_id >= ? AND NOT EXISTS (SELECT 1 FROM audit_log_terms t WHERE t.log_id = l.log_id) " +
+                       "ORDER BY l.log_id LIMIT ?";
+        int indexed = 0;
+        int nextLogId = readHighWaterMark();
+        // Logs inserted from now on are indexed by createAuditLogs
+        int endLogId = maxLogId() + 1;
+
+        while (nextLogId < endLogId) {
+            List<Object[]> batch = new ArrayList<>();
+            try (Connection conn = UnitOfWork.connection(Workload.BULK);
+                 PreparedStatement stmt = conn.prepareStatement(select)) {
+                stmt.setInt(1, nextLogId);
+                stmt.setInt(2, INDEXING_BATCH_SIZE);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    batch.add(new Object[]{rs.getInt("log_id"), rs.getString("username"),
+                            rs.getString("description"), rs.getString("log_code")});
+                }
+
+                for (Object[] log : batch) {
+                    index(conn, (Integer) log[0], (String) log[1], (String) log[2], (String) log[3]);
+                }
+            }
+
+            indexed += batch.size();
+            if (batch.size() < INDEXING_BATCH_SIZE) {
+                break;
+            }
+            // Move past this batch even if some of its logs had no words to index
+            nextLogId = (Integer) batch.get(batch.size() - 1)[0] + 1;
+        }
+        saveHighWaterMark(endLogId);
+        return indexed;
+    }
+
+    private static int readHighWaterMark() throws SQLException {
+        String sql = "SELECT next_value FROM code_sequences WHERE sequence_name = ?";
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, HIGH_WATER_MARK);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? (int) rs.getLong("next_value") : 0;
+        }
+    }
+
+    private static int maxLogId() throws SQLException {
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(log_id), 0) AS max_id FROM audit_logs")) {
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            return rs.getInt("max_id");
+        }
+    }
+
+    // GREATEST: never move the mark backwards if two clients caught up at the same time
+    private static void saveHighWaterMark(int nextLogId) throws SQLException {
+        String sql = "INSERT INTO code_sequences (sequence_name, next_value) VALUES (?, ?) " +
+                     "ON DUPLICATE KEY UPDATE next_value = GREATEST(next_value, VALUES(next_value))";
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, HIGH_WATER_MARK);
+            stmt.setLong(2, nextLogId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Run indexMissingLogs() once on a background thread. Calling it again while running does nothing.
+     */
+    public static synchronized void startIndexing() {
+        if (indexer != null && indexer.isAlive()) {
+            return;
+        }
+        indexer = new Thread(() -> {
+            try {
+                int indexed = indexMissingLogs();
+                if (indexed > 0) {
+                    System.out.println("✓ Audit log search index caught up (" + indexed + " logs indexed)");
+                }
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("✗ Audit log search indexing failed: " + e.getMessage());
+            }
+        }, "audit-log-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    /**
+     * Parsed search box text
+     */
+    static final class Query {
+        final List<String> words;    // Every word must match (as a prefix if longer than one letter)
+        final List<String> phrases;  // Lower-cased words joined by single spaces (at most MAX_QUERY_WORDS)
+
+        Query(List<String> words, List<String> phrases) {
+            this.words = words;
+            this.phrases = phrases;
+        }
+    }
+}
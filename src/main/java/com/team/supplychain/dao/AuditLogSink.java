@@ -0,0 +1,414 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.models.AuditLog;
+import com.team.supplychain.utils.AppConfig;
+import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.Metrics;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous, batched audit logging - where logSuccess / logFailure / logSecurityIncident go.
+ *
+ * WHY?
+ * Every audit event used to be its own transaction over the WAN to TiDB, and callers started a
+ * raw new Thread per event (LoginController) or simply waited on the UI thread for the write.
+ *
+ * HOW IT WORKS:
+ * - AuditLogDAO's log methods put the event (with the time it happened) on a bounded queue
+ *   and return at once
+ * - One writer thread ("audit-log-writer") takes events off the queue in batches: a batch is
+ *   written when it reaches audit.batch.maxSize events (default 200) or audit.batch.maxDelayMs
+ *   (default 200) after its first event
+ * - One batch = one transaction (AuditLogDAO.createAuditLogs): a multi-row INSERT, the search
+ *   terms and one counter update
+ * - Connection problems (timeouts, database down, deadlocks): the batch is kept and retried
+ *   with backoff (1s, doubling up to 30s). New events wait in the queue meanwhile.
+ * - The database rejects the batch (bad data, constraint): its events are retried one by one
+ *   so one bad event can't lose the rest; events rejected on their own count as failed
+ * - On JVM shutdown, what is still queued is written before the pools close
+ *   (DatabaseConnection.runBeforeShutdown, up to audit.shutdownTimeoutMs)
+ *
+ * QUEUE FULL (audit.queue.capacity, default 10000) - audit.overflow decides:
+ * - block (default): the caller waits for room, up to audit.overflow.blockTimeoutMs; after that
+ *   the event is dropped and counted. The caller never writes to the database itself - during an
+ *   outage that would stall every caller on the same dead connection.
+ * - dropSuccess: SUCCESS events are dropped first. A new SUCCESS event is dropped; a FAILED or
+ *   WARNING event makes room by dropping the oldest queued SUCCESS event, and waits like
+ *   "block" only if the queue holds nothing else
+ * So events CAN be lost: when the queue stays full (a long outage), or when the JVM stops
+ * before the queue is written. Watch audit_events_dropped_total.
+ *
+ * Metrics at /api/metrics: audit_queue_depth, audit_events_written_total,
+ * audit_events_dropped_total, audit_events_failed_total and audit_batch_duration_seconds.
+ *
+ * audit.async.enabled=false writes every event on the caller's thread, as before.
+ */
+public final class AuditLogSink {
+
+    /**
+     * What submit() does when the queue is full
+     */
+    enum Overflow {
+        BLOCK,
+        DROP_SUCCESS
+    }
+
+    /**
+     * Writes one batch of events (AuditLogDAO.createAuditLogs)
+     */
+    @FunctionalInterface
+    interface BatchWriter {
+        void write(List<AuditLog> batch) throws SQLException;
+    }
+
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private static AuditLogSink instance;
+
+    private final boolean async;
+    private final BlockingQueue<AuditLog> queue;
+    private final int maxBatchSize;
+    private final long maxDelayMs;
+    private final Overflow overflow;
+    private final long blockTimeoutMs;
+    private final BatchWriter writer;
+    private final Metrics.Histogram batchTime;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Statistics
+    private final AtomicLong accepted = new AtomicLong();  // Queued
+    private final AtomicLong handled = new AtomicLong();   // Taken off the queue: written, failed or dropped
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();    // Rejected by the database
+
+    AuditLogSink(boolean async, int capacity, int maxBatchSize, long maxDelayMs, Overflow overflow,
+                 long blockTimeoutMs, BatchWriter writer, Metrics.Histogram batchTime) {
+        this.async = async;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxDelayMs = maxDelayMs;
+        this.overflow = overflow;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.writer = writer;
+        this.batchTime = batchTime;
+    }
+
+    /**
+     * The process-wide sink, configured from config.properties and started on first use
+     */
+    static synchronized AuditLogSink get() {
+        if (instance == null) {
+            Overflow overflow = "dropSuccess".equalsIgnoreCase(AppConfig.getString("audit.overflow", "block"))
+                    ? Overflow.DROP_SUCCESS : Overflow.BLOCK;
+            AuditLogDAO auditLogDAO = new AuditLogDAO();
+
+            instance = new AuditLogSink(
+                    AppConfig.getBoolean("audit.async.enabled", true),
+                    AppConfig.getInt("audit.queue.capacity", 10_000),
+                    AppConfig.getInt("audit.batch.maxSize", 200),
+                    AppConfig.getLong("audit.batch.maxDelayMs", 200L),
+                    overflow,
+                    AppConfig.getLong("audit.overflow.blockTimeoutMs", 1000L),
+                    auditLogDAO::createAuditLogs,
+                    Metrics.histogram("audit_batch_duration_seconds", "Time to write one batch of audit logs", null, null));
+
+            AuditLogSink sink = instance;
+            Metrics.gauge("audit_queue_depth", "Audit events waiting to be written", () -> sink.queue.size());
+            Metrics.counter("audit_events_written_total", "Audit events written to the database", sink.written::get);
+            Metrics.counter("audit_events_dropped_total", "Audit events dropped because the queue was full", sink.dropped::get);
+            Metrics.counter("audit_events_failed_total", "Audit events the database rejected", sink.failed::get);
+
+            sink.start();
+            long shutdownTimeoutMs = AppConfig.getLong("audit.shutdownTimeoutMs", 5000L);
+            DatabaseConnection.runBeforeShutdown(() -> sink.stop(shutdownTimeoutMs));
+        }
+        return instance;
+    }
+
+    void start() {
+        if (!async || running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stop taking new events off the caller's hands and write what is queued
+     *
+     * @param timeoutMs How long to wait for the queue to drain
+     */
+    void stop(long timeoutMs) {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long unwritten = accepted.get() - handled.get();
+        if (unwritten > 0) {
+            System.err.println("⚠ " + unwritten + " audit events could not be written before shutdown");
+        }
+    }
+
+    /**
+     * Queue an audit event for writing
+     *
+     * @param event The event (timestamp set; logId and logCode are filled in when written)
+     * @return true if the event was queued or written, false if it was dropped or failed
+     */
+    boolean submit(AuditLog event) {
+        if (!running) {
+            // Synchronous mode (audit.async.enabled=false), or the sink was stopped at shutdown
+            return writeNow(event);
+        }
+        if (queue.offer(event)) {
+            accepted.incrementAndGet();
+            return true;
+        }
+
+        // Queue full
+        if (overflow == Overflow.DROP_SUCCESS) {
+            if (isSuccess(event)) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (dropOldestSuccess() && queue.offer(event)) {
+                accepted.incrementAndGet();
+                return true;
+            }
+        }
+        try {
+            if (queue.offer(event, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                accepted.incrementAndGet();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Still full - the database is slow or down. Don't write it ourselves: the caller
+        // (often the UI thread) would wait on the same outage as the writer
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Wait until every event queued before this call has been written (or given up on)
+     *
+     * @return true if they were, false on timeout
+     */
+    boolean flush(long timeoutMs) {
+        long target = accepted.get();
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (handled.get() < target) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait until everything logged so far is in the database (e.g., before reading it back)
+     *
+     * @return true if it is, false on timeout
+     */
+    public static boolean flush() {
+        return get().flush(10_000);
+    }
+
+    /**
+     * Get sink statistics for monitoring.
+     *
+     * @return String containing sink statistics
+     */
+    public static String getStats() {
+        AuditLogSink sink = get();
+        return String.format("Audit Log Sink - Queued: %d, Written: %d, Dropped: %d, Failed: %d",
+                sink.queue.size(), sink.written.get(), sink.dropped.get(), sink.failed.get());
+    }
+
+    long getWritten() {
+        return written.get();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    long getFailed() {
+        return failed.get();
+    }
+
+    private void writeLoop() {
+        List<AuditLog> batch = new ArrayList<>(maxBatchSize);
+        long backoffMs = INITIAL_BACKOFF_MS;
+
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            if (batch.isEmpty()) {
+                try {
+                    collect(batch);
+                } catch (InterruptedException e) {
+                    // stop() interrupts us - write what we have and drain the rest
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+
+            if (writeBatch(batch)) {
+                backoffMs = INITIAL_BACKOFF_MS;
+                continue;
+            }
+            // Connection problem - keep what is left of the batch and try again
+            sleepQuietly(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    /**
+     * Wait for the first event, then collect more until the batch is full or its first
+     * event has waited maxDelayMs
+     */
+    private void collect(List<AuditLog> batch) throws InterruptedException {
+        AuditLog first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.currentTimeMillis() + maxDelayMs;
+        while (running && batch.size() < maxBatchSize) {
+            long remaining = deadline - System.currentTimeMillis();
+            AuditLog next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : null;
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+        if (!running) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    /**
+     * Write a batch. Events that are done with - written, or rejected by the database on
+     * their own - are removed from it.
+     *
+     * @return true if the whole batch is done, false if a connection problem stopped it
+     *         (the batch then holds the events still to write)
+     */
+    private boolean writeBatch(List<AuditLog> batch) {
+        long start = System.nanoTime();
+        try {
+            writer.write(batch);
+            recordBatch(start, false);
+            written.addAndGet(batch.size());
+            handled.addAndGet(batch.size());
+            batch.clear();
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            recordBatch(start, true);
+            if (DatabaseConnection.isTransient(e)) {
+                System.err.println("✗ Audit log batch could not reach the database (" + batch.size()
+                        + " events), will retry: " + e.getMessage());
+                return false;
+            }
+            System.err.println("✗ Audit log batch rejected (" + batch.size() + " events), writing them one by one: "
+                    + e.getMessage());
+        }
+
+        for (Iterator<AuditLog> it = batch.iterator(); it.hasNext(); ) {
+            AuditLog event = it.next();
+            try {
+                writer.write(Collections.singletonList(event));
+                written.incrementAndGet();
+            } catch (SQLException | RuntimeException e) {
+                if (DatabaseConnection.isTransient(e)) {
+                    return false;
+                }
+                failed.incrementAndGet();
+                System.err.println("✗ Audit log rejected (" + event.getActionType() + " " + event.getModule()
+                        + "): " + e.getMessage());
+            }
+            handled.incrementAndGet();
+            it.remove();
+        }
+        return true;
+    }
+
+    private boolean writeNow(AuditLog event) {
+        try {
+            writer.write(Collections.singletonList(event));
+            written.incrementAndGet();
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            failed.incrementAndGet();
+            System.err.println("✗ Failed to write audit log (" + event.getActionType() + " " + event.getModule()
+                    + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // stop() interrupts us - go round and try once more
+        }
+    }
+
+    private void recordBatch(long startNanos, boolean failed) {
+        if (batchTime != null) {
+            batchTime.record(startNanos, failed);
+        }
+    }
+
+    /**
+     * Remove the oldest queued SUCCESS event to make room for a more important one
+     *
+     * @return true if one was removed
+     */
+    private boolean dropOldestSuccess() {
+        for (Iterator<AuditLog> it = queue.iterator(); it.hasNext(); ) {
+            if (isSuccess(it.next())) {
+                it.remove();
+                dropped.incrementAndGet();
+                handled.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSuccess(AuditLog event) {
+        return "SUCCESS".equals(event.getResult());
+    }
+}
@@ -0,0 +1,204 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.dao.AttendanceDAO.ScanOutcome;
+import com.team.supplychain.dao.AttendanceDAO.ScanResult;
+import com.team.supplychain.models.Attendance;
+import com.team.supplychain.models.AttendanceScan;
+import com.team.supplychain.models.Employee;
+import com.team.supplychain.utils.Metrics;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One bulk upload from a gate device: a single connection and a single transaction,
+ * fed chunk by chunk so the request size doesn't matter for memory.
+ *
+ * PER CHUNK (3 queries + 2 batched writes, no matter how many scans):
+ * 1. Badges: cache first, then ONE "WHERE qr_code IN (...)" query for the misses
+ * 2. Today's records for every (employee, date) in the chunk: ONE query, locked FOR UPDATE
+ * 3. Decide every scan in memory, in scan-time order, using the device's timestamps
+ * 4. Write the accepted scans with AttendanceDAO.mergeScans (batched INSERT + batched UPDATE)
+ *
+ * DECISION RULES (same as offline reconciliation, so decision and write always agree):
+ * - Check-in: accepted if there is no record yet, or if it is EARLIER than the recorded check-in
+ * - Check-out: accepted if it is after the check-in and LATER than any recorded check-out
+ * Devices that re-upload the same batch after a lost response just get "already" answers.
+ *
+ * Usage:
+ * <pre>
+ * try (BulkScanSession session = attendanceDAO.openBulkSession()) {
+ *     results = session.process(chunk);  // repeat per chunk
+ *     session.commit();
+ * } // rolled back if commit() wasn't reached
+ * </pre>
+ */
+public class BulkScanSession implements AutoCloseable {
+
+    private static final Metrics.Histogram PROCESS_TIME = AttendanceDAO.daoTimer("BulkScanSession.process");
+
+    private final AttendanceDAO attendanceDAO;
+    private final EmployeeDAO employeeDAO = new EmployeeDAO();
+    private final Connection conn;
+    private boolean committed;
+
+    BulkScanSession(AttendanceDAO attendanceDAO, Connection conn) throws SQLException {
+        this.attendanceDAO = attendanceDAO;
+        this.conn = conn;
+        conn.setAutoCommit(false);
+    }
+
+    /**
+     * Decide and write one chunk of scans (employeeId is filled in from the QR code).
+     *
+     * @param scans Scans with qrCode, checkOut, location and the device's scanTime
+     * @return One result per scan, in the same order as the input
+     */
+    public List<ScanResult> process(List<AttendanceScan> scans) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<ScanResult> results = decideAndWrite(scans);
+            failed = false;
+            return results;
+        } finally {
+            PROCESS_TIME.record(start, failed);
+        }
+    }
+
+    private List<ScanResult> decideAndWrite(List<AttendanceScan> scans) throws SQLException {
+        ScanResult[] results = new ScanResult[scans.size()];
+
+        // 1. Resolve badges - cache first, one query for the rest
+        Map<String, Employee> employees = new HashMap<>();
+        Set<String> misses = new LinkedHashSet<>();
+        for (AttendanceScan scan : scans) {
+            if (!employees.containsKey(scan.getQrCode())) {
+                Employee cached = EmployeeQRCodeCache.getIfFresh(scan.getQrCode());
+                if (cached != null) {
+                    employees.put(scan.getQrCode(), cached);
+                } else {
+                    misses.add(scan.getQrCode());
+                }
+            }
+        }
+        if (!misses.isEmpty()) {
+            Map<String, Employee> found = employeeDAO.findActiveEmployeesByQRCodes(conn, misses);
+            for (String qrCode : misses) {
+                Employee employee = found.get(qrCode);
+                EmployeeQRCodeCache.remember(qrCode, employee);
+                if (employee != null) {
+                    employees.put(qrCode, employee);
+                }
+            }
+        }
+
+        // 2. Load (and lock) the records these scans touch
+        List<Integer> order = new ArrayList<>();
+        Set<String> keys = new LinkedHashSet<>();
+        List<Integer> employeeIds = new ArrayList<>();
+        List<LocalDate> dates = new ArrayList<>();
+        for (int i = 0; i < scans.size(); i++) {
+            AttendanceScan scan = scans.get(i);
+            Employee employee = employees.get(scan.getQrCode());
+            if (employee == null) {
+                results[i] = new ScanResult(ScanOutcome.UNKNOWN_BADGE, null);
+                continue;
+            }
+            scan.setEmployeeId(employee.getEmployeeId());
+            order.add(i);
+            if (keys.add(key(scan.getEmployeeId(), scan.getDate()))) {
+                employeeIds.add(scan.getEmployeeId());
+                dates.add(scan.getDate());
+            }
+        }
+
+        Map<String, Attendance> records = new HashMap<>();
+        for (Attendance record : attendanceDAO.findAttendanceForUpdate(conn, employeeIds, dates)) {
+            records.put(key(record.getEmployeeId(), record.getDate()), record);
+        }
+
+        // 3. Decide in scan-time order (a device's buffer may not be perfectly sorted)
+        order.sort(Comparator.comparing(i -> scans.get(i).getScanTime()));
+        List<AttendanceScan> accepted = new ArrayList<>();
+        for (int i : order) {
+            AttendanceScan scan = scans.get(i);
+            results[i] = decide(scan, records);
+            if (results[i].isSuccess()) {
+                accepted.add(scan);
+            }
+        }
+
+        // 4. One batched write for the whole chunk
+        if (!accepted.isEmpty()) {
+            attendanceDAO.mergeScans(conn, accepted);
+        }
+        return Arrays.asList(results);
+    }
+
+    public void commit() throws SQLException {
+        conn.commit();
+        committed = true;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!committed) {
+                conn.rollback();
+            }
+            conn.setAutoCommit(true);
+        } finally {
+            conn.close();
+        }
+    }
+
+    /**
+     * Apply one scan to the chunk's records and report what happened
+     */
+    private ScanResult decide(AttendanceScan scan, Map<String, Attendance> records) {
+        String key = key(scan.getEmployeeId(), scan.getDate());
+        Attendance record = records.get(key);
+
+        if (!scan.isCheckOut()) {
+            if (record == null) {
+                record = new Attendance(scan.getEmployeeId(), scan.getScanTime(), scan.getDate(),
+                        AttendanceDAO.determineStatus(scan.getScanTime()));
+                record.setLocation(scan.getLocation());
+                record.setQrScanData(scan.getQrCode());
+                records.put(key, record);
+                return new ScanResult(ScanOutcome.CHECKED_IN, record);
+            }
+            if (scan.getScanTime().isBefore(record.getCheckInTime())) {
+                record.setCheckInTime(scan.getScanTime());
+                record.setStatus(AttendanceDAO.determineStatus(scan.getScanTime()));
+                record.setLocation(scan.getLocation());
+                return new ScanResult(ScanOutcome.CHECKED_IN, record);
+            }
+            return new ScanResult(record.getCheckOutTime() == null ?
+                    ScanOutcome.ALREADY_CHECKED_IN : ScanOutcome.ALREADY_COMPLETED, record);
+        }
+
+        if (record == null || scan.getScanTime().isBefore(record.getCheckInTime())) {
+            return new ScanResult(ScanOutcome.NOT_CHECKED_IN, record);
+        }
+        if (record.getCheckOutTime() != null && !scan.getScanTime().isAfter(record.getCheckOutTime())) {
+            return new ScanResult(ScanOutcome.ALREADY_CHECKED_OUT, record);
+        }
+        record.setCheckOutTime(scan.getScanTime());
+        return new ScanResult(ScanOutcome.CHECKED_OUT, record);
+    }
+
+    private static String key(int employeeId, LocalDate date) {
+        return employeeId + "|" + date;
+    }
+}
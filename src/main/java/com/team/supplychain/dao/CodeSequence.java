@@ -0,0 +1,148 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.utils.AppConfig;
+import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numbers for human-readable codes (LOG0001247, REQ-00042), unique across every running app.
+ *
+ * WHY?
+ * Codes used to be MAX(id) + 1, read right before each insert: an extra round-trip per insert,
+ * and two inserts at the same moment (two threads, or the desktop app and the web server)
+ * read the same MAX and produced the same code.
+ *
+ * HOW IT WORKS (hi/lo):
+ * - Table code_sequences keeps the next free number of each sequence
+ * - A process reserves a whole block at once in one atomic statement:
+ *   UPDATE code_sequences SET next_value = LAST_INSERT_ID(next_value + blockSize) ...
+ *   Concurrent reservations queue on that row, so every block is handed to exactly one process
+ * - Numbers are then handed out from memory with an AtomicLong - no query at all until the
+ *   block runs out
+ * - The reservation runs on its own connection and commits at once, so a caller's rolled-back
+ *   transaction can't give the block back to the database while this process still uses it
+ *
+ * Numbers stay unique but not gap-free: a restart drops the unused rest of the block, and
+ * several processes interleave blocks. Block sizes: codes.auditLog.blockSize (default 100),
+ * codes.requisition.blockSize (default 10 - requisition numbers are shown to people).
+ *
+ * A missing sequence row is created starting after the table's current MAX(id) - for audit
+ * logs also after the highest number already used in a log_code - so it never hands out a
+ * code the old MAX(id) + 1 scheme produced.
+ */
+final class CodeSequence {
+
+    // Past both the ids and the numbers in existing codes (LOG0001247 → 1247) - they can differ
+    static final CodeSequence AUDIT_LOG = new CodeSequence("audit_log",
+            "SELECT GREATEST((SELECT COALESCE(MAX(log_id), 0) FROM audit_logs), " +
+            "(SELECT COALESCE(MAX(CAST(SUBSTRING(log_code, 4) AS UNSIGNED)), 0) FROM audit_logs " +
+            "WHERE log_code REGEXP '^LOG[0-9]{1,9}$')) + 1 AS start_value",
+            AppConfig.getInt("codes.auditLog.blockSize", 100));
+
+    static final CodeSequence REQUISITION = new CodeSequence("requisition",
+            "SELECT COALESCE(MAX(requisition_id), 0) + 1 AS start_value FROM requisitions",
+            AppConfig.getInt("codes.requisition.blockSize", 10));
+
+    private final String name;
+    private final String startSql;
+    private final int blockSize;
+
+    // Block in use - replaced (never modified) when it runs out
+    private volatile Block block = new Block(0, 0);
+
+    private CodeSequence(String name, String startSql, int blockSize) {
+        this.name = name;
+        this.startSql = startSql;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * Next number of this sequence. Only touches the database when the current block is used up.
+     *
+     * @throws SQLException if a new block could not be reserved
+     */
+    long next() throws SQLException {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return value;
+            }
+            // Used up - one thread reserves the next block, the others wait and retry on it
+            synchronized (this) {
+                if (block == current) {
+                    block = reserve();
+                }
+            }
+        }
+    }
+
+    private Block reserve() throws SQLException {
+        // Own autocommit connection - NOT UnitOfWork.connection(), see class comment
+        try (Connection conn = DatabaseConnection.getConnection(Workload.INTERACTIVE)) {
+            long end = advance(conn);
+            if (end < 0) {
+                start(conn);
+                end = advance(conn);
+            }
+            if (end < 0) {
+                throw new SQLException("Code sequence '" + name + "' is missing from code_sequences");
+            }
+            return new Block(end - blockSize, end);
+        }
+    }
+
+    /**
+     * Move the sequence on by one block
+     *
+     * @return The new next_value (the end of our block), or -1 if the sequence row doesn't exist
+     */
+    private long advance(Connection conn) throws SQLException {
+        String sql = "UPDATE code_sequences SET next_value = LAST_INSERT_ID(next_value + ?) WHERE sequence_name = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, blockSize);
+            stmt.setString(2, name);
+            if (stmt.executeUpdate() == 0) {
+                return -1;
+            }
+        }
+        // LAST_INSERT_ID() is per connection - it returns the value our UPDATE just set
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Create the sequence row, starting after the table's current MAX(id)
+     * (INSERT IGNORE - another process may create it at the same moment)
+     */
+    private void start(Connection conn) throws SQLException {
+        String sql = "INSERT IGNORE INTO code_sequences (sequence_name, next_value) SELECT ?, start_value FROM (" +
+                    startSql + ") seed";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, name);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;  // Exclusive
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
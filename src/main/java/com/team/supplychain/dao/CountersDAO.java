@@ -0,0 +1,362 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.utils.AppConfig;
+import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard counters kept up to date by the writes themselves (table dashboard_counters).
+ *
+ * WHY?
+ * Low stock, out of stock, inventory value, pending requisitions and today's audit activity
+ * used to be COUNT/SUM scans over the whole table on every dashboard load - and
+ * DATE(timestamp) = CURDATE() can't even use idx_timestamp. Now every write path that changes
+ * one of these numbers adds its delta to the counter IN THE SAME TRANSACTION as the row change,
+ * and a dashboard read is a primary-key lookup no matter how big the tables get.
+ *
+ * WRITE PATHS (each passes its connection to add()):
+ * - InventoryDAO.increaseInventoryQuantity   → items below reorder level, out of stock, value
+ * - RequisitionDAO.createRequisition / updateRequisitionStatus → pending requisitions
+ * - AuditLogDAO.createAuditLogs              → today's audit activity
+ * Anything else (AddInventoryItems, SQL run by hand, a bug) is caught by reconcile().
+ *
+ * HOT ROWS:
+ * Each counter is split over counters.slots rows (default 8) and a write picks one at random,
+ * so concurrent writers rarely wait for the same row lock. A read adds the slots up.
+ *
+ * RECONCILIATION:
+ * reconcile() recomputes every counter from the base tables and writes the difference into
+ * slot 0. startReconciliation() runs it at startup and every counters.reconcileIntervalMs
+ * (default 10 min). It is safe to run from several processes at once.
+ *
+ * Today's audit counter is keyed by the database's CURRENT_DATE (like the query it replaces),
+ * so a desktop app in another timezone than TiDB still counts the same "today".
+ */
+public class CountersDAO {
+
+    public static final String INVENTORY_ITEMS = "inventory.items";
+    public static final String INVENTORY_LOW_STOCK = "inventory.low_stock";
+    public static final String INVENTORY_OUT_OF_STOCK = "inventory.out_of_stock";
+    public static final String INVENTORY_VALUE = "inventory.value";
+    public static final String REQUISITIONS_PENDING = "requisitions.pending";
+    // Daily counter, stored as audit_logs.day:<YYYY-MM-DD>
+    public static final String AUDIT_LOGS_DAY = "audit_logs.day:";
+
+    private static final int SLOTS = Math.max(1, AppConfig.getInt("counters.slots", 8));
+    private static final long RECONCILE_INTERVAL_MS = AppConfig.getLong("counters.reconcileIntervalMs", 10 * 60 * 1000L);
+    // Daily rows older than this are deleted by reconcile()
+    private static final int KEEP_DAYS = Math.max(1, AppConfig.getInt("counters.keepDays", 7));
+
+    private static final String[] FIXED_COUNTERS = {
+            INVENTORY_ITEMS, INVENTORY_LOW_STOCK, INVENTORY_OUT_OF_STOCK, INVENTORY_VALUE, REQUISITIONS_PENDING
+    };
+
+    private static ScheduledExecutorService reconciler;
+
+    /**
+     * Add deltas to counters on the caller's connection, so they commit or roll back
+     * together with the row change that caused them. Zero deltas are skipped.
+     *
+     * @param conn Connection the row change ran on (inside its transaction)
+     * @param deltas Counter name → amount to add (may be negative)
+     */
+    static void add(Connection conn, Map<String, BigDecimal> deltas) throws SQLException {
+        List<Map.Entry<String, BigDecimal>> changes = new ArrayList<>();
+        for (Map.Entry<String, BigDecimal> delta : deltas.entrySet()) {
+            if (delta.getValue().signum() != 0) {
+                changes.add(delta);
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        // One multi-row upsert for all counters - one round-trip
+        StringBuilder sql = new StringBuilder("INSERT INTO dashboard_counters (counter_name, slot, counter_value) VALUES ");
+        for (int i = 0; i < changes.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE counter_value = counter_value + VALUES(counter_value)");
+
+        int slot = ThreadLocalRandom.current().nextInt(SLOTS);
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int param = 1;
+            for (Map.Entry<String, BigDecimal> change : changes) {
+                stmt.setString(param++, change.getKey());
+                stmt.setInt(param++, slot);
+                stmt.setBigDecimal(param++, change.getValue());
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Add to today's row of a daily counter (today = the database's CURRENT_DATE)
+     *
+     * @param conn Connection the row change ran on (inside its transaction)
+     * @param prefix Daily counter prefix, e.g. AUDIT_LOGS_DAY
+     * @param delta Amount to add
+     */
+    static void addToday(Connection conn, String prefix, long delta) throws SQLException {
+        String sql = "INSERT INTO dashboard_counters (counter_name, slot, counter_value) " +
+                     "VALUES (CONCAT(?, CURRENT_DATE), ?, ?) " +
+                     "ON DUPLICATE KEY UPDATE counter_value = counter_value + VALUES(counter_value)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, prefix);
+            stmt.setInt(2, ThreadLocalRandom.current().nextInt(SLOTS));
+            stmt.setLong(3, delta);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Get the current value of a counter
+     *
+     * @param name Counter name, e.g. INVENTORY_LOW_STOCK
+     * @return Counter value (0 if it has no rows yet, or on error)
+     */
+    public BigDecimal get(String name) {
+        String sql = "SELECT COALESCE(SUM(counter_value), 0) AS value FROM dashboard_counters WHERE counter_name = ?";
+
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getBigDecimal("value");
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return BigDecimal.ZERO;
+    }
+
+    /**
+     * Get today's value of a daily counter (today = the database's CURRENT_DATE)
+     *
+     * @param prefix Daily counter prefix, e.g. AUDIT_LOGS_DAY
+     * @return Today's value (0 if nothing was counted yet, or on error)
+     */
+    public BigDecimal getToday(String prefix) {
+        String sql = "SELECT COALESCE(SUM(counter_value), 0) AS value FROM dashboard_counters " +
+                     "WHERE counter_name = CONCAT(?, CURRENT_DATE)";
+
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, prefix);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getBigDecimal("value");
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return BigDecimal.ZERO;
+    }
+
+    /**
+     * Recompute every counter from the base tables and correct any drift.
+     *
+     * HOW IT STAYS CORRECT WHILE WRITES CONTINUE:
+     * 1. Lock the counters' rows (SELECT ... FOR UPDATE) - a writer that hasn't added its delta
+     *    yet now waits for us, and its row change isn't committed, so step 2 doesn't see it either
+     * 2. Recompute from the base tables (READ COMMITTED, so everything committed before step 1 counts)
+     * 3. Add (recomputed - current) to slot 0 and commit
+     *
+     * @return Number of counters that had drifted
+     * @throws SQLException if the reconciliation failed (nothing is changed)
+     */
+    public int reconcile() throws SQLException {
+        // Every slot row exists up front, so a writer can't slip a brand-new row past the lock
+        StringBuilder seedSql = new StringBuilder(
+                "INSERT IGNORE INTO dashboard_counters (counter_name, slot, counter_value) VALUES ");
+        for (int i = 0; i < FIXED_COUNTERS.length * SLOTS; i++) {
+            seedSql.append(i == 0 ? "(?, ?, 0)" : ", (?, ?, 0)");
+        }
+        for (int slot = 0; slot < SLOTS; slot++) {
+            seedSql.append(", (CONCAT(?, CURRENT_DATE), ?, 0)");
+        }
+
+        String lockSql = "SELECT counter_name, counter_value FROM dashboard_counters " +
+                         "WHERE counter_name IN (" + String.join(", ", Collections.nCopies(FIXED_COUNTERS.length, "?")) + ") " +
+                         "OR counter_name = CONCAT(?, CURRENT_DATE) FOR UPDATE";
+
+        // Recompute all counters in one statement; the audit range is sargable on idx_timestamp
+        String actualSql =
+                "SELECT i.total_items, i.low_stock, i.out_of_stock, i.total_value, r.pending, a.today, " +
+                "       CONCAT(?, CURRENT_DATE) AS audit_counter " +
+                "FROM (SELECT COUNT(*) AS total_items, " +
+                "             COALESCE(SUM(quantity <= reorder_level), 0) AS low_stock, " +
+                "             COALESCE(SUM(quantity = 0), 0) AS out_of_stock, " +
+                "             COALESCE(SUM(quantity * unit_price), 0) AS total_value " +
+                "      FROM inventory_items) i " +
+                "CROSS JOIN (SELECT COUNT(*) AS pending FROM requisitions WHERE status = 'Pending') r " +
+                "CROSS JOIN (SELECT COUNT(*) AS today FROM audit_logs " +
+                "            WHERE timestamp >= CURRENT_DATE AND timestamp < CURRENT_DATE + INTERVAL 1 DAY) a";
+
+        // Day names sort by date (ISO format), so "older than N days" is a range on the primary key
+        String pruneSql = "DELETE FROM dashboard_counters " +
+                          "WHERE counter_name > ? AND counter_name < CONCAT(?, CURRENT_DATE - INTERVAL ? DAY)";
+
+        // Runs every few minutes in the background - keep it off the desktop's pool.
+        // Its own connection (never a unit of work's) - it changes the isolation level.
+        try (Connection conn = DatabaseConnection.getConnection(Workload.BULK)) {
+            int isolation = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement seed = conn.prepareStatement(seedSql.toString())) {
+                    int param = 1;
+                    for (String name : FIXED_COUNTERS) {
+                        for (int slot = 0; slot < SLOTS; slot++) {
+                            seed.setString(param++, name);
+                            seed.setInt(param++, slot);
+                        }
+                    }
+                    for (int slot = 0; slot < SLOTS; slot++) {
+                        seed.setString(param++, AUDIT_LOGS_DAY);
+                        seed.setInt(param++, slot);
+                    }
+                    seed.executeUpdate();
+                }
+
+                Map<String, BigDecimal> current = new HashMap<>();
+                try (PreparedStatement lock = conn.prepareStatement(lockSql)) {
+                    int param = 1;
+                    for (String name : FIXED_COUNTERS) {
+                        lock.setString(param++, name);
+                    }
+                    lock.setString(param, AUDIT_LOGS_DAY);
+                    try (ResultSet rs = lock.executeQuery()) {
+                        while (rs.next()) {
+                            current.merge(rs.getString("counter_name"), rs.getBigDecimal("counter_value"), BigDecimal::add);
+                        }
+                    }
+                }
+
+                Map<String, BigDecimal> actual = new LinkedHashMap<>();
+                try (PreparedStatement stmt = conn.prepareStatement(actualSql)) {
+                    stmt.setString(1, AUDIT_LOGS_DAY);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();  // aggregates always return exactly one row
+                        actual.put(INVENTORY_ITEMS, rs.getBigDecimal("total_items"));
+                        actual.put(INVENTORY_LOW_STOCK, rs.getBigDecimal("low_stock"));
+                        actual.put(INVENTORY_OUT_OF_STOCK, rs.getBigDecimal("out_of_stock"));
+                        actual.put(INVENTORY_VALUE, rs.getBigDecimal("total_value"));
+                        actual.put(REQUISITIONS_PENDING, rs.getBigDecimal("pending"));
+                        actual.put(rs.getString("audit_counter"), rs.getBigDecimal("today"));
+                    }
+                }
+
+                Map<String, BigDecimal> corrections = new LinkedHashMap<>();
+                for (Map.Entry<String, BigDecimal> entry : actual.entrySet()) {
+                    BigDecimal counted = current.getOrDefault(entry.getKey(), BigDecimal.ZERO);
+                    BigDecimal drift = entry.getValue().subtract(counted);
+                    if (drift.signum() != 0) {
+                        corrections.put(entry.getKey(), drift);
+                        System.err.println("⚠ Counter " + entry.getKey() + " was " + counted.toPlainString()
+                                + ", actual " + entry.getValue().toPlainString() + " (corrected)");
+                    }
+                }
+                addToSlotZero(conn, corrections);
+
+                try (PreparedStatement prune = conn.prepareStatement(pruneSql)) {
+                    prune.setString(1, AUDIT_LOGS_DAY);
+                    prune.setString(2, AUDIT_LOGS_DAY);
+                    prune.setInt(3, KEEP_DAYS);
+                    prune.executeUpdate();
+                }
+
+                conn.commit();
+                return corrections.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                conn.setTransactionIsolation(isolation);
+            }
+        }
+    }
+
+    /**
+     * Add corrections to slot 0 of each counter (the rows exist - reconcile() seeds them)
+     */
+    private static void addToSlotZero(Connection conn, Map<String, BigDecimal> corrections) throws SQLException {
+        if (corrections.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE dashboard_counters SET counter_value = counter_value + ? WHERE counter_name = ? AND slot = 0";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<String, BigDecimal> correction : corrections.entrySet()) {
+                stmt.setBigDecimal(1, correction.getValue());
+                stmt.setString(2, correction.getKey());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Reconcile now and then every counters.reconcileIntervalMs on a background thread
+     * (0 = only once, now). Calling it again while running does nothing.
+     */
+    public static synchronized void startReconciliation() {
+        if (reconciler != null) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "counters-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Runnable task = () -> {
+            try {
+                int drifted = new CountersDAO().reconcile();
+                if (drifted > 0) {
+                    System.out.println("✓ Dashboard counters reconciled (" + drifted + " corrected)");
+                }
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("✗ Dashboard counter reconciliation failed: " + e.getMessage());
+            }
+        };
+        if (RECONCILE_INTERVAL_MS > 0) {
+            reconciler.scheduleWithFixedDelay(task, 0, RECONCILE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } else {
+            reconciler.execute(task);
+        }
+    }
+
+    /**
+     * Stop the background reconciliation started by startReconciliation()
+     */
+    public static synchronized void stopReconciliation() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+            reconciler = null;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.utils.AppConfig;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Admin dashboard counters in ONE query, shared through a short-lived snapshot.
+ *
+ * WHY?
+ * The dashboard used to run six COUNT queries (active users, inventory items, low stock,
+ * out of stock, pending requisitions, audit logs in the last 24h) on every open and refresh.
+ * Now:
+ * - One statement fetches all six (inventory and requisition numbers come from
+ *   dashboard_counters - see CountersDAO - so only users and the last 24h of audit logs are counted)
+ * - The result is stored in the single-row table dashboard_snapshot, shared by EVERY admin
+ *   client, not just the dashboards in one process
+ * - It is kept for dashboard.metrics.ttlMs (default 30s). N clients cost one counting query
+ *   per interval, plus one primary-key read each
+ *
+ * HOW IT WORKS:
+ * 1. In this process: a snapshot younger than the TTL is returned straight away. When it is
+ *    stale, concurrent callers wait for the SAME load instead of each starting one.
+ * 2. The load reads the dashboard_snapshot row. If that is younger than the TTL, done.
+ * 3. Otherwise it tries to take the row's lease (lease_until). The one client that gets it runs
+ *    the counting query and writes the result back; everyone else keeps using the stale row
+ *    until it has been refreshed. A lease left behind by a crashed client runs out after 10s.
+ * 4. refresh() (the refresh button) takes the lease regardless of the TTL, or waits for the
+ *    refresh another client is already running.
+ *
+ * If the counting query fails and an older snapshot exists, the older one is returned (and the
+ * error printed) so the dashboard still shows something.
+ */
+public class DashboardMetricsDAO {
+
+    private static final long TTL_MS = AppConfig.getLong("dashboard.metrics.ttlMs", 30_000L);
+    private static final int LEASE_SECONDS = 10;
+    private static final long POLL_MS = 100;
+
+    private static final String SQL =
+            "SELECT u.active_users, i.total_items, i.low_stock, i.out_of_stock, " +
+            "r.pending_requisitions, a.recent_audit_logs " +
+            "FROM (SELECT COUNT(*) AS active_users FROM users WHERE is_active = true) u " +
+            "CROSS JOIN (SELECT COALESCE(SUM(CASE WHEN counter_name = '" + CountersDAO.INVENTORY_ITEMS + "' THEN counter_value END), 0) AS total_items, " +
+            "                   COALESCE(SUM(CASE WHEN counter_name = '" + CountersDAO.INVENTORY_LOW_STOCK + "' THEN counter_value END), 0) AS low_stock, " +
+            "                   COALESCE(SUM(CASE WHEN counter_name = '" + CountersDAO.INVENTORY_OUT_OF_STOCK + "' THEN counter_value END), 0) AS out_of_stock " +
+            "            FROM dashboard_counters " +
+            "            WHERE counter_name IN ('" + CountersDAO.INVENTORY_ITEMS + "', '" + CountersDAO.INVENTORY_LOW_STOCK + "', '" +
+                                                  CountersDAO.INVENTORY_OUT_OF_STOCK + "')) i " +
+            "CROSS JOIN (SELECT COALESCE(SUM(counter_value), 0) AS pending_requisitions FROM dashboard_counters " +
+            "            WHERE counter_name = '" + CountersDAO.REQUISITIONS_PENDING + "') r " +
+            "CROSS JOIN (SELECT COUNT(*) AS recent_audit_logs FROM audit_logs " +
+            "            WHERE timestamp >= DATE_SUB(NOW(), INTERVAL 24 HOUR)) a";
+
+    private static final String READ_SHARED_SQL =
+            "SELECT active_users, total_items, low_stock, out_of_stock, pending_requisitions, recent_audit_logs, " +
+            "TIMESTAMPDIFF(MICROSECOND, refreshed_at, NOW(3)) AS age_micros " +
+            "FROM dashboard_snapshot WHERE snapshot_id = 1 AND refreshed_at IS NOT NULL";
+
+    // Free lease, and (unless forced) a row older than the TTL - the database clock decides both
+    private static final String TAKE_LEASE_SQL =
+            "UPDATE dashboard_snapshot SET lease_until = DATE_ADD(NOW(3), INTERVAL ? SECOND) " +
+            "WHERE snapshot_id = 1 AND (lease_until IS NULL OR lease_until < NOW(3)) " +
+            "AND (? OR refreshed_at IS NULL OR refreshed_at < DATE_SUB(NOW(3), INTERVAL ? MICROSECOND))";
+
+    private static final String PUBLISH_SQL =
+            "UPDATE dashboard_snapshot SET active_users = ?, total_items = ?, low_stock = ?, out_of_stock = ?, " +
+            "pending_requisitions = ?, recent_audit_logs = ?, refreshed_at = NOW(3), lease_until = NULL " +
+            "WHERE snapshot_id = 1";
+
+    private static volatile Snapshot snapshot;
+    // The load in progress, if any - everyone who needs fresh numbers joins it
+    private static final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+
+    /**
+     * Get the dashboard counters, from the shared snapshot when it is younger than the TTL
+     *
+     * @return Current (or at most about ttlMs old) counters
+     * @throws SQLException if the query failed and there is no older snapshot to fall back to
+     */
+    public Snapshot getSnapshot() throws SQLException {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        return load(current, false);
+    }
+
+    /**
+     * Reload the counters now (e.g. the refresh button), ignoring the TTL.
+     * If a reload is already running (here or in another client), its result is shared
+     * instead of starting another.
+     *
+     * @return Freshly loaded counters
+     * @throws SQLException if the query failed and there is no older snapshot to fall back to
+     */
+    public Snapshot refresh() throws SQLException {
+        return load(snapshot, true);
+    }
+
+    private static boolean isFresh(Snapshot current) {
+        return current != null && System.currentTimeMillis() - current.getLoadedAtMillis() < TTL_MS;
+    }
+
+    /**
+     * Fetch once for every caller in this process waiting on it
+     */
+    private Snapshot load(Snapshot previous, boolean force) throws SQLException {
+        CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+        CompletableFuture<Snapshot> running = inFlight.compareAndExchange(null, mine);
+        if (running == null) {
+            try {
+                // Another load may have finished between our TTL check and here
+                Snapshot latest = snapshot;
+                Snapshot loaded = !force && isFresh(latest) ? latest : fetch(force);
+                snapshot = loaded;
+                mine.complete(loaded);
+            } catch (SQLException | RuntimeException e) {
+                mine.completeExceptionally(e);
+            } finally {
+                inFlight.set(null);
+            }
+            running = mine;
+        }
+
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (previous != null) {
+                System.err.println("⚠ Dashboard metrics reload failed, showing older numbers: " + cause.getMessage());
+                return previous;
+            }
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Failed to load dashboard metrics", cause);
+        }
+    }
+
+    /**
+     * Get the counters from the shared row, refreshing it if this client holds the lease
+     */
+    private Snapshot fetch(boolean force) throws SQLException {
+        long requestedAt = System.currentTimeMillis();
+        if (!force) {
+            Snapshot shared = readShared();
+            if (isFresh(shared)) {
+                return shared;
+            }
+        }
+
+        if (takeLease(force)) {
+            return publish(query());
+        }
+
+        // Another client is refreshing the row
+        Snapshot shared = readShared();
+        if (force) {
+            long deadline = requestedAt + LEASE_SECONDS * 1000L;
+            while ((shared == null || shared.getLoadedAtMillis() < requestedAt)
+                    && System.currentTimeMillis() < deadline) {
+                pause();
+                shared = readShared();
+            }
+            if (shared == null || shared.getLoadedAtMillis() < requestedAt) {
+                return query();
+            }
+        }
+        // Nothing shared yet (e.g. dashboard_snapshot was never filled) - count for ourselves
+        return shared != null ? shared : query();
+    }
+
+    /**
+     * @return The shared snapshot, or null if it has never been filled
+     */
+    private Snapshot readShared() throws SQLException {
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(READ_SHARED_SQL)) {
+
+            if (!rs.next()) {
+                return null;
+            }
+            // Age by the database clock, so clients with skewed clocks agree on freshness
+            long ageMillis = Math.max(0, rs.getLong("age_micros") / 1000);
+            return new Snapshot(
+                    rs.getInt("active_users"),
+                    rs.getInt("total_items"),
+                    rs.getInt("low_stock"),
+                    rs.getInt("out_of_stock"),
+                    rs.getInt("pending_requisitions"),
+                    rs.getInt("recent_audit_logs"),
+                    System.currentTimeMillis() - ageMillis);
+        }
+    }
+
+    /**
+     * @return true if this client may refresh the shared row (it holds the lease until publish)
+     */
+    private boolean takeLease(boolean force) throws SQLException {
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
+             PreparedStatement stmt = conn.prepareStatement(TAKE_LEASE_SQL)) {
+            stmt.setInt(1, LEASE_SECONDS);
+            stmt.setBoolean(2, force);
+            stmt.setLong(3, TTL_MS * 1000L);
+            return stmt.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Write freshly counted numbers to the shared row and give the lease back
+     */
+    private Snapshot publish(Snapshot counted) throws SQLException {
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
+             PreparedStatement stmt = conn.prepareStatement(PUBLISH_SQL)) {
+            stmt.setInt(1, counted.getActiveUsers());
+            stmt.setInt(2, counted.getTotalItems());
+            stmt.setInt(3, counted.getLowStockCount());
+            stmt.setInt(4, counted.getOutOfStockCount());
+            stmt.setInt(5, counted.getPendingRequisitions());
+            stmt.setInt(6, counted.getRecentAuditLogs());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            // The numbers are still good for this client; the lease runs out on its own
+            System.err.println("⚠ Could not share dashboard metrics: " + e.getMessage());
+        }
+        return counted;
+    }
+
+    private static void pause() throws SQLException {
+        try {
+            Thread.sleep(POLL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for dashboard metrics", e);
+        }
+    }
+
+    private Snapshot query() throws SQLException {
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SQL)) {
+
+            rs.next();  // aggregates always return exactly one row
+            return new Snapshot(
+                    rs.getInt("active_users"),
+                    rs.getInt("total_items"),
+                    rs.getInt("low_stock"),
+                    rs.getInt("out_of_stock"),
+                    rs.getInt("pending_requisitions"),
+                    rs.getInt("recent_audit_logs"),
+                    System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Immutable set of dashboard counters, shared between callers
+     */
+    public static final class Snapshot {
+        private final int activeUsers;
+        private final int totalItems;
+        private final int lowStockCount;
+        private final int outOfStockCount;
+        private final int pendingRequisitions;
+        private final int recentAuditLogs;
+        private final long loadedAtMillis;
+
+        public Snapshot(int activeUsers, int totalItems, int lowStockCount, int outOfStockCount,
+                        int pendingRequisitions, int recentAuditLogs, long loadedAtMillis) {
+            this.activeUsers = activeUsers;
+            this.totalItems = totalItems;
+            this.lowStockCount = lowStockCount;
+            this.outOfStockCount = outOfStockCount;
+            this.pendingRequisitions = pendingRequisitions;
+            this.recentAuditLogs = recentAuditLogs;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        public int getActiveUsers() {
+            return activeUsers;
+        }
+
+        public int getTotalItems() {
+            return totalItems;
+        }
+
+        public int getLowStockCount() {
+            return lowStockCount;
+        }
+
+        public int getOutOfStockCount() {
+            return outOfStockCount;
+        }
+
+        public int getPendingRequisitions() {
+            return pendingRequisitions;
+        }
+
+        public int getRecentAuditLogs() {
+            return recentAuditLogs;
+        }
+
+        public long getLoadedAtMillis() {
+            return loadedAtMillis;
+        }
+    }
+}
@@ -2,18 +2,28 @@ package com.team.supplychain.dao;
 
 import com.team.supplychain.models.Employee;
 import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
+import com.team.supplychain.utils.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class EmployeeDAO {
-    
+
+    // Timings of the badge lookups on the scan path, exported at /api/metrics
+    private static final Metrics.Histogram FIND_BY_QR_TIME = AttendanceDAO.daoTimer("EmployeeDAO.findActiveEmployeeByQRCode");
+    private static final Metrics.Histogram FIND_BY_QRS_TIME = AttendanceDAO.daoTimer("EmployeeDAO.findActiveEmployeesByQRCodes");
+
     public boolean createEmployee(Employee employee) {
         String sql = "INSERT INTO employees (user_id, department, position, phone, " +
                     "qr_code, hire_date) VALUES (?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setInt(1, employee.getUserId());
@@ -30,6 +40,9 @@ public class EmployeeDAO {
                 if (rs.next()) {
                     employee.setEmployeeId(rs.getInt(1));
                 }
+                // A badge that was scanned before it was issued may be in the "unknown" cache
+                EmployeeQRCodeCache.invalidateQRCode(employee.getQrCode());
+                QueryCache.invalidate("employees");
                 return true;
             }
         } catch (SQLException e) {
@@ -44,7 +57,7 @@ public class EmployeeDAO {
                     "JOIN users u ON e.user_id = u.user_id " +
                     "WHERE e.employee_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, employeeId);
@@ -65,7 +78,7 @@ public class EmployeeDAO {
                     "JOIN users u ON e.user_id = u.user_id " +
                     "WHERE e.qr_code = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, qrCode);
@@ -80,13 +93,111 @@ public class EmployeeDAO {
         return null;
     }
 
+    /**
+     * Same as getEmployeeByQRCode, but only matches employees whose user account is active.
+     * Used by the scan API (through EmployeeQRCodeCache) so disabled accounts can't check in.
+     *
+     * Waits at most maxWaitMs for a connection and reports database failures instead of
+     * returning null, so the caller can tell "unknown badge" apart from "database unreachable".
+     *
+     * @param qrCode QR code to look up
+     * @param maxWaitMs How long to wait for a pooled connection
+     * @return Employee object if found, null otherwise
+     * @throws SQLException if the database could not be reached or queried
+     */
+    public Employee findActiveEmployeeByQRCode(String qrCode, long maxWaitMs) throws SQLException {
+        String sql = "SELECT e.*, u.first_name, u.last_name, u.email " +
+                    "FROM employees e " +
+                    "JOIN users u ON e.user_id = u.user_id " +
+                    "WHERE e.qr_code = ? AND u.is_active = true";
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try (Connection conn = DatabaseConnection.getConnection(Workload.SCAN, maxWaitMs);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, qrCode);
+            ResultSet rs = stmt.executeQuery();
+
+            Employee employee = rs.next() ? extractEmployeeFromResultSet(rs) : null;
+            failed = false;
+            return employee;
+        } finally {
+            FIND_BY_QR_TIME.record(start, failed);
+        }
+    }
+
+    /**
+     * Batched version of findActiveEmployeeByQRCode: one query for a whole set of codes.
+     * Used by BulkScanSession on its own (transaction) connection.
+     *
+     * @param conn Open database connection (not closed here)
+     * @param qrCodes Codes to look up
+     * @return qr_code → employee for every code that matches an active employee
+     */
+    Map<String, Employee> findActiveEmployeesByQRCodes(Connection conn, Collection<String> qrCodes) throws SQLException {
+        Map<String, Employee> employees = new HashMap<>();
+        if (qrCodes.isEmpty()) {
+            return employees;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(qrCodes.size(), "?"));
+        String sql = "SELECT e.*, u.first_name, u.last_name, u.email " +
+                    "FROM employees e " +
+                    "JOIN users u ON e.user_id = u.user_id " +
+                    "WHERE e.qr_code IN (" + placeholders + ") AND u.is_active = true";
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (String qrCode : qrCodes) {
+                stmt.setString(index++, qrCode);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Employee employee = extractEmployeeFromResultSet(rs);
+                    employees.put(employee.getQrCode(), employee);
+                }
+            }
+            failed = false;
+        } finally {
+            FIND_BY_QRS_TIME.record(start, failed);
+        }
+        return employees;
+    }
+
+    /**
+     * All employees with an active user account and a QR code.
+     * Used to warm EmployeeQRCodeCache when the web server starts.
+     */
+    public List<Employee> getAllActiveEmployeesWithQRCode() {
+        List<Employee> employees = new ArrayList<>();
+        String sql = "SELECT e.*, u.first_name, u.last_name, u.email " +
+                    "FROM employees e " +
+                    "JOIN users u ON e.user_id = u.user_id " +
+                    "WHERE u.is_active = true AND e.qr_code IS NOT NULL";
+
+        try (Connection conn = UnitOfWork.connection(Workload.BULK);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                employees.add(extractEmployeeFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return employees;
+    }
+
     public Employee getEmployeeByUserId(int userId) {
         String sql = "SELECT e.*, u.first_name, u.last_name, u.email " +
                     "FROM employees e " +
                     "JOIN users u ON e.user_id = u.user_id " +
                     "WHERE e.user_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, userId);
@@ -102,30 +213,37 @@ public class EmployeeDAO {
     }
 
     public List<Employee> getAllEmployees() {
-        List<Employee> employees = new ArrayList<>();
         String sql = "SELECT e.*, u.first_name, u.last_name, u.email " +
                     "FROM employees e " +
                     "JOIN users u ON e.user_id = u.user_id " +
                     "ORDER BY u.last_name, u.first_name";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                employees.add(extractEmployeeFromResultSet(rs));
-            }
+        try {
+            // Reused between screen opens until an employee or user is written (see QueryCache)
+            return new ArrayList<>(QueryCache.get(sql, List.of(), QueryCache.DEFAULT_TTL_MS,
+                    new String[]{"employees", "users"}, () -> {
+                List<Employee> employees = new ArrayList<>();
+                try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    
+                    while (rs.next()) {
+                        employees.add(extractEmployeeFromResultSet(rs));
+                    }
+                }
+                return employees;
+            }));
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return employees;
+        return new ArrayList<>();
     }
     
     public boolean updateEmployee(Employee employee) {
         String sql = "UPDATE employees SET department = ?, position = ?, " +
                     "phone = ?, qr_code = ? WHERE employee_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setString(1, employee.getDepartment());
@@ -134,7 +252,14 @@ public class EmployeeDAO {
             stmt.setString(4, employee.getQrCode());
             stmt.setInt(5, employee.getEmployeeId());
             
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                // Badge may have been re-issued - drop the old code and any "unknown" entry for the new one
+                EmployeeQRCodeCache.invalidateEmployee(employee.getEmployeeId());
+                EmployeeQRCodeCache.invalidateQRCode(employee.getQrCode());
+                QueryCache.invalidate("employees");
+            }
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -144,11 +269,16 @@ public class EmployeeDAO {
     public boolean deleteEmployee(int employeeId) {
         String sql = "DELETE FROM employees WHERE employee_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, employeeId);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                EmployeeQRCodeCache.invalidateEmployee(employeeId);
+                QueryCache.invalidate("employees");
+            }
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,290 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.models.Employee;
+import com.team.supplychain.utils.AppConfig;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory QR code → employee lookup for the scan API.
+ *
+ * WHY A CACHE?
+ * Every scan used to run EmployeeDAO.getEmployeeByQRCode - a JOIN of employees and users
+ * over the network to TiDB Cloud (~50-100ms). Badges almost never change, so the answer
+ * is the same every morning. With the cache, a known badge resolves in microseconds and
+ * the only database work left on the scan path is the attendance write itself.
+ *
+ * HOW IT WORKS:
+ * - Positive cache: qr_code → Employee (only employees with an ACTIVE user account)
+ * - Negative cache: qr_code → "unknown until <time>", so bogus or mis-read codes
+ *   never reach the database more than once per negative TTL
+ * - Both maps are LRU-bounded (LinkedHashMap in access order), so a flood of random
+ *   codes can't grow memory without limit
+ * - warm() preloads every active badge when WebServerLauncher starts
+ * - If the database can't be reached, lookup() falls back to the expired entry and
+ *   peek() answers from memory only (offline mode)
+ *
+ * INVALIDATION:
+ * - EmployeeDAO.createEmployee / updateEmployee → drop the old code and any negative entry
+ * - EmployeeDAO.deleteEmployee → drop the employee's code
+ * - UserDAO.updateUser / deleteUser → drop the user's badge (is_active may have changed)
+ *
+ * These hooks only see writes made in THIS JVM. The desktop app usually runs in a
+ * different JVM than the web server, so entries also expire after scan.cache.ttlMs
+ * as a safety net - a change made from the admin screen reaches the gate within that time.
+ *
+ * THREAD SAFETY:
+ * Jetty calls lookup() from many request threads. Each map is guarded by its own lock;
+ * the critical sections are a single map operation, far cheaper than the DB call they replace.
+ * Returned Employee objects are shared - callers must treat them as read-only.
+ */
+public final class EmployeeQRCodeCache {
+
+    private static final int MAX_ENTRIES = AppConfig.getInt("scan.cache.maxEntries", 20000);
+    private static final int MAX_NEGATIVE_ENTRIES = AppConfig.getInt("scan.cache.maxNegativeEntries", 5000);
+    private static final long TTL_MS = AppConfig.getLong("scan.cache.ttlMs", 10 * 60 * 1000L);
+    private static final long NEGATIVE_TTL_MS = AppConfig.getLong("scan.cache.negativeTtlMs", 60 * 1000L);
+    private static final long LOOKUP_BUDGET_MS = AppConfig.getLong("scan.offline.connectionBudgetMs", 500);
+
+    // qr_code → cached employee (+ load time)
+    private static final Map<String, CachedEmployee> positive = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedEmployee> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // qr_code → time (millis) until which the code is known NOT to exist
+    private static final Map<String, Long> negative = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_NEGATIVE_ENTRIES;
+        }
+    };
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong negativeHits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private static final EmployeeDAO employeeDAO = new EmployeeDAO();
+
+    private EmployeeQRCodeCache() {
+    }
+
+    /**
+     * Resolve a scanned QR code to an active employee.
+     * Answers from memory when possible, otherwise asks the database once and remembers the answer.
+     *
+     * @param qrCode The scanned code (already trimmed)
+     * @return The employee, or null if the code is unknown or the account is disabled
+     */
+    public static Employee lookup(String qrCode) {
+        if (qrCode == null || qrCode.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        CachedEmployee stale = null;
+
+        synchronized (positive) {
+            CachedEmployee cached = positive.get(qrCode);
+            if (cached != null) {
+                if (now - cached.loadedAt < TTL_MS) {
+                    hits.incrementAndGet();
+                    return cached.employee;
+                }
+                stale = cached;  // Expired - kept until the database gives a fresh answer
+            }
+        }
+
+        synchronized (negative) {
+            Long unknownUntil = negative.get(qrCode);
+            if (unknownUntil != null) {
+                if (now < unknownUntil) {
+                    negativeHits.incrementAndGet();
+                    return null;
+                }
+                negative.remove(qrCode);
+            }
+        }
+
+        // Cache miss - one trip to the database, on a short connection budget
+        misses.incrementAndGet();
+        Employee employee;
+        try {
+            employee = employeeDAO.findActiveEmployeeByQRCode(qrCode, LOOKUP_BUDGET_MS);
+        } catch (SQLException e) {
+            // Database unreachable - an expired answer beats turning a known badge away
+            System.err.println("⚠ QR lookup failed, using cached badge if any: " + e.getMessage());
+            return stale != null ? stale.employee : null;
+        }
+
+        if (employee != null) {
+            put(employee, now);
+        } else {
+            synchronized (positive) {
+                positive.remove(qrCode);
+            }
+            synchronized (negative) {
+                negative.put(qrCode, now + NEGATIVE_TTL_MS);
+            }
+        }
+        return employee;
+    }
+
+    /**
+     * Resolve a QR code from memory only - never touches the database.
+     * Used while the scan API runs in offline mode (see OfflineScanBuffer): expired
+     * entries still count, because the badge list from before the outage is the best we have.
+     *
+     * @param qrCode The scanned code (already trimmed)
+     * @return The cached employee, or null if the badge was never loaded
+     */
+    public static Employee peek(String qrCode) {
+        if (qrCode == null || qrCode.isEmpty()) {
+            return null;
+        }
+        synchronized (positive) {
+            CachedEmployee cached = positive.get(qrCode);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached.employee;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fresh (not expired) cache entry only - no database access, no negative check.
+     * Used by BulkScanSession, which looks up all misses of a chunk in one batched query.
+     */
+    static Employee getIfFresh(String qrCode) {
+        synchronized (positive) {
+            CachedEmployee cached = positive.get(qrCode);
+            if (cached != null && System.currentTimeMillis() - cached.loadedAt < TTL_MS) {
+                hits.incrementAndGet();
+                return cached.employee;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remember the answer of a batched lookup (employee found, or null = unknown code)
+     */
+    static void remember(String qrCode, Employee employee) {
+        misses.incrementAndGet();
+        long now = System.currentTimeMillis();
+        if (employee != null) {
+            put(employee, now);
+        } else {
+            synchronized (negative) {
+                negative.put(qrCode, now + NEGATIVE_TTL_MS);
+            }
+        }
+    }
+
+    /**
+     * Preload every active badge so the first scans of the day don't wait on the database.
+     * Called from WebServerLauncher before the server starts accepting requests.
+     *
+     * @return Number of badges loaded
+     */
+    public static int warm() {
+        List<Employee> employees = employeeDAO.getAllActiveEmployeesWithQRCode();
+        long now = System.currentTimeMillis();
+        for (Employee employee : employees) {
+            put(employee, now);
+        }
+        System.out.println("✓ QR code cache warmed with " + employees.size() + " badges");
+        return employees.size();
+    }
+
+    /**
+     * Forget a specific code (both positive and negative entries)
+     */
+    public static void invalidateQRCode(String qrCode) {
+        if (qrCode == null) {
+            return;
+        }
+        synchronized (positive) {
+            positive.remove(qrCode);
+        }
+        synchronized (negative) {
+            negative.remove(qrCode);
+        }
+    }
+
+    /**
+     * Forget whatever badge belongs to this employee
+     */
+    public static void invalidateEmployee(int employeeId) {
+        synchronized (positive) {
+            positive.values().removeIf(cached -> cached.employee.getEmployeeId() == employeeId);
+        }
+    }
+
+    /**
+     * Forget whatever badge belongs to this user account
+     */
+    public static void invalidateUser(int userId) {
+        synchronized (positive) {
+            positive.values().removeIf(cached -> cached.employee.getUserId() == userId);
+        }
+    }
+
+    /**
+     * Drop everything (e.g., after a bulk import)
+     */
+    public static void clear() {
+        synchronized (positive) {
+            positive.clear();
+        }
+        synchronized (negative) {
+            negative.clear();
+        }
+    }
+
+    /**
+     * Get cache statistics for monitoring.
+     *
+     * @return String containing cache statistics
+     */
+    public static String getStats() {
+        int size;
+        int negativeSize;
+        synchronized (positive) {
+            size = positive.size();
+        }
+        synchronized (negative) {
+            negativeSize = negative.size();
+        }
+        return String.format("QR Cache - Entries: %d, Unknown: %d, Hits: %d, Unknown hits: %d, Misses: %d",
+                size, negativeSize, hits.get(), negativeHits.get(), misses.get());
+    }
+
+    private static void put(Employee employee, long loadedAt) {
+        if (employee.getQrCode() == null) {
+            return;
+        }
+        synchronized (positive) {
+            positive.put(employee.getQrCode(), new CachedEmployee(employee, loadedAt));
+        }
+        synchronized (negative) {
+            negative.remove(employee.getQrCode());
+        }
+    }
+
+    private static final class CachedEmployee {
+        final Employee employee;
+        final long loadedAt;
+
+        CachedEmployee(Employee employee, long loadedAt) {
+            this.employee = employee;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,92 +1,52 @@
 package com.team.supplychain.dao;
 
 import com.team.supplychain.models.InventoryItem;
-import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO for inventory-related database operations
  */
 public class InventoryDAO {
 
+    // Tables read by the cached item lists (suppliers for the supplier name)
+    private static final String[] ITEM_TABLES = {"inventory_items", "suppliers"};
+
+    private final CountersDAO countersDAO = new CountersDAO();
+
     /**
-     * Get total count of inventory items
+     * Get total count of inventory items (from dashboard_counters - see CountersDAO)
      */
     public int getTotalItemsCount() {
-        String sql = "SELECT COUNT(*) as count FROM inventory_items";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getInt("count");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+        return countersDAO.get(CountersDAO.INVENTORY_ITEMS).intValue();
     }
 
     /**
-     * Get count of low stock items (where quantity <= reorder_level)
+     * Get count of low stock items (where quantity <= reorder_level, from dashboard_counters)
      */
     public int getLowStockCount() {
-        String sql = "SELECT COUNT(*) as count FROM inventory_items WHERE quantity <= reorder_level";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getInt("count");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+        return countersDAO.get(CountersDAO.INVENTORY_LOW_STOCK).intValue();
     }
 
     /**
-     * Get count of out of stock items (where quantity = 0)
+     * Get count of out of stock items (where quantity = 0, from dashboard_counters)
      */
     public int getOutOfStockCount() {
-        String sql = "SELECT COUNT(*) as count FROM inventory_items WHERE quantity = 0";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getInt("count");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+        return countersDAO.get(CountersDAO.INVENTORY_OUT_OF_STOCK).intValue();
     }
 
     /**
-     * Get total value of inventory
+     * Get total value of inventory (SUM(quantity * unit_price), from dashboard_counters)
      */
     public double getTotalInventoryValue() {
-        String sql = "SELECT SUM(quantity * unit_price) as total_value FROM inventory_items";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getDouble("total_value");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0.0;
+        return countersDAO.get(CountersDAO.INVENTORY_VALUE).doubleValue();
     }
 
     /**
@@ -99,21 +59,25 @@ public class InventoryDAO {
                      "LEFT JOIN suppliers s ON i.supplier_id = s.supplier_id " +
                      "ORDER BY i.item_name ASC";
 
-        List<InventoryItem> items = new ArrayList<>();
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                items.add(extractInventoryItemFromResultSet(rs));
-            }
-
+        try {
+            // Reference data for most screens - reused until inventory changes (see QueryCache)
+            return new ArrayList<>(QueryCache.get(sql, List.of(), QueryCache.DEFAULT_TTL_MS, ITEM_TABLES, () -> {
+                List<InventoryItem> items = new ArrayList<>();
+                try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+
+                    while (rs.next()) {
+                        items.add(extractInventoryItemFromResultSet(rs));
+                    }
+                }
+                return items;
+            }));
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return items;
+        return new ArrayList<>();
     }
 
     /**
@@ -127,7 +91,7 @@ public class InventoryDAO {
                      "LEFT JOIN suppliers s ON i.supplier_id = s.supplier_id " +
                      "WHERE i.item_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, itemId);
@@ -156,23 +120,26 @@ public class InventoryDAO {
                      "WHERE i.category = ? " +
                      "ORDER BY i.item_name ASC";
 
-        List<InventoryItem> items = new ArrayList<>();
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, category);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                items.add(extractInventoryItemFromResultSet(rs));
-            }
-
+        try {
+            return new ArrayList<>(QueryCache.get(sql, Collections.singletonList(category), QueryCache.DEFAULT_TTL_MS, ITEM_TABLES, () -> {
+                List<InventoryItem> items = new ArrayList<>();
+                try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                    stmt.setString(1, category);
+                    ResultSet rs = stmt.executeQuery();
+
+                    while (rs.next()) {
+                        items.add(extractInventoryItemFromResultSet(rs));
+                    }
+                }
+                return items;
+            }));
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return items;
+        return new ArrayList<>();
     }
 
     /**
@@ -190,7 +157,7 @@ public class InventoryDAO {
         List<InventoryItem> items = new ArrayList<>();
         String searchPattern = "%" + searchTerm + "%";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, searchPattern);
@@ -221,7 +188,7 @@ public class InventoryDAO {
 
         List<InventoryItem> items = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -237,25 +204,64 @@ public class InventoryDAO {
     }
 
     /**
-     * Increase inventory quantity for a specific item (used when requisition is approved)
+     * Increase inventory quantity for a specific item (used when requisition is approved).
+     * The row is locked and re-read first, so the dashboard counters (low stock, out of stock,
+     * value) get their exact change in the same transaction.
      * @param itemId The inventory item ID
      * @param quantityToAdd The quantity to add
      * @return true if update was successful, false otherwise
      */
     public boolean increaseInventoryQuantity(int itemId, int quantityToAdd) {
+        String lockSql = "SELECT quantity, unit_price, reorder_level FROM inventory_items WHERE item_id = ? FOR UPDATE";
         String sql = "UPDATE inventory_items " +
                      "SET quantity = quantity + ?, last_updated = CURRENT_TIMESTAMP " +
                      "WHERE item_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, quantityToAdd);
-            stmt.setInt(2, itemId);
-
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE)) {
+            conn.setAutoCommit(false);
+            try {
+                int oldQuantity;
+                BigDecimal unitPrice;
+                Integer reorderLevel;
+                try (PreparedStatement lock = conn.prepareStatement(lockSql)) {
+                    lock.setInt(1, itemId);
+                    try (ResultSet rs = lock.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return false;
+                        }
+                        oldQuantity = rs.getInt("quantity");
+                        unitPrice = rs.getBigDecimal("unit_price");
+                        reorderLevel = rs.getObject("reorder_level", Integer.class);
+                    }
+                }
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, quantityToAdd);
+                    stmt.setInt(2, itemId);
+                    stmt.executeUpdate();
+                }
+
+                int newQuantity = oldQuantity + quantityToAdd;
+                Map<String, BigDecimal> deltas = new HashMap<>();
+                deltas.put(CountersDAO.INVENTORY_LOW_STOCK, BigDecimal.valueOf(
+                        isLowStock(newQuantity, reorderLevel) - isLowStock(oldQuantity, reorderLevel)));
+                deltas.put(CountersDAO.INVENTORY_OUT_OF_STOCK, BigDecimal.valueOf(
+                        (newQuantity == 0 ? 1 : 0) - (oldQuantity == 0 ? 1 : 0)));
+                if (unitPrice != null) {
+                    deltas.put(CountersDAO.INVENTORY_VALUE, unitPrice.multiply(BigDecimal.valueOf(quantityToAdd)));
+                }
+                CountersDAO.add(conn, deltas);
+
+                conn.commit();
+                QueryCache.invalidate("inventory_items");
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -263,6 +269,11 @@ public class InventoryDAO {
         return false;
     }
 
+    // Same rule as quantity <= reorder_level in SQL (NULL reorder level never counts)
+    private static int isLowStock(int quantity, Integer reorderLevel) {
+        return reorderLevel != null && quantity <= reorderLevel ? 1 : 0;
+    }
+
     /**
      * Find inventory item by exact name match
      * @param itemName The item name to search for
@@ -274,7 +285,7 @@ public class InventoryDAO {
                      "LEFT JOIN suppliers s ON i.supplier_id = s.supplier_id " +
                      "WHERE i.item_name = ? LIMIT 1";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, itemName);
@@ -0,0 +1,189 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.utils.AppConfig;
+import com.team.supplychain.utils.Metrics;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in result cache for DAO reads of reference data (inventory list, user list, ...).
+ *
+ * WHY?
+ * Every screen open re-ran queries like InventoryDAO.getAllInventoryItems and UserDAO.getAllUsers
+ * over the network to TiDB Cloud, although the answer rarely changes between two clicks.
+ *
+ * HOW IT WORKS:
+ * - A DAO method opts in by routing its query through get(), naming the tables it reads
+ * - Entries are keyed by SQL + bound parameters and live for the TTL the call site passes
+ * - Every table has a version number; DAO write methods call invalidate("table") after they
+ *   change it. An entry remembers the versions it was loaded at, and is ignored once any of
+ *   its tables has moved on - no need to know WHICH entries a write affects
+ * - The map is LRU-bounded (cache.query.maxEntries, default 1000)
+ * - Hits, misses, evictions and invalidations are exported at /api/metrics
+ *
+ * Writes to users, employees, inventory_items and requisitions call invalidate(). Tables no DAO
+ * writes (suppliers), writes from another JVM and SQL run by hand aren't seen, so the TTL is
+ * also the bound on how stale an answer can get - keep it short.
+ *
+ * Inside a UnitOfWork transaction, invalidate() bumps the versions again when the unit ends,
+ * so a read that ran between the write and the real commit can't keep the old rows.
+ *
+ * Cached values are shared between callers - DAOs hand out copies of cached lists, and the
+ * objects in them must be treated as read-only. A failed load (SQLException) is never cached.
+ */
+public final class QueryCache {
+
+    private static final boolean ENABLED = AppConfig.getBoolean("cache.query.enabled", true);
+    private static final int MAX_ENTRIES = AppConfig.getInt("cache.query.maxEntries", 1000);
+    // TTL for reference-data reads that don't need their own (cache.query.ttlMs, 0 = no caching)
+    static final long DEFAULT_TTL_MS = AppConfig.getLong("cache.query.ttlMs", 30_000L);
+
+    // SQL + parameters → cached result (access order = LRU)
+    private static final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > MAX_ENTRIES) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // table name → version, bumped by every write to the table
+    private static final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+    private static final AtomicLong invalidations = new AtomicLong();
+
+    static {
+        Metrics.counter("query_cache_hits_total", "DAO reads answered from the query cache", hits::get);
+        Metrics.counter("query_cache_misses_total", "DAO reads that went to the database (not cached, expired or invalidated)", misses::get);
+        Metrics.counter("query_cache_evictions_total", "Query cache entries dropped to stay under cache.query.maxEntries", evictions::get);
+        Metrics.counter("query_cache_invalidations_total", "Table writes that invalidated cached reads", invalidations::get);
+        Metrics.gauge("query_cache_entries", "Entries in the query cache", QueryCache::size);
+    }
+
+    private QueryCache() {
+    }
+
+    /**
+     * Load a query result, or return the cached one if it is younger than ttlMs and none of
+     * its tables was written since.
+     *
+     * @param sql The query (part of the key)
+     * @param params Bound parameters in order (part of the key; use List.of() for none)
+     * @param ttlMs How long the result may be reused
+     * @param tables Every table the query reads
+     * @param loader Runs the query - only called on a miss
+     * @return Cached or freshly loaded result (shared - don't modify)
+     * @throws SQLException if the loader failed (nothing is cached)
+     */
+    static <T> T get(String sql, List<?> params, long ttlMs, String[] tables, Loader<T> loader) throws SQLException {
+        if (!ENABLED || ttlMs <= 0) {
+            return loader.load();
+        }
+        String key = sql + '\u0000' + params;
+        long now = System.currentTimeMillis();
+
+        // Versions BEFORE loading: a write that lands during the load makes this entry stale at once
+        long[] loadedAt = currentVersions(tables);
+        synchronized (entries) {
+            Entry cached = entries.get(key);
+            if (cached != null && now < cached.expiresAt && Arrays.equals(cached.versions, loadedAt)) {
+                hits.incrementAndGet();
+                @SuppressWarnings("unchecked")
+                T value = (T) cached.value;
+                return value;
+            }
+        }
+
+        misses.incrementAndGet();
+        T value = loader.load();
+        synchronized (entries) {
+            entries.put(key, new Entry(value, now + ttlMs, loadedAt));
+        }
+        return value;
+    }
+
+    /**
+     * Mark tables as changed - every cached read of them is reloaded on next use.
+     * Call from DAO write methods after the write.
+     *
+     * @param tables Tables the write changed
+     */
+    static void invalidate(String... tables) {
+        bump(tables);
+        // The real commit is still to come - bump again when it has happened
+        UnitOfWork.afterTransaction(() -> bump(tables));
+    }
+
+    private static void bump(String... tables) {
+        for (String table : tables) {
+            versions.computeIfAbsent(table, name -> new AtomicLong()).incrementAndGet();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Drop everything (e.g., after a bulk import or SQL run by hand)
+     */
+    public static void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Get cache statistics for monitoring.
+     *
+     * @return String containing cache statistics
+     */
+    public static String getStats() {
+        return String.format("Query Cache - Entries: %d, Hits: %d, Misses: %d, Evictions: %d, Invalidations: %d",
+                size(), hits.get(), misses.get(), evictions.get(), invalidations.get());
+    }
+
+    private static long size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static long[] currentVersions(String[] tables) {
+        long[] current = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            AtomicLong version = versions.get(tables[i]);
+            current[i] = version != null ? version.get() : 0L;
+        }
+        return current;
+    }
+
+    /**
+     * Runs the cached query
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long expiresAt;
+        final long[] versions;
+
+        Entry(Object value, long expiresAt, long[] versions) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.versions = versions;
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.team.supplychain.dao;
 
 import com.team.supplychain.models.Requisition;
 import com.team.supplychain.models.RequisitionItem;
-import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
 
 import java.math.BigDecimal;
 import java.sql.*;
@@ -37,8 +37,8 @@ public class RequisitionDAO {
      * 2. Insert all requisition items (batch insert for performance)
      *
      * TRANSACTION NOTE:
-     * Not wrapped in explicit transaction, so if step 2 fails, you'll have
-     * a requisition with no items. Consider wrapping in conn.setAutoCommit(false).
+     * Step 1 commits together with the pending-requisitions counter (CountersDAO).
+     * Step 2 runs after that commit, so if it fails, you'll have a requisition with no items.
      *
      * @param requisition The requisition to create (with items list populated)
      * @return The generated requisition ID, or null if creation failed
@@ -48,8 +48,46 @@ public class RequisitionDAO {
                 "category, department, priority, justification, status, total_amount, total_items, request_date) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(requisitionSql, Statement.RETURN_GENERATED_KEYS)) {
+        Integer requisitionId = null;
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE)) {
+            conn.setAutoCommit(false);
+            try {
+                requisitionId = insertRequisition(conn, requisitionSql, requisition);
+                if (requisitionId != null && isPending(requisition.getStatus())) {
+                    CountersDAO.add(conn, Map.of(CountersDAO.REQUISITIONS_PENDING, BigDecimal.ONE));
+                }
+                conn.commit();
+                QueryCache.invalidate("requisitions");
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;  // Creation failed
+        }
+
+        if (requisitionId != null) {
+            requisition.setRequisitionId(requisitionId);
+
+            // Now create all the line items for this requisition
+            // Uses batch insert for performance (multiple inserts in one round-trip)
+            if (requisition.getItems() != null && !requisition.getItems().isEmpty()) {
+                createRequisitionItems(requisitionId, requisition.getItems());
+            }
+        }
+        return requisitionId;
+    }
+
+    /**
+     * Insert the requisition header on the caller's connection
+     *
+     * @return The generated requisition ID, or null if nothing was inserted
+     */
+    private Integer insertRequisition(Connection conn, String requisitionSql, Requisition requisition) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(requisitionSql, Statement.RETURN_GENERATED_KEYS)) {
 
             // Map Java objects to SQL parameters (? placeholders)
             // The order MUST match the columns in the INSERT statement above
@@ -79,23 +117,17 @@ public class RequisitionDAO {
                 // This is the primary key that the database assigned
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
-                        Integer requisitionId = generatedKeys.getInt(1);
-                        requisition.setRequisitionId(requisitionId);
-
-                        // Now create all the line items for this requisition
-                        // Uses batch insert for performance (multiple inserts in one round-trip)
-                        if (requisition.getItems() != null && !requisition.getItems().isEmpty()) {
-                            createRequisitionItems(requisitionId, requisition.getItems());
-                        }
-
-                        return requisitionId;
+                        return generatedKeys.getInt(1);
                     }
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return null;  // Creation failed
+        return null;
+    }
+
+    // Same rule as status = 'Pending' in SQL (the column compares case-insensitively)
+    private static boolean isPending(String status) {
+        return "Pending".equalsIgnoreCase(status);
     }
 
     /**
@@ -119,7 +151,7 @@ public class RequisitionDAO {
         String sql = "INSERT INTO requisition_items (requisition_id, item_name, category, quantity, unit_price, subtotal) " +
                 "VALUES (?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             // Loop through items and add each to the batch
@@ -191,7 +223,7 @@ public class RequisitionDAO {
                 "WHERE r.requested_by = ? " +
                 "ORDER BY r.request_date DESC, ri.item_id ASC";  // Newest first, items ordered
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, userId);
@@ -240,7 +272,7 @@ public class RequisitionDAO {
         List<RequisitionItem> items = new ArrayList<>();
         String sql = "SELECT * FROM requisition_items WHERE requisition_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, requisitionId);
@@ -276,7 +308,7 @@ public class RequisitionDAO {
                 "LEFT JOIN users rv ON r.reviewed_by = rv.user_id " +
                 "WHERE r.requisition_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, requisitionId);
@@ -296,22 +328,51 @@ public class RequisitionDAO {
     }
 
     /**
-     * Update requisition status (Approve/Reject)
+     * Update requisition status (Approve/Reject).
+     * The old status is read under a row lock so the pending-requisitions counter
+     * changes in the same transaction.
      */
     public boolean updateRequisitionStatus(Integer requisitionId, String status, Integer reviewedBy, String reviewNotes) {
+        String lockSql = "SELECT status FROM requisitions WHERE requisition_id = ? FOR UPDATE";
         String sql = "UPDATE requisitions SET status = ?, reviewed_by = ?, review_date = ?, review_notes = ? " +
                 "WHERE requisition_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE)) {
+            conn.setAutoCommit(false);
+            try {
+                String oldStatus;
+                try (PreparedStatement lock = conn.prepareStatement(lockSql)) {
+                    lock.setInt(1, requisitionId);
+                    try (ResultSet rs = lock.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return false;
+                        }
+                        oldStatus = rs.getString("status");
+                    }
+                }
 
-            stmt.setString(1, status);
-            stmt.setInt(2, reviewedBy);
-            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
-            stmt.setString(4, reviewNotes);
-            stmt.setInt(5, requisitionId);
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, status);
+                    stmt.setInt(2, reviewedBy);
+                    stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                    stmt.setString(4, reviewNotes);
+                    stmt.setInt(5, requisitionId);
+                    stmt.executeUpdate();
+                }
 
-            return stmt.executeUpdate() > 0;
+                int delta = (isPending(status) ? 1 : 0) - (isPending(oldStatus) ? 1 : 0);
+                CountersDAO.add(conn, Map.of(CountersDAO.REQUISITIONS_PENDING, BigDecimal.valueOf(delta)));
+
+                conn.commit();
+                QueryCache.invalidate("requisitions");
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -339,7 +400,7 @@ public class RequisitionDAO {
                 "WHERE r.status = ? " +
                 "ORDER BY r.request_date DESC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, status);
@@ -363,24 +424,18 @@ public class RequisitionDAO {
     }
 
     /**
-     * Generate unique requisition code
+     * Generate unique requisition code (e.g., "REQ-00042")
+     * Numbers come from CodeSequence.REQUISITION - unique across processes, usually no query
      */
     public String generateRequisitionCode() {
-        String sql = "SELECT MAX(requisition_id) as max_id FROM requisitions";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                int maxId = rs.getInt("max_id");
-                return String.format("REQ-%05d", maxId + 1);
-            }
+        try {
+            return String.format("REQ-%05d", CodeSequence.REQUISITION.next());
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return "REQ-00001";
+        // Fallback for errors - timestamp keeps it unique
+        return "REQ-" + System.currentTimeMillis();
     }
 
     /**
@@ -444,7 +499,7 @@ public class RequisitionDAO {
     public int getRequisitionCountByStatus(Integer userId, String status) {
         String sql = "SELECT COUNT(*) as count FROM requisitions WHERE requested_by = ? AND status = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.readConnection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, userId);
@@ -463,22 +518,9 @@ public class RequisitionDAO {
     }
 
     /**
-     * Get count of pending requisitions (for Admin Dashboard)
+     * Get count of pending requisitions (for Admin Dashboard, from dashboard_counters - see CountersDAO)
      */
     public int getPendingRequisitionsCount() {
-        String sql = "SELECT COUNT(*) as count FROM requisitions WHERE status = 'Pending'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getInt("count");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return 0;
+        return new CountersDAO().get(CountersDAO.REQUISITIONS_PENDING).intValue();
     }
 }
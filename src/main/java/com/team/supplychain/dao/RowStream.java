@@ -0,0 +1,162 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.utils.AppConfig;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming reads for exports and analytics over big tables (attendance history, audit logs).
+ *
+ * WHY?
+ * The list methods (getAllAttendanceWithEmployeeDetails, ...) build the whole result in an
+ * ArrayList - and the MySQL driver first reads the whole result into memory too. With millions
+ * of attendance rows that is two full copies on the heap before the first CSV line is written.
+ *
+ * HOW IT WORKS:
+ * - The statement gets a fetch size (sql.streaming.fetchSize, default 500) and the driver runs
+ *   with useCursorFetch=true, so rows arrive from TiDB in chunks of that size as they are read
+ * - Rows are mapped one at a time, only when the Stream asks for the next one
+ * - Heap use is one fetch chunk, however big the table is
+ * - Early termination (limit, anyMatch, findFirst, an exception) stops fetching; close()
+ *   releases the cursor and the connection
+ *
+ * The Stream holds a pooled connection until it is closed - ALWAYS use try-with-resources:
+ * <pre>
+ * try (Stream&lt;Attendance&gt; records = attendanceDAO.streamAllAttendanceWithEmployeeDetails()) {
+ *     records.forEach(record -&gt; writer.println(toCsv(record)));
+ * }
+ * </pre>
+ * (Reading to the end also releases it.) A database error while rows are being read surfaces
+ * as UncheckedSQLException, because Stream operations can't throw checked exceptions.
+ */
+public final class RowStream {
+
+    private static final int FETCH_SIZE = AppConfig.getInt("sql.streaming.fetchSize", 500);
+
+    private RowStream() {
+    }
+
+    /**
+     * Run a query and return its rows as a lazy Stream that owns the connection
+     *
+     * @param workload Pool to read from (replica when configured, see DatabaseConnection.getReadConnection)
+     * @param sql The query
+     * @param binder Binds the statement's parameters (may do nothing)
+     * @param mapper Turns the current row into an object
+     * @return Stream of mapped rows - close it when done
+     * @throws SQLException if the query could not be started (nothing is left open)
+     */
+    static <T> Stream<T> query(Workload workload, String sql, StatementBinder binder, RowMapper<T> mapper)
+            throws SQLException {
+        Connection conn = UnitOfWork.readConnection(workload);
+        PreparedStatement stmt = null;
+        ResultSet rs;
+        try {
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(FETCH_SIZE);
+            binder.bind(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(null, stmt, conn);
+            throw e;
+        }
+
+        Cursor<T> cursor = new Cursor<>(conn, stmt, rs, mapper);
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    private static void closeQuietly(ResultSet rs, PreparedStatement stmt, Connection conn) {
+        for (AutoCloseable resource : new AutoCloseable[]{rs, stmt, conn}) {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (Exception e) {
+                    System.err.println("⚠ Failed to close streaming query resource: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Binds the parameters of a streamed query
+     */
+    @FunctionalInterface
+    interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    /**
+     * Maps the current row of a streamed query
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * A database error while a Stream was being read
+     */
+    public static class UncheckedSQLException extends RuntimeException {
+        public UncheckedSQLException(SQLException cause) {
+            super(cause.getMessage(), cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+
+    /**
+     * Walks the ResultSet one row per tryAdvance - nothing is read ahead of the consumer
+     */
+    private static final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private boolean closed;
+
+        Cursor(Connection conn, PreparedStatement stmt, ResultSet rs, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    close();  // Read to the end - give the connection back even if nobody closes the Stream
+                    return false;
+                }
+                action.accept(mapper.map(rs));
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw new UncheckedSQLException(e);
+            }
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                closeQuietly(rs, stmt, conn);
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit of work - run several DAO calls on ONE pooled connection.
+ *
+ * WHY?
+ * Every DAO method borrows its own connection, and every borrow costs a validation
+ * round-trip (SELECT 1) to TiDB Cloud. A dashboard that calls six count methods pays
+ * that six times. Inside a unit of work the DAO methods find the open connection on
+ * the current thread and use it instead, so the borrow happens once.
+ *
+ * Usage (from a controller's background Task):
+ * <pre>
+ * try (UnitOfWork work = UnitOfWork.begin(Workload.INTERACTIVE)) {
+ *     int activeUsers = userDAO.getActiveUserCount();
+ *     int totalItems = inventoryDAO.getTotalItemsCount();
+ * } // Connection goes back to the pool here
+ * </pre>
+ *
+ * Three flavours:
+ * - begin()            - one primary connection, auto-commit. Serves reads and writes.
+ * - beginRead()        - one read connection (replica when configured). On the replica only read
+ *                        call sites (getReadConnection) join it; writes borrow their own connection.
+ * - beginTransaction() - one primary connection, one transaction. DAO commits are deferred to
+ *                        commit(); closing without commit() rolls everything back.
+ *
+ * Outside a unit of work the DAO methods behave exactly as before (one borrow per call).
+ * Inside one, the unit's workload wins over the call site's.
+ * A unit of work belongs to the thread that opened it - don't hand it to another thread.
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+    private final Connection conn;
+    private final Connection shared;
+    private final boolean readOnly;
+    private final boolean transactional;
+    private boolean committed;
+    private boolean rollbackOnly;
+    private final List<Runnable> afterClose = new ArrayList<>();
+
+    private UnitOfWork(Connection conn, boolean readOnly, boolean transactional) {
+        this.conn = conn;
+        this.readOnly = readOnly;
+        this.transactional = transactional;
+        this.shared = shareConnection();
+    }
+
+    /**
+     * Open a unit of work on one primary connection (auto-commit)
+     *
+     * @param workload Pool to borrow from
+     * @throws SQLException if no connection could be borrowed
+     * @throws IllegalStateException if this thread already has a unit of work open
+     */
+    public static UnitOfWork begin(Workload workload) throws SQLException {
+        checkNoneOpen();
+        return open(new UnitOfWork(DatabaseConnection.getConnection(workload), false, false));
+    }
+
+    /**
+     * Open a unit of work for reports and dashboards (replica when configured)
+     *
+     * @param workload Pool to fall back to when there is no replica
+     * @throws SQLException if no connection could be borrowed
+     * @throws IllegalStateException if this thread already has a unit of work open
+     */
+    public static UnitOfWork beginRead(Workload workload) throws SQLException {
+        checkNoneOpen();
+        Connection conn = DatabaseConnection.getReadConnection(workload);
+        try {
+            // Without a replica (or while it's down) this is a primary connection - writes can share it too
+            return open(new UnitOfWork(conn, conn.isReadOnly(), false));
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open a unit of work that runs as one transaction. Call commit() before close().
+     *
+     * @param workload Pool to borrow from
+     * @throws SQLException if no connection could be borrowed
+     * @throws IllegalStateException if this thread already has a unit of work open
+     */
+    public static UnitOfWork beginTransaction(Workload workload) throws SQLException {
+        checkNoneOpen();
+        Connection conn = DatabaseConnection.getConnection(workload);
+        try {
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return open(new UnitOfWork(conn, false, true));
+    }
+
+    private static void checkNoneOpen() {
+        if (current.get() != null) {
+            throw new IllegalStateException("A unit of work is already open on this thread");
+        }
+    }
+
+    private static UnitOfWork open(UnitOfWork work) {
+        current.set(work);
+        return work;
+    }
+
+    /**
+     * Connection for a DAO call site that may write.
+     * The open unit of work's connection if there is one, otherwise a fresh one from the pool.
+     */
+    static Connection connection(Workload workload) throws SQLException {
+        UnitOfWork work = current.get();
+        if (work != null && !work.readOnly) {
+            return work.shared;
+        }
+        return DatabaseConnection.getConnection(workload);
+    }
+
+    /**
+     * Connection for a read-only DAO call site (see DatabaseConnection.getReadConnection).
+     * The open unit of work's connection if there is one, otherwise a fresh read connection.
+     */
+    static Connection readConnection(Workload workload) throws SQLException {
+        UnitOfWork work = current.get();
+        if (work != null) {
+            return work.shared;
+        }
+        return DatabaseConnection.getReadConnection(workload);
+    }
+
+    /**
+     * Run a task once this thread's beginTransaction() unit of work has ended (committed or
+     * rolled back). Does nothing if no transaction is open - the caller's write is already committed.
+     * Used by QueryCache to invalidate again after the real commit.
+     */
+    static void afterTransaction(Runnable task) {
+        UnitOfWork work = current.get();
+        if (work != null && work.transactional) {
+            work.afterClose.add(task);
+        }
+    }
+
+    /**
+     * Commit a beginTransaction() unit of work
+     *
+     * @throws SQLException if a DAO call inside it rolled back, or the commit failed
+     */
+    public void commit() throws SQLException {
+        if (!transactional) {
+            throw new IllegalStateException("Only a unit of work opened with beginTransaction() can commit");
+        }
+        if (rollbackOnly) {
+            throw new SQLException("Unit of work was rolled back by one of its DAO calls");
+        }
+        conn.commit();
+        committed = true;
+    }
+
+    /**
+     * Give the connection back to the pool (rolling back an uncommitted transaction)
+     */
+    @Override
+    public void close() throws SQLException {
+        current.remove();
+        try {
+            if (transactional) {
+                try {
+                    if (!committed) {
+                        conn.rollback();
+                    }
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        } finally {
+            try {
+                conn.close();
+            } finally {
+                afterClose.forEach(Runnable::run);
+            }
+        }
+    }
+
+    /**
+     * The connection DAO methods see: close() leaves it open for the next call, and inside
+     * a transaction their own commits are deferred to commit() (a rollback dooms the unit).
+     */
+    private Connection shareConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "setAutoCommit":
+                        case "commit":
+                            if (transactional) {
+                                return null;
+                            }
+                            break;
+                        case "rollback":
+                            if (transactional && args == null) {
+                                rollbackOnly = true;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
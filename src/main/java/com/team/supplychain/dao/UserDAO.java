@@ -2,7 +2,7 @@ package com.team.supplychain.dao;
 
 import com.team.supplychain.models.User;
 import com.team.supplychain.enums.UserRole;
-import com.team.supplychain.utils.DatabaseConnection;
+import com.team.supplychain.utils.DatabaseConnection.Workload;
 import com.team.supplychain.utils.PasswordUtil;
 
 import java.sql.*;
@@ -64,7 +64,7 @@ public class UserDAO {
         // This prevents disabled accounts from even being retrieved
         String sql = "SELECT * FROM users WHERE username = ? AND is_active = true";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, username);
@@ -128,7 +128,7 @@ public class UserDAO {
         String sql = "INSERT INTO users (username, password_hash, email, role, " +
                     "first_name, last_name, is_active) VALUES (?, ?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             stmt.setString(1, user.getUsername());
@@ -159,6 +159,7 @@ public class UserDAO {
                     // Now the caller knows the new user's ID
                     user.setUserId(rs.getInt(1));
                 }
+                QueryCache.invalidate("users");
                 return true;
             }
         } catch (SQLException e) {
@@ -181,7 +182,7 @@ public class UserDAO {
     public User getUserById(int userId) {
         String sql = "SELECT * FROM users WHERE user_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, userId);
@@ -206,22 +207,27 @@ public class UserDAO {
      * @return List of all users (may be empty, never null)
      */
     public List<User> getAllUsers() {
-        List<User> users = new ArrayList<>();
-
         // Sort by created_at DESC so newest users appear first in admin UI
         String sql = "SELECT * FROM users ORDER BY created_at DESC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                users.add(extractUserFromResultSet(rs));
-            }
+        try {
+            // Reused between screen opens until a user is written (see QueryCache)
+            return new ArrayList<>(QueryCache.get(sql, List.of(), QueryCache.DEFAULT_TTL_MS, new String[]{"users"}, () -> {
+                List<User> users = new ArrayList<>();
+                try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+
+                    while (rs.next()) {
+                        users.add(extractUserFromResultSet(rs));
+                    }
+                }
+                return users;
+            }));
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return users;
+        return new ArrayList<>();
     }
     
     /**
@@ -242,7 +248,7 @@ public class UserDAO {
         String sql = "UPDATE users SET username = ?, email = ?, role = ?, " +
                     "first_name = ?, last_name = ?, is_active = ? WHERE user_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, user.getUsername());
@@ -253,7 +259,13 @@ public class UserDAO {
             stmt.setBoolean(6, user.isActive());
             stmt.setInt(7, user.getUserId());
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                // is_active may have changed - the scan API must stop (or start) accepting this badge
+                EmployeeQRCodeCache.invalidateUser(user.getUserId());
+                QueryCache.invalidate("users");
+            }
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -278,7 +290,7 @@ public class UserDAO {
     public boolean updatePassword(int userId, String newPassword) {
         String sql = "UPDATE users SET password_hash = ? WHERE user_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             // Hash the new password with BCrypt before storing
@@ -287,7 +299,11 @@ public class UserDAO {
             stmt.setString(1, PasswordUtil.hashPassword(newPassword));
             stmt.setInt(2, userId);
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                QueryCache.invalidate("users");
+            }
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -316,11 +332,16 @@ public class UserDAO {
     public boolean deleteUser(int userId) {
         String sql = "DELETE FROM users WHERE user_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, userId);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                EmployeeQRCodeCache.invalidateUser(userId);
+                QueryCache.invalidate("users");
+            }
+            return deleted;
         } catch (SQLException e) {
             // Common cause: Foreign key constraint violation
             // (e.g., can't delete user if they have attendance records)
@@ -341,7 +362,7 @@ public class UserDAO {
     public int getTotalUserCount() {
         String sql = "SELECT COUNT(*) as count FROM users";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -368,7 +389,7 @@ public class UserDAO {
     public int getActiveUserCount() {
         String sql = "SELECT COUNT(*) as count FROM users WHERE is_active = true";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -400,7 +421,7 @@ public class UserDAO {
     public int getInactiveUserCount() {
         String sql = "SELECT COUNT(*) as count FROM users WHERE is_active = false";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -432,7 +453,7 @@ public class UserDAO {
     public int getDistinctRoleCount() {
         String sql = "SELECT COUNT(DISTINCT role) as count FROM users";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -463,11 +484,12 @@ public class UserDAO {
     private void updateLastLogin(int userId) {
         String sql = "UPDATE users SET last_login = NOW() WHERE user_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.connection(Workload.INTERACTIVE);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, userId);
             stmt.executeUpdate();
+            QueryCache.invalidate("users");  // last_login is on the admin user list
 
             // We don't check if the update succeeded - this is a "best effort" operation
             // If it fails, the user still gets logged in (more important than tracking timestamp)
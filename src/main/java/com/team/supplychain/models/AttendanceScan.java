@@ -0,0 +1,99 @@
+package com.team.supplychain.models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Model class for a single accepted QR scan that still has to be written
+ * to attendance_records (write-behind journal, offline buffer, bulk uploads)
+ */
+public class AttendanceScan {
+
+    private long sequence;          // Position in the local journal (0 if not journaled)
+    private int employeeId;
+    private String qrCode;
+    private String location;
+    private boolean checkOut;       // false = check-in, true = check-out
+    private LocalDateTime scanTime; // When the badge was scanned (not when it reached the DB)
+
+    // Constructors
+    public AttendanceScan() {
+    }
+
+    public AttendanceScan(int employeeId, String qrCode, String location, boolean checkOut, LocalDateTime scanTime) {
+        this.employeeId = employeeId;
+        this.qrCode = qrCode;
+        this.location = location;
+        this.checkOut = checkOut;
+        this.scanTime = scanTime;
+    }
+
+    /**
+     * Attendance date this scan belongs to
+     * @return Date part of the scan time
+     */
+    public LocalDate getDate() {
+        return scanTime != null ? scanTime.toLocalDate() : null;
+    }
+
+    // Getters and Setters
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public int getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(int employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public String getQrCode() {
+        return qrCode;
+    }
+
+    public void setQrCode(String qrCode) {
+        this.qrCode = qrCode;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public boolean isCheckOut() {
+        return checkOut;
+    }
+
+    public void setCheckOut(boolean checkOut) {
+        this.checkOut = checkOut;
+    }
+
+    public LocalDateTime getScanTime() {
+        return scanTime;
+    }
+
+    public void setScanTime(LocalDateTime scanTime) {
+        this.scanTime = scanTime;
+    }
+
+    @Override
+    public String toString() {
+        return "AttendanceScan{" +
+                "sequence=" + sequence +
+                ", employeeId=" + employeeId +
+                ", action=" + (checkOut ? "checkout" : "checkin") +
+                ", scanTime=" + scanTime +
+                ", location='" + location + '\'' +
+                '}';
+    }
+}
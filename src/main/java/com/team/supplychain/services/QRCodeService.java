@@ -6,23 +6,64 @@ import com.google.zxing.WriterException;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.team.supplychain.utils.AppConfig;
 import javafx.scene.image.Image;
 import javafx.scene.image.PixelWriter;
 import javafx.scene.image.WritableImage;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for generating QR codes using ZXing library
  * Converts QR code data strings into scannable JavaFX Images
+ *
+ * SIGNED BADGES:
+ * A signed badge looks like EMP1.<employee id>.<key version>.<MAC>, where the MAC is the first
+ * 12 bytes of HMAC-SHA256(key, "EMP1.<employee id>.<key version>"), base64url-encoded.
+ * The scan API checks the MAC in memory (microseconds) before touching the database, so
+ * garbage picked up by the camera and forged/guessed codes cost CPU only.
+ *
+ * KEYS (config.properties):
+ *   qr.signing.keys=1:<base64 secret>,2:<base64 secret>   (e.g. openssl rand -base64 32)
+ *   qr.signing.currentKeyVersion=2                        (used for new badges)
+ * Old versions stay listed until every badge signed with them has been re-issued.
+ * Without keys, new badges are plain codes, as before.
+ *
+ * Plain (unsigned) codes are still accepted while qr.signing.acceptPlain=true (default) -
+ * they go through the normal badge lookup.
  */
 public class QRCodeService {
 
     private static final int DEFAULT_WIDTH = 300;
     private static final int DEFAULT_HEIGHT = 300;
 
+    public static final String SIGNED_PREFIX = "EMP1.";
+    private static final int MAC_BYTES = 12;
+
+    /**
+     * Result of checking a scanned code's signature
+     */
+    public enum Verification {
+        VALID,      // Signed, MAC matches
+        INVALID,    // Looks signed, but the MAC is wrong, the key is unknown, or it is malformed
+        PLAIN       // Not a signed badge (legacy code)
+    }
+
+    private static Map<Integer, SecretKeySpec> signingKeys = loadSigningKeys();
+    private static int currentKeyVersion = AppConfig.getInt("qr.signing.currentKeyVersion", 1);
+
+    private static final AtomicLong signaturesVerified = new AtomicLong();
+    private static final AtomicLong signaturesRejected = new AtomicLong();
+
     /**
      * Generate QR code as JavaFX Image from string data
      * @param data The data to encode (employee QR code string from database)
@@ -75,12 +116,152 @@ public class QRCodeService {
     }
 
     /**
-     * Validate if a QR code string is valid (basic validation)
+     * Validate if a QR code string is valid (basic validation; signed badges must also carry a valid MAC)
      * @param qrCode The QR code string to validate
      * @return true if valid, false otherwise
      */
     public static boolean isValidQRCode(String qrCode) {
-        return qrCode != null && !qrCode.trim().isEmpty() && qrCode.length() >= 3;
+        return qrCode != null && !qrCode.trim().isEmpty() && qrCode.length() >= 3
+                && verifySignedCode(qrCode.trim()) != Verification.INVALID;
+    }
+
+    // ==================== SIGNED BADGES ====================
+
+    /**
+     * @return true if new badges are signed (a key for the current version is configured)
+     */
+    public static boolean isSigningEnabled() {
+        return signingKeys.containsKey(currentKeyVersion);
+    }
+
+    /**
+     * Are plain (unsigned) codes still accepted at the scanner?
+     */
+    public static boolean isPlainCodeAccepted() {
+        return AppConfig.getBoolean("qr.signing.acceptPlain", true);
+    }
+
+    /**
+     * Generate a signed badge code for an employee with the current key
+     *
+     * @param employeeId The employee's database id
+     * @return EMP1.<id>.<version>.<mac>, or null if no signing key is configured
+     */
+    public static String generateSignedCode(int employeeId) {
+        SecretKeySpec key = signingKeys.get(currentKeyVersion);
+        if (key == null) {
+            return null;
+        }
+        String payload = SIGNED_PREFIX + employeeId + "." + currentKeyVersion;
+        return payload + "." + mac(key, payload);
+    }
+
+    /**
+     * Check a scanned code's signature - memory and CPU only, no database.
+     *
+     * @param qrCode The scanned code (already trimmed)
+     * @return VALID, INVALID, or PLAIN if it isn't a signed badge at all
+     */
+    public static Verification verifySignedCode(String qrCode) {
+        if (qrCode == null || !qrCode.startsWith(SIGNED_PREFIX)) {
+            return Verification.PLAIN;
+        }
+
+        String[] parts = qrCode.split("\\.");
+        if (parts.length != 4) {
+            signaturesRejected.incrementAndGet();
+            return Verification.INVALID;
+        }
+        SecretKeySpec key;
+        try {
+            Integer.parseInt(parts[1]);
+            key = signingKeys.get(Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            key = null;
+        }
+        if (key == null) {
+            signaturesRejected.incrementAndGet();
+            return Verification.INVALID;
+        }
+
+        String expected = mac(key, parts[0] + "." + parts[1] + "." + parts[2]);
+        // Constant-time comparison - don't leak how many characters matched
+        if (!MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                parts[3].getBytes(StandardCharsets.US_ASCII))) {
+            signaturesRejected.incrementAndGet();
+            return Verification.INVALID;
+        }
+        signaturesVerified.incrementAndGet();
+        return Verification.VALID;
+    }
+
+    /**
+     * @return The employee id inside a signed badge (call verifySignedCode first), or -1
+     */
+    public static int getSignedEmployeeId(String qrCode) {
+        try {
+            return Integer.parseInt(qrCode.split("\\.")[1]);
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Get signature check statistics for monitoring.
+     *
+     * @return String containing verified/rejected counts
+     */
+    public static String getSignatureStats() {
+        return String.format("QR Signatures - Enabled: %s, Verified: %d, Rejected: %d",
+                isSigningEnabled(), signaturesVerified.get(), signaturesRejected.get());
+    }
+
+    /**
+     * Replace the signing keys (tests)
+     */
+    static void setSigningKeys(Map<Integer, byte[]> keys, int currentVersion) {
+        Map<Integer, SecretKeySpec> specs = new HashMap<>();
+        keys.forEach((version, secret) -> specs.put(version, new SecretKeySpec(secret, "HmacSHA256")));
+        signingKeys = specs;
+        currentKeyVersion = currentVersion;
+    }
+
+    private static String mac(SecretKeySpec key, String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            byte[] full = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            byte[] truncated = new byte[MAC_BYTES];
+            System.arraycopy(full, 0, truncated, 0, MAC_BYTES);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(truncated);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * Parse qr.signing.keys ("1:base64,2:base64"). A bad entry is skipped with a warning.
+     */
+    private static Map<Integer, SecretKeySpec> loadSigningKeys() {
+        Map<Integer, SecretKeySpec> keys = new HashMap<>();
+        String configured = AppConfig.getString("qr.signing.keys", "");
+        for (String entry : configured.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            try {
+                int version = Integer.parseInt(entry.substring(0, colon).trim());
+                byte[] secret = Base64.getDecoder().decode(entry.substring(colon + 1).trim());
+                if (secret.length < 16) {
+                    throw new IllegalArgumentException("secret shorter than 16 bytes");
+                }
+                keys.put(version, new SecretKeySpec(secret, "HmacSHA256"));
+            } catch (RuntimeException e) {
+                System.err.println("⚠ Ignoring invalid qr.signing.keys entry: " + e.getMessage());
+            }
+        }
+        return keys;
     }
 
     /**
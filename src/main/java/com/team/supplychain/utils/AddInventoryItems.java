@@ -1,5 +1,7 @@
 package com.team.supplychain.utils;
 
+import com.team.supplychain.dao.CountersDAO;
+
 import java.sql.*;
 
 public class AddInventoryItems {
@@ -53,6 +55,9 @@ public class AddInventoryItems {
             System.out.println("\n=== SUMMARY ===");
             System.out.println("Successfully added " + successCount + " new items to inventory!");
 
+            // These inserts bypass InventoryDAO, so bring the dashboard counters up to date now
+            new CountersDAO().reconcile();
+
             // Show all items now
             System.out.println("\n=== ALL INVENTORY ITEMS ===");
             try (Statement stmt = conn.createStatement();
@@ -0,0 +1,94 @@
+package com.team.supplychain.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Read-only access to application settings in config.properties.
+ *
+ * DatabaseConnection reads the db.* keys itself; this class is for everything else
+ * (scan API caches, web server tuning, etc.) so those classes don't each re-load the file.
+ *
+ * LOOKUP ORDER:
+ * 1. JVM system property (e.g., -Dscan.cache.maxEntries=50000) - handy for one-off runs
+ * 2. config.properties on the classpath
+ * 3. The default passed by the caller
+ *
+ * A malformed number falls back to the default instead of crashing startup.
+ */
+public final class AppConfig {
+
+    private static final Properties props = new Properties();
+
+    static {
+        try (InputStream input = AppConfig.class.getClassLoader().getResourceAsStream("config.properties")) {
+            if (input != null) {
+                props.load(input);
+            }
+        } catch (IOException e) {
+            System.err.println("✗ Error loading config.properties: " + e.getMessage());
+        }
+    }
+
+    private AppConfig() {
+    }
+
+    /**
+     * Get a string setting
+     *
+     * @param key Property name
+     * @param defaultValue Value to use when the key is not set
+     * @return Configured value (trimmed) or the default
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = props.getProperty(key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    /**
+     * Get an integer setting
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("⚠ Invalid number for " + key + ": " + value + " (using " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get a long setting (milliseconds, byte sizes, etc.)
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("⚠ Invalid number for " + key + ": " + value + " (using " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get a boolean setting ("true"/"false", case-insensitive)
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,182 @@
+package com.team.supplychain.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Desktop-side subscriber for the scan server's attendance event stream
+ * (GET /api/attendance/events, Server-Sent Events).
+ *
+ * Runs on its own daemon thread and reconnects by itself, resuming from the last
+ * event id it saw, so nothing is missed across a short network drop or server restart
+ * (after a restart, or a long outage, the server sends "reload" instead).
+ *
+ * A connection without a resume point (the first one) starts at the server's current
+ * position - onSubscribed is told once its "ready" event arrives. Loading from the database
+ * after that point, not before, means a scan written during the load still arrives as an event.
+ *
+ * Callbacks run on the subscriber thread - JavaFX callers must use Platform.runLater.
+ *
+ * Configuration: events.url (default http://localhost:8080/api/attendance/events)
+ */
+public class AttendanceEventClient {
+
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final URI uri;
+    private final Consumer<JsonObject> onAttendance;
+    private final Consumer<String> onReload;
+    private final Runnable onSubscribed;
+    private final HttpClient httpClient;
+    private final Gson gson = new Gson();
+
+    private volatile boolean running;
+    private volatile InputStream body;
+    private volatile String lastEventId;
+    private Thread thread;
+
+    /**
+     * @param onAttendance Called with the data of each "attendance" event
+     * @param onReload Called with the reason when the client must reload everything from the database
+     * @param onSubscribed Called when a connection without a resume point is ready - load from the
+     *                     database now; every later change arrives as an event
+     */
+    public AttendanceEventClient(Consumer<JsonObject> onAttendance, Consumer<String> onReload,
+                                 Runnable onSubscribed) {
+        this.uri = URI.create(AppConfig.getString("events.url", "http://localhost:8080/api/attendance/events"));
+        this.onAttendance = onAttendance;
+        this.onReload = onReload;
+        this.onSubscribed = onSubscribed;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "attendance-events");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        closeQuietly();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        boolean warned = false;
+        while (running) {
+            try {
+                HttpRequest.Builder request = HttpRequest.newBuilder(uri).header("Accept", "text/event-stream").GET();
+                boolean fresh = lastEventId == null;
+                if (!fresh) {
+                    request.header("Last-Event-ID", lastEventId);
+                }
+                HttpResponse<InputStream> response = httpClient.send(request.build(),
+                        HttpResponse.BodyHandlers.ofInputStream());
+                body = response.body();
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("HTTP " + response.statusCode());
+                }
+
+                if (warned) {
+                    System.out.println("✓ Live attendance updates reconnected");
+                    warned = false;
+                }
+                readEvents(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), fresh);
+
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                if (running && !warned) {
+                    System.err.println("⚠ Live attendance updates unavailable (" + uri + "): " + e.getMessage()
+                            + " - retrying every " + RECONNECT_DELAY_MS / 1000 + "s");
+                    warned = true;
+                }
+            } finally {
+                closeQuietly();
+            }
+
+            try {
+                Thread.sleep(RECONNECT_DELAY_MS);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Parse "id:", "event:" and "data:" lines; a blank line ends an event
+     */
+    private void readEvents(BufferedReader reader, boolean fresh) throws Exception {
+        String id = null;
+        String event = "message";
+        StringBuilder data = new StringBuilder();
+
+        String line;
+        while (running && (line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (data.length() > 0 || id != null) {
+                    dispatch(event, data.toString(), fresh);
+                    if (id != null) {
+                        lastEventId = id;
+                    }
+                }
+                id = null;
+                event = "message";
+                data.setLength(0);
+            } else if (line.startsWith("id:")) {
+                id = line.substring(3).trim();
+            } else if (line.startsWith("event:")) {
+                event = line.substring(6).trim();
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(line.substring(5).trim());
+            }
+            // ":" comments (keep-alives) and "retry:" are ignored
+        }
+    }
+
+    private void dispatch(String event, String data, boolean fresh) {
+        try {
+            if ("ready".equals(event) && fresh) {
+                onSubscribed.run();
+            } else if ("attendance".equals(event)) {
+                onAttendance.accept(gson.fromJson(data, JsonObject.class));
+            } else if ("reload".equals(event)) {
+                JsonObject reload = gson.fromJson(data, JsonObject.class);
+                onReload.accept(reload != null && reload.has("reason") ? reload.get("reason").getAsString() : "");
+            }
+        } catch (RuntimeException e) {
+            // One bad event must not end the subscription
+            e.printStackTrace();
+        }
+    }
+
+    private void closeQuietly() {
+        InputStream current = body;
+        body = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (Exception ignored) {
+                // already closed
+            }
+        }
+    }
+}
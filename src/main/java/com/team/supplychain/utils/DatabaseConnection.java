@@ -2,12 +2,31 @@ package com.team.supplychain.utils;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Database connection management using HikariCP connection pooling
@@ -25,11 +44,77 @@ import java.util.Properties;
  *
  * NOTE: When you close() a connection from this pool, it doesn't actually close -
  * it just returns the connection to the pool for reuse. That's the magic!
+ *
+ * BULKHEADS (see Workload):
+ * Gate scans, desktop screens and bulk jobs each get their own pool, with their own size
+ * and timeout. An archive job or a big upload can use up the BULK pool, but a check-in
+ * still finds a free connection in the SCAN pool.
+ *
+ * Every connection handed out is wrapped by SqlStats (per-statement timings, slow-query log)
+ * unless sql.stats.enabled=false.
+ *
+ * READ REPLICA (optional, db.replica.url):
+ * Reports, dashboards and audit-log browsing call getReadConnection() and run on a second,
+ * read-only pool (a TiDB follower-read endpoint or a MySQL replica), so a big export doesn't
+ * take connections away from the scan gates. Writes always use getConnection().
  */
 public class DatabaseConnection {
-    private static HikariDataSource dataSource;
+    // One pool per workload class, created on first use (see Workload)
+    private static final Map<Workload, HikariDataSource> pools = new ConcurrentHashMap<>();
+    private static volatile HikariDataSource replicaDataSource;
     private static Properties props = new Properties();
 
+    // Run by the shutdown hook while the pools are still open (see runBeforeShutdown)
+    private static final List<Runnable> shutdownTasks = new CopyOnWriteArrayList<>();
+
+    // Limits concurrent database work to each pool's size (empty = no limit, see enableAccessLimit)
+    private static final Map<Workload, Semaphore> accessPermits = new ConcurrentHashMap<>();
+
+    /**
+     * Workload classes - every DAO call site picks one, and each class has its own pool:
+     *   SCAN        - gate scans: small queries, someone is standing at the gate (db.pool.scan.*)
+     *   INTERACTIVE - desktop screens; what getConnection() without a workload uses
+     *                 (db.maxConnections / db.connectionTimeout, as before)
+     *   BULK        - archiving, gate-device uploads, offline reconciliation, cache warm-up (db.pool.bulk.*)
+     *
+     * Pools are only opened when first used, so the desktop app never opens the SCAN pool.
+     * db.pool.bulkheads=false puts every workload back on the one INTERACTIVE pool.
+     */
+    public enum Workload {
+        SCAN("scan", "SupplyChainScanPool", 10, 2, 5000),
+        INTERACTIVE("interactive", "SupplyChainPool", 10, 2, 30000),
+        BULK("bulk", "SupplyChainBulkPool", 2, 0, 60000);
+
+        private final String key;
+        private final String poolName;
+        private final int defaultMaxConnections;
+        private final int defaultMinIdle;
+        private final long defaultConnectionTimeout;
+
+        Workload(String key, String poolName, int defaultMaxConnections, int defaultMinIdle,
+                 long defaultConnectionTimeout) {
+            this.key = key;
+            this.poolName = poolName;
+            this.defaultMaxConnections = defaultMaxConnections;
+            this.defaultMinIdle = defaultMinIdle;
+            this.defaultConnectionTimeout = defaultConnectionTimeout;
+        }
+
+        /**
+         * @return Name used in config keys (db.pool.&lt;key&gt;.*) and metric labels
+         */
+        public String getKey() {
+            return key;
+        }
+    }
+
+    // Threads that wait on the pool for getConnection(maxWaitMs) callers
+    private static final ExecutorService acquireExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "db-connection-acquire");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     // Static initializer block runs ONCE when class is first loaded
     // This happens before any other code tries to get a connection
     static {
@@ -52,27 +137,63 @@ public class DatabaseConnection {
             e.printStackTrace();
         }
 
+        // JVM system properties win (e.g., -Ddb.url=... for a load test against a local database),
+        // same lookup order as AppConfig
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("db.")) {
+                props.setProperty(key, System.getProperty(key));
+            }
+        }
+
         // Shutdown hook ensures connections close cleanly when app exits
         // This prevents "connection leak" warnings in TiDB Cloud
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            if (dataSource != null && !dataSource.isClosed()) {
-                dataSource.close();
+            for (Runnable task : shutdownTasks) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("✗ Shutdown task failed: " + e.getMessage());
+                }
+            }
+            boolean closed = false;
+            for (HikariDataSource pool : pools.values()) {
+                if (!pool.isClosed()) {
+                    pool.close();
+                    closed = true;
+                }
+            }
+            if (replicaDataSource != null && !replicaDataSource.isClosed()) {
+                replicaDataSource.close();
+            }
+            if (closed) {
                 System.out.println("✓ Connection pool closed on shutdown");
             }
         }));
     }
 
     /**
-     * Initialize the HikariCP connection pool with configuration from properties file.
-     * This is called automatically on first getConnection() call.
+     * Run a task on JVM shutdown before the pools close - for work that still needs the
+     * database, like writing queued audit logs. (Separate shutdown hooks run in no set order,
+     * so they could find the pools already closed.)
+     *
+     * @param task The task; exceptions are logged and don't stop the other tasks
+     */
+    public static void runBeforeShutdown(Runnable task) {
+        shutdownTasks.add(task);
+    }
+
+    /**
+     * Initialize a workload's HikariCP connection pool with configuration from properties file.
+     * This is called automatically on the first getConnection() call for that workload.
      *
      * Why synchronized?
      * Multiple threads might call getConnection() at the same time during app startup.
      * We only want to create the pool ONCE, so we synchronize to prevent race conditions.
      */
-    private static synchronized void initializePool() {
+    private static synchronized HikariDataSource initializePool(Workload workload) {
+        HikariDataSource dataSource = pools.get(workload);
         if (dataSource != null && !dataSource.isClosed()) {
-            return; // Pool already initialized - don't create a second one
+            return dataSource; // Pool already initialized - don't create a second one
         }
 
         try {
@@ -84,8 +205,8 @@ public class DatabaseConnection {
             String password = props.getProperty("db.password", "46dmNGakAQIh5Q0v");
 
             // Pool size and timeout configuration
-            int maxPoolSize = Integer.parseInt(props.getProperty("db.maxConnections", "10"));  // Max 10 concurrent connections
-            long connectionTimeout = Long.parseLong(props.getProperty("db.connectionTimeout", "30000"));  // Wait up to 30s for connection
+            int maxPoolSize = getMaxPoolSize(workload);  // e.g. max 10 concurrent connections
+            long connectionTimeout = getConnectionTimeout(workload);  // e.g. wait up to 30s for connection
 
             // Create HikariCP configuration object
             HikariConfig config = new HikariConfig();
@@ -95,8 +216,8 @@ public class DatabaseConnection {
             config.setDriverClassName("com.mysql.cj.jdbc.Driver");  // MySQL driver (TiDB is MySQL-compatible)
 
             // Connection pool size settings
-            config.setMaximumPoolSize(maxPoolSize);  // Maximum 10 connections to avoid overwhelming TiDB
-            config.setMinimumIdle(2);  // Always keep 2 connections ready (prevents cold start delays)
+            config.setMaximumPoolSize(maxPoolSize);  // Cap connections to avoid overwhelming TiDB
+            config.setMinimumIdle(Math.min(getMinIdle(workload), maxPoolSize));  // Keep some ready (prevents cold start delays)
             config.setConnectionTimeout(connectionTimeout);  // How long to wait for an available connection
             config.setIdleTimeout(600000);  // Close idle connections after 10 minutes
             config.setMaxLifetime(1800000);  // Refresh connections every 30 minutes (prevents stale connections)
@@ -105,43 +226,28 @@ public class DatabaseConnection {
             config.setConnectionTestQuery("SELECT 1");
 
             // Pool name shows up in logs and monitoring tools
-            config.setPoolName("SupplyChainPool");
+            config.setPoolName(workload.poolName);
 
             // Performance tuning for MySQL/TiDB
-            // These properties squeeze extra performance out of the MySQL driver
-
-            // PreparedStatement caching - reuses compiled queries instead of parsing each time
-            config.addDataSourceProperty("cachePrepStmts", "true");  // Enable statement caching
-            config.addDataSourceProperty("prepStmtCacheSize", "250");  // Cache up to 250 different queries
-            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");  // Max query length to cache (2KB)
-
-            // Server-side prepared statements - let TiDB compile queries once, reuse many times
-            config.addDataSourceProperty("useServerPrepStmts", "true");
-
-            // Session state optimization - reduces back-and-forth with database
-            config.addDataSourceProperty("useLocalSessionState", "true");  // Track session state locally
-
-            // Batch optimization - combines multiple INSERT/UPDATE into one network call
-            config.addDataSourceProperty("rewriteBatchedStatements", "true");  // e.g., 10 INSERTs → 1 batch INSERT
-
-            // Metadata caching - don't ask TiDB for table structure every query
-            config.addDataSourceProperty("cacheResultSetMetadata", "true");  // Cache column names, types, etc.
-            config.addDataSourceProperty("cacheServerConfiguration", "true");  // Cache server capabilities
-
-            // Skip redundant operations - don't send same command twice
-            config.addDataSourceProperty("elideSetAutoCommits", "true");  // Don't send SET autocommit if already set
+            applyDriverTuning(config);
 
-            // Disable time tracking - we don't need microsecond precision stats
-            config.addDataSourceProperty("maintainTimeStats", "false");  // Saves a bit of CPU
+            // Acquire/usage times and timeouts go to /api/metrics (see registerPoolMetrics)
+            config.setMetricsTrackerFactory((poolName, poolStats) -> new PoolMetricsTracker(workload));
 
             // Create the data source (connection pool)
             dataSource = new HikariDataSource(config);
+            pools.put(workload, dataSource);
+            registerPoolMetrics(workload, dataSource);
+            if (!accessPermits.isEmpty()) {
+                accessPermits.putIfAbsent(workload, new Semaphore(maxPoolSize, true));
+            }
 
             System.out.println("✓ HikariCP connection pool initialized successfully!");
             System.out.println("  Pool name: " + dataSource.getPoolName());
             System.out.println("  Max pool size: " + maxPoolSize);
             System.out.println("  Connection timeout: " + connectionTimeout + "ms");
             System.out.println("  Database: TiDB Cloud");
+            return dataSource;
 
         } catch (Exception e) {
             System.err.println("✗ Failed to initialize connection pool!");
@@ -150,6 +256,40 @@ public class DatabaseConnection {
         }
     }
 
+    /**
+     * Driver settings shared by the primary and replica pools.
+     * These properties squeeze extra performance out of the MySQL driver
+     */
+    private static void applyDriverTuning(HikariConfig config) {
+        // PreparedStatement caching - reuses compiled queries instead of parsing each time
+        config.addDataSourceProperty("cachePrepStmts", "true");  // Enable statement caching
+        config.addDataSourceProperty("prepStmtCacheSize", "250");  // Cache up to 250 different queries
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");  // Max query length to cache (2KB)
+
+        // Server-side prepared statements - let TiDB compile queries once, reuse many times
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+
+        // Cursor fetch - a statement with a fetch size reads its rows in chunks instead of all at once
+        // (only the streaming reads in RowStream set one; every other query is unaffected)
+        config.addDataSourceProperty("useCursorFetch", "true");
+
+        // Session state optimization - reduces back-and-forth with database
+        config.addDataSourceProperty("useLocalSessionState", "true");  // Track session state locally
+
+        // Batch optimization - combines multiple INSERT/UPDATE into one network call
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");  // e.g., 10 INSERTs → 1 batch INSERT
+
+        // Metadata caching - don't ask TiDB for table structure every query
+        config.addDataSourceProperty("cacheResultSetMetadata", "true");  // Cache column names, types, etc.
+        config.addDataSourceProperty("cacheServerConfiguration", "true");  // Cache server capabilities
+
+        // Skip redundant operations - don't send same command twice
+        config.addDataSourceProperty("elideSetAutoCommits", "true");  // Don't send SET autocommit if already set
+
+        // Disable time tracking - we don't need microsecond precision stats
+        config.addDataSourceProperty("maintainTimeStats", "false");  // Saves a bit of CPU
+    }
+
     /**
      * Get a connection from the pool.
      * The connection is automatically returned to the pool when closed (via try-with-resources).
@@ -164,22 +304,345 @@ public class DatabaseConnection {
      * The connection isn't really "closed" - it's returned to the pool for reuse.
      * This is WAY faster than creating a new connection every time (500ms vs 1ms).
      *
-     * @return A database connection from the pool
+     * @return A database connection from the INTERACTIVE pool
      * @throws SQLException if unable to get a connection (usually means pool is exhausted)
      */
     public static Connection getConnection() throws SQLException {
+        return getConnection(Workload.INTERACTIVE);
+    }
+
+    /**
+     * Get a connection from the pool of the given workload class (see Workload).
+     *
+     * @param workload Which bulkhead the caller belongs to
+     * @return A database connection from that workload's pool
+     * @throws SQLException if unable to get a connection (usually means pool is exhausted)
+     */
+    public static Connection getConnection(Workload workload) throws SQLException {
+        workload = poolFor(workload);
+
         // Lazy initialization - pool is created on first call, not at class load
+        HikariDataSource dataSource = pools.get(workload);
         if (dataSource == null || dataSource.isClosed()) {
-            initializePool();
+            dataSource = initializePool(workload);
+        }
+
+        long start = System.nanoTime();
+        Connection conn;
+        Semaphore permits = accessPermits.get(workload);
+        if (permits != null) {
+            conn = getLimitedConnection(dataSource, permits, workload);
+        } else {
+            try {
+                // Get a connection from the pool (blocks if all 10 connections are in use)
+                conn = dataSource.getConnection();
+            } catch (SQLException e) {
+                System.err.println("✗ Failed to get connection from pool: " + e.getMessage());
+                throw e;
+            }
+        }
+
+        // Per-statement timings and the slow-query log (see SqlStats)
+        if (SqlStats.isEnabled()) {
+            conn = SqlStats.wrap(conn, System.nanoTime() - start);
+        }
+
+        // With a replica, remember when we last wrote so our own reads can stick to the primary
+        return isReplicaConfigured() && getReplicaStickyMs() > 0 ? trackWrites(conn) : conn;
+    }
+
+    /**
+     * @return The workload whose pool serves this one (all share INTERACTIVE without bulkheads)
+     */
+    private static Workload poolFor(Workload workload) {
+        return Boolean.parseBoolean(props.getProperty("db.pool.bulkheads", "true")) ? workload : Workload.INTERACTIVE;
+    }
+
+    /**
+     * Limit concurrent database access to each pool's size with a fair semaphore.
+     * Called by WebServerLauncher when requests run on virtual threads.
+     *
+     * WHY? Hikari already caps connections at 10, but with virtual threads thousands of
+     * requests can reach getConnection() at once. Waiting in a FIFO semaphore is cheap and
+     * orderly, and it also caps how many threads are inside the MySQL driver at the same
+     * time (its synchronized blocks pin a virtual thread to its carrier thread).
+     * The permit is released when the connection is closed (returned to the pool).
+     */
+    public static synchronized void enableAccessLimit() {
+        if (accessPermits.isEmpty()) {
+            for (Workload workload : Workload.values()) {
+                Workload pool = poolFor(workload);
+                accessPermits.putIfAbsent(pool, new Semaphore(getMaxPoolSize(pool), true));
+            }
+            System.out.println("✓ Database access limited to each pool's size (" + accessPermits.keySet() + ")");
         }
+    }
 
+    /**
+     * Wait for a permit (up to the pool's connectionTimeout), then for a pooled connection.
+     * The returned connection gives the permit back on close().
+     */
+    private static Connection getLimitedConnection(HikariDataSource dataSource, Semaphore permits,
+                                                   Workload workload) throws SQLException {
         try {
-            // Get a connection from the pool (blocks if all 10 connections are in use)
-            return dataSource.getConnection();
-        } catch (SQLException e) {
+            if (!permits.tryAcquire(getConnectionTimeout(workload), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Timed out waiting for a database access permit");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database access permit");
+        }
+
+        Connection conn;
+        try {
+            conn = dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
             System.err.println("✗ Failed to get connection from pool: " + e.getMessage());
             throw e;
         }
+
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            permits.release();
+                        }
+                    }
+                });
+    }
+
+    // ==================== READ REPLICA ====================
+
+    private static volatile long replicaDownUntil;  // replica is skipped until this time (millis)
+    private static volatile long lastWriteMillis;   // last write through the primary (read-your-writes)
+
+    /**
+     * Get a connection for read-only work (reports, dashboards, audit-log browsing).
+     *
+     * Comes from the replica pool when db.replica.url is set, otherwise from the primary.
+     * Falls back to the primary (and logs a warning) when:
+     * - this process wrote within the last db.replica.stickyMs (default 5s), so a report shown
+     *   right after a save includes it even if the replica is behind (read-your-writes)
+     * - the replica can't be reached - it is then skipped for db.replica.retryMs (default 30s)
+     *   instead of making every read wait for the replica's timeout
+     *
+     * Connections are read-only - don't write with them.
+     *
+     * @return A read-only connection (replica) or a connection from the INTERACTIVE pool
+     * @throws SQLException if neither the replica nor the primary gave a connection
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return getReadConnection(Workload.INTERACTIVE);
+    }
+
+    /**
+     * Same as getReadConnection(), but falls back to the given workload's primary pool,
+     * so a report that can't use the replica still stays out of the scan pool.
+     *
+     * @param workload Which bulkhead the caller belongs to
+     * @return A read-only connection (replica) or a connection from the workload's pool
+     * @throws SQLException if neither the replica nor the primary gave a connection
+     */
+    public static Connection getReadConnection(Workload workload) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (!isReplicaConfigured() || now < replicaDownUntil || now - lastWriteMillis < getReplicaStickyMs()) {
+            return getConnection(workload);
+        }
+
+        try {
+            HikariDataSource replica = replicaDataSource;
+            if (replica == null || replica.isClosed()) {
+                replica = initializeReplicaPool();
+            }
+            long start = System.nanoTime();
+            Connection conn = replica.getConnection();
+            return SqlStats.isEnabled() ? SqlStats.wrap(conn, System.nanoTime() - start) : conn;
+        } catch (SQLException | RuntimeException e) {
+            long retryMs = Long.parseLong(props.getProperty("db.replica.retryMs", "30000"));
+            replicaDownUntil = System.currentTimeMillis() + retryMs;
+            System.err.println("⚠ Read replica unavailable, reading from the primary for the next "
+                    + retryMs / 1000 + "s: " + e.getMessage());
+            return getConnection(workload);
+        }
+    }
+
+    /**
+     * @return true if db.replica.url is set
+     */
+    public static boolean isReplicaConfigured() {
+        return !props.getProperty("db.replica.url", "").isBlank();
+    }
+
+    /**
+     * Create the replica pool. Username/password default to the primary's.
+     * db.replica.initSql runs on every new connection - e.g. "SET @@tidb_replica_read = 'follower'"
+     * to read from TiDB followers through the normal endpoint.
+     */
+    private static synchronized HikariDataSource initializeReplicaPool() {
+        if (replicaDataSource != null && !replicaDataSource.isClosed()) {
+            return replicaDataSource;
+        }
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(props.getProperty("db.replica.url"));
+        config.setUsername(props.getProperty("db.replica.username", props.getProperty("db.username", "3uB8fqJmu4peKdN.root")));
+        config.setPassword(props.getProperty("db.replica.password", props.getProperty("db.password", "46dmNGakAQIh5Q0v")));
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setReadOnly(true);
+
+        config.setMaximumPoolSize(Integer.parseInt(props.getProperty("db.replica.maxConnections", "5")));
+        config.setMinimumIdle(1);
+        // Short timeout - a slow replica should fall back to the primary, not hold up the screen
+        config.setConnectionTimeout(Long.parseLong(props.getProperty("db.replica.connectionTimeout", "3000")));
+        config.setIdleTimeout(600000);
+        config.setMaxLifetime(1800000);
+        config.setConnectionTestQuery("SELECT 1");
+        String initSql = props.getProperty("db.replica.initSql", "");
+        if (!initSql.isBlank()) {
+            config.setConnectionInitSql(initSql);
+        }
+        config.setPoolName("SupplyChainReplicaPool");
+        applyDriverTuning(config);
+
+        // Throws if the replica can't be reached - getReadConnection falls back to the primary
+        replicaDataSource = new HikariDataSource(config);
+        Metrics.gauge("db_replica_active_connections", "Read replica connections in use",
+                () -> replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+        Metrics.gauge("db_replica_idle_connections", "Read replica connections ready in the pool",
+                () -> replicaDataSource.getHikariPoolMXBean().getIdleConnections());
+
+        System.out.println("✓ Read replica pool initialized (" + config.getMaximumPoolSize() + " connections)");
+        return replicaDataSource;
+    }
+
+    private static long getReplicaStickyMs() {
+        return Long.parseLong(props.getProperty("db.replica.stickyMs", "5000"));
+    }
+
+    /**
+     * Wrap a primary connection so preparing an INSERT/UPDATE/DELETE (or committing)
+     * counts as a write for read-your-writes. Only used when a replica is configured.
+     */
+    private static Connection trackWrites(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if ("commit".equals(name)
+                            || (args != null && args.length > 0 && args[0] instanceof String
+                                && ("prepareStatement".equals(name) || "prepareCall".equals(name))
+                                && !isSelect((String) args[0]))) {
+                        lastWriteMillis = System.currentTimeMillis();
+                    }
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static boolean isSelect(String sql) {
+        String trimmed = sql.stripLeading();
+        return trimmed.regionMatches(true, 0, "SELECT", 0, 6) || trimmed.regionMatches(true, 0, "WITH", 0, 4);
+    }
+
+    // db.pool.<workload>.* wins; INTERACTIVE also honours the original db.maxConnections etc.
+    private static String getPoolProperty(Workload workload, String name, String legacyKey, Object defaultValue) {
+        String legacy = workload == Workload.INTERACTIVE ? props.getProperty(legacyKey) : null;
+        return props.getProperty("db.pool." + workload.key + "." + name, legacy != null ? legacy : String.valueOf(defaultValue));
+    }
+
+    private static int getMaxPoolSize(Workload workload) {
+        return Integer.parseInt(getPoolProperty(workload, "maxConnections", "db.maxConnections",
+                workload.defaultMaxConnections));
+    }
+
+    private static int getMinIdle(Workload workload) {
+        return Integer.parseInt(getPoolProperty(workload, "minConnections", "db.minConnections",
+                workload.defaultMinIdle));
+    }
+
+    private static long getConnectionTimeout(Workload workload) {
+        return Long.parseLong(getPoolProperty(workload, "connectionTimeout", "db.connectionTimeout",
+                workload.defaultConnectionTimeout));
+    }
+
+    /**
+     * Get a connection from the pool, but give up after maxWaitMs instead of the pool's
+     * connectionTimeout (30s by default).
+     *
+     * WHY?
+     * When TiDB Cloud is unreachable, getConnection() blocks every caller for the full
+     * connectionTimeout. That's fine for a background job, but at the scan gate a person
+     * is standing there waiting. Callers on a latency budget use this method and switch
+     * to a fallback (see OfflineScanBuffer) when it throws.
+     *
+     * If the pool hands out a connection after we stopped waiting, it is returned to the
+     * pool straight away so nothing leaks.
+     *
+     * @param workload Which bulkhead the caller belongs to
+     * @param maxWaitMs How long to wait for a connection
+     * @return A database connection from the workload's pool
+     * @throws SQLTransientConnectionException if no connection was available in time
+     * @throws SQLException if the pool failed to provide a connection
+     */
+    public static Connection getConnection(Workload workload, long maxWaitMs) throws SQLException {
+        CompletableFuture<Connection> acquire = CompletableFuture.supplyAsync(() -> {
+            try {
+                return getConnection(workload);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, acquireExecutor);
+
+        try {
+            return acquire.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Too late for the caller - give the connection back whenever it arrives
+            acquire.thenAccept(DatabaseConnection::closeQuietly);
+            throw new SQLTransientConnectionException("No database connection within " + maxWaitMs + "ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Could not get a database connection", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquire.thenAccept(DatabaseConnection::closeQuietly);
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection");
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // Already broken - the pool will evict it
+        }
+    }
+
+    /**
+     * Connection-level failures that are worth retrying as they are. Everything else
+     * (constraint violations, bad data, bugs) will fail the same way again.
+     * Used by the background writers (AttendanceWriteBehind, AuditLogSink) to decide
+     * between backing off and giving up on a write.
+     */
+    public static boolean isTransient(Exception e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+            return true;  // Includes pool timeouts (SQLTransientConnectionException)
+        }
+        if (!(e instanceof SQLException)) {
+            return false;
+        }
+        String state = ((SQLException) e).getSQLState();
+        // No SQLState = not an answer from the server; 08 = connection, 40 = deadlock / rolled back
+        return state == null || state.startsWith("08") || state.startsWith("40");
     }
 
     /**
@@ -188,9 +651,14 @@ public class DatabaseConnection {
      * Note: A shutdown hook is already registered to close the pool automatically.
      */
     public static synchronized void shutdownPool() {
-        if (dataSource != null && !dataSource.isClosed()) {
-            dataSource.close();
-            System.out.println("✓ Connection pool shut down successfully");
+        for (HikariDataSource dataSource : pools.values()) {
+            if (!dataSource.isClosed()) {
+                dataSource.close();
+                System.out.println("✓ Connection pool " + dataSource.getPoolName() + " shut down successfully");
+            }
+        }
+        if (replicaDataSource != null && !replicaDataSource.isClosed()) {
+            replicaDataSource.close();
         }
     }
 
@@ -200,16 +668,98 @@ public class DatabaseConnection {
      * @return String containing pool statistics
      */
     public static String getPoolStats() {
-        if (dataSource != null && !dataSource.isClosed()) {
-            return String.format(
-                    "Pool Stats - Active: %d, Idle: %d, Total: %d, Waiting: %d",
+        StringBuilder stats = new StringBuilder();
+        for (Workload workload : Workload.values()) {
+            HikariDataSource dataSource = pools.get(workload);
+            if (dataSource == null || dataSource.isClosed()) {
+                continue;
+            }
+            stats.append(stats.length() == 0 ? "Pool Stats - " : " | ").append(String.format(
+                    "%s - Active: %d, Idle: %d, Total: %d, Waiting: %d",
+                    workload.key,
                     dataSource.getHikariPoolMXBean().getActiveConnections(),
                     dataSource.getHikariPoolMXBean().getIdleConnections(),
                     dataSource.getHikariPoolMXBean().getTotalConnections(),
                     dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection()
-            );
+            ));
+            Semaphore permits = accessPermits.get(workload);
+            if (permits != null) {
+                stats.append(String.format(", Waiting for permit: %d", permits.getQueueLength()));
+            }
+        }
+        if (stats.length() == 0) {
+            return "Pool not initialized";
+        }
+        HikariDataSource replica = replicaDataSource;
+        if (replica != null && !replica.isClosed()) {
+            stats.append(String.format(" | Replica - Active: %d, Idle: %d%s",
+                    replica.getHikariPoolMXBean().getActiveConnections(),
+                    replica.getHikariPoolMXBean().getIdleConnections(),
+                    System.currentTimeMillis() < replicaDownUntil ? " (down, using primary)" : ""));
+        }
+        return stats.toString();
+    }
+
+    // ==================== METRICS ====================
+
+    private static final Map<Workload, Metrics.Histogram> ACQUIRE_TIME = new ConcurrentHashMap<>();
+    private static final Map<Workload, Metrics.Histogram> USAGE_TIME = new ConcurrentHashMap<>();
+
+    /**
+     * Live gauges for one pool, read when /api/metrics is scraped.
+     * Every family is labelled pool="scan|interactive|bulk" so a saturated bulkhead stands out.
+     */
+    private static void registerPoolMetrics(Workload workload, HikariDataSource dataSource) {
+        String pool = workload.key;
+        Metrics.gauge("db_pool_active_connections", "Connections in use", "pool", pool,
+                () -> dataSource.getHikariPoolMXBean().getActiveConnections());
+        Metrics.gauge("db_pool_idle_connections", "Connections ready in the pool", "pool", pool,
+                () -> dataSource.getHikariPoolMXBean().getIdleConnections());
+        Metrics.gauge("db_pool_total_connections", "Connections open to the database", "pool", pool,
+                () -> dataSource.getHikariPoolMXBean().getTotalConnections());
+        Metrics.gauge("db_pool_waiting_threads", "Threads waiting for a connection", "pool", pool,
+                () -> dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection());
+        Metrics.gauge("db_pool_max_connections", "Configured maximum pool size", "pool", pool,
+                () -> getMaxPoolSize(workload));
+        Metrics.gauge("db_pool_waiting_for_permit", "Threads waiting for a database access permit (virtual threads)",
+                "pool", pool, () -> {
+                    Semaphore permits = accessPermits.get(workload);
+                    return permits != null ? permits.getQueueLength() : 0;
+                });
+    }
+
+    /**
+     * Hikari calls this on every borrow/return - it only feeds the lock-free histograms
+     */
+    private static final class PoolMetricsTracker implements IMetricsTracker {
+        private final Workload workload;
+        private final Metrics.Histogram acquireTime;
+        private final Metrics.Histogram usageTime;
+
+        PoolMetricsTracker(Workload workload) {
+            this.workload = workload;
+            this.acquireTime = ACQUIRE_TIME.computeIfAbsent(workload, w -> Metrics.histogram(
+                    "db_connection_acquire_duration_seconds",
+                    "Time to get a connection from the pool (failures = timeouts)", "pool", w.key));
+            this.usageTime = USAGE_TIME.computeIfAbsent(workload, w -> Metrics.histogram(
+                    "db_connection_usage_duration_seconds",
+                    "Time a connection was held before it went back to the pool", "pool", w.key));
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireTime.recordNanos(elapsedAcquiredNanos, false);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageTime.recordNanos(elapsedBorrowedMillis * 1_000_000L, false);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            acquireTime.recordNanos(getConnectionTimeout(workload) * 1_000_000L, true);
         }
-        return "Pool not initialized";
     }
 
     /**
@@ -0,0 +1,241 @@
+package com.team.supplychain.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide metrics registry, exported in Prometheus text format by MetricsServlet (/api/metrics).
+ *
+ * WHY SO BARE?
+ * Timers sit on the scan path and stay on in production, so recording must cost next to nothing:
+ * - A Histogram is a fixed array of LongAdder buckets - recording is a bucket search over
+ *   a long[] plus two LongAdder increments. No locks, no allocation.
+ * - Callers look their histogram up ONCE (e.g., a static final field) and keep the reference;
+ *   the registry map is only touched at registration and export time.
+ * - Gauges and counters are read only when /api/metrics is scraped.
+ *
+ * Buckets are fixed (1ms to 10s), which is what Prometheus' histogram_quantile() needs
+ * to compute p50/p95/p99 across scrapes.
+ *
+ * Usage:
+ * <pre>
+ * private static final Metrics.Histogram RECORD_SCAN =
+ *         Metrics.histogram("dao_method_duration_seconds", "Time spent in DAO methods", "method", "AttendanceDAO.recordScan");
+ *
+ * long start = System.nanoTime();
+ * boolean failed = true;
+ * try { ...; failed = false; } finally { RECORD_SCAN.record(start, failed); }
+ * </pre>
+ */
+public final class Metrics {
+
+    // Upper bucket bounds in nanoseconds (plus an implicit +Inf bucket)
+    private static final long[] BUCKET_NANOS = {
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L,
+            5_000_000_000L, 10_000_000_000L
+    };
+    private static final String[] BUCKET_LABELS = {
+            "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05",
+            "0.1", "0.25", "0.5", "1", "2.5", "5", "10"
+    };
+
+    // Sorted so the export is stable (families stay together)
+    private static final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+    private static final Map<String, Gauge> counters = new ConcurrentSkipListMap<>();
+    private static final Map<String, String> help = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Get (or create) a histogram. Call once and keep the reference - not on the hot path.
+     *
+     * @param name Metric family name, e.g. "dao_method_duration_seconds"
+     * @param description HELP text for the family
+     * @param labelName Label that tells the members of the family apart (e.g. "method")
+     * @param labelValue This member's label value (e.g. "AttendanceDAO.recordScan")
+     */
+    public static Histogram histogram(String name, String description, String labelName, String labelValue) {
+        help.putIfAbsent(name, description);
+        String labels = labelName == null ? "" : labelName + "=\"" + escape(labelValue) + "\"";
+        return histograms.computeIfAbsent(name + "{" + labels + "}", key -> new Histogram(name, labels));
+    }
+
+    /**
+     * Register a gauge read at export time (re-registering replaces the supplier)
+     */
+    public static void gauge(String name, String description, LongSupplier value) {
+        gauge(name, description, null, null, value);
+    }
+
+    /**
+     * Register one labelled member of a gauge family, e.g. db_pool_active_connections{pool="scan"}
+     */
+    public static void gauge(String name, String description, String labelName, String labelValue, LongSupplier value) {
+        help.put(name, description);
+        String labels = labelName == null ? "" : labelName + "=\"" + escape(labelValue) + "\"";
+        gauges.put(name + "{" + labels + "}", new Gauge(name, labels, value));
+    }
+
+    /**
+     * Register a counter read at export time - for totals that only ever go up (events written,
+     * dropped, ...). Name it *_total. Re-registering replaces the supplier.
+     */
+    public static void counter(String name, String description, LongSupplier value) {
+        help.put(name, description);
+        counters.put(name + "{}", new Gauge(name, "", value));
+    }
+
+    /**
+     * Render every metric in Prometheus text exposition format (version 0.0.4)
+     */
+    public static String toPrometheusText() {
+        StringBuilder out = new StringBuilder(8192);
+
+        String family = null;
+        for (Histogram histogram : histograms.values()) {
+            if (!histogram.name.equals(family)) {
+                family = histogram.name;
+                out.append("# HELP ").append(family).append(' ').append(help.get(family)).append('\n');
+                out.append("# TYPE ").append(family).append(" histogram\n");
+            }
+            histogram.writeTo(out);
+        }
+
+        // Error counters go in their own family (a histogram family may only hold _bucket/_sum/_count)
+        family = null;
+        for (Histogram histogram : histograms.values()) {
+            String errors = errorsName(histogram.name);
+            if (!errors.equals(family)) {
+                family = errors;
+                out.append("# HELP ").append(errors).append(" Failed calls counted in ").append(histogram.name).append('\n');
+                out.append("# TYPE ").append(errors).append(" counter\n");
+            }
+            out.append(errors).append(braced(histogram.labels)).append(' ')
+                    .append(histogram.errors.sum()).append('\n');
+        }
+
+        writeSuppliers(out, counters, "counter");
+        writeSuppliers(out, gauges, "gauge");
+        return out.toString();
+    }
+
+    private static void writeSuppliers(StringBuilder out, Map<String, Gauge> metrics, String type) {
+        String family = null;
+        for (Gauge gauge : metrics.values()) {
+            long value;
+            try {
+                value = gauge.value.getAsLong();
+            } catch (RuntimeException e) {
+                continue;  // e.g. pool not initialized yet
+            }
+            if (!gauge.name.equals(family)) {
+                family = gauge.name;
+                out.append("# HELP ").append(family).append(' ').append(help.get(family)).append('\n');
+                out.append("# TYPE ").append(family).append(' ').append(type).append('\n');
+            }
+            out.append(gauge.name).append(braced(gauge.labels)).append(' ').append(value).append('\n');
+        }
+    }
+
+    private static String errorsName(String histogramName) {
+        String base = histogramName.endsWith("_duration_seconds") ?
+                histogramName.substring(0, histogramName.length() - "_duration_seconds".length()) : histogramName;
+        return base + "_errors_total";
+    }
+
+    private static String braced(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Latency histogram with an error count. Thread-safe, lock-free, allocation-free to record.
+     */
+    public static final class Histogram {
+        private final String name;
+        private final String labels;
+        private final LongAdder[] buckets = new LongAdder[BUCKET_NANOS.length + 1];
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private Histogram(String name, String labels) {
+            this.name = name;
+            this.labels = labels;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Record a call that started at startNanos (System.nanoTime()) and ends now
+         */
+        public void record(long startNanos, boolean failed) {
+            recordNanos(System.nanoTime() - startNanos, failed);
+        }
+
+        /**
+         * Record a measured duration
+         */
+        public void recordNanos(long nanos, boolean failed) {
+            int bucket = 0;
+            while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            sumNanos.add(nanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        private void writeTo(StringBuilder out) {
+            String separator = labels.isEmpty() ? "" : ",";
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_NANOS.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket{").append(labels).append(separator)
+                        .append("le=\"").append(BUCKET_LABELS[i]).append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += buckets[BUCKET_NANOS.length].sum();
+            out.append(name).append("_bucket{").append(labels).append(separator)
+                    .append("le=\"+Inf\"} ").append(cumulative).append('\n');
+            out.append(name).append("_sum").append(braced(labels)).append(' ')
+                    .append(sumNanos.sum() / 1e9).append('\n');
+            out.append(name).append("_count").append(braced(labels)).append(' ').append(cumulative).append('\n');
+        }
+    }
+
+    // A gauge or counter: a value read at export time
+    private static final class Gauge {
+        final String name;
+        final String labels;
+        final LongSupplier value;
+
+        Gauge(String name, String labels, LongSupplier value) {
+            this.name = name;
+            this.labels = labels;
+            this.value = value;
+        }
+    }
+}
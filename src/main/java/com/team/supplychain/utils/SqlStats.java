@@ -0,0 +1,565 @@
+package com.team.supplychain.utils;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Per-statement SQL statistics for every connection handed out by DatabaseConnection.
+ *
+ * WHAT IT RECORDS (per normalized SQL string):
+ * - calls, failures, total/max time - for queries the time runs from execute until the
+ *   ResultSet is read to the end or closed, so slow fetches count too
+ * - rows returned (queries) or changed (updates and batches)
+ * - time spent waiting for the pooled connection, charged to the first statement run on it
+ * - the DAO methods that ran it slowly (call sites are only looked up for slow executions)
+ *
+ * Normalizing turns literals into ? and "IN (?, ?, ?)" into "IN (...)", so the same
+ * query with a different number of placeholders is counted once.
+ *
+ * WHY IT'S CHEAP ENOUGH TO LEAVE ON:
+ * - A statement looks up its entry once, when it is prepared. The SQL string is only
+ *   normalized the first time it is seen.
+ * - Recording is a few LongAdder increments - no locks.
+ * - The stack is only walked (to find the DAO method) once an execution is over the
+ *   slow threshold, not on every prepareStatement.
+ * - Slow-query lines go to a bounded queue that a background thread appends to the file.
+ *   A request thread never touches the disk; if the disk can't keep up, lines are
+ *   dropped and counted (sql_slow_log_dropped_total) instead of slowing requests down.
+ *
+ * Read the top-N table at GET /api/metrics/sql (see MetricsServlet) or with toText().
+ *
+ * Settings (config.properties):
+ *   sql.stats.enabled        - wrap connections at all (default true)
+ *   sql.stats.slowQueryMs    - log statements slower than this (default 500, 0 = no log)
+ *   sql.stats.slowQueryLog   - log file (default logs/slow-queries.log)
+ *   sql.stats.slowQueryQueue - slow-query lines waiting for the log writer (default 1000)
+ *   sql.stats.maxStatements  - distinct statements tracked; the rest go to "(other)" (default 500)
+ */
+public final class SqlStats {
+
+    private static final boolean ENABLED = AppConfig.getBoolean("sql.stats.enabled", true);
+    private static final int SLOW_QUEUE_SIZE = AppConfig.getInt("sql.stats.slowQueryQueue", 1000);
+    private static final int MAX_STATEMENTS = AppConfig.getInt("sql.stats.maxStatements", 500);
+    private static final int MAX_CALL_SITES = 4;
+
+    // Not final so tests can point the slow-query log somewhere else
+    private static volatile long slowNanos = AppConfig.getLong("sql.stats.slowQueryMs", 500) * 1_000_000L;
+    private static volatile Path slowLog = Paths.get(AppConfig.getString("sql.stats.slowQueryLog", "logs/slow-queries.log"));
+
+    private static final String PACKAGE = "com.team.supplychain.";
+    private static final StackWalker STACK = StackWalker.getInstance();
+
+    // normalized sql -> stats (bounded by MAX_STATEMENTS)
+    private static final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    // raw sql -> the same stats, so known statements skip normalizing
+    private static final Map<String, StatementStats> seen = new ConcurrentHashMap<>();
+    private static final StatementStats OTHER = new StatementStats("(too many distinct statements)");
+
+    private static final BlockingQueue<String> slowLines = new ArrayBlockingQueue<>(Math.max(1, SLOW_QUEUE_SIZE));
+    private static final LongAdder slowLinesDropped = new LongAdder();
+    private static Thread slowLogWriter;  // started with the first slow query
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String PLACEHOLDERS = "(?:\\?|\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))";
+    private static final Pattern IN_LIST = Pattern.compile(
+            "(?i)\\bIN\\s*\\(\\s*" + PLACEHOLDERS + "(?:\\s*,\\s*" + PLACEHOLDERS + ")*\\s*\\)");
+    private static final Pattern VALUES_ROWS = Pattern.compile("(?i)(\\bVALUES\\s*\\([^()]*\\))(?:\\s*,\\s*\\([^()]*\\))+");
+
+    private SqlStats() {
+    }
+
+    /**
+     * @return true unless sql.stats.enabled=false
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Wrap a pooled connection so the statements run on it are recorded.
+     * close() and everything else still goes to the real connection.
+     *
+     * @param conn Connection from the pool
+     * @param waitNanos How long the caller waited for it
+     * @return Instrumented connection
+     */
+    public static Connection wrap(Connection conn, long waitNanos) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(conn, waitNanos));
+    }
+
+    /**
+     * Statements sorted by total time spent (calls x average), worst first
+     *
+     * @param limit How many to return
+     */
+    public static List<StatementStats> top(int limit) {
+        return top(limit, Comparator.comparingLong(StatementStats::getTotalNanos));
+    }
+
+    /**
+     * Statements sorted by the given measure, highest first
+     *
+     * @param limit How many to return
+     * @param order e.g. Comparator.comparingLong(StatementStats::getMaxNanos)
+     */
+    public static List<StatementStats> top(int limit, Comparator<StatementStats> order) {
+        List<StatementStats> all = new ArrayList<>(statements.values());
+        if (OTHER.getCalls() > 0) {
+            all.add(OTHER);
+        }
+        all.sort(order.reversed());
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    /**
+     * Render a top-N table as plain text (one statement per line)
+     */
+    public static String toText(List<StatementStats> rows) {
+        StringBuilder out = new StringBuilder(256 + rows.size() * 200);
+        out.append(String.format("%8s %7s %10s %9s %9s %10s %9s  %-40s %s%n",
+                "calls", "errors", "total_ms", "avg_ms", "max_ms", "rows", "wait_ms", "call_site", "sql"));
+        for (StatementStats stats : rows) {
+            out.append(String.format("%8d %7d %10.1f %9.2f %9.1f %10d %9.1f  %-40s %s%n",
+                    stats.getCalls(), stats.getErrors(), stats.getTotalNanos() / 1e6, stats.getAverageNanos() / 1e6,
+                    stats.getMaxNanos() / 1e6, stats.getRows(), stats.getWaitNanos() / 1e6,
+                    stats.getCallSite().isEmpty() ? "-" : stats.getCallSite(), stats.getSql()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Forget everything recorded so far (e.g. before a load test)
+     */
+    public static void reset() {
+        statements.clear();
+        seen.clear();
+        OTHER.clear();
+    }
+
+    /**
+     * Normalize a SQL string so executions that differ only in literals or placeholder
+     * count share one entry: literals become ?, IN lists and multi-row VALUES collapse,
+     * whitespace is squeezed.
+     */
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        normalized = IN_LIST.matcher(normalized).replaceAll("IN (...)");
+        normalized = VALUES_ROWS.matcher(normalized).replaceAll("$1, ...");
+        return normalized;
+    }
+
+    /**
+     * Point the slow-query log somewhere else (tests)
+     *
+     * @param thresholdNanos Log executions at least this slow (0 = no log)
+     * @param log Log file
+     */
+    static void setSlowQueryLog(long thresholdNanos, Path log) {
+        slowNanos = thresholdNanos;
+        slowLog = log;
+    }
+
+    /**
+     * Find (or create) the entry for a statement about to run
+     */
+    static StatementStats lookup(String sql) {
+        StatementStats stats = seen.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+
+        String normalized = normalize(sql);
+        stats = statements.get(normalized);
+        if (stats == null) {
+            if (statements.size() >= MAX_STATEMENTS) {
+                return OTHER;
+            }
+            stats = statements.computeIfAbsent(normalized, StatementStats::new);
+        }
+        // Dynamic SQL (e.g. IN lists) has many raw forms - don't let them grow this map forever
+        if (seen.size() < MAX_STATEMENTS * 4) {
+            seen.put(sql, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * The application method that is running the SQL, e.g. "AttendanceDAO.recordScan".
+     * Walks the stack - only called for slow executions.
+     */
+    static String callSite() {
+        return STACK.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(PACKAGE)
+                        && !isInClass(frame.getClassName(), SqlStats.class)
+                        && !isInClass(frame.getClassName(), DatabaseConnection.class))
+                .findFirst()
+                .map(frame -> {
+                    String className = frame.getClassName();
+                    return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+                })
+                .orElse("(unknown)"));
+    }
+
+    // The class itself, or one of its nested classes/lambdas
+    private static boolean isInClass(String className, Class<?> type) {
+        String name = type.getName();
+        return className.startsWith(name)
+                && (className.length() == name.length() || className.charAt(name.length()) == '$');
+    }
+
+    /**
+     * Queue a slow-query line for the background writer. Never blocks: if the queue is
+     * full the line is dropped and counted.
+     */
+    private static void logSlow(StatementStats stats, String callSite, long nanos, long rows) {
+        String line = String.format("%s %8.1f ms %8d rows  %s  %s%n",
+                LocalDateTime.now(), nanos / 1e6, rows, callSite, stats.getSql());
+        startSlowLogWriter();
+        if (!slowLines.offer(line)) {
+            slowLinesDropped.increment();
+        }
+    }
+
+    private static synchronized void startSlowLogWriter() {
+        if (slowLogWriter != null) {
+            return;
+        }
+        Metrics.counter("sql_slow_log_dropped_total",
+                "Slow-query log lines dropped because the log writer fell behind", slowLinesDropped::sum);
+        slowLogWriter = new Thread(SqlStats::writeSlowLog, "sql-slow-query-log");
+        slowLogWriter.setDaemon(true);
+        slowLogWriter.start();
+    }
+
+    /**
+     * Background writer: append whatever is queued in one write, then wait for more
+     */
+    private static void writeSlowLog() {
+        List<String> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(slowLines.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            slowLines.drainTo(batch, 255);
+            String text = String.join("", batch);
+            batch.clear();
+
+            Path log = slowLog;
+            try {
+                Path dir = log.toAbsolutePath().getParent();
+                if (dir != null) {
+                    Files.createDirectories(dir);
+                }
+                Files.writeString(log, text, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.print("⚠ Slow query: " + text);
+            }
+        }
+    }
+
+    /**
+     * Totals for one statement at one call site. Thread-safe, lock-free to record.
+     */
+    public static final class StatementStats {
+        private final String sql;
+        private final Set<String> callSites = ConcurrentHashMap.newKeySet();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+
+        private StatementStats(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long nanos, long rowCount, long waitedNanos, boolean failed) {
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+            if (waitedNanos > 0) {
+                waitNanos.add(waitedNanos);
+            }
+            if (failed) {
+                errors.increment();
+            }
+            long threshold = slowNanos;
+            if (threshold > 0 && nanos >= threshold) {
+                String callSite = callSite();
+                if (callSites.size() < MAX_CALL_SITES) {
+                    callSites.add(callSite);
+                }
+                logSlow(this, callSite, nanos, rowCount);
+            }
+        }
+
+        private void clear() {
+            calls.reset();
+            errors.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            rows.reset();
+            waitNanos.reset();
+            callSites.clear();
+        }
+
+        /**
+         * DAO methods that ran this statement slowly (up to 4, comma separated),
+         * or "" if it has never been over the slow threshold
+         */
+        public String getCallSite() {
+            return String.join(", ", new TreeSet<>(callSites));
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getAverageNanos() {
+            long count = calls.sum();
+            return count == 0 ? 0 : totalNanos.sum() / count;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getWaitNanos() {
+            return waitNanos.sum();
+        }
+    }
+
+    // ==================== PROXIES ====================
+
+    /**
+     * One execution of a statement. Queries stay open until their ResultSet is done.
+     * Only touched by the thread using the connection, like the JDBC objects themselves.
+     */
+    private static final class Execution {
+        final StatementStats stats;
+        final long startNanos;
+        final long waitNanos;
+        long rows;
+        boolean finished;
+
+        Execution(StatementStats stats, long startNanos, long waitNanos) {
+            this.stats = stats;
+            this.startNanos = startNanos;
+            this.waitNanos = waitNanos;
+        }
+
+        void finish(boolean failed) {
+            if (!finished) {
+                finished = true;
+                stats.record(System.nanoTime() - startNanos, rows, waitNanos, failed);
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection conn;
+        private long pendingWaitNanos;  // charged to the first statement, then 0
+        private final List<StatementHandler> statements = new ArrayList<>(4);
+
+        ConnectionHandler(Connection conn, long waitNanos) {
+            this.conn = conn;
+            this.pendingWaitNanos = waitNanos;
+        }
+
+        long takeWaitNanos() {
+            long wait = pendingWaitNanos;
+            pendingWaitNanos = 0;
+            return wait;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                // Statements the DAO forgot to close still get recorded
+                for (StatementHandler statement : statements) {
+                    statement.finishOpen();
+                }
+                statements.clear();
+            }
+
+            Object result = SqlStats.invoke(conn, method, args);
+            if (result instanceof Statement && ("createStatement".equals(name)
+                    || "prepareStatement".equals(name) || "prepareCall".equals(name))) {
+                StatsStatement handler = new StatsStatement(this, (Statement) result,
+                        args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null);
+                statements.add(handler);
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()}, handler);
+            }
+            return result;
+        }
+    }
+
+    private interface StatementHandler extends InvocationHandler {
+        void finishOpen();
+    }
+
+    private static final class StatsStatement implements StatementHandler {
+        private final ConnectionHandler connection;
+        private final Statement stmt;
+        private final StatementStats prepared;  // null for a plain Statement (SQL comes with execute)
+        private Execution open;
+
+        StatsStatement(ConnectionHandler connection, Statement stmt, String sql) {
+            this.connection = connection;
+            this.stmt = stmt;
+            this.prepared = sql != null ? lookup(sql) : null;
+        }
+
+        @Override
+        public void finishOpen() {
+            if (open != null) {
+                open.finish(false);
+                open = null;
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if ("close".equals(name)) {
+                    finishOpen();
+                    connection.statements.remove(this);
+                } else if ("getResultSet".equals(name) && open != null) {
+                    ResultSet rs = (ResultSet) SqlStats.invoke(stmt, method, args);
+                    return rs == null ? null : wrapResultSet(rs, open);
+                }
+                return SqlStats.invoke(stmt, method, args);
+            }
+
+            finishOpen();
+            StatementStats stats = prepared;
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                stats = lookup((String) args[0]);
+            }
+            if (stats == null) {
+                return SqlStats.invoke(stmt, method, args);
+            }
+
+            Execution execution = new Execution(stats, System.nanoTime(), connection.takeWaitNanos());
+            Object result;
+            try {
+                result = SqlStats.invoke(stmt, method, args);
+            } catch (Throwable t) {
+                execution.finish(true);
+                throw t;
+            }
+
+            if (result instanceof ResultSet) {
+                open = execution;  // finished when the rows have been read
+                return wrapResultSet((ResultSet) result, execution);
+            }
+            if (result instanceof Boolean && (Boolean) result) {
+                open = execution;  // execute() returned a ResultSet - read it with getResultSet()
+                return result;
+            }
+            execution.rows = changedRows(result);
+            execution.finish(false);
+            return result;
+        }
+
+        private static long changedRows(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return Math.max(0, ((Number) result).longValue());
+            }
+            long total = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    total += Math.max(0, count);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    total += Math.max(0, count);
+                }
+            }
+            return total;
+        }
+
+        private static ResultSet wrapResultSet(ResultSet rs, Execution execution) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        String name = method.getName();
+                        if ("next".equals(name)) {
+                            boolean more = (Boolean) SqlStats.invoke(rs, method, args);
+                            if (more) {
+                                execution.rows++;
+                            } else {
+                                execution.finish(false);
+                            }
+                            return more;
+                        }
+                        if ("close".equals(name)) {
+                            execution.finish(false);
+                        }
+                        return SqlStats.invoke(rs, method, args);
+                    });
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.team.supplychain.api;
+
+import com.team.supplychain.dao.AttendanceDAO.ScanOutcome;
+import com.team.supplychain.enums.AttendanceStatus;
+import com.team.supplychain.models.Attendance;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for AttendanceEventBus
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AttendanceEventBusTest {
+
+    private static Attendance record(int employeeId) {
+        LocalDateTime now = LocalDateTime.now();
+        return new Attendance(employeeId, now, now.toLocalDate(), AttendanceStatus.PRESENT);
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test subscriber resumes after its last event id")
+    void testResume() throws InterruptedException {
+        String start = AttendanceEventBus.getLastEventId();
+        AttendanceEventBus.publish(ScanOutcome.CHECKED_IN, null, record(1));
+        AttendanceEventBus.publish(ScanOutcome.ALREADY_CHECKED_IN, null, record(1));  // not published
+        AttendanceEventBus.publish(ScanOutcome.CHECKED_IN, null, record(2));
+
+        List<String[]> events = AttendanceEventBus.eventsAfter(start, 0);
+        assertEquals(2, events.size());
+        assertEquals("attendance", events.get(0)[1]);
+        assertTrue(events.get(1)[2].contains("\"employeeId\":2"));
+
+        assertTrue(AttendanceEventBus.eventsAfter(events.get(1)[0], 50).isEmpty(), "Nothing newer yet");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test waiting subscriber is woken by a new event")
+    void testWakeUp() throws Exception {
+        String start = AttendanceEventBus.getLastEventId();
+        Thread publisher = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            AttendanceEventBus.publish(ScanOutcome.CHECKED_OUT, null, record(3));
+        });
+        publisher.start();
+
+        List<String[]> events = AttendanceEventBus.eventsAfter(start, 5000);
+        publisher.join();
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test unknown or overwritten ids must reload")
+    void testReload() throws InterruptedException {
+        assertNull(AttendanceEventBus.eventsAfter("12345:1", 0), "Id from another server run");
+        assertNull(AttendanceEventBus.eventsAfter("garbage", 0));
+
+        String start = AttendanceEventBus.getLastEventId();
+        for (int i = 0; i <= AttendanceEventBus.getCapacity(); i++) {
+            AttendanceEventBus.publish(ScanOutcome.CHECKED_IN, null, record(i));
+        }
+        assertNull(AttendanceEventBus.eventsAfter(start, 0), "Missed events are no longer buffered");
+    }
+}
@@ -0,0 +1,118 @@
+package com.team.supplychain.api;
+
+import com.team.supplychain.models.AttendanceScan;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for OfflineScanLog (no database needed)
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class OfflineScanLogTest {
+
+    @TempDir
+    Path logDir;
+
+    @Test
+    @Order(1)
+    @DisplayName("Test scans survive reopening until reconciled")
+    void testPendingSurvivesReopen() throws Exception {
+        OfflineScanLog log = new OfflineScanLog(logDir, 64 * 1024);
+        assertTrue(log.isEmpty());
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(log.append(scan(i, false)));
+        }
+        List<AttendanceScan> firstTwo = log.readPending(2);
+        log.markReconciled(firstTwo.get(1).getSequence());
+        log.close();
+
+        OfflineScanLog reopened = new OfflineScanLog(logDir, 64 * 1024);
+        assertEquals(3, reopened.getPendingCount(), "Unreconciled scans should survive a restart");
+        List<AttendanceScan> pending = reopened.readPending(10);
+        assertEquals(3, pending.get(0).getEmployeeId(), "Reconciled scans should not come back");
+
+        reopened.markReconciled(pending.get(pending.size() - 1).getSequence());
+        assertTrue(reopened.isEmpty());
+        assertEquals(0, reopened.getUsedPercent(), "Space should be reused once everything is reconciled");
+        reopened.close();
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test a full log refuses scans instead of overwriting")
+    void testFullLogRefuses() throws Exception {
+        OfflineScanLog log = new OfflineScanLog(logDir, 1024);
+        int stored = 0;
+        while (log.append(scan(stored + 1, true))) {
+            stored++;
+        }
+        assertTrue(stored > 0);
+        assertEquals(stored, log.readPending(Integer.MAX_VALUE).size());
+        log.close();
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test unreadable records are set aside instead of blocking the log")
+    void testUnreadableRecordsSetAside() throws Exception {
+        OfflineScanLog log = new OfflineScanLog(logDir, 64 * 1024);
+        assertTrue(log.append(scan(1, false)));
+        assertTrue(log.append(scan(2, false)));
+        int secondRecord = (int) log.readPending(1).get(0).getSequence();
+        log.close();
+        // Damage the JSON of the second record
+        corrupt(secondRecord + 4, ByteBuffer.wrap(new byte[] {'#'}));
+
+        OfflineScanLog reopened = new OfflineScanLog(logDir, 64 * 1024);
+        List<AttendanceScan> pending = reopened.readPending(10);
+        assertEquals(1, pending.size(), "The readable scan should still come back");
+        reopened.markReconciled(pending.get(0).getSequence());
+        assertFalse(reopened.isEmpty());
+
+        assertTrue(reopened.readPending(10).isEmpty());
+        assertTrue(reopened.isEmpty(), "The unreadable record should be released, not stay pending");
+        assertEquals(1, reopened.getRejectedCount());
+        assertTrue(Files.exists(logDir.resolve("offline-scans.rejected")));
+        reopened.close();
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test a damaged record length drops the rest of the log without throwing")
+    void testDamagedLengthSetAside() throws Exception {
+        OfflineScanLog log = new OfflineScanLog(logDir, 64 * 1024);
+        assertTrue(log.append(scan(1, false)));
+        assertTrue(log.append(scan(2, false)));
+        log.close();
+        corrupt(16, ByteBuffer.allocate(4).putInt(0, -7));
+
+        OfflineScanLog reopened = new OfflineScanLog(logDir, 64 * 1024);
+        assertEquals(1, reopened.getPendingCount(), "The damaged tail counts as one record");
+        assertTrue(reopened.readPending(10).isEmpty());
+        assertTrue(reopened.isEmpty());
+        assertTrue(reopened.append(scan(3, false)), "The space should be reused");
+        assertEquals(3, reopened.readPending(10).get(0).getEmployeeId());
+        reopened.close();
+    }
+
+    private void corrupt(long position, ByteBuffer bytes) throws Exception {
+        try (FileChannel channel = FileChannel.open(logDir.resolve("offline-scans.log"), StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private static AttendanceScan scan(int employeeId, boolean checkOut) {
+        return new AttendanceScan(employeeId, "EMP-" + employeeId, "Main Entrance", checkOut,
+                LocalDateTime.of(2025, 1, 6, 8, 0).plusMinutes(employeeId));
+    }
+}
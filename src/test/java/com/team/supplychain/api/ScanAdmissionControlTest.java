@@ -0,0 +1,68 @@
+package com.team.supplychain.api;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ScanAdmissionControl (no database needed)
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ScanAdmissionControlTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test scans beyond the queue limit are rejected")
+    void testQueueFullRejects() throws Exception {
+        ScanAdmissionControl admission = new ScanAdmissionControl(1, 2, 60000);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocked = () -> awaitQuietly(release);
+
+        assertTrue(admission.submit(blocked, () -> { }), "First scan runs on the worker");
+        Thread.sleep(100);  // let the worker pick it up
+        assertTrue(admission.submit(blocked, () -> { }), "Second scan waits in the queue");
+        assertTrue(admission.submit(blocked, () -> { }), "Third scan waits in the queue");
+        assertFalse(admission.submit(blocked, () -> { }), "Fourth scan should be shed");
+        assertTrue(admission.getRetryAfterSeconds() >= 1);
+
+        release.countDown();
+        admission.shutdown();
+        JsonObject stats = admission.getStats();
+        assertEquals(1, stats.get("rejectedQueueFull").getAsLong());
+        assertEquals(3, stats.get("completed").getAsLong());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test scans that waited too long are shed instead of processed")
+    void testWaitTooLongSheds() throws Exception {
+        ScanAdmissionControl admission = new ScanAdmissionControl(1, 10, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger shed = new AtomicInteger();
+
+        admission.submit(() -> awaitQuietly(release), () -> { });
+        Thread.sleep(50);
+        admission.submit(processed::incrementAndGet, shed::incrementAndGet);
+        Thread.sleep(200);  // second scan now waited longer than 50ms
+        release.countDown();
+        admission.shutdown();
+
+        assertEquals(0, processed.get());
+        assertEquals(1, shed.get());
+        assertEquals(1, admission.getStats().get("rejectedWaitTooLong").getAsLong());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.team.supplychain.api;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ScanDeduplicator
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ScanDeduplicatorTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test repeat scan inside the window gets the previous answer")
+    void testRepeatWithinWindow() {
+        ScanDeduplicator dedup = new ScanDeduplicator(10, 100);
+
+        assertNull(dedup.lookup("EMP001", "Main Entrance", "checkin"), "First scan is a miss");
+        dedup.remember("EMP001", "Main Entrance", "checkin", "{\"success\":true}");
+
+        assertEquals("{\"success\":true}", dedup.lookup("EMP001", "Main Entrance", "checkin"));
+        assertNull(dedup.lookup("EMP001", "Side Gate", "checkin"), "Other location is a different scan");
+        assertNull(dedup.lookup("EMP001", "Main Entrance", "checkout"), "Check-out must not be swallowed");
+        assertTrue(dedup.getStats().contains("Hits: 1"));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test answers expire after the window")
+    void testExpiry() throws InterruptedException {
+        ScanDeduplicator dedup = new ScanDeduplicator(1, 100);
+        dedup.remember("EMP001", "Main Entrance", "checkin", "{}");
+
+        Thread.sleep(1100);
+        assertNull(dedup.lookup("EMP001", "Main Entrance", "checkin"));
+        assertTrue(dedup.getStats().contains("Entries: 0"));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test oldest answers are dropped above maxEntries")
+    void testBounded() {
+        ScanDeduplicator dedup = new ScanDeduplicator(60, 2);
+        dedup.remember("A", "Gate", "checkin", "a");
+        dedup.remember("B", "Gate", "checkin", "b");
+        dedup.remember("C", "Gate", "checkin", "c");
+
+        assertNull(dedup.lookup("A", "Gate", "checkin"));
+        assertEquals("b", dedup.lookup("B", "Gate", "checkin"));
+        assertEquals("c", dedup.lookup("C", "Gate", "checkin"));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test forget drops every answer for a badge")
+    void testForget() {
+        ScanDeduplicator dedup = new ScanDeduplicator(60, 100);
+        dedup.remember("EMP001", "Main Entrance", "checkin", "a");
+        dedup.remember("EMP001", "Loading Dock", "checkout", "b");
+        dedup.remember("EMP0012", "Main Entrance", "checkin", "c");
+
+        dedup.forget("EMP001");
+
+        assertNull(dedup.lookup("EMP001", "Main Entrance", "checkin"));
+        assertNull(dedup.lookup("EMP001", "Loading Dock", "checkout"));
+        assertEquals("c", dedup.lookup("EMP0012", "Main Entrance", "checkin"), "Other badges are kept");
+    }
+}
@@ -0,0 +1,139 @@
+package com.team.supplychain.api;
+
+import com.team.supplychain.models.AttendanceScan;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ScanJournal (no database needed)
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ScanJournalTest {
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    @Order(1)
+    @DisplayName("Test appended scans are handed over in sequence order")
+    void testAppendAssignsSequences() throws Exception {
+        List<AttendanceScan> durable = Collections.synchronizedList(new ArrayList<>());
+        ScanJournal journal = new ScanJournal(journalDir, 16, durable::addAll);
+        assertTrue(journal.recover().isEmpty(), "Fresh journal should have nothing to replay");
+        journal.start();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            futures.add(journal.append(scan(i, false)));
+        }
+        for (CompletableFuture<Void> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        journal.close();
+
+        assertEquals(50, durable.size(), "Every scan should be handed to the flusher");
+        for (int i = 0; i < durable.size(); i++) {
+            assertEquals(i + 1, durable.get(i).getSequence(), "Sequences should follow journal order");
+        }
+        assertTrue(journal.getFsyncCount() >= 1 && journal.getFsyncCount() <= 50);
+        System.out.println("50 scans in " + journal.getFsyncCount() + " fsyncs");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test recovery replays only scans after the checkpoint")
+    void testRecoverAfterCheckpoint() throws Exception {
+        ScanJournal journal = new ScanJournal(journalDir, 16, scans -> { });
+        journal.recover();
+        journal.start();
+        for (int i = 1; i <= 10; i++) {
+            journal.append(scan(i, i > 5)).get(5, TimeUnit.SECONDS);
+        }
+        journal.checkpoint(6);
+        journal.close();
+
+        ScanJournal reopened = new ScanJournal(journalDir, 16, scans -> { });
+        List<AttendanceScan> replay = reopened.recover();
+
+        assertEquals(4, replay.size(), "Only scans 7-10 should be replayed");
+        assertEquals(7, replay.get(0).getSequence());
+        assertEquals(7, replay.get(0).getEmployeeId());
+        assertTrue(replay.get(0).isCheckOut(), "Scan type should survive the round-trip");
+
+        // New appends continue after the highest journaled sequence
+        List<AttendanceScan> durable = new ArrayList<>();
+        ScanJournal continued = new ScanJournal(journalDir, 16, durable::addAll);
+        continued.recover();
+        continued.start();
+        continued.append(scan(11, false)).get(5, TimeUnit.SECONDS);
+        continued.close();
+        assertEquals(11, durable.get(0).getSequence());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test dead-lettered scans are kept with their error")
+    void testDeadLetter() throws Exception {
+        ScanJournal journal = new ScanJournal(journalDir, 16, scans -> { });
+        journal.deadLetter(scan(42, false), "Cannot add or update a child row");
+        journal.deadLetter(scan(43, true), "Duplicate entry");
+
+        List<String> lines = Files.readAllLines(journalDir.resolve("attendance-scans.dead-letter"));
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"employeeId\":42"));
+        assertTrue(lines.get(0).contains("Cannot add or update a child row"));
+        assertEquals(43, ScanJournal.parseLine(lines.get(1)).getEmployeeId(), "Dead-letter lines use the journal format");
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test a cancelled append is never written, a taken one can't be cancelled")
+    void testCancelBeforeWrite() throws Exception {
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<AttendanceScan> durable = Collections.synchronizedList(new ArrayList<>());
+        ScanJournal journal = new ScanJournal(journalDir, 16, scans -> {
+            durable.addAll(scans);
+            writerBusy.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);  // Hold the writer so the next scan waits in the queue
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        journal.recover();
+        journal.start();
+
+        CompletableFuture<Void> first = journal.append(scan(1, false));
+        assertTrue(writerBusy.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> second = journal.append(scan(2, false));
+        assertTrue(second.cancel(false), "A queued scan can be withdrawn");
+        assertFalse(first.cancel(false), "A scan the writer has taken can't be withdrawn");
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        journal.append(scan(3, false)).get(5, TimeUnit.SECONDS);
+        journal.close();
+
+        assertEquals(List.of(1, 3), durable.stream().map(AttendanceScan::getEmployeeId).toList());
+        List<AttendanceScan> replay = new ScanJournal(journalDir, 16, scans -> { }).recover();
+        assertEquals(2, replay.size(), "The withdrawn scan should not be in the journal");
+    }
+
+    private static AttendanceScan scan(int employeeId, boolean checkOut) {
+        return new AttendanceScan(employeeId, "EMP-" + employeeId, "Main Entrance", checkOut,
+                LocalDateTime.of(2025, 1, 6, 8, 0).plusMinutes(employeeId));
+    }
+}
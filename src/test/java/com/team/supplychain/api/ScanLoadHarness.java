@@ -0,0 +1,461 @@
+package com.team.supplychain.api;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Load test: the real scan server (WebServerLauncher) against a local MySQL-compatible database
+ *
+ * 1. Starts an embedded MariaDB (MariaDB4j, binaries come from the Maven repository - no network,
+ *    no Docker) and creates the scan tables from loadtest/schema.sql
+ * 2. Seeds N employees with QR codes
+ * 3. Starts WebServerLauncher on a free port, pointed at that database
+ * 4. Replays a morning: arrivals follow a bell curve around the shift start, some people linger in
+ *    front of the camera (repeat scans), some badges are scanned at two gates at the same instant,
+ *    and some people check out (sometimes twice) before the run ends
+ * 5. Reports throughput and p50/p95/p99/p99.9 latency, then checks the table for anomalies:
+ *    duplicate rows, scans acknowledged twice, acknowledged scans that were never written,
+ *    check-outs before check-ins
+ *
+ * Requests are sent on schedule whether or not earlier ones have finished (open loop), and latency
+ * is measured from the scheduled send time - a stalled server shows up as latency, not as a
+ * politely slower load.
+ *
+ * The same seed gives the same schedule, so runs are comparable before/after a change.
+ * Any scan.* / server.* / db.* setting can be passed with -D (e.g. -Dscan.async.enabled=true).
+ *
+ * Usage (after mvn test-compile):
+ *   java -cp target/classes:target/test-classes:<test dependencies> \
+ *        com.team.supplychain.api.ScanLoadHarness [employees] [morningSeconds] [seed]
+ * Defaults: 2000 employees, a 60-second morning, seed 42
+ *
+ * To use an existing local server instead of the embedded one:
+ *   -Dloadtest.jdbcUrl=jdbc:mysql://localhost:3306/loadtest -Dloadtest.user=root -Dloadtest.password=...
+ * (the tables are dropped and re-created)
+ *
+ * Exit code 1 if any anomaly was found.
+ */
+public class ScanLoadHarness {
+
+    private static final String[] GATES = {"Main Entrance", "Warehouse Gate"};
+    private static final Gson gson = new Gson();
+
+    public static void main(String[] args) throws Exception {
+        int employees = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int morningSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        Path workDir = Files.createTempDirectory("scan-loadtest");
+        DB embedded = null;
+        String jdbcUrl = System.getProperty("loadtest.jdbcUrl");
+        String user = System.getProperty("loadtest.user", "root");
+        String password = System.getProperty("loadtest.password", "");
+
+        if (jdbcUrl == null) {
+            embedded = startEmbeddedDatabase(workDir);
+            jdbcUrl = "jdbc:mysql://localhost:" + embedded.getConfiguration().getPort() + "/loadtest";
+        }
+
+        System.out.println("=== Scan load test ===");
+        System.out.println(employees + " employees, " + morningSeconds + "s morning, seed " + seed + ", " + jdbcUrl);
+
+        WebServerLauncher launcher = null;
+        int exitCode;
+        try {
+            createSchema(jdbcUrl, user, password);
+            seedEmployees(jdbcUrl, user, password, employees);
+
+            // Must be set before the server's classes read their configuration
+            setDefault("db.url", jdbcUrl);
+            setDefault("db.username", user);
+            setDefault("db.password", password);
+            setDefault("server.port", "0");
+            setDefault("server.https.enabled", "false");
+            setDefault("scan.writeBehind.journalDir", workDir.resolve("journal").toString());
+            setDefault("scan.offline.logDir", workDir.resolve("offline").toString());
+
+            launcher = new WebServerLauncher();
+            launcher.start();
+            URI scanUri = URI.create("http://localhost:" + launcher.getHttpPort() + "/api/attendance/scan");
+
+            List<Scan> schedule = buildSchedule(employees, morningSeconds * 1000L, new Random(seed));
+            System.out.println("\nReplaying " + schedule.size() + " scans...");
+            long runMillis = replay(scanUri, schedule);
+            waitForBackgroundWrites(scanUri);
+
+            printLatencyReport(schedule, runMillis);
+            printServerMetrics(URI.create("http://localhost:" + launcher.getHttpPort() + "/api/metrics"));
+            exitCode = checkAnomalies(jdbcUrl, user, password, schedule) == 0 ? 0 : 1;
+
+        } finally {
+            if (launcher != null) {
+                launcher.stop();
+            }
+            if (embedded != null) {
+                embedded.stop();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    // ========== SETUP ==========
+
+    private static DB startEmbeddedDatabase(Path workDir) throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);  // any free port
+        config.setDataDir(workDir.resolve("mariadb").toString());
+        if ("root".equals(System.getProperty("user.name"))) {
+            config.addArg("--user=root");  // mariadbd refuses to run as root otherwise
+        }
+        DB db = DB.newEmbeddedDB(config.build());
+        db.start();
+
+        // Created over JDBC - DB.createDB() needs the mariadb command-line client's libraries
+        try (Connection conn = DriverManager.getConnection(
+                "jdbc:mysql://localhost:" + db.getConfiguration().getPort() + "/mysql", "root", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE DATABASE IF NOT EXISTS loadtest");
+        }
+        System.out.println("✓ Embedded MariaDB started on port " + db.getConfiguration().getPort());
+        return db;
+    }
+
+    private static void createSchema(String jdbcUrl, String user, String password) throws Exception {
+        String script;
+        try (InputStream input = ScanLoadHarness.class.getResourceAsStream("/loadtest/schema.sql")) {
+            script = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String withoutComments = Arrays.stream(script.split("\n"))
+                .filter(line -> !line.trim().startsWith("--"))
+                .collect(Collectors.joining("\n"));
+
+        try (Connection conn = DriverManager.getConnection(jdbcUrl, user, password);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS attendance_records");
+            stmt.execute("DROP TABLE IF EXISTS employees");
+            stmt.execute("DROP TABLE IF EXISTS users");
+            for (String sql : withoutComments.split(";")) {
+                if (!sql.isBlank()) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+    }
+
+    private static void seedEmployees(String jdbcUrl, String user, String password, int count) throws Exception {
+        try (Connection conn = DriverManager.getConnection(jdbcUrl + "?rewriteBatchedStatements=true", user, password)) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement users = conn.prepareStatement(
+                    "INSERT INTO users (user_id, username, password_hash, email, first_name, last_name, role) " +
+                    "VALUES (?, ?, 'x', ?, 'Load', ?, 'EMPLOYEE')");
+                 PreparedStatement employees = conn.prepareStatement(
+                    "INSERT INTO employees (employee_id, user_id, department, position, qr_code, hire_date) " +
+                    "VALUES (?, ?, 'Production', 'Operator', ?, CURDATE())")) {
+                for (int id = 1; id <= count; id++) {
+                    users.setInt(1, id);
+                    users.setString(2, "load" + id);
+                    users.setString(3, "load" + id + "@example.com");
+                    users.setString(4, "Tester" + id);
+                    users.addBatch();
+
+                    employees.setInt(1, id);
+                    employees.setInt(2, id);
+                    employees.setString(3, qrCode(id));
+                    employees.addBatch();
+                }
+                users.executeBatch();
+                employees.executeBatch();
+            }
+            conn.commit();
+        }
+        System.out.println("✓ Seeded " + count + " employees");
+    }
+
+    private static String qrCode(int employeeId) {
+        return String.format("LOAD-%06d", employeeId);
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    // ========== WORKLOAD ==========
+
+    /**
+     * One scheduled scan and what happened to it
+     */
+    private static class Scan {
+        final long atMillis;
+        final int employeeId;
+        final String gate;
+        final boolean checkOut;
+
+        volatile int status;          // HTTP status, -1 = request failed
+        volatile long latencyMillis;
+        volatile boolean accepted;    // "success": true
+        volatile boolean repeat;      // answered from the de-duplication window
+
+        Scan(long atMillis, int employeeId, String gate, boolean checkOut) {
+            this.atMillis = atMillis;
+            this.employeeId = employeeId;
+            this.gate = gate;
+            this.checkOut = checkOut;
+        }
+    }
+
+    /**
+     * A morning of scans. Arrivals are normally distributed around 40% of the window (the shift
+     * start); 20% linger and get re-scanned, 2% are scanned at both gates at once, 15% check out
+     * before the end, a fifth of those at both gates at once.
+     */
+    private static List<Scan> buildSchedule(int employees, long windowMillis, Random random) {
+        List<Scan> schedule = new ArrayList<>();
+        for (int id = 1; id <= employees; id++) {
+            long arrival = clamp((long) (windowMillis * (0.4 + 0.15 * random.nextGaussian())), windowMillis * 9 / 10);
+            int gate = random.nextInt(GATES.length);
+            schedule.add(new Scan(arrival, id, GATES[gate], false));
+
+            if (random.nextDouble() < 0.20) {
+                int repeats = 1 + random.nextInt(3);
+                for (int r = 1; r <= repeats; r++) {
+                    schedule.add(new Scan(arrival + r * (300 + random.nextInt(700)), id, GATES[gate], false));
+                }
+            }
+            if (random.nextDouble() < 0.02) {
+                schedule.add(new Scan(arrival, id, GATES[1 - gate], false));
+            }
+            if (random.nextDouble() < 0.15) {
+                long leave = clamp(arrival + windowMillis / 10 + (long) (random.nextDouble() * windowMillis / 2),
+                        windowMillis);
+                schedule.add(new Scan(leave, id, GATES[gate], true));
+                if (random.nextDouble() < 0.2) {
+                    schedule.add(new Scan(leave, id, GATES[1 - gate], true));
+                }
+            }
+        }
+        schedule.sort(Comparator.comparingLong(scan -> scan.atMillis));
+        return schedule;
+    }
+
+    private static long clamp(long value, long max) {
+        return Math.max(0, Math.min(value, max));
+    }
+
+    /**
+     * Send every scan at its scheduled time
+     *
+     * @return Wall-clock duration of the run
+     */
+    private static long replay(URI uri, List<Scan> schedule) {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>(schedule.size());
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        AtomicInteger outstanding = new AtomicInteger();
+        long start = System.currentTimeMillis();
+
+        for (Scan scan : schedule) {
+            long wait = start + scan.atMillis - System.currentTimeMillis();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            JsonObject body = new JsonObject();
+            body.addProperty("qrCode", qrCode(scan.employeeId));
+            body.addProperty("action", scan.checkOut ? "checkout" : "checkin");
+            body.addProperty("location", scan.gate);
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(body)))
+                    .build();
+
+            long scheduledAt = start + scan.atMillis;
+            maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+            inFlight.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .handle((response, error) -> {
+                        scan.latencyMillis = System.currentTimeMillis() - scheduledAt;
+                        outstanding.decrementAndGet();
+                        if (error != null) {
+                            scan.status = -1;
+                            return null;
+                        }
+                        scan.status = response.statusCode();
+                        scan.repeat = response.headers().firstValue("X-Scan-Repeat").isPresent();
+                        try {
+                            JsonObject json = gson.fromJson(response.body(), JsonObject.class);
+                            scan.accepted = json != null && json.has("success") && json.get("success").getAsBoolean();
+                        } catch (RuntimeException e) {
+                            scan.accepted = false;
+                        }
+                        return null;
+                    }));
+        }
+
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+        System.out.println("Max requests in flight: " + maxOutstanding.get());
+        return System.currentTimeMillis() - start;
+    }
+
+    /**
+     * In write-behind or offline mode acknowledged scans may still be on their way to the database
+     */
+    private static void waitForBackgroundWrites(URI uri) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        long deadline = System.currentTimeMillis() + 60000;
+        while (System.currentTimeMillis() < deadline) {
+            String body = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            JsonObject stats = gson.fromJson(body, JsonObject.class);
+            long pending = 0;
+            if (stats.has("writeBehind")) {
+                pending += stats.getAsJsonObject("writeBehind").get("pending").getAsLong();
+            }
+            if (stats.has("offline")) {
+                pending += stats.getAsJsonObject("offline").get("pendingScans").getAsLong();
+            }
+            if (pending == 0) {
+                Thread.sleep(stats.has("writeBehind") ? 1000 : 0);  // the last batch may be mid-flight
+                return;
+            }
+            Thread.sleep(250);
+        }
+        System.err.println("⚠ Background writes still pending after 60s");
+    }
+
+    // ========== REPORT ==========
+
+    private static void printLatencyReport(List<Scan> schedule, long runMillis) {
+        long[] latencies = schedule.stream().mapToLong(scan -> scan.latencyMillis).sorted().toArray();
+        Map<String, Long> byStatus = new TreeMap<>(schedule.stream().collect(Collectors.groupingBy(
+                scan -> scan.status == -1 ? "failed" : String.valueOf(scan.status), Collectors.counting())));
+        long repeats = schedule.stream().filter(scan -> scan.repeat).count();
+
+        System.out.println();
+        System.out.printf("Throughput: %.0f scans/s (%d scans in %.1fs)%n",
+                schedule.size() * 1000.0 / runMillis, schedule.size(), runMillis / 1000.0);
+        System.out.printf("Latency: p50 %d ms | p95 %d ms | p99 %d ms | p99.9 %d ms | max %d ms%n",
+                percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99),
+                percentile(latencies, 99.9), latencies[latencies.length - 1]);
+        System.out.println("Responses: " + byStatus + ", answered from the repeat window: " + repeats);
+    }
+
+    /**
+     * The server's own view (/api/metrics): call counts per endpoint/DAO method and the pool gauges
+     */
+    private static void printServerMetrics(URI uri) throws Exception {
+        String text = HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        System.out.println("Server metrics:");
+        for (String line : text.split("\n")) {
+            if (line.startsWith("http_request_duration_seconds_count") || line.startsWith("dao_method_duration_seconds_count")
+                    || line.contains("_errors_total{") || line.startsWith("db_pool_")) {
+                System.out.println("  " + line);
+            }
+        }
+    }
+
+    private static long percentile(long[] sorted, double percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * Compare what the server acknowledged with what is in attendance_records
+     *
+     * @return Number of anomalies
+     */
+    private static int checkAnomalies(String jdbcUrl, String user, String password, List<Scan> schedule)
+            throws Exception {
+        Map<Integer, Integer> acceptedCheckIns = new ConcurrentHashMap<>();
+        Map<Integer, Integer> acceptedCheckOuts = new ConcurrentHashMap<>();
+        for (Scan scan : schedule) {
+            if (scan.status == 200 && scan.accepted && !scan.repeat) {
+                (scan.checkOut ? acceptedCheckOuts : acceptedCheckIns).merge(scan.employeeId, 1, Integer::sum);
+            }
+        }
+
+        List<String> anomalies = new ArrayList<>();
+        acceptedCheckIns.forEach((id, count) -> {
+            if (count > 1) anomalies.add("employee " + id + ": check-in acknowledged " + count + " times");
+        });
+        acceptedCheckOuts.forEach((id, count) -> {
+            if (count > 1) anomalies.add("employee " + id + ": check-out acknowledged " + count + " times");
+        });
+
+        Map<Integer, Integer> rowsPerEmployee = new TreeMap<>();
+        Set<Integer> checkedOutRows = ConcurrentHashMap.newKeySet();
+        try (Connection conn = DriverManager.getConnection(jdbcUrl, user, password);
+             Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT employee_id, check_in_time, check_out_time FROM attendance_records WHERE date = CURDATE()")) {
+                while (rs.next()) {
+                    int id = rs.getInt("employee_id");
+                    rowsPerEmployee.merge(id, 1, Integer::sum);
+                    if (rs.getTimestamp("check_out_time") != null) {
+                        checkedOutRows.add(id);
+                        if (rs.getTimestamp("check_out_time").before(rs.getTimestamp("check_in_time"))) {
+                            anomalies.add("employee " + id + ": check-out before check-in");
+                        }
+                    }
+                }
+            }
+        }
+
+        rowsPerEmployee.forEach((id, rows) -> {
+            if (rows > 1) anomalies.add("employee " + id + ": " + rows + " rows for today");
+        });
+        acceptedCheckIns.keySet().forEach(id -> {
+            if (!rowsPerEmployee.containsKey(id)) anomalies.add("employee " + id + ": acknowledged check-in not written");
+        });
+        acceptedCheckOuts.keySet().forEach(id -> {
+            if (!checkedOutRows.contains(id)) anomalies.add("employee " + id + ": acknowledged check-out not written");
+        });
+
+        System.out.println();
+        System.out.println("Rows written: " + rowsPerEmployee.size() + ", check-ins acknowledged: "
+                + acceptedCheckIns.size() + ", check-outs acknowledged: " + acceptedCheckOuts.size());
+        if (anomalies.isEmpty()) {
+            System.out.println("✓ No anomalies");
+        } else {
+            System.out.println("✗ " + anomalies.size() + " anomalies:");
+            anomalies.stream().limit(50).forEach(anomaly -> System.out.println("   " + anomaly));
+        }
+        return anomalies.size();
+    }
+}
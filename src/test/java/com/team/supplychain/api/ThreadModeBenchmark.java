@@ -0,0 +1,157 @@
+package com.team.supplychain.api;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Benchmark: platform vs virtual request threads (WebServerLauncher.createThreadPool)
+ *
+ * Starts Jetty with a servlet that imitates a scan: wait for one of 10 "connections"
+ * (like the Hikari pool + DatabaseConnection.enableAccessLimit), hold it for the
+ * simulated JDBC time, answer. Then fires many concurrent requests and reports
+ * throughput, latency percentiles and peak JVM thread count for each mode.
+ *
+ * No database needed. Virtual mode is skipped on runtimes older than Java 21.
+ *
+ * Usage (after mvn test-compile):
+ *   java -cp target/classes:target/test-classes:<dependencies> \
+ *        com.team.supplychain.api.ThreadModeBenchmark [requests] [concurrency] [dbMillis]
+ * Defaults: 4000 requests, 2000 concurrent, 50ms per simulated database call
+ */
+public class ThreadModeBenchmark {
+
+    private static final int POOL_SIZE = 10;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        long dbMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+
+        System.out.println("=== Thread mode benchmark ===");
+        System.out.println("Java " + System.getProperty("java.version") + ", " + requests + " requests, "
+                + concurrency + " concurrent, " + dbMillis + "ms simulated DB time, pool of " + POOL_SIZE);
+        System.out.println();
+
+        for (String mode : new String[]{"platform", "virtual"}) {
+            run(mode, requests, concurrency, dbMillis);
+        }
+    }
+
+    private static void run(String mode, int requests, int concurrency, long dbMillis) throws Exception {
+        QueuedThreadPool threadPool = WebServerLauncher.createThreadPool(mode, 200);
+        if ("virtual".equals(mode) && threadPool.getVirtualThreadsExecutor() == null) {
+            System.out.println("[virtual] skipped - needs a Java 21+ runtime\n");
+            return;
+        }
+
+        Server server = new Server(threadPool);
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(0);
+        connector.setAcceptQueueSize(concurrency);
+        server.addConnector(connector);
+
+        ServletContextHandler context = new ServletContextHandler();
+        context.addServlet(new ServletHolder(new SimulatedScanServlet(dbMillis)), "/scan");
+        server.setHandler(context);
+        server.start();
+
+        try {
+            URI uri = URI.create("http://localhost:" + connector.getLocalPort() + "/scan");
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+
+            // Warm-up
+            fire(client, uri, Math.min(200, requests), 50);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long start = System.nanoTime();
+            long[] latencies = fire(client, uri, requests, concurrency);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            System.out.printf("[%s] %.0f req/s | p50 %d ms | p95 %d ms | p99 %d ms | max %d ms | peak JVM threads %d%n%n",
+                    mode, requests / seconds,
+                    percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99),
+                    latencies[latencies.length - 1], threads.getPeakThreadCount());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Send requests with at most `concurrency` in flight
+     *
+     * @return Latency of each request in milliseconds
+     */
+    private static long[] fire(HttpClient client, URI uri, int requests, int concurrency) {
+        Semaphore inFlight = new Semaphore(concurrency);
+        long[] latencies = new long[requests];
+        List<CompletableFuture<Void>> futures = new ArrayList<>(requests);
+
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            inFlight.acquireUninterruptibly();
+            long sent = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(120)).GET().build();
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        latencies[index] = (System.nanoTime() - sent) / 1_000_000;
+                        inFlight.release();
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * Stand-in for AttendanceServlet: borrow a "connection", block on "JDBC", answer
+     */
+    private static class SimulatedScanServlet extends HttpServlet {
+        private final Semaphore connections = new Semaphore(POOL_SIZE, true);
+        private final long dbMillis;
+
+        SimulatedScanServlet(long dbMillis) {
+            this.dbMillis = dbMillis;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            connections.acquireUninterruptibly();
+            try {
+                Thread.sleep(dbMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                connections.release();
+            }
+            resp.setContentType("application/json");
+            resp.getWriter().print("{\"success\":true}");
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.models.AttendanceScan;
+import com.team.supplychain.models.Employee;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for AttendanceDAO
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AttendanceDAOTest {
+
+    private static AttendanceDAO attendanceDAO;
+    private static Employee testEmployee;
+
+    @BeforeAll
+    static void setUp() {
+        attendanceDAO = new AttendanceDAO();
+        System.out.println("AttendanceDAOTest: Starting tests...");
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test finding an employee to scan")
+    void testFindEmployee() {
+        List<Employee> employees = new EmployeeDAO().getAllEmployees();
+        assertFalse(employees.isEmpty(), "Should have at least one employee for testing");
+        testEmployee = employees.get(0);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test check-in scan creates or finds today's record")
+    void testRecordScan_CheckIn() {
+        AttendanceDAO.ScanResult result = attendanceDAO.recordScan(
+                testEmployee.getEmployeeId(), testEmployee.getQrCode(), "Test Gate", false);
+
+        assertNotEquals(AttendanceDAO.ScanOutcome.FAILED, result.outcome, "Scan should not fail");
+        assertNotNull(result.attendance, "Today's record should be returned");
+        assertEquals(testEmployee.getEmployeeId(), result.attendance.getEmployeeId());
+        System.out.println("First scan outcome: " + result.outcome);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test repeated check-in scan is reported as duplicate")
+    void testRecordScan_DuplicateCheckIn() {
+        AttendanceDAO.ScanResult result = attendanceDAO.recordScan(
+                testEmployee.getEmployeeId(), testEmployee.getQrCode(), "Test Gate", false);
+
+        assertFalse(result.isSuccess(), "Second check-in on the same day should not create a record");
+        assertTrue(result.outcome == AttendanceDAO.ScanOutcome.ALREADY_CHECKED_IN
+                || result.outcome == AttendanceDAO.ScanOutcome.ALREADY_COMPLETED);
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test simultaneous check-outs from two gates record only one")
+    void testRecordScan_ConcurrentCheckOut() throws Exception {
+        ExecutorService gates = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Callable<AttendanceDAO.ScanResult> scan = () -> {
+            start.await();
+            return attendanceDAO.recordScan(testEmployee.getEmployeeId(), testEmployee.getQrCode(), "Test Gate", true);
+        };
+
+        Future<AttendanceDAO.ScanResult> gate1 = gates.submit(scan);
+        Future<AttendanceDAO.ScanResult> gate2 = gates.submit(scan);
+        start.countDown();
+
+        AttendanceDAO.ScanResult r1 = gate1.get(30, TimeUnit.SECONDS);
+        AttendanceDAO.ScanResult r2 = gate2.get(30, TimeUnit.SECONDS);
+        gates.shutdown();
+
+        assertFalse(r1.isSuccess() && r2.isSuccess(), "Only one gate may record the check-out");
+        assertNotNull(r1.attendance);
+        assertNotNull(r2.attendance);
+        assertEquals(r1.attendance.getCheckOutTime(), r2.attendance.getCheckOutTime(),
+                "Both gates should see the same final check-out time");
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test bulk upload uses device timestamps and rolls back unless committed")
+    void testBulkSession_DeviceTimestamps() throws Exception {
+        // A day far in the past so it can't collide with real scans
+        LocalDateTime checkIn = LocalDate.of(2001, 1, 2).atTime(8, 15);
+        List<AttendanceScan> scans = List.of(
+                new AttendanceScan(0, testEmployee.getQrCode(), "Test Gate", true, checkIn.plusHours(8)),
+                new AttendanceScan(0, testEmployee.getQrCode(), "Test Gate", false, checkIn),
+                new AttendanceScan(0, "NO-SUCH-BADGE", "Test Gate", false, checkIn));
+
+        try (BulkScanSession session = attendanceDAO.openBulkSession()) {
+            List<AttendanceDAO.ScanResult> results = session.process(scans);
+
+            // Decided in scan-time order: the check-in (listed second) comes first
+            assertEquals(AttendanceDAO.ScanOutcome.CHECKED_OUT, results.get(0).outcome);
+            assertEquals(AttendanceDAO.ScanOutcome.CHECKED_IN, results.get(1).outcome);
+            assertEquals(AttendanceDAO.ScanOutcome.UNKNOWN_BADGE, results.get(2).outcome);
+            assertEquals(checkIn, results.get(1).attendance.getCheckInTime(), "Device time should be kept");
+            // No commit - nothing is left behind
+        }
+        assertTrue(attendanceDAO.getAttendanceByDateRange(testEmployee.getEmployeeId(),
+                checkIn.toLocalDate(), checkIn.toLocalDate()).isEmpty(), "Uncommitted upload should roll back");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        System.out.println("AttendanceDAOTest: All tests completed");
+    }
+}
@@ -0,0 +1,81 @@
+package com.team.supplychain.dao;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for AuditLogSearch word handling (no database)
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AuditLogSearchTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test text is split into lower-case words of letters and digits")
+    void testTokenize() {
+        assertEquals(List.of("added", "50", "units", "of", "sku", "12345"),
+            AuditLogSearch.tokenize("Added 50 units of SKU-12345"));
+        assertTrue(AuditLogSearch.tokenize(null).isEmpty());
+        assertEquals(AuditLogSearch.MAX_TERM_LENGTH, AuditLogSearch.tokenize("x".repeat(100)).get(0).length());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test word positions run across a log's fields with a gap between fields")
+    void testPostings() {
+        List<Object[]> postings = AuditLogSearch.postings("admin", "Admin reset", "LOG0000042");
+
+        assertEquals(4, postings.size());
+        assertEquals("admin", postings.get(0)[0]);
+        assertEquals(0, postings.get(0)[1]);
+        assertEquals("admin", postings.get(1)[0]);
+        assertEquals(2, postings.get(1)[1], "The next field starts after a gap");
+        assertEquals(3, postings.get(2)[1]);
+        assertEquals(5, postings.get(3)[1]);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test quoted phrases add their words and a phrase check")
+    void testParsePhrase() {
+        AuditLogSearch.Query query = AuditLogSearch.parse("admin \"Added 50 units\"");
+
+        assertEquals(List.of("added", "50", "units", "admin"), query.words);
+        assertEquals(List.of("added 50 units"), query.phrases);
+        assertNull(AuditLogSearch.parse("  - ! "), "Text without words is no search");
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test words match as prefixes, one-letter words exactly")
+    void testAppendMatches() {
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+
+        AuditLogSearch.appendMatches(sql, params, AuditLogSearch.parse("adm x"));
+
+        assertEquals(List.of("adm%", "x", 2), params);
+        assertTrue(sql.toString().contains("term LIKE ?"));
+        assertTrue(sql.toString().contains("term = ?"));
+        assertTrue(sql.toString().endsWith("HAVING COUNT(*) = ?"));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test phrases are checked on word positions, the last word as a prefix")
+    void testAppendPhraseChecks() {
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+
+        AuditLogSearch.appendPhraseChecks(sql, params, AuditLogSearch.parse("\"SKU-12345 add\""));
+
+        assertEquals(List.of("12345", "add%", "sku"), params);
+        assertTrue(sql.toString().contains("p1.pos = p0.pos + 1"));
+        assertTrue(sql.toString().contains("p2.pos = p0.pos + 2"));
+        assertTrue(sql.toString().contains("p0.log_id = audit_logs.log_id"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.team.supplychain.dao;
+
+import com.team.supplychain.models.AuditLog;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for AuditLogSink (no database - batches go to a list)
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AuditLogSinkTest {
+
+    private static AuditLog event(String result) {
+        return new AuditLog(LocalDateTime.now(), 1, "testuser", "READ", "Test Module", "Sink test", null, result);
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test queued events are written in batches")
+    void testBatching() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        AuditLogSink sink = new AuditLogSink(true, 100, 10, 50L, AuditLogSink.Overflow.BLOCK, 1000L,
+                batch -> batchSizes.add(batch.size()), null);
+        sink.start();
+
+        for (int i = 0; i < 25; i++) {
+            assertTrue(sink.submit(event("SUCCESS")));
+        }
+        assertTrue(sink.flush(5000), "Queue should drain");
+        sink.stop(1000);
+
+        assertEquals(25, sink.getWritten());
+        assertEquals(25, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 10), "No batch may exceed maxSize");
+        assertTrue(batchSizes.size() < 25, "Events should share batches");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test a full queue drops SUCCESS events before failures")
+    void testDropSuccessFirst() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> results = new CopyOnWriteArrayList<>();
+        AuditLogSink sink = new AuditLogSink(true, 2, 1, 0L, AuditLogSink.Overflow.DROP_SUCCESS, 100L,
+                batch -> {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);  // Writer stuck - the queue fills up
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    batch.forEach(log -> results.add(log.getResult()));
+                }, null);
+        sink.start();
+
+        assertTrue(sink.submit(event("SUCCESS")));  // Taken by the (stuck) writer
+        Thread.sleep(200);
+        assertTrue(sink.submit(event("SUCCESS")));
+        assertTrue(sink.submit(event("SUCCESS")));  // Queue now full
+        assertFalse(sink.submit(event("SUCCESS")), "New SUCCESS event is dropped");
+        assertTrue(sink.submit(event("FAILED")), "FAILED event takes a SUCCESS event's place");
+
+        release.countDown();
+        assertTrue(sink.flush(5000));
+        sink.stop(1000);
+
+        assertEquals(2, sink.getDropped());
+        assertEquals(3, results.size());
+        assertTrue(results.contains("FAILED"));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test a rejected batch is retried one event at a time")
+    void testFailedBatchRetriedIndividually() {
+        List<String> written = new CopyOnWriteArrayList<>();
+        AuditLogSink sink = new AuditLogSink(true, 100, 10, 50L, AuditLogSink.Overflow.BLOCK, 1000L,
+                batch -> {
+                    if (batch.size() > 1) {
+                        throw new SQLException("batch too big", "23000");
+                    }
+                    written.add(batch.get(0).getResult());
+                }, null);
+        sink.start();
+
+        sink.submit(event("SUCCESS"));
+        sink.submit(event("FAILED"));
+        assertTrue(sink.flush(5000));
+        sink.stop(1000);
+
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test synchronous mode writes on the caller's thread")
+    void testSynchronousMode() {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        AuditLogSink sink = new AuditLogSink(false, 100, 10, 50L, AuditLogSink.Overflow.BLOCK, 1000L,
+                batch -> threads.add(Thread.currentThread().getName()), null);
+        sink.start();
+
+        assertTrue(sink.submit(event("SUCCESS")));
+
+        assertEquals(List.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test a batch that can't reach the database is kept and retried")
+    void testTransientFailureRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        AuditLogSink sink = new AuditLogSink(true, 100, 10, 50L, AuditLogSink.Overflow.BLOCK, 1000L,
+                batch -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        throw new SQLTransientConnectionException("database down");
+                    }
+                    batchSizes.add(batch.size());
+                }, null);
+        sink.start();
+
+        sink.submit(event("SUCCESS"));
+        sink.submit(event("SUCCESS"));
+        assertTrue(sink.flush(5000), "Batch should be written after the backoff");
+        sink.stop(1000);
+
+        assertEquals(2, sink.getWritten());
+        assertEquals(0, sink.getFailed(), "Connection problems are not failures");
+        assertEquals(List.of(2), batchSizes, "The batch is retried whole, not split");
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test a full queue drops the event after the block timeout instead of writing it")
+    void testBlockTimeoutDrops() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        AuditLogSink sink = new AuditLogSink(true, 1, 1, 0L, AuditLogSink.Overflow.BLOCK, 100L,
+                batch -> {
+                    threads.add(Thread.currentThread().getName());
+                    try {
+                        release.await(5, TimeUnit.SECONDS);  // Writer stuck - the queue fills up
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, null);
+        sink.start();
+
+        assertTrue(sink.submit(event("FAILED")));  // Taken by the (stuck) writer
+        Thread.sleep(200);
+        assertTrue(sink.submit(event("FAILED")));  // Queue now full
+        assertFalse(sink.submit(event("FAILED")), "Dropped after waiting blockTimeoutMs");
+
+        release.countDown();
+        assertTrue(sink.flush(5000));
+        sink.stop(1000);
+
+        assertEquals(1, sink.getDropped());
+        assertFalse(threads.contains(Thread.currentThread().getName()), "The caller must never write itself");
+    }
+}
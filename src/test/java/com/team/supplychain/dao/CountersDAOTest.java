@@ -0,0 +1,62 @@
+package com.team.supplychain.dao;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for CountersDAO
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class CountersDAOTest {
+
+    private static CountersDAO countersDAO;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        countersDAO = new CountersDAO();
+        countersDAO.reconcile();
+        System.out.println("CountersDAOTest: Starting tests...");
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test counters need no correction right after reconciling")
+    void testReconcileIsStable() throws Exception {
+        assertEquals(0, countersDAO.reconcile(), "A second reconcile should find no drift");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test counters are consistent with each other")
+    void testCountersConsistency() {
+        int totalItems = countersDAO.get(CountersDAO.INVENTORY_ITEMS).intValue();
+        int lowStock = countersDAO.get(CountersDAO.INVENTORY_LOW_STOCK).intValue();
+        int outOfStock = countersDAO.get(CountersDAO.INVENTORY_OUT_OF_STOCK).intValue();
+
+        assertTrue(lowStock <= totalItems, "Low stock count should not exceed total items count");
+        assertTrue(outOfStock <= lowStock, "Out of stock count should not exceed low stock count");
+        assertTrue(countersDAO.get(CountersDAO.INVENTORY_VALUE).signum() >= 0, "Inventory value should be non-negative");
+        assertTrue(countersDAO.get(CountersDAO.REQUISITIONS_PENDING).signum() >= 0, "Pending count should be non-negative");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test creating an audit log bumps today's counter in the same transaction")
+    void testAuditLogUpdatesTodayCounter() throws Exception {
+        BigDecimal before = countersDAO.getToday(CountersDAO.AUDIT_LOGS_DAY);
+
+        boolean created = new AuditLogDAO().createAuditLog(null, "testuser", "READ", "Test Module", "Counter test action", "SUCCESS");
+
+        assertTrue(created, "Audit log should be created");
+        assertEquals(before.add(BigDecimal.ONE).intValue(), countersDAO.getToday(CountersDAO.AUDIT_LOGS_DAY).intValue());
+        assertEquals(0, countersDAO.reconcile(), "The write path must leave no drift behind");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        System.out.println("CountersDAOTest: All tests completed");
+    }
+}
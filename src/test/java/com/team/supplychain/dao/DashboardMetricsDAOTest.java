@@ -0,0 +1,69 @@
+package com.team.supplychain.dao;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for DashboardMetricsDAO
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class DashboardMetricsDAOTest {
+
+    private static DashboardMetricsDAO dashboardMetricsDAO;
+
+    @BeforeAll
+    static void setUp() {
+        dashboardMetricsDAO = new DashboardMetricsDAO();
+        System.out.println("DashboardMetricsDAOTest: Starting tests...");
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test snapshot counts match the individual DAO counts")
+    void testSnapshotMatchesDAOs() throws Exception {
+        DashboardMetricsDAO.Snapshot snapshot = dashboardMetricsDAO.refresh();
+
+        assertEquals(new UserDAO().getActiveUserCount(), snapshot.getActiveUsers());
+        assertEquals(new InventoryDAO().getTotalItemsCount(), snapshot.getTotalItems());
+        assertEquals(new InventoryDAO().getLowStockCount(), snapshot.getLowStockCount());
+        assertEquals(new InventoryDAO().getOutOfStockCount(), snapshot.getOutOfStockCount());
+        assertEquals(new RequisitionDAO().getPendingRequisitionsCount(), snapshot.getPendingRequisitions());
+        assertTrue(snapshot.getRecentAuditLogs() >= 0, "Recent audit log count should be non-negative");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test concurrent callers share one snapshot within the TTL")
+    void testSnapshotIsShared() throws Exception {
+        DashboardMetricsDAO.Snapshot first = dashboardMetricsDAO.refresh();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<DashboardMetricsDAO.Snapshot>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> new DashboardMetricsDAO().getSnapshot()));
+            }
+            for (Future<DashboardMetricsDAO.Snapshot> result : results) {
+                assertSame(first, result.get(), "Callers within the TTL must get the cached snapshot");
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        DashboardMetricsDAO.Snapshot refreshed = dashboardMetricsDAO.refresh();
+        assertNotSame(first, refreshed, "refresh() must reload even within the TTL");
+        assertTrue(refreshed.getLoadedAtMillis() >= first.getLoadedAtMillis());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        System.out.println("DashboardMetricsDAOTest: All tests completed");
+    }
+}
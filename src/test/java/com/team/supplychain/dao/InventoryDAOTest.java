@@ -1,5 +1,6 @@
 package com.team.supplychain.dao;
 
+import com.team.supplychain.utils.DatabaseConnection.Workload;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -79,6 +80,26 @@ class InventoryDAOTest {
             "Out of stock count should not exceed low stock count");
     }
 
+    @Test
+    @Order(7)
+    @DisplayName("Test counts inside a unit of work match per-call counts")
+    void testCountsInUnitOfWork() throws Exception {
+        int total = inventoryDAO.getTotalItemsCount();
+        int lowStock = inventoryDAO.getLowStockCount();
+
+        try (UnitOfWork work = UnitOfWork.beginRead(Workload.INTERACTIVE)) {
+            assertEquals(total, inventoryDAO.getTotalItemsCount());
+            assertEquals(lowStock, inventoryDAO.getLowStockCount());
+        }
+        assertThrows(IllegalStateException.class, () -> {
+            try (UnitOfWork outer = UnitOfWork.begin(Workload.INTERACTIVE);
+                 UnitOfWork inner = UnitOfWork.begin(Workload.INTERACTIVE)) {
+                fail("A second unit of work on the same thread must be refused");
+            }
+        });
+        assertEquals(total, inventoryDAO.getTotalItemsCount(), "DAO calls work normally after the unit of work closes");
+    }
+
     @AfterAll
     static void tearDown() {
         System.out.println("InventoryDAOTest: All tests completed");
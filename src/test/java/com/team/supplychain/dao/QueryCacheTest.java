@@ -0,0 +1,81 @@
+package com.team.supplychain.dao;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for QueryCache (no database - the loaders count how often they run)
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class QueryCacheTest {
+
+    private static final String[] TABLES = {"test_items", "test_suppliers"};
+
+    @BeforeEach
+    void setUp() {
+        QueryCache.clear();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test same SQL and parameters are loaded once")
+    void testHit() throws SQLException {
+        AtomicInteger loads = new AtomicInteger();
+
+        List<String> first = QueryCache.get("SELECT * FROM test_items WHERE category = ?", List.of("A"), 60_000L, TABLES,
+                () -> List.of("item-" + loads.incrementAndGet()));
+        List<String> second = QueryCache.get("SELECT * FROM test_items WHERE category = ?", List.of("A"), 60_000L, TABLES,
+                () -> List.of("item-" + loads.incrementAndGet()));
+        QueryCache.get("SELECT * FROM test_items WHERE category = ?", List.of("B"), 60_000L, TABLES,
+                () -> List.of("item-" + loads.incrementAndGet()));
+
+        assertEquals(first, second);
+        assertEquals(2, loads.get(), "Different parameters must be a different entry");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test a write to any of the query's tables reloads it")
+    void testInvalidateByTable() throws SQLException {
+        AtomicInteger loads = new AtomicInteger();
+        QueryCache.Loader<Integer> loader = loads::incrementAndGet;
+
+        assertEquals(1, QueryCache.get("SELECT * FROM test_items", List.of(), 60_000L, TABLES, loader).intValue());
+        QueryCache.invalidate("unrelated_table");
+        assertEquals(1, QueryCache.get("SELECT * FROM test_items", List.of(), 60_000L, TABLES, loader).intValue());
+        QueryCache.invalidate("test_suppliers");
+        assertEquals(2, QueryCache.get("SELECT * FROM test_items", List.of(), 60_000L, TABLES, loader).intValue());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test expired entries are reloaded")
+    void testTtl() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        QueryCache.Loader<Integer> loader = loads::incrementAndGet;
+
+        QueryCache.get("SELECT * FROM test_items", List.of(), 20L, TABLES, loader);
+        Thread.sleep(50);
+        QueryCache.get("SELECT * FROM test_items", List.of(), 20L, TABLES, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test failed loads are not cached")
+    void testFailureNotCached() throws SQLException {
+        assertThrows(SQLException.class, () -> QueryCache.get("SELECT * FROM test_items", List.of(), 60_000L, TABLES,
+                () -> {
+                    throw new SQLException("connection lost");
+                }));
+
+        assertEquals("ok", QueryCache.get("SELECT * FROM test_items", List.of(), 60_000L, TABLES, () -> "ok"));
+        assertTrue(QueryCache.getStats().contains("Entries: 1"));
+    }
+}
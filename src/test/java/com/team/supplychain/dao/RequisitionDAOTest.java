@@ -6,7 +6,12 @@ import org.junit.jupiter.api.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -178,6 +183,27 @@ class RequisitionDAOTest {
         System.out.println("User 1 - Pending: " + pendingCount + ", Approved: " + approvedCount);
     }
 
+    @Test
+    @Order(10)
+    @DisplayName("Test requisition codes are unique under concurrent generation")
+    void testGenerateRequisitionCodeConcurrent() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(pool.submit(requisitionDAO::generateRequisitionCode));
+            }
+            Set<String> codes = new HashSet<>();
+            for (Future<String> future : futures) {
+                String code = future.get();
+                assertTrue(code.startsWith("REQ-"), "Code should start with REQ-");
+                assertTrue(codes.add(code), "Duplicate requisition code: " + code);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @AfterAll
     static void tearDown() {
         System.out.println("RequisitionDAOTest: All tests completed");
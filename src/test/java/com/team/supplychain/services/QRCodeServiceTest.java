@@ -0,0 +1,76 @@
+package com.team.supplychain.services;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for QRCodeService badge signing
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class QRCodeServiceTest {
+
+    private static final byte[] KEY_1 = "first-test-signing-key-32-bytes!".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] KEY_2 = "second-test-signing-key-32-byte!".getBytes(StandardCharsets.UTF_8);
+
+    @BeforeAll
+    static void setUp() {
+        QRCodeService.setSigningKeys(Map.of(1, KEY_1, 2, KEY_2), 2);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        QRCodeService.setSigningKeys(Map.of(), 1);
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test signed badge round-trip")
+    void testSignAndVerify() {
+        String code = QRCodeService.generateSignedCode(42);
+
+        assertTrue(code.startsWith("EMP1.42.2."), "Current key version should be used");
+        assertEquals(QRCodeService.Verification.VALID, QRCodeService.verifySignedCode(code));
+        assertEquals(42, QRCodeService.getSignedEmployeeId(code));
+        assertTrue(QRCodeService.isValidQRCode(code));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test forged and garbled badges are rejected")
+    void testForgeries() {
+        String code = QRCodeService.generateSignedCode(42);
+        String mac = code.substring(code.lastIndexOf('.') + 1);
+
+        assertEquals(QRCodeService.Verification.INVALID,
+                QRCodeService.verifySignedCode("EMP1.43.2." + mac), "MAC of another employee");
+        assertEquals(QRCodeService.Verification.INVALID,
+                QRCodeService.verifySignedCode("EMP1.42.9." + mac), "Unknown key version");
+        assertEquals(QRCodeService.Verification.INVALID, QRCodeService.verifySignedCode("EMP1.42.2"));
+        assertEquals(QRCodeService.Verification.INVALID, QRCodeService.verifySignedCode("EMP1.x.y.z"));
+        assertFalse(QRCodeService.isValidQRCode("EMP1.43.2." + mac));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test badges signed with an older key still verify")
+    void testOldKeyVersion() {
+        QRCodeService.setSigningKeys(Map.of(1, KEY_1), 1);
+        String oldBadge = QRCodeService.generateSignedCode(7);
+
+        QRCodeService.setSigningKeys(Map.of(1, KEY_1, 2, KEY_2), 2);
+        assertEquals(QRCodeService.Verification.VALID, QRCodeService.verifySignedCode(oldBadge));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test plain codes take the compatibility path")
+    void testPlainCodes() {
+        assertEquals(QRCodeService.Verification.PLAIN, QRCodeService.verifySignedCode("QR-15"));
+        assertEquals(QRCodeService.Verification.PLAIN, QRCodeService.verifySignedCode("EMP-00001-ABC123"));
+        assertTrue(QRCodeService.isValidQRCode("QR-15"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.team.supplychain.utils;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for Metrics
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class MetricsTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test histogram counts calls and errors")
+    void testCounts() {
+        Metrics.Histogram histogram = Metrics.histogram("test_counts_duration_seconds", "Test", "method", "a");
+
+        histogram.recordNanos(500_000L, false);
+        histogram.recordNanos(3_000_000L, true);
+        histogram.recordNanos(60_000_000_000L, false);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(1, histogram.getErrorCount());
+        assertSame(histogram, Metrics.histogram("test_counts_duration_seconds", "Test", "method", "a"),
+                "Same name and label must return the same histogram");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test export uses cumulative buckets")
+    void testBuckets() {
+        Metrics.Histogram histogram = Metrics.histogram("test_buckets_duration_seconds", "Bucket test", "method", "b");
+        histogram.recordNanos(500_000L, false);      // <= 1ms
+        histogram.recordNanos(3_000_000L, false);    // <= 5ms
+        histogram.recordNanos(60_000_000_000L, true); // +Inf
+
+        String text = Metrics.toPrometheusText();
+        assertTrue(text.contains("# TYPE test_buckets_duration_seconds histogram"));
+        assertTrue(text.contains("test_buckets_duration_seconds_bucket{method=\"b\",le=\"0.001\"} 1\n"));
+        assertTrue(text.contains("test_buckets_duration_seconds_bucket{method=\"b\",le=\"0.0025\"} 1\n"));
+        assertTrue(text.contains("test_buckets_duration_seconds_bucket{method=\"b\",le=\"0.005\"} 2\n"));
+        assertTrue(text.contains("test_buckets_duration_seconds_bucket{method=\"b\",le=\"10\"} 2\n"));
+        assertTrue(text.contains("test_buckets_duration_seconds_bucket{method=\"b\",le=\"+Inf\"} 3\n"));
+        assertTrue(text.contains("test_buckets_duration_seconds_count{method=\"b\"} 3\n"));
+        assertTrue(text.contains("# TYPE test_buckets_errors_total counter"));
+        assertTrue(text.contains("test_buckets_errors_total{method=\"b\"} 1\n"));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test gauges are read at export time and failing ones are skipped")
+    void testGauges() {
+        long[] value = {5};
+        Metrics.gauge("test_gauge", "Gauge test", () -> value[0]);
+        Metrics.gauge("test_broken_gauge", "Broken", () -> {
+            throw new IllegalStateException("not ready");
+        });
+
+        value[0] = 7;
+        String text = Metrics.toPrometheusText();
+        assertTrue(text.contains("# TYPE test_gauge gauge\ntest_gauge 7\n"));
+        assertFalse(text.contains("test_broken_gauge"));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test unlabelled histogram has no empty braces")
+    void testUnlabelled() {
+        Metrics.histogram("test_plain_duration_seconds", "Plain", null, null).recordNanos(1L, false);
+
+        String text = Metrics.toPrometheusText();
+        assertTrue(text.contains("test_plain_duration_seconds_bucket{le=\"0.001\"} 1\n"));
+        assertTrue(text.contains("test_plain_duration_seconds_count 1\n"));
+        assertTrue(text.contains("test_plain_errors_total 0\n"));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test counters are exported with the counter type")
+    void testCounters() {
+        long[] value = {3};
+        Metrics.counter("test_events_total", "Counter test", () -> value[0]);
+
+        value[0] = 4;
+        String text = Metrics.toPrometheusText();
+        assertTrue(text.contains("# TYPE test_events_total counter\ntest_events_total 4\n"));
+    }
+}
@@ -0,0 +1,160 @@
+package com.team.supplychain.utils;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for SqlStats (runs against a fake in-memory connection, no database)
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SqlStatsTest {
+
+    @BeforeEach
+    void setUp() {
+        SqlStats.reset();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test normalize replaces literals and collapses IN lists")
+    void testNormalize() {
+        assertEquals("SELECT * FROM users WHERE username = ? AND id > ?",
+                SqlStats.normalize("SELECT *  FROM users\n  WHERE username = 'bob' AND id > 42"));
+        assertEquals("SELECT * FROM employees WHERE qr_code IN (...)",
+                SqlStats.normalize("SELECT * FROM employees WHERE qr_code IN (?, ?, ?)"));
+        assertEquals(SqlStats.normalize("SELECT * FROM a WHERE (x, y) IN ((?, ?), (?, ?))"),
+                SqlStats.normalize("SELECT * FROM a WHERE (x, y) IN ((?, ?))"));
+        assertEquals("INSERT INTO t (a, b) VALUES (?, ?), ...",
+                SqlStats.normalize("INSERT INTO t (a, b) VALUES (?, ?), (?, ?), (?, ?)"));
+        assertEquals("SELECT t1.col2 FROM t1", SqlStats.normalize("SELECT t1.col2 FROM t1"),
+                "Digits inside identifiers must be kept");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test query time, rows and wait are recorded")
+    void testRecordsQuery() throws SQLException {
+        Connection conn = SqlStats.wrap(fakeConnection(3, 0), 2_000_000L);
+
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM users WHERE user_id IN (?, ?)");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                // read every row
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM users WHERE user_id IN (?, ?, ?)");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+        }
+        conn.close();
+
+        List<SqlStats.StatementStats> top = SqlStats.top(10);
+        assertEquals(1, top.size(), "Both IN lists must share one entry");
+        SqlStats.StatementStats stats = top.get(0);
+        assertEquals("SELECT * FROM users WHERE user_id IN (...)", stats.getSql());
+        assertEquals("", stats.getCallSite(), "Fast statements don't look up their call site");
+        assertEquals(2, stats.getCalls());
+        assertEquals(4, stats.getRows());
+        assertEquals(2_000_000L, stats.getWaitNanos(), "Connection wait is charged to the first statement only");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test updates count changed rows and failures")
+    void testRecordsUpdates() throws SQLException {
+        Connection conn = SqlStats.wrap(fakeConnection(0, 5), 0L);
+
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE users SET is_active = false WHERE role = ?")) {
+            assertEquals(5, stmt.executeUpdate());
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM broken")) {
+            assertThrows(SQLException.class, stmt::executeUpdate);
+        }
+
+        SqlStats.StatementStats update = SqlStats.top(10, Comparator.comparingLong(SqlStats.StatementStats::getRows)).get(0);
+        assertEquals(5, update.getRows());
+        assertEquals(0, update.getErrors());
+
+        SqlStats.StatementStats failed = SqlStats.top(10, Comparator.comparingLong(SqlStats.StatementStats::getErrors)).get(0);
+        assertEquals("DELETE FROM broken", failed.getSql());
+        assertEquals(1, failed.getErrors());
+
+        String text = SqlStats.toText(SqlStats.top(10));
+        assertTrue(text.contains("UPDATE users SET is_active = false WHERE role = ?"));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test slow statements record their call site and reach the slow-query log")
+    void testSlowQueryLog(@TempDir Path dir) throws Exception {
+        Path log = dir.resolve("slow.log");
+        SqlStats.setSlowQueryLog(1, log);
+        try {
+            Connection conn = SqlStats.wrap(fakeConnection(0, 1), 0L);
+            try (PreparedStatement stmt = conn.prepareStatement("UPDATE users SET last_login = NOW() WHERE user_id = ?")) {
+                stmt.executeUpdate();
+            }
+
+            SqlStats.StatementStats stats = SqlStats.top(10).get(0);
+            assertEquals("SqlStatsTest.testSlowQueryLog", stats.getCallSite());
+
+            // Written by the background thread
+            String text = "";
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!text.contains("UPDATE") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+                text = Files.exists(log) ? Files.readString(log) : "";
+            }
+            assertTrue(text.contains("SqlStatsTest.testSlowQueryLog"));
+            assertTrue(text.contains("UPDATE users SET last_login = NOW() WHERE user_id = ?"));
+        } finally {
+            SqlStats.setSlowQueryLog(0, log);
+        }
+    }
+
+    /**
+     * Connection whose queries return `rows` rows and whose updates change `updated` rows.
+     * Any statement on the "broken" table fails.
+     */
+    private static Connection fakeConnection(int rows, int updated) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (!"prepareStatement".equals(method.getName())) {
+                        return null;
+                    }
+                    String sql = (String) args[0];
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (stmt, stmtMethod, stmtArgs) -> {
+                                if (sql.contains("broken") && stmtMethod.getName().startsWith("execute")) {
+                                    throw new SQLException("table broken does not exist");
+                                }
+                                switch (stmtMethod.getName()) {
+                                    case "executeUpdate":
+                                        return updated;
+                                    case "executeQuery":
+                                        return fakeResultSet(rows);
+                                    default:
+                                        return null;
+                                }
+                            });
+                });
+    }
+
+    private static ResultSet fakeResultSet(int rows) {
+        int[] remaining = {rows};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> "next".equals(method.getName()) ? remaining[0]-- > 0 : null);
+    }
+}
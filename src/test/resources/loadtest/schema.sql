@@ -0,0 +1,48 @@
+-- ============================================
+-- Minimal schema for ScanLoadHarness
+-- Only the tables the scan API touches, with the same keys as production
+-- (see db/db.sql for unique_employee_date)
+-- ============================================
+
+CREATE TABLE users (
+    user_id INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(50) UNIQUE NOT NULL,
+    password_hash VARCHAR(255) NOT NULL,
+    email VARCHAR(100),
+    first_name VARCHAR(50),
+    last_name VARCHAR(50),
+    role VARCHAR(20) NOT NULL DEFAULT 'EMPLOYEE',
+    is_active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    last_login TIMESTAMP NULL
+);
+
+CREATE TABLE employees (
+    employee_id INT AUTO_INCREMENT PRIMARY KEY,
+    user_id INT NOT NULL,
+    department VARCHAR(100),
+    position VARCHAR(100),
+    phone VARCHAR(20),
+    email VARCHAR(100),
+    qr_code VARCHAR(100) UNIQUE,
+    hire_date DATE,
+    is_active BOOLEAN DEFAULT TRUE,
+    FOREIGN KEY (user_id) REFERENCES users(user_id)
+);
+
+CREATE TABLE attendance_records (
+    record_id INT AUTO_INCREMENT PRIMARY KEY,
+    employee_id INT NOT NULL,
+    department VARCHAR(100),
+    check_in_time DATETIME,
+    check_out_time DATETIME,
+    hours_worked DECIMAL(4,2),
+    date DATE NOT NULL,
+    status ENUM('PRESENT', 'ABSENT', 'LATE', 'CHECKED_IN', 'CHECKED_OUT') DEFAULT 'PRESENT',
+    location VARCHAR(100),
+    qr_scan_data VARCHAR(255),
+    notes TEXT,
+    FOREIGN KEY (employee_id) REFERENCES employees(employee_id),
+    UNIQUE KEY unique_employee_date (employee_id, date),
+    INDEX idx_attendance_date (date)
+);